@@ -0,0 +1,131 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.benchmark;
+
+import com.yelp.nrtsearch.server.doc.LoadedDocValues;
+import com.yelp.nrtsearch.server.field.IndexableFieldDef;
+import com.yelp.nrtsearch.server.grpc.MatchAllQuery;
+import com.yelp.nrtsearch.server.grpc.Query;
+import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.handler.SearchHandler;
+import com.yelp.nrtsearch.server.index.ShardState;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager.SearcherAndTaxonomy;
+import org.apache.lucene.index.LeafReaderContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures doc value access, both through the search response fetch path and by iterating {@link
+ * LoadedDocValues} directly over every document in the index, as scripts do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DocValuesBenchmark extends IndexBenchmarkState {
+
+  @Param({"100", "1000"})
+  public int fetchHits;
+
+  private SearchHandler searchHandler;
+  private SearchRequest fetchRequest;
+  private ShardState shardState;
+  private SearcherAndTaxonomy searcherAndTaxonomy;
+
+  @Setup(Level.Trial)
+  public void setUpFetch() throws IOException {
+    searchHandler = new SearchHandler(server.getGlobalState());
+    fetchRequest =
+        SearchRequest.newBuilder()
+            .setIndexName(INDEX_NAME)
+            .setTopHits(fetchHits)
+            .setQuery(Query.newBuilder().setMatchAllQuery(MatchAllQuery.newBuilder()))
+            .addRetrieveFields(SyntheticCorpus.ID_FIELD)
+            .addRetrieveFields(SyntheticCorpus.CATEGORY_FIELD)
+            .addRetrieveFields(SyntheticCorpus.TAGS_FIELD)
+            .addRetrieveFields(SyntheticCorpus.POPULARITY_FIELD)
+            .addRetrieveFields(SyntheticCorpus.TIMESTAMP_FIELD)
+            .addRetrieveFields(SyntheticCorpus.RATING_FIELD)
+            .build();
+    shardState = indexState.getShard(0);
+    searcherAndTaxonomy = shardState.acquire();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownFetch() throws IOException {
+    if (searcherAndTaxonomy != null) {
+      shardState.release(searcherAndTaxonomy);
+      searcherAndTaxonomy = null;
+    }
+  }
+
+  @Benchmark
+  public SearchResponse fetchFields() throws Exception {
+    return searchHandler.handle(indexState, fetchRequest);
+  }
+
+  @Benchmark
+  public long iterateIntDocValues() throws IOException {
+    return sumAll(SyntheticCorpus.POPULARITY_FIELD);
+  }
+
+  @Benchmark
+  public long iterateLongDocValues() throws IOException {
+    return sumAll(SyntheticCorpus.TIMESTAMP_FIELD);
+  }
+
+  @Benchmark
+  public long iterateDoubleDocValues() throws IOException {
+    return sumAll(SyntheticCorpus.RATING_FIELD);
+  }
+
+  @Benchmark
+  public long iterateStringDocValues() throws IOException {
+    return sumAll(SyntheticCorpus.CATEGORY_FIELD);
+  }
+
+  private long sumAll(String field) throws IOException {
+    IndexableFieldDef<?> fieldDef = (IndexableFieldDef<?>) indexState.getFieldOrThrow(field);
+    long sum = 0;
+    for (LeafReaderContext leaf : searcherAndTaxonomy.searcher().getIndexReader().leaves()) {
+      LoadedDocValues<?> docValues = fieldDef.getDocValues(leaf);
+      int maxDoc = leaf.reader().maxDoc();
+      for (int doc = 0; doc < maxDoc; ++doc) {
+        docValues.setDocId(doc);
+        if (!docValues.isEmpty()) {
+          sum += docValues.get(0).hashCode();
+        }
+      }
+    }
+    return sum;
+  }
+}
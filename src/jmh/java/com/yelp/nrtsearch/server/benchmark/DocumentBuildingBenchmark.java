@@ -0,0 +1,122 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.benchmark;
+
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest;
+import com.yelp.nrtsearch.server.grpc.BenchmarkServer;
+import com.yelp.nrtsearch.server.grpc.IndexLiveSettings;
+import com.yelp.nrtsearch.server.handler.AddDocumentHandler.DocumentIndexer;
+import com.yelp.nrtsearch.server.handler.AddDocumentHandler.DocumentsContext;
+import com.yelp.nrtsearch.server.handler.AddDocumentHandler.LuceneDocumentBuilder;
+import com.yelp.nrtsearch.server.index.IndexState;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures conversion of {@link AddDocumentRequest}s into lucene documents, and the full {@link
+ * DocumentIndexer} indexing job. Results are reported per document. The indexing benchmark updates
+ * a fixed set of ids, so the live index size stays bounded. The {@code buildMode} param compares
+ * building all documents on the indexing thread, building them in parallel on the indexing
+ * executor, and recycling fields between documents on the indexing thread. Run with
+ * {@code -prof gc} to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DocumentBuildingBenchmark {
+  private static final String INDEX_NAME = "indexing_benchmark_index";
+  private static final int BATCH_SIZE = 1000;
+  private static final int NUM_BATCHES = 20;
+
+  /**
+   * How documents are built: {@code serial} on the indexing thread, {@code parallel} in tasks of
+   * 100 requests, or {@code reuse} on the indexing thread with field reuse.
+   */
+  @Param({"serial", "parallel", "reuse"})
+  public String buildMode;
+
+  private BenchmarkServer server;
+  private IndexState indexState;
+  private List<List<AddDocumentRequest>> batches;
+  private int batchIndex;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    server =
+        BenchmarkServer.start(
+            String.join(
+                "\n",
+                "documentBuildBatchSize: " + (buildMode.equals("parallel") ? 100 : 0),
+                "documentFieldReuse: " + buildMode.equals("reuse")));
+    indexState =
+        server.createIndex(
+            INDEX_NAME, SyntheticCorpus.FIELDS, IndexLiveSettings.getDefaultInstance());
+    SyntheticCorpus corpus = new SyntheticCorpus(INDEX_NAME, IndexBenchmarkState.CORPUS_SEED);
+    batches =
+        IntStream.range(0, NUM_BATCHES)
+            .mapToObj(i -> corpus.documents(i * BATCH_SIZE, BATCH_SIZE))
+            .toList();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    if (server != null) {
+      server.close();
+      server = null;
+    }
+  }
+
+  private List<AddDocumentRequest> nextBatch() {
+    batchIndex = (batchIndex + 1) % batches.size();
+    return batches.get(batchIndex);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void buildDocuments(Blackhole blackhole) throws Exception {
+    for (AddDocumentRequest request : nextBatch()) {
+      DocumentsContext documentsContext =
+          LuceneDocumentBuilder.getDocumentsContext(request, indexState);
+      blackhole.consume(documentsContext);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public long indexDocuments() throws Exception {
+    return new DocumentIndexer(server.getGlobalState(), nextBatch(), INDEX_NAME).runIndexingJob();
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.benchmark;
+
+import com.google.protobuf.ByteOutput;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import com.yelp.nrtsearch.server.grpc.FileInfo;
+import com.yelp.nrtsearch.server.grpc.RawFileChunk;
+import com.yelp.nrtsearch.server.handler.RecvRawFileV2Handler;
+import com.yelp.nrtsearch.server.nrt.NrtUtils;
+import com.yelp.nrtsearch.server.nrt.SimpleCopyJob.FileChunkStreamingIterator;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures NRT file copy throughput, using the acked streaming copy between {@link
+ * RecvRawFileV2Handler} on the primary side and a {@link FileChunkStreamingIterator} on the replica
+ * side. The largest file in the index is copied on each invocation. Copied bytes are reported as an
+ * auxiliary counter, which gives bytes/sec in the results. Run with {@code -prof gc} to also get
+ * the allocation rate. The {@code zeroCopy} param compares heap chunk reads against sending chunks
+ * from a memory mapping of the file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FileCopyBenchmark extends IndexBenchmarkState {
+
+  @Param({"65536"})
+  public int chunkSize;
+
+  @Param({"100"})
+  public int ackEvery;
+
+  @Param({"200"})
+  public int maxInFlight;
+
+  /** If the primary should send chunks from a memory mapping of the file. */
+  @Param({"false", "true"})
+  public boolean zeroCopy;
+
+  /** If the received chunks should be written to disk, as the replica would. */
+  @Param({"true"})
+  public boolean writeOutput;
+
+  private String copyFileName;
+  private String indexId;
+  private Path outputPath;
+  private Directory outputDirectory;
+
+  /** Counter for the total bytes copied, reported by jmh as a rate. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class CopyCounters {
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+    }
+  }
+
+  @Override
+  protected String getExtraConfig() {
+    return String.join(
+        "\n",
+        "FileCopyConfig:",
+        "  ackedCopy: true",
+        "  chunkSize: " + chunkSize,
+        "  ackEvery: " + ackEvery,
+        "  maxInFlight: " + maxInFlight,
+        "  zeroCopy: " + zeroCopy);
+  }
+
+  @Setup(Level.Trial)
+  public void setUpCopy() throws IOException {
+    Directory indexDir = indexState.getShard(0).indexDir;
+    long maxLength = -1;
+    for (String file : indexDir.listAll()) {
+      if (file.startsWith("segments") || file.endsWith(".lock")) {
+        continue;
+      }
+      long length = indexDir.fileLength(file);
+      if (length > maxLength) {
+        maxLength = length;
+        copyFileName = file;
+      }
+    }
+    if (copyFileName == null) {
+      throw new IllegalStateException("No index files to copy");
+    }
+    indexId = server.getGlobalState().getIndexStateManagerOrThrow(INDEX_NAME).getIndexId();
+    outputPath = Files.createTempDirectory("nrtsearch_copy_benchmark");
+    outputDirectory = FSDirectory.open(outputPath);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownCopy() throws IOException {
+    if (outputDirectory != null) {
+      outputDirectory.close();
+      FileUtils.deleteDirectory(outputPath.toFile());
+    }
+  }
+
+  @Benchmark
+  public long copyFile(CopyCounters counters) throws IOException {
+    RecvRawFileV2Handler handler = new RecvRawFileV2Handler(server.getGlobalState(), true);
+    FileChunkStreamingIterator chunkIterator = new FileChunkStreamingIterator(INDEX_NAME);
+    StreamObserver<FileInfo> requestObserver = handler.handle(chunkIterator);
+    chunkIterator.init(requestObserver);
+    requestObserver.onNext(
+        FileInfo.newBuilder()
+            .setFileName(copyFileName)
+            .setFpStart(0)
+            .setIndexName(INDEX_NAME)
+            .setIndexId(indexId)
+            .build());
+
+    long copied = 0;
+    IndexOutput output =
+        writeOutput ? outputDirectory.createTempOutput("copy", "bench", IOContext.DEFAULT) : null;
+    ByteOutput byteOutput = output != null ? NrtUtils.indexByteOutput(output) : null;
+    try {
+      while (chunkIterator.hasNext()) {
+        RawFileChunk chunk = chunkIterator.next();
+        ByteString content = chunk.getContent();
+        if (byteOutput != null) {
+          UnsafeByteOperations.unsafeWriteTo(content, byteOutput);
+        }
+        copied += content.size();
+      }
+    } finally {
+      if (output != null) {
+        output.close();
+        outputDirectory.deleteFile(output.getName());
+      }
+    }
+    counters.bytes += copied;
+    return copied;
+  }
+}
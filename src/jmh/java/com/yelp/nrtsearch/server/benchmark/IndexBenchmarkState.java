@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.benchmark;
+
+import com.yelp.nrtsearch.server.grpc.BenchmarkServer;
+import com.yelp.nrtsearch.server.grpc.IndexLiveSettings;
+import com.yelp.nrtsearch.server.index.IndexState;
+import java.io.IOException;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Base benchmark state that starts an in-process server and builds an index from the {@link
+ * SyntheticCorpus}. The index is built once per trial. Benchmarks may extend this class to add
+ * their own parameters and setup.
+ */
+@State(Scope.Benchmark)
+public class IndexBenchmarkState {
+  public static final String INDEX_NAME = "benchmark_index";
+  public static final long CORPUS_SEED = 42;
+
+  /** Number of documents in the index. */
+  @Param({"200000"})
+  public int numDocs;
+
+  /** Number of segments to merge the index down to, or 0 to keep the natural segment layout. */
+  @Param({"0"})
+  public int mergeSegments;
+
+  protected BenchmarkServer server;
+  protected IndexState indexState;
+
+  @Setup(Level.Trial)
+  public void setUpIndex() throws Exception {
+    server = BenchmarkServer.start(getExtraConfig());
+    indexState = server.createIndex(INDEX_NAME, SyntheticCorpus.FIELDS, getLiveSettings());
+    SyntheticCorpus corpus = new SyntheticCorpus(INDEX_NAME, CORPUS_SEED);
+    int batchSize = 10000;
+    for (int i = 0; i < numDocs; i += batchSize) {
+      server.addDocuments(INDEX_NAME, corpus.documents(i, Math.min(batchSize, numDocs - i)));
+    }
+    server.refresh(INDEX_NAME);
+    server.commit(INDEX_NAME);
+    if (mergeSegments > 0) {
+      server.forceMerge(INDEX_NAME, mergeSegments);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownIndex() throws IOException {
+    if (server != null) {
+      server.close();
+      server = null;
+    }
+  }
+
+  /** Additional yaml server configuration. */
+  protected String getExtraConfig() {
+    return "";
+  }
+
+  /** Live settings to create the index with. */
+  protected IndexLiveSettings getLiveSettings() {
+    return IndexLiveSettings.getDefaultInstance();
+  }
+}
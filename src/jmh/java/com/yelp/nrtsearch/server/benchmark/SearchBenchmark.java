@@ -0,0 +1,154 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.benchmark;
+
+import com.yelp.nrtsearch.server.grpc.BooleanClause;
+import com.yelp.nrtsearch.server.grpc.BooleanQuery;
+import com.yelp.nrtsearch.server.grpc.MatchOperator;
+import com.yelp.nrtsearch.server.grpc.MatchQuery;
+import com.yelp.nrtsearch.server.grpc.Query;
+import com.yelp.nrtsearch.server.grpc.QuerySortField;
+import com.yelp.nrtsearch.server.grpc.RangeQuery;
+import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.grpc.SortFields;
+import com.yelp.nrtsearch.server.grpc.SortType;
+import com.yelp.nrtsearch.server.handler.SearchHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures end to end query recall through the {@link SearchHandler}, including collection and
+ * building of the response hits. Queries are drawn from a fixed pool of term combinations with a
+ * mix of common and rare terms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark extends IndexBenchmarkState {
+  private static final int NUM_QUERIES = 256;
+
+  @Param({"10", "100"})
+  public int topHits;
+
+  private SearchHandler searchHandler;
+  private List<SearchRequest> termQueries;
+  private List<SearchRequest> filteredQueries;
+  private List<SearchRequest> sortedQueries;
+  private int queryIndex;
+
+  @Setup(Level.Trial)
+  public void setUpQueries() {
+    searchHandler = new SearchHandler(server.getGlobalState());
+    Random random = new Random(CORPUS_SEED);
+    termQueries = new ArrayList<>(NUM_QUERIES);
+    filteredQueries = new ArrayList<>(NUM_QUERIES);
+    sortedQueries = new ArrayList<>(NUM_QUERIES);
+    for (int i = 0; i < NUM_QUERIES; ++i) {
+      // one common term and one less common term
+      String queryText =
+          SyntheticCorpus.term(random.nextInt(50))
+              + " "
+              + SyntheticCorpus.term(50 + random.nextInt(1000));
+      Query matchQuery =
+          Query.newBuilder()
+              .setMatchQuery(
+                  MatchQuery.newBuilder()
+                      .setField(SyntheticCorpus.BODY_FIELD)
+                      .setQuery(queryText)
+                      .setOperator(MatchOperator.SHOULD))
+              .build();
+      int lower = random.nextInt(50000);
+      Query filteredQuery =
+          Query.newBuilder()
+              .setBooleanQuery(
+                  BooleanQuery.newBuilder()
+                      .addClauses(
+                          BooleanClause.newBuilder()
+                              .setQuery(matchQuery)
+                              .setOccur(BooleanClause.Occur.MUST))
+                      .addClauses(
+                          BooleanClause.newBuilder()
+                              .setQuery(
+                                  Query.newBuilder()
+                                      .setRangeQuery(
+                                          RangeQuery.newBuilder()
+                                              .setField(SyntheticCorpus.POPULARITY_FIELD)
+                                              .setLower(Integer.toString(lower))
+                                              .setUpper(Integer.toString(lower + 25000))))
+                              .setOccur(BooleanClause.Occur.FILTER)))
+              .build();
+      termQueries.add(buildRequest(matchQuery).build());
+      filteredQueries.add(buildRequest(filteredQuery).build());
+      sortedQueries.add(
+          buildRequest(matchQuery)
+              .setQuerySort(
+                  QuerySortField.newBuilder()
+                      .setFields(
+                          SortFields.newBuilder()
+                              .addSortedFields(
+                                  SortType.newBuilder()
+                                      .setFieldName(SyntheticCorpus.TIMESTAMP_FIELD)
+                                      .setReverse(true))))
+              .build());
+    }
+  }
+
+  private SearchRequest.Builder buildRequest(Query query) {
+    return SearchRequest.newBuilder()
+        .setIndexName(INDEX_NAME)
+        .setTopHits(topHits)
+        .setQuery(query)
+        .addRetrieveFields(SyntheticCorpus.ID_FIELD);
+  }
+
+  private SearchRequest next(List<SearchRequest> requests) {
+    queryIndex = (queryIndex + 1) % requests.size();
+    return requests.get(queryIndex);
+  }
+
+  @Benchmark
+  public SearchResponse termQuery() throws Exception {
+    return searchHandler.handle(indexState, next(termQueries));
+  }
+
+  @Benchmark
+  public SearchResponse filteredQuery() throws Exception {
+    return searchHandler.handle(indexState, next(filteredQueries));
+  }
+
+  @Benchmark
+  public SearchResponse sortedQuery() throws Exception {
+    return searchHandler.handle(indexState, next(sortedQueries));
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.benchmark;
+
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest;
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest.MultiValuedField;
+import com.yelp.nrtsearch.server.grpc.Field;
+import com.yelp.nrtsearch.server.grpc.FieldType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic document corpus for benchmarks. Term and category frequencies follow a
+ * zipf-like distribution, so that queries and aggregations see a realistic mix of common and rare
+ * values. Documents generated with the same seed are always identical.
+ */
+public class SyntheticCorpus {
+  public static final String ID_FIELD = "doc_id";
+  public static final String BODY_FIELD = "body";
+  public static final String CATEGORY_FIELD = "category";
+  public static final String TAGS_FIELD = "tags";
+  public static final String POPULARITY_FIELD = "popularity";
+  public static final String TIMESTAMP_FIELD = "timestamp";
+  public static final String RATING_FIELD = "rating";
+
+  public static final int VOCABULARY_SIZE = 5000;
+  public static final int NUM_CATEGORIES = 200;
+  public static final int NUM_TAGS = 1000;
+  public static final long BASE_TIMESTAMP = 1700000000000L;
+
+  public static final List<Field> FIELDS =
+      List.of(
+          Field.newBuilder()
+              .setName(ID_FIELD)
+              .setType(FieldType._ID)
+              .setStoreDocValues(true)
+              .setSearch(true)
+              .build(),
+          Field.newBuilder().setName(BODY_FIELD).setType(FieldType.TEXT).setSearch(true).build(),
+          Field.newBuilder()
+              .setName(CATEGORY_FIELD)
+              .setType(FieldType.ATOM)
+              .setStoreDocValues(true)
+              .setSearch(true)
+              .build(),
+          Field.newBuilder()
+              .setName(TAGS_FIELD)
+              .setType(FieldType.ATOM)
+              .setStoreDocValues(true)
+              .setSearch(true)
+              .setMultiValued(true)
+              .build(),
+          Field.newBuilder()
+              .setName(POPULARITY_FIELD)
+              .setType(FieldType.INT)
+              .setStoreDocValues(true)
+              .setSearch(true)
+              .build(),
+          Field.newBuilder()
+              .setName(TIMESTAMP_FIELD)
+              .setType(FieldType.LONG)
+              .setStoreDocValues(true)
+              .setSearch(true)
+              .build(),
+          Field.newBuilder()
+              .setName(RATING_FIELD)
+              .setType(FieldType.DOUBLE)
+              .setStoreDocValues(true)
+              .build());
+
+  private final String indexName;
+  private final Random random;
+  private final double[] termCdf;
+  private final double[] categoryCdf;
+  private final double[] tagCdf;
+
+  /**
+   * Constructor.
+   *
+   * @param indexName index name to set in generated requests
+   * @param seed random seed
+   */
+  public SyntheticCorpus(String indexName, long seed) {
+    this.indexName = indexName;
+    this.random = new Random(seed);
+    this.termCdf = zipfCdf(VOCABULARY_SIZE, 1.0);
+    this.categoryCdf = zipfCdf(NUM_CATEGORIES, 1.1);
+    this.tagCdf = zipfCdf(NUM_TAGS, 0.8);
+  }
+
+  /** Get the term with the given frequency rank, 0 is the most frequent. */
+  public static String term(int rank) {
+    return "t" + rank;
+  }
+
+  /** Get the category with the given frequency rank, 0 is the most frequent. */
+  public static String category(int rank) {
+    return "category_" + rank;
+  }
+
+  /**
+   * Generate documents with sequential ids starting at the given value.
+   *
+   * @param startId first document id
+   * @param count number of documents
+   * @return add document requests
+   */
+  public List<AddDocumentRequest> documents(int startId, int count) {
+    List<AddDocumentRequest> documents = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      documents.add(document(startId + i));
+    }
+    return documents;
+  }
+
+  /**
+   * Generate a single document.
+   *
+   * @param id document id
+   * @return add document request
+   */
+  public AddDocumentRequest document(int id) {
+    int numTerms = 20 + random.nextInt(60);
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < numTerms; ++i) {
+      if (i > 0) {
+        body.append(' ');
+      }
+      body.append(term(sample(termCdf)));
+    }
+    MultiValuedField.Builder tags = MultiValuedField.newBuilder();
+    int numTags = 1 + random.nextInt(5);
+    for (int i = 0; i < numTags; ++i) {
+      tags.addValue("tag_" + sample(tagCdf));
+    }
+    return AddDocumentRequest.newBuilder()
+        .setIndexName(indexName)
+        .putFields(ID_FIELD, value(Integer.toString(id)))
+        .putFields(BODY_FIELD, value(body.toString()))
+        .putFields(CATEGORY_FIELD, value(category(sample(categoryCdf))))
+        .putFields(TAGS_FIELD, tags.build())
+        .putFields(POPULARITY_FIELD, value(Integer.toString(random.nextInt(100000))))
+        .putFields(
+            TIMESTAMP_FIELD, value(Long.toString(BASE_TIMESTAMP + random.nextInt(1_000_000_000))))
+        .putFields(RATING_FIELD, value(Double.toString(random.nextDouble() * 5.0)))
+        .build();
+  }
+
+  private static MultiValuedField value(String value) {
+    return MultiValuedField.newBuilder().addValue(value).build();
+  }
+
+  private int sample(double[] cdf) {
+    double r = random.nextDouble();
+    int low = 0;
+    int high = cdf.length - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (cdf[mid] < r) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static double[] zipfCdf(int size, double exponent) {
+    double[] cdf = new double[size];
+    double sum = 0;
+    for (int i = 0; i < size; ++i) {
+      sum += 1.0 / Math.pow(i + 1, exponent);
+      cdf[i] = sum;
+    }
+    for (int i = 0; i < size; ++i) {
+      cdf[i] /= sum;
+    }
+    return cdf;
+  }
+}
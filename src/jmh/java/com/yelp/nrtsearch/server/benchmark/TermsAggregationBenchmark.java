@@ -0,0 +1,95 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.benchmark;
+
+import com.yelp.nrtsearch.server.grpc.Collector;
+import com.yelp.nrtsearch.server.grpc.MatchAllQuery;
+import com.yelp.nrtsearch.server.grpc.Query;
+import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.grpc.TermsCollector;
+import com.yelp.nrtsearch.server.handler.SearchHandler;
+import com.yelp.nrtsearch.server.search.collectors.additional.TermsCollectorManager;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link TermsCollectorManager} aggregations over all documents, for single valued string,
+ * multi valued string and numeric fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TermsAggregationBenchmark extends IndexBenchmarkState {
+
+  @Param({"10", "100"})
+  public int size;
+
+  private SearchHandler searchHandler;
+  private SearchRequest categoryRequest;
+  private SearchRequest tagsRequest;
+  private SearchRequest popularityRequest;
+
+  @Setup(Level.Trial)
+  public void setUpRequests() {
+    searchHandler = new SearchHandler(server.getGlobalState());
+    categoryRequest = buildRequest(SyntheticCorpus.CATEGORY_FIELD);
+    tagsRequest = buildRequest(SyntheticCorpus.TAGS_FIELD);
+    popularityRequest = buildRequest(SyntheticCorpus.POPULARITY_FIELD);
+  }
+
+  private SearchRequest buildRequest(String field) {
+    return SearchRequest.newBuilder()
+        .setIndexName(INDEX_NAME)
+        .setTopHits(0)
+        .setQuery(Query.newBuilder().setMatchAllQuery(MatchAllQuery.newBuilder()))
+        .putCollectors(
+            "terms",
+            Collector.newBuilder()
+                .setTerms(TermsCollector.newBuilder().setField(field).setSize(size))
+                .build())
+        .build();
+  }
+
+  @Benchmark
+  public SearchResponse singleValuedString() throws Exception {
+    return searchHandler.handle(indexState, categoryRequest);
+  }
+
+  @Benchmark
+  public SearchResponse multiValuedString() throws Exception {
+    return searchHandler.handle(indexState, tagsRequest);
+  }
+
+  @Benchmark
+  public SearchResponse numeric() throws Exception {
+    return searchHandler.handle(indexState, popularityRequest);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.grpc;
+
+import com.yelp.nrtsearch.server.config.NrtsearchConfig;
+import com.yelp.nrtsearch.server.grpc.NrtsearchServer.LuceneServerImpl;
+import com.yelp.nrtsearch.server.handler.AddDocumentHandler.DocumentIndexer;
+import com.yelp.nrtsearch.server.handler.CreateIndexHandler;
+import com.yelp.nrtsearch.server.handler.RefreshHandler;
+import com.yelp.nrtsearch.server.handler.StartIndexHandler;
+import com.yelp.nrtsearch.server.index.IndexState;
+import com.yelp.nrtsearch.server.index.ShardState;
+import com.yelp.nrtsearch.server.state.GlobalState;
+import com.yelp.nrtsearch.server.utils.NrtsearchTestConfigurationFactory;
+import io.prometheus.metrics.model.registry.PrometheusRegistry;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * In-process nrtsearch server used by the jmh benchmarks. Requests are executed directly against
+ * the handlers, so measurements do not include any gRPC transport overhead. All index data is
+ * written to a temporary directory that is removed on {@link #close()}.
+ */
+public class BenchmarkServer implements Closeable {
+  private static final int INDEXING_CHUNK_SIZE = 1000;
+
+  private final Path rootDir;
+  private final LuceneServerImpl serverImpl;
+
+  private BenchmarkServer(Path rootDir, LuceneServerImpl serverImpl) {
+    this.rootDir = rootDir;
+    this.serverImpl = serverImpl;
+  }
+
+  /**
+   * Start a new standalone server.
+   *
+   * @param extraConfig additional yaml server configuration, may be empty
+   * @return started server
+   * @throws IOException on error creating server state
+   */
+  public static BenchmarkServer start(String extraConfig) throws IOException {
+    Path rootDir = Files.createTempDirectory("nrtsearch_benchmark");
+    NrtsearchConfig configuration =
+        NrtsearchTestConfigurationFactory.getConfig(Mode.STANDALONE, rootDir.toFile(), extraConfig);
+    LuceneServerImpl serverImpl =
+        new LuceneServerImpl(
+            configuration, null, new PrometheusRegistry(), Collections.emptyList());
+    return new BenchmarkServer(rootDir, serverImpl);
+  }
+
+  public GlobalState getGlobalState() {
+    return serverImpl.getGlobalState();
+  }
+
+  public IndexState getIndexState(String indexName) throws IOException {
+    return getGlobalState().getIndexOrThrow(indexName);
+  }
+
+  public ShardState getShardState(String indexName) throws IOException {
+    return getIndexState(indexName).getShard(0);
+  }
+
+  /**
+   * Create and start a STANDALONE index.
+   *
+   * @param indexName index name
+   * @param fields index fields
+   * @param liveSettings index live settings
+   * @return started index state
+   * @throws Exception on error creating index
+   */
+  public IndexState createIndex(
+      String indexName, List<Field> fields, IndexLiveSettings liveSettings) throws Exception {
+    new CreateIndexHandler(getGlobalState())
+        .handle(
+            CreateIndexRequest.newBuilder()
+                .setIndexName(indexName)
+                .addAllFields(fields)
+                .setLiveSettings(liveSettings)
+                .build());
+    new StartIndexHandler(getGlobalState())
+        .handle(
+            StartIndexRequest.newBuilder()
+                .setIndexName(indexName)
+                .setMode(Mode.STANDALONE)
+                .setPrimaryGen(-1)
+                .build());
+    return getIndexState(indexName);
+  }
+
+  /**
+   * Index documents, in the same sized chunks used by the addDocuments handler.
+   *
+   * @param indexName index name
+   * @param documents documents to index
+   * @throws Exception on indexing error
+   */
+  public void addDocuments(String indexName, List<AddDocumentRequest> documents)
+      throws Exception {
+    for (int i = 0; i < documents.size(); i += INDEXING_CHUNK_SIZE) {
+      List<AddDocumentRequest> chunk =
+          documents.subList(i, Math.min(documents.size(), i + INDEXING_CHUNK_SIZE));
+      new DocumentIndexer(getGlobalState(), chunk, indexName).runIndexingJob();
+    }
+  }
+
+  public void refresh(String indexName) throws Exception {
+    new RefreshHandler(getGlobalState())
+        .handle(RefreshRequest.newBuilder().setIndexName(indexName).build());
+  }
+
+  public void commit(String indexName) throws IOException {
+    getIndexState(indexName).commit();
+  }
+
+  /**
+   * Merge the index down to the given number of segments, then refresh and commit.
+   *
+   * @param indexName index name
+   * @param maxSegments maximum number of segments after merge
+   * @throws Exception on merge error
+   */
+  public void forceMerge(String indexName, int maxSegments) throws Exception {
+    getShardState(indexName).writer.forceMerge(maxSegments, true);
+    refresh(indexName);
+    commit(indexName);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      getGlobalState().close();
+    } finally {
+      FileUtils.deleteDirectory(rootDir.toFile());
+    }
+  }
+}
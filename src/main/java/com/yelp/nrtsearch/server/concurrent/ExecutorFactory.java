@@ -30,7 +30,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Static Factory to generate {@link java.util.concurrent.ExecutorService} as per the {@link
- * ExecutorType} provided.
+ * ExecutorType} provided. Each executor is either a fixed size {@link ThreadPoolExecutor}, or a
+ * {@link VirtualThreadExecutor} if configured to use virtual threads.
  */
 public class ExecutorFactory {
   public enum ExecutorType {
@@ -97,6 +98,19 @@ public class ExecutorFactory {
   private ExecutorService createExecutor(ExecutorType executorType) {
     ThreadPoolConfiguration.ThreadPoolSettings threadPoolSettings =
         threadPoolConfiguration.getThreadPoolSettings(executorType);
+    if (threadPoolSettings.useVirtualThreads()) {
+      logger.info(
+          "Creating {} using virtual threads, max concurrency {}",
+          threadPoolSettings.threadNamePrefix(),
+          threadPoolSettings.maxThreads());
+      VirtualThreadExecutor virtualThreadExecutor =
+          new VirtualThreadExecutor(
+              threadPoolSettings.maxThreads(),
+              threadPoolSettings.maxBufferedItems(),
+              threadPoolSettings.threadNamePrefix());
+      ThreadPoolCollector.addPool(executorType.name(), virtualThreadExecutor);
+      return virtualThreadExecutor;
+    }
     logger.info(
         "Creating {} of size {}",
         threadPoolSettings.threadNamePrefix(),
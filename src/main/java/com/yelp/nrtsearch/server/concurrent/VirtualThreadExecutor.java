@@ -0,0 +1,225 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.concurrent;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link java.util.concurrent.ExecutorService} that runs each task in a new virtual thread. The
+ * number of tasks running at the same time is limited by a {@link Semaphore}. Tasks waiting for a
+ * permit are parked virtual threads, and count as queued. If the number of queued tasks reaches the
+ * max buffered items, new tasks are rejected with a {@link RejectedExecutionException}.
+ *
+ * <p>Blocking IO in a task unmounts the virtual thread from its carrier, so it does not tie up a
+ * platform thread while waiting. Note that a task that blocks while holding a monitor still pins its
+ * carrier thread.
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService {
+  private final int maxConcurrency;
+  private final int maxBufferedItems;
+  private final Semaphore permits;
+  private final ThreadFactory threadFactory;
+  private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger queuedTasks = new AtomicInteger();
+  private final AtomicLong taskCount = new AtomicLong();
+  private final Object stateLock = new Object();
+  private volatile Runnable rejectionListener = () -> {};
+  private volatile boolean stopped = false;
+  private boolean shutdown = false;
+  private int liveTasks = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param maxConcurrency max number of tasks to run at the same time
+   * @param maxBufferedItems max number of tasks waiting to run
+   * @param threadNamePrefix prefix for virtual thread names
+   */
+  public VirtualThreadExecutor(int maxConcurrency, int maxBufferedItems, String threadNamePrefix) {
+    if (maxConcurrency <= 0) {
+      throw new IllegalArgumentException("maxConcurrency must be > 0");
+    }
+    if (maxBufferedItems < 0) {
+      throw new IllegalArgumentException("maxBufferedItems must be >= 0");
+    }
+    this.maxConcurrency = maxConcurrency;
+    this.maxBufferedItems = maxBufferedItems;
+    this.permits = new Semaphore(maxConcurrency);
+    this.threadFactory = Thread.ofVirtual().name(threadNamePrefix + "-", 0).factory();
+  }
+
+  /**
+   * Set a listener that is called each time a task is rejected.
+   *
+   * @param rejectionListener rejection listener
+   */
+  public void setRejectionListener(Runnable rejectionListener) {
+    this.rejectionListener = rejectionListener;
+  }
+
+  /** Get max number of tasks that may run at the same time. */
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  /** Get max number of tasks that may be waiting to run. */
+  public int getMaxBufferedItems() {
+    return maxBufferedItems;
+  }
+
+  /** Get the current number of virtual threads, both running and waiting to run. */
+  public int getPoolSize() {
+    synchronized (stateLock) {
+      return liveTasks;
+    }
+  }
+
+  /** Get the number of tasks currently running. */
+  public int getActiveCount() {
+    return maxConcurrency - permits.availablePermits();
+  }
+
+  /** Get the number of tasks that have ever been accepted for execution. */
+  public long getTaskCount() {
+    return taskCount.get();
+  }
+
+  /** Get the number of tasks waiting to run. */
+  public int getQueueSize() {
+    return queuedTasks.get();
+  }
+
+  /** Get the number of additional tasks that can wait to run before new tasks are rejected. */
+  public int getQueueRemainingCapacity() {
+    return Math.max(0, maxBufferedItems - queuedTasks.get());
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    if (command == null) {
+      throw new NullPointerException();
+    }
+    synchronized (stateLock) {
+      if (shutdown) {
+        reject("Executor is shut down");
+      }
+      if (permits.availablePermits() == 0 && queuedTasks.get() >= maxBufferedItems) {
+        reject("Executor queue is full, max buffered items: " + maxBufferedItems);
+      }
+      Thread thread = threadFactory.newThread(() -> runTask(command));
+      queuedTasks.incrementAndGet();
+      taskCount.incrementAndGet();
+      liveTasks++;
+      threads.add(thread);
+      thread.start();
+    }
+  }
+
+  private void reject(String message) {
+    rejectionListener.run();
+    throw new RejectedExecutionException(message);
+  }
+
+  private void runTask(Runnable command) {
+    try {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        // interrupted by shutdownNow before starting
+        return;
+      } finally {
+        queuedTasks.decrementAndGet();
+      }
+      try {
+        // do not start any new tasks after shutdownNow
+        if (!stopped) {
+          command.run();
+        }
+      } finally {
+        permits.release();
+      }
+    } finally {
+      threads.remove(Thread.currentThread());
+      synchronized (stateLock) {
+        liveTasks--;
+        if (liveTasks == 0) {
+          stateLock.notifyAll();
+        }
+      }
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    synchronized (stateLock) {
+      shutdown = true;
+      stateLock.notifyAll();
+    }
+  }
+
+  /**
+   * Shut down the executor and interrupt all running and waiting tasks. Tasks that have not started
+   * running are dropped, so the returned list is always empty.
+   */
+  @Override
+  public List<Runnable> shutdownNow() {
+    stopped = true;
+    shutdown();
+    for (Thread thread : threads) {
+      thread.interrupt();
+    }
+    return Collections.emptyList();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    synchronized (stateLock) {
+      return shutdown;
+    }
+  }
+
+  @Override
+  public boolean isTerminated() {
+    synchronized (stateLock) {
+      return shutdown && liveTasks == 0;
+    }
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (stateLock) {
+      while (!(shutdown && liveTasks == 0)) {
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(stateLock, remainingNanos);
+      }
+      return true;
+    }
+  }
+}
@@ -20,11 +20,16 @@ public class FileCopyConfig {
   static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
   static final int DEFAULT_ACK_EVERY = 1000;
   static final int DEFAULT_MAX_IN_FLIGHT = 2000;
+  static final int DEFAULT_MAX_CHUNK_SIZE = 1024 * 1024;
 
   private final boolean ackedCopy;
   private final int chunkSize;
   private final int ackEvery;
   private final int maxInFlight;
+  private final boolean zeroCopy;
+  private final boolean adaptiveFlowControl;
+  private final int maxChunkSize;
+  private final long maxInFlightBytes;
 
   /**
    * Create instance from provided configuration reader.
@@ -37,7 +42,22 @@ public class FileCopyConfig {
     int chunkSize = configReader.getInteger("FileCopyConfig.chunkSize", DEFAULT_CHUNK_SIZE);
     int ackEvery = configReader.getInteger("FileCopyConfig.ackEvery", DEFAULT_ACK_EVERY);
     int maxInFlight = configReader.getInteger("FileCopyConfig.maxInFlight", DEFAULT_MAX_IN_FLIGHT);
-    return new FileCopyConfig(ackedCopy, chunkSize, ackEvery, maxInFlight);
+    boolean zeroCopy = configReader.getBoolean("FileCopyConfig.zeroCopy", false);
+    boolean adaptiveFlowControl =
+        configReader.getBoolean("FileCopyConfig.adaptiveFlowControl", false);
+    int maxChunkSize =
+        configReader.getInteger("FileCopyConfig.maxChunkSize", DEFAULT_MAX_CHUNK_SIZE);
+    long maxInFlightBytes =
+        configReader.getLong("FileCopyConfig.maxInFlightBytes", (long) maxInFlight * chunkSize);
+    return new FileCopyConfig(
+        ackedCopy,
+        chunkSize,
+        ackEvery,
+        maxInFlight,
+        zeroCopy,
+        adaptiveFlowControl,
+        maxChunkSize,
+        maxInFlightBytes);
   }
 
   /**
@@ -49,13 +69,81 @@ public class FileCopyConfig {
    * @param maxInFlight maximum in flight chunks
    */
   public FileCopyConfig(boolean ackedCopy, int chunkSize, int ackEvery, int maxInFlight) {
+    this(ackedCopy, chunkSize, ackEvery, maxInFlight, false, false, DEFAULT_MAX_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param ackedCopy if acked file copy should be used
+   * @param chunkSize file chunk size
+   * @param ackEvery chunks to send between acks
+   * @param maxInFlight maximum in flight chunks
+   * @param zeroCopy if acked copy chunks should be sent from a memory mapping of the file
+   * @param adaptiveFlowControl if the in flight chunks and chunk size should adapt to the measured
+   *     ack round trip time
+   * @param maxChunkSize maximum chunk size when using adaptive flow control
+   */
+  public FileCopyConfig(
+      boolean ackedCopy,
+      int chunkSize,
+      int ackEvery,
+      int maxInFlight,
+      boolean zeroCopy,
+      boolean adaptiveFlowControl,
+      int maxChunkSize) {
+    this(
+        ackedCopy,
+        chunkSize,
+        ackEvery,
+        maxInFlight,
+        zeroCopy,
+        adaptiveFlowControl,
+        maxChunkSize,
+        (long) maxInFlight * chunkSize);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param ackedCopy if acked file copy should be used
+   * @param chunkSize file chunk size
+   * @param ackEvery chunks to send between acks
+   * @param maxInFlight maximum in flight chunks
+   * @param zeroCopy if acked copy chunks should be sent from a memory mapping of the file
+   * @param adaptiveFlowControl if the in flight chunks and chunk size should adapt to the measured
+   *     ack round trip time
+   * @param maxChunkSize maximum chunk size when using adaptive flow control
+   * @param maxInFlightBytes maximum in flight bytes for a file transfer when using adaptive flow
+   *     control
+   */
+  public FileCopyConfig(
+      boolean ackedCopy,
+      int chunkSize,
+      int ackEvery,
+      int maxInFlight,
+      boolean zeroCopy,
+      boolean adaptiveFlowControl,
+      int maxChunkSize,
+      long maxInFlightBytes) {
     if (ackEvery > maxInFlight) {
       throw new IllegalArgumentException("ackEvery must be less than or equal to maxInFlight");
     }
+    if (adaptiveFlowControl && maxChunkSize < chunkSize) {
+      throw new IllegalArgumentException("maxChunkSize must be greater than or equal to chunkSize");
+    }
+    if (adaptiveFlowControl && maxInFlightBytes < (long) ackEvery * chunkSize) {
+      throw new IllegalArgumentException(
+          "maxInFlightBytes must be greater than or equal to ackEvery * chunkSize");
+    }
     this.ackedCopy = ackedCopy;
     this.chunkSize = chunkSize;
     this.ackEvery = ackEvery;
     this.maxInFlight = maxInFlight;
+    this.zeroCopy = zeroCopy;
+    this.adaptiveFlowControl = adaptiveFlowControl;
+    this.maxChunkSize = maxChunkSize;
+    this.maxInFlightBytes = maxInFlightBytes;
   }
 
   /** Get if acked copy should be used. */
@@ -77,4 +165,24 @@ public class FileCopyConfig {
   public int getMaxInFlight() {
     return maxInFlight;
   }
+
+  /** Get if acked copy chunks should be sent from a memory mapping of the file. */
+  public boolean getZeroCopy() {
+    return zeroCopy;
+  }
+
+  /** Get if in flight chunks and chunk size should adapt to the measured ack round trip time. */
+  public boolean getAdaptiveFlowControl() {
+    return adaptiveFlowControl;
+  }
+
+  /** Get maximum chunk size when using adaptive flow control. */
+  public int getMaxChunkSize() {
+    return maxChunkSize;
+  }
+
+  /** Get maximum in flight bytes for a file transfer when using adaptive flow control. */
+  public long getMaxInFlightBytes() {
+    return maxInFlightBytes;
+  }
 }
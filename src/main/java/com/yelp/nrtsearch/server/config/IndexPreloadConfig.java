@@ -17,7 +17,7 @@ package com.yelp.nrtsearch.server.config;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.BiPredicate;
@@ -29,8 +29,11 @@ import org.apache.lucene.store.MMapDirectory;
 public class IndexPreloadConfig {
   private static final String CONFIG_PREFIX = "preload.";
   public static final String ALL_EXTENSIONS = "*";
+  public static final long UNLIMITED_BUDGET = -1;
   private final boolean preload;
   private final Set<String> extensions;
+  private final long budgetBytes;
+  private final Set<String> randomAccessExtensions;
 
   /**
    * Create instance from provided configuration reader.
@@ -43,7 +46,16 @@ public class IndexPreloadConfig {
     List<String> preloadExtensions =
         configReader.getStringList(
             CONFIG_PREFIX + "extensions", Collections.singletonList(ALL_EXTENSIONS));
-    return new IndexPreloadConfig(preload, new HashSet<>(preloadExtensions));
+    long budgetBytes = configReader.getLong(CONFIG_PREFIX + "budgetBytes", UNLIMITED_BUDGET);
+    List<String> randomAccessExtensions =
+        configReader.getStringList(
+            CONFIG_PREFIX + "randomAccessExtensions", Collections.emptyList());
+    // extension order is the preload priority when there is a budget
+    return new IndexPreloadConfig(
+        preload,
+        new LinkedHashSet<>(preloadExtensions),
+        budgetBytes,
+        new LinkedHashSet<>(randomAccessExtensions));
   }
 
   /**
@@ -53,8 +65,71 @@ public class IndexPreloadConfig {
    * @param extensions set of file extensions that should be preloaded, or * for all
    */
   public IndexPreloadConfig(boolean preload, Set<String> extensions) {
+    this(preload, extensions, UNLIMITED_BUDGET, Collections.emptySet());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param preload if index data should be preloaded
+   * @param extensions set of file extensions that should be preloaded, or * for all. When there is
+   *     a budget, the iteration order is the preload priority.
+   * @param budgetBytes max bytes of each index directory to preload, or {@link #UNLIMITED_BUDGET}
+   * @param randomAccessExtensions set of file extensions to open with random read advice
+   */
+  public IndexPreloadConfig(
+      boolean preload,
+      Set<String> extensions,
+      long budgetBytes,
+      Set<String> randomAccessExtensions) {
+    if (budgetBytes < UNLIMITED_BUDGET) {
+      throw new IllegalArgumentException("Preload budgetBytes must be >= 0, or -1 for unlimited");
+    }
     this.preload = preload;
     this.extensions = Collections.unmodifiableSet(extensions);
+    this.budgetBytes = budgetBytes;
+    this.randomAccessExtensions = Collections.unmodifiableSet(randomAccessExtensions);
+  }
+
+  /**
+   * Get if the memory residency of {@link MMapDirectory} files should be managed, which is needed
+   * when there is a preload budget or read advice to apply.
+   */
+  public boolean isResidencyManaged() {
+    return (preload && budgetBytes != UNLIMITED_BUDGET) || !randomAccessExtensions.isEmpty();
+  }
+
+  /**
+   * Get the preload priority of a file, lower values have a higher priority. Files with an
+   * extension in the extension set have the priority of its position, and other files have the
+   * lowest priority if all extensions are preloaded.
+   *
+   * @param fileName index file name
+   * @return preload priority, or -1 if the file should not be preloaded
+   */
+  public int getPreloadPriority(String fileName) {
+    if (!preload) {
+      return -1;
+    }
+    String extension = FileSwitchDirectory.getExtension(fileName);
+    int priority = 0;
+    for (String preloadExtension : extensions) {
+      if (preloadExtension.equals(extension)) {
+        return priority;
+      }
+      priority++;
+    }
+    return extensions.contains(ALL_EXTENSIONS) ? priority : -1;
+  }
+
+  /** Get max bytes of each index directory to preload, or {@link #UNLIMITED_BUDGET}. */
+  public long getBudgetBytes() {
+    return budgetBytes;
+  }
+
+  /** Get set of file extensions to open with random read advice. */
+  public Set<String> getRandomAccessExtensions() {
+    return randomAccessExtensions;
   }
 
   /**
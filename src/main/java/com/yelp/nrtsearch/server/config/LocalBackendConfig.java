@@ -0,0 +1,67 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.config;
+
+/**
+ * Class containing configuration for storing remote data in a local or network mounted directory,
+ * instead of in S3.
+ */
+public class LocalBackendConfig {
+  private static final String CONFIG_PREFIX = "localBackend.";
+
+  public static final LocalBackendConfig DEFAULT_CONFIG = new LocalBackendConfig("", false);
+
+  private final String path;
+  private final boolean linkDownloads;
+
+  /**
+   * Create instance from provided configuration reader.
+   *
+   * @param configReader config reader
+   * @return class instance
+   */
+  public static LocalBackendConfig fromConfig(YamlConfigReader configReader) {
+    String path = configReader.getString(CONFIG_PREFIX + "path", "");
+    boolean linkDownloads = configReader.getBoolean(CONFIG_PREFIX + "linkDownloads", false);
+    return new LocalBackendConfig(path, linkDownloads);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param path root directory of the backend, or empty to use S3
+   * @param linkDownloads if downloaded index files should be hard linked from the backend directory
+   */
+  public LocalBackendConfig(String path, boolean linkDownloads) {
+    this.path = path;
+    this.linkDownloads = linkDownloads;
+  }
+
+  /** Get if the local backend should be used instead of S3. */
+  public boolean isEnabled() {
+    return !path.isEmpty();
+  }
+
+  /** Get root directory of the backend. */
+  public String getPath() {
+    return path;
+  }
+
+  /** Get if downloaded index files should be hard linked from the backend directory. */
+  public boolean getLinkDownloads() {
+    return linkDownloads;
+  }
+}
@@ -66,6 +66,9 @@ public class NrtsearchConfig {
   static final long DEFAULT_INITIAL_SYNC_PRIMARY_WAIT_MS = 30000;
   static final long DEFAULT_INITIAL_SYNC_MAX_TIME_MS = 600000; // 10m
   private static final int DEFAULT_MAX_CLAUSE_COUNT = 1024;
+  static final long DEFAULT_SEARCH_STREAM_CHUNK_BYTES = 1024 * 1024;
+  static final int DEFAULT_SEARCH_STREAM_INITIAL_CHUNK_HITS = 10;
+  static final long DEFAULT_SEARCH_STREAM_READY_TIMEOUT_MS = 30000;
   private final int port;
   private final int replicationPort;
   private final int replicaReplicationPortPingInterval;
@@ -84,6 +87,7 @@ public class NrtsearchConfig {
   private final ThreadPoolConfiguration threadPoolConfiguration;
   private final IndexPreloadConfig preloadConfig;
   private final QueryCacheConfig queryCacheConfig;
+  private final SearchResponseCacheConfig searchResponseCacheConfig;
   private final WarmerConfig warmerConfig;
   private final boolean virtualSharding;
   private final boolean decInitialCommit;
@@ -92,6 +96,8 @@ public class NrtsearchConfig {
   private final long initialSyncMaxTimeMs;
   private final boolean indexVerbose;
   private final FileCopyConfig fileCopyConfig;
+  private final RemoteDownloadConfig remoteDownloadConfig;
+  private final LocalBackendConfig localBackendConfig;
   private final ScriptCacheConfig scriptCacheConfig;
   private final boolean deadlineCancellation;
   private final int maxClauseCount;
@@ -102,6 +108,14 @@ public class NrtsearchConfig {
   private final boolean filterIncompatibleSegmentReaders;
   private final Map<String, IndexLiveSettings> indexLiveSettingsOverrides;
   private final boolean useSeparateCommitExecutor;
+  private final int documentBuildBatchSize;
+  private final boolean documentFieldReuse;
+  private final boolean concurrentFacetCounting;
+  private final long searchStreamChunkBytes;
+  private final int searchStreamInitialChunkHits;
+  private final long searchStreamReadyTimeoutMs;
+  private final int remoteCommitUploadThreads;
+  private final boolean lazyReplicaRestore;
 
   private final YamlConfigReader configReader;
   private final long maxConnectionAgeForReplication;
@@ -158,6 +172,7 @@ public class NrtsearchConfig {
     serviceName = configReader.getString("serviceName", DEFAULT_SERVICE_NAME);
     preloadConfig = IndexPreloadConfig.fromConfig(configReader);
     queryCacheConfig = QueryCacheConfig.fromConfig(configReader);
+    searchResponseCacheConfig = SearchResponseCacheConfig.fromConfig(configReader);
     warmerConfig = WarmerConfig.fromConfig(configReader);
     virtualSharding = configReader.getBoolean("virtualSharding", false);
     decInitialCommit = configReader.getBoolean("decInitialCommit", true);
@@ -168,6 +183,8 @@ public class NrtsearchConfig {
         configReader.getLong("initialSyncMaxTimeMs", DEFAULT_INITIAL_SYNC_MAX_TIME_MS);
     indexVerbose = configReader.getBoolean("indexVerbose", false);
     fileCopyConfig = FileCopyConfig.fromConfig(configReader);
+    remoteDownloadConfig = RemoteDownloadConfig.fromConfig(configReader);
+    localBackendConfig = LocalBackendConfig.fromConfig(configReader);
     threadPoolConfiguration = new ThreadPoolConfiguration(configReader);
     scriptCacheConfig = ScriptCacheConfig.fromConfig(configReader);
     deadlineCancellation = configReader.getBoolean("deadlineCancellation", true);
@@ -192,6 +209,35 @@ public class NrtsearchConfig {
             o -> DirectoryFactory.parseMMapGrouping(o.toString()),
             DirectoryFactory.MMapGrouping.SEGMENT);
     useSeparateCommitExecutor = configReader.getBoolean("useSeparateCommitExecutor", false);
+    documentBuildBatchSize = configReader.getInteger("documentBuildBatchSize", 0);
+    documentFieldReuse = configReader.getBoolean("documentFieldReuse", false);
+    if (documentFieldReuse && documentBuildBatchSize > 0) {
+      // reused fields are modified by the next document, so documents cannot be built ahead
+      throw new IllegalArgumentException(
+          "documentFieldReuse cannot be enabled with documentBuildBatchSize > 0");
+    }
+    concurrentFacetCounting = configReader.getBoolean("concurrentFacetCounting", false);
+    searchStreamChunkBytes =
+        configReader.getLong("searchStreamChunkBytes", DEFAULT_SEARCH_STREAM_CHUNK_BYTES);
+    if (searchStreamChunkBytes <= 0) {
+      throw new IllegalArgumentException("searchStreamChunkBytes must be > 0");
+    }
+    searchStreamInitialChunkHits =
+        configReader.getInteger(
+            "searchStreamInitialChunkHits", DEFAULT_SEARCH_STREAM_INITIAL_CHUNK_HITS);
+    if (searchStreamInitialChunkHits <= 0) {
+      throw new IllegalArgumentException("searchStreamInitialChunkHits must be > 0");
+    }
+    searchStreamReadyTimeoutMs =
+        configReader.getLong("searchStreamReadyTimeoutMs", DEFAULT_SEARCH_STREAM_READY_TIMEOUT_MS);
+    if (searchStreamReadyTimeoutMs <= 0) {
+      throw new IllegalArgumentException("searchStreamReadyTimeoutMs must be > 0");
+    }
+    remoteCommitUploadThreads = configReader.getInteger("remoteCommitUploadThreads", 0);
+    if (remoteCommitUploadThreads < 0) {
+      throw new IllegalArgumentException("remoteCommitUploadThreads must be >= 0");
+    }
+    lazyReplicaRestore = configReader.getBoolean("lazyReplicaRestore", false);
 
     List<String> indicesWithOverrides = configReader.getKeysOrEmpty("indexLiveSettingsOverrides");
     Map<String, IndexLiveSettings> liveSettingsMap = new HashMap<>();
@@ -288,6 +334,10 @@ public class NrtsearchConfig {
     return queryCacheConfig;
   }
 
+  public SearchResponseCacheConfig getSearchResponseCacheConfig() {
+    return searchResponseCacheConfig;
+  }
+
   public WarmerConfig getWarmerConfig() {
     return warmerConfig;
   }
@@ -320,6 +370,14 @@ public class NrtsearchConfig {
     return fileCopyConfig;
   }
 
+  public RemoteDownloadConfig getRemoteDownloadConfig() {
+    return remoteDownloadConfig;
+  }
+
+  public LocalBackendConfig getLocalBackendConfig() {
+    return localBackendConfig;
+  }
+
   public YamlConfigReader getConfigReader() {
     return configReader;
   }
@@ -389,6 +447,74 @@ public class NrtsearchConfig {
     return useSeparateCommitExecutor;
   }
 
+  /**
+   * Get the number of requests in each parallel document building task of an indexing batch. A
+   * value of 0 or less builds all documents on the thread writing to the index.
+   */
+  public int getDocumentBuildBatchSize() {
+    return documentBuildBatchSize;
+  }
+
+  /**
+   * Get if lucene field instances should be reused between documents by each indexing job. When
+   * enabled, each document is written to the index as soon as it is built, so a failed request in
+   * an indexing batch does not prevent the documents before it from being indexed. Cannot be
+   * enabled with parallel document building, see {@link #getDocumentBuildBatchSize()}.
+   */
+  public boolean getDocumentFieldReuse() {
+    return documentFieldReuse;
+  }
+
+  /**
+   * Get if script, doc values, sorted set doc values and numeric range facets should be counted
+   * over slices of the matching documents in parallel, using the search executor.
+   */
+  public boolean getConcurrentFacetCounting() {
+    return concurrentFacetCounting;
+  }
+
+  /**
+   * Get the target size in bytes of the hits in each message of a streaming search response. This
+   * bounds the memory used for fetched hits that have not yet been sent.
+   */
+  public long getSearchStreamChunkBytes() {
+    return searchStreamChunkBytes;
+  }
+
+  /**
+   * Get the number of hits in the first message of a streaming search response, which is fetched
+   * before the size of a hit is known.
+   */
+  public int getSearchStreamInitialChunkHits() {
+    return searchStreamInitialChunkHits;
+  }
+
+  /**
+   * Get the maximum time in ms to wait for the client to accept the next message of a streaming
+   * search response. The call is cancelled if the client does not accept the message in time, so
+   * that a stalled client cannot hold the searcher indefinitely.
+   */
+  public long getSearchStreamReadyTimeoutMs() {
+    return searchStreamReadyTimeoutMs;
+  }
+
+  /**
+   * Get the number of threads for pipelined index file uploads on a primary with a REMOTE data
+   * location. If 0, the new files of each commit are uploaded together once the previous commit
+   * upload is complete.
+   */
+  public int getRemoteCommitUploadThreads() {
+    return remoteCommitUploadThreads;
+  }
+
+  /**
+   * Get if replicas restoring index data from the remote backend should start before the index
+   * files are local, fetching each file on first access and in the background.
+   */
+  public boolean getLazyReplicaRestore() {
+    return lazyReplicaRestore;
+  }
+
   /**
    * Substitute all sub strings of the form ${FOO} with the environment variable value env[FOO].
    * Variable names may only contain letters, numbers, and underscores. If a variable is not present
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.config;
+
+/** Class containing configuration for downloading index data from the remote backend. */
+public class RemoteDownloadConfig {
+  private static final String CONFIG_PREFIX = "remoteDownload.";
+  public static final int DEFAULT_THREADS = 20;
+  static final String DEFAULT_RANGE_SIZE = "8MB";
+
+  public static final RemoteDownloadConfig DEFAULT_CONFIG =
+      new RemoteDownloadConfig(
+          DEFAULT_THREADS, QueryCacheConfig.sizeStrToBytes(DEFAULT_RANGE_SIZE));
+
+  private final int threads;
+  private final long rangeSizeBytes;
+
+  /**
+   * Create instance from provided configuration reader.
+   *
+   * @param configReader config reader
+   * @return class instance
+   */
+  public static RemoteDownloadConfig fromConfig(YamlConfigReader configReader) {
+    int threads = configReader.getInteger(CONFIG_PREFIX + "threads", DEFAULT_THREADS);
+    String rangeSize = configReader.getString(CONFIG_PREFIX + "rangeSize", DEFAULT_RANGE_SIZE);
+    return new RemoteDownloadConfig(threads, QueryCacheConfig.sizeStrToBytes(rangeSize));
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param threads number of threads used for remote transfers
+   * @param rangeSizeBytes max size of each ranged request when downloading index files
+   */
+  public RemoteDownloadConfig(int threads, long rangeSizeBytes) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("remoteDownload.threads must be > 0");
+    }
+    if (rangeSizeBytes <= 0) {
+      throw new IllegalArgumentException("remoteDownload.rangeSize must be > 0");
+    }
+    this.threads = threads;
+    this.rangeSizeBytes = rangeSizeBytes;
+  }
+
+  /** Get number of threads used for remote transfers. */
+  public int getThreads() {
+    return threads;
+  }
+
+  /** Get max size of each ranged request when downloading index files. */
+  public long getRangeSizeBytes() {
+    return rangeSizeBytes;
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.config;
+
+/** Class containing configuration for the shard level search response cache. */
+public class SearchResponseCacheConfig {
+  private static final String CONFIG_PREFIX = "searchResponseCache.";
+  static final String DEFAULT_MAX_MEMORY = "64MB";
+
+  private final boolean enabled;
+  private final long maxMemoryBytes;
+
+  /**
+   * Create instance from provided configuration reader.
+   *
+   * @param configReader config reader
+   * @return class instance
+   */
+  public static SearchResponseCacheConfig fromConfig(YamlConfigReader configReader) {
+    boolean enabled = configReader.getBoolean(CONFIG_PREFIX + "enabled", false);
+    String maxMemory = configReader.getString(CONFIG_PREFIX + "maxMemory", DEFAULT_MAX_MEMORY);
+    long maxMemoryBytes = QueryCacheConfig.sizeStrToBytes(maxMemory);
+    if (maxMemoryBytes <= 0) {
+      throw new IllegalArgumentException("searchResponseCache.maxMemory must be > 0");
+    }
+    return new SearchResponseCacheConfig(enabled, maxMemoryBytes);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param enabled toggle for enabling search response cache
+   * @param maxMemoryBytes maximum serialized size of cached entries for each index shard
+   */
+  public SearchResponseCacheConfig(boolean enabled, long maxMemoryBytes) {
+    this.enabled = enabled;
+    this.maxMemoryBytes = maxMemoryBytes;
+  }
+
+  /** Get if search response cache is enabled. */
+  public boolean getEnabled() {
+    return enabled;
+  }
+
+  /** Get maximum memory to use for the cache of each index shard. */
+  public long getMaxMemoryBytes() {
+    return maxMemoryBytes;
+  }
+}
@@ -63,8 +63,16 @@ public class ThreadPoolConfiguration {
    * @param maxThreads max number of threads
    * @param maxBufferedItems max number of buffered items
    * @param threadNamePrefix prefix for thread names
+   * @param useVirtualThreads if tasks should run in virtual threads, with maxThreads limiting the
+   *     number of concurrently running tasks
    */
-  public record ThreadPoolSettings(int maxThreads, int maxBufferedItems, String threadNamePrefix) {}
+  public record ThreadPoolSettings(
+      int maxThreads, int maxBufferedItems, String threadNamePrefix, boolean useVirtualThreads) {
+
+    public ThreadPoolSettings(int maxThreads, int maxBufferedItems, String threadNamePrefix) {
+      this(maxThreads, maxBufferedItems, threadNamePrefix, false);
+    }
+  }
 
   private static final Map<ExecutorFactory.ExecutorType, ThreadPoolSettings>
       defaultThreadPoolSettings =
@@ -121,8 +129,12 @@ public class ThreadPoolConfiguration {
       String threadNamePrefix =
           configReader.getString(
               poolConfigPrefix + "threadNamePrefix", defaultSettings.threadNamePrefix());
+      boolean useVirtualThreads =
+          configReader.getBoolean(
+              poolConfigPrefix + "useVirtualThreads", defaultSettings.useVirtualThreads());
       threadPoolSettings.put(
-          executorType, new ThreadPoolSettings(maxThreads, maxBufferedItems, threadNamePrefix));
+          executorType,
+          new ThreadPoolSettings(maxThreads, maxBufferedItems, threadNamePrefix, useVirtualThreads));
     }
   }
 
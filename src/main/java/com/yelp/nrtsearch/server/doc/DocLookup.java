@@ -16,15 +16,25 @@
 package com.yelp.nrtsearch.server.doc;
 
 import com.yelp.nrtsearch.server.field.FieldDef;
+import com.yelp.nrtsearch.server.field.IndexableFieldDef;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import org.apache.lucene.index.LeafReaderContext;
 
 /**
  * Index level class for providing access to doc values data. Provides a means to get a {@link
  * SegmentDocLookup} bound to single lucene segment.
+ *
+ * <p>Fields accessed through the lookup are assigned a dense slot number. Resolving the slot once,
+ * such as when a script is created, allows each {@link SegmentDocLookup} to access doc values by
+ * array index instead of by field name.
  */
 public class DocLookup {
   private final Function<String, FieldDef> fieldDefLookup;
+  private final Map<String, Integer> fieldSlots = new ConcurrentHashMap<>();
+  private volatile String[] slotFieldNames = new String[0];
 
   public DocLookup(Function<String, FieldDef> fieldDefLookup) {
     this.fieldDefLookup = fieldDefLookup;
@@ -37,7 +47,53 @@ public class DocLookup {
    * @return lookup accessor for given segment context
    */
   public SegmentDocLookup getSegmentLookup(LeafReaderContext context) {
-    return new SegmentDocLookup(fieldDefLookup, context);
+    return new SegmentDocLookup(this, context);
+  }
+
+  /**
+   * Get the slot number for the doc values of a field, assigning a new one if needed.
+   *
+   * @param fieldName field name
+   * @return field slot number
+   * @throws IllegalArgumentException if the field does not exist, or cannot have doc values
+   */
+  public int getFieldSlot(String fieldName) {
+    Integer slot = fieldSlots.get(fieldName);
+    if (slot != null) {
+      return slot;
+    }
+    return addFieldSlot(fieldName);
+  }
+
+  private synchronized int addFieldSlot(String fieldName) {
+    Integer slot = fieldSlots.get(fieldName);
+    if (slot != null) {
+      return slot;
+    }
+    FieldDef fieldDef = fieldDefLookup.apply(fieldName);
+    if (fieldDef == null) {
+      throw new IllegalArgumentException("Field does not exist: " + fieldName);
+    }
+    if (!(fieldDef instanceof IndexableFieldDef<?>)) {
+      throw new IllegalArgumentException("Field cannot have doc values: " + fieldName);
+    }
+    int newSlot = slotFieldNames.length;
+    String[] newSlotFieldNames = Arrays.copyOf(slotFieldNames, newSlot + 1);
+    newSlotFieldNames[newSlot] = fieldName;
+    slotFieldNames = newSlotFieldNames;
+    fieldSlots.put(fieldName, newSlot);
+    return newSlot;
+  }
+
+  /**
+   * Get the name of the field assigned to a slot.
+   *
+   * @param slot field slot number
+   * @return field name
+   * @throws IndexOutOfBoundsException if the slot has not been assigned
+   */
+  public String getSlotFieldName(int slot) {
+    return slotFieldNames[slot];
   }
 
   /**
@@ -60,6 +60,11 @@ import org.apache.lucene.util.NumericUtils;
  * no values for the field. All implementations throw an IndexOutOfBoundsException when trying to
  * access an invalid index.
  *
+ * <p>Numeric implementations also implement the primitive accessor interfaces {@link IntValues},
+ * {@link LongValues}, {@link FloatValues} and {@link DoubleValues} that their values can be widened
+ * to. These should be preferred in performance sensitive code, since the {@link java.util.List}
+ * interface boxes each value.
+ *
  * @param <T> the loaded doc values type. This could be a simple boxed primitive, or something more
  *     complex like a {@link GeoPoint}.
  */
@@ -81,6 +86,62 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
 
   public abstract SearchResponse.Hit.FieldValue toFieldValue(int index);
 
+  /** Access to doc values as primitive ints, without boxing. */
+  public interface IntValues {
+    /** Get the number of values for the current document. */
+    int size();
+
+    /**
+     * Get the value at the given index for the current document.
+     *
+     * @param index value index
+     * @return int value
+     */
+    int getInt(int index);
+  }
+
+  /** Access to doc values as primitive longs, without boxing. */
+  public interface LongValues {
+    /** Get the number of values for the current document. */
+    int size();
+
+    /**
+     * Get the value at the given index for the current document.
+     *
+     * @param index value index
+     * @return long value
+     */
+    long getLong(int index);
+  }
+
+  /** Access to doc values as primitive floats, without boxing. */
+  public interface FloatValues {
+    /** Get the number of values for the current document. */
+    int size();
+
+    /**
+     * Get the value at the given index for the current document.
+     *
+     * @param index value index
+     * @return float value
+     */
+    float getFloat(int index);
+  }
+
+  /** Access to doc values as primitive doubles, without boxing. */
+  public interface DoubleValues {
+    /** Get the number of values for the current document. */
+    int size();
+
+    /**
+     * Get the value at the given index for the current document.
+     *
+     * @param index value index
+     * @return double value
+     */
+    double getDouble(int index);
+  }
+
   public abstract static class SingleNumericValue<T> extends LoadedDocValues<T> {
     private final NumericDocValues docValues;
     private final LongFunction<T> decoder;
@@ -164,7 +225,8 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
     }
   }
 
-  public static final class SingleInteger extends LoadedDocValues<Integer> {
+  public static final class SingleInteger extends LoadedDocValues<Integer>
+      implements IntValues, LongValues, DoubleValues {
     private final NumericDocValues docValues;
     private int value;
     private boolean isSet;
@@ -189,6 +251,7 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return getInt(index);
     }
 
+    @Override
     public int getInt(int index) {
       if (!isSet) {
         throw new IllegalStateException("No doc values for document");
@@ -198,6 +261,16 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return value;
     }
 
+    @Override
+    public long getLong(int index) {
+      return getInt(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+      return getInt(index);
+    }
+
     @Override
     public int size() {
       return isSet ? 1 : 0;
@@ -213,7 +286,8 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
     }
   }
 
-  public static final class SingleLong extends LoadedDocValues<Long> {
+  public static final class SingleLong extends LoadedDocValues<Long>
+      implements LongValues, DoubleValues {
     private final NumericDocValues docValues;
     private long value;
     private boolean isSet;
@@ -238,6 +312,7 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return getLong(index);
     }
 
+    @Override
     public long getLong(int index) {
       if (!isSet) {
         throw new IllegalStateException("No doc values for document");
@@ -247,6 +322,11 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return value;
     }
 
+    @Override
+    public double getDouble(int index) {
+      return getLong(index);
+    }
+
     @Override
     public int size() {
       return isSet ? 1 : 0;
@@ -262,7 +342,8 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
     }
   }
 
-  public static final class SingleFloat extends LoadedDocValues<Float> {
+  public static final class SingleFloat extends LoadedDocValues<Float>
+      implements FloatValues, DoubleValues {
     private final NumericDocValues docValues;
     private float value;
     private boolean isSet;
@@ -287,6 +368,7 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return getFloat(index);
     }
 
+    @Override
     public float getFloat(int index) {
       if (!isSet) {
         throw new IllegalStateException("No doc values for document");
@@ -296,6 +378,11 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return value;
     }
 
+    @Override
+    public double getDouble(int index) {
+      return getFloat(index);
+    }
+
     @Override
     public int size() {
       return isSet ? 1 : 0;
@@ -311,7 +398,7 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
     }
   }
 
-  public static final class SingleDouble extends LoadedDocValues<Double> {
+  public static final class SingleDouble extends LoadedDocValues<Double> implements DoubleValues {
     private final NumericDocValues docValues;
     private double value;
     private boolean isSet;
@@ -336,6 +423,7 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return getDouble(index);
     }
 
+    @Override
     public double getDouble(int index) {
       if (!isSet) {
         throw new IllegalStateException("No doc values for document");
@@ -480,7 +568,8 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
     }
   }
 
-  public static final class SortedIntegers extends LoadedDocValues<Integer> {
+  public static final class SortedIntegers extends LoadedDocValues<Integer>
+      implements IntValues, LongValues, DoubleValues {
     private final SortedNumericDocValues docValues;
     private int[] values = new int[0];
     private int size;
@@ -508,6 +597,7 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return getInt(index);
     }
 
+    @Override
     public int getInt(int index) {
       if (size == 0) {
         throw new IllegalStateException("No doc values for document");
@@ -517,6 +607,16 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return values[index];
     }
 
+    @Override
+    public long getLong(int index) {
+      return getInt(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+      return getInt(index);
+    }
+
     @Override
     public int size() {
       return size;
@@ -532,7 +632,8 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
     }
   }
 
-  public static final class SortedLongs extends LoadedDocValues<Long> {
+  public static final class SortedLongs extends LoadedDocValues<Long>
+      implements LongValues, DoubleValues {
     private final SortedNumericDocValues docValues;
     private long[] values = new long[0];
     private int size;
@@ -560,6 +661,7 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return getLong(index);
     }
 
+    @Override
     public long getLong(int index) {
       if (size == 0) {
         throw new IllegalStateException("No doc values for document");
@@ -569,6 +671,11 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return values[index];
     }
 
+    @Override
+    public double getDouble(int index) {
+      return getLong(index);
+    }
+
     @Override
     public int size() {
       return size;
@@ -584,7 +691,8 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
     }
   }
 
-  public static final class SortedFloats extends LoadedDocValues<Float> {
+  public static final class SortedFloats extends LoadedDocValues<Float>
+      implements FloatValues, DoubleValues {
     private final SortedNumericDocValues docValues;
     private float[] values = new float[0];
     private int size;
@@ -612,6 +720,7 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return getFloat(index);
     }
 
+    @Override
     public float getFloat(int index) {
       if (size == 0) {
         throw new IllegalStateException("No doc values for document");
@@ -621,6 +730,11 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return values[index];
     }
 
+    @Override
+    public double getDouble(int index) {
+      return getFloat(index);
+    }
+
     @Override
     public int size() {
       return size;
@@ -636,7 +750,7 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
     }
   }
 
-  public static final class SortedDoubles extends LoadedDocValues<Double> {
+  public static final class SortedDoubles extends LoadedDocValues<Double> implements DoubleValues {
     private final SortedNumericDocValues docValues;
     private double[] values = new double[0];
     private int size;
@@ -664,6 +778,7 @@ public abstract class LoadedDocValues<T> extends AbstractList<T> {
       return getDouble(index);
     }
 
+    @Override
     public double getDouble(int index) {
       if (size == 0) {
         throw new IllegalStateException("No doc values for document");
@@ -18,8 +18,8 @@ package com.yelp.nrtsearch.server.doc;
 import com.yelp.nrtsearch.server.field.FieldDef;
 import com.yelp.nrtsearch.server.field.IndexableFieldDef;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -29,20 +29,26 @@ import org.apache.lucene.index.LeafReaderContext;
 /**
  * Class that provides a lookup interface for doc values in a single lucene segment. Values are
  * accessed through the Map interface, with each field name mapping to its {@link LoadedDocValues}.
+ * Performance sensitive code should instead resolve the field slot from {@link
+ * DocLookup#getFieldSlot(String)} once, and use the slot based accessors.
  *
- * <p>The {@link LoadedDocValues} for each field are cached and can be reused for all subsequent
- * documents in the segment.
+ * <p>The {@link LoadedDocValues} for each field are cached by slot and can be reused for all
+ * subsequent documents in the segment.
  */
 public class SegmentDocLookup implements Map<String, LoadedDocValues<?>> {
 
-  private final Function<String, FieldDef> fieldDefLookup;
+  private final DocLookup docLookup;
   private final LeafReaderContext context;
-  private final Map<String, LoadedDocValues<?>> loaderCache = new HashMap<>();
+  private LoadedDocValues<?>[] slotCache = new LoadedDocValues<?>[0];
 
   private int docId = -1;
 
   public SegmentDocLookup(Function<String, FieldDef> fieldDefLookup, LeafReaderContext context) {
-    this.fieldDefLookup = fieldDefLookup;
+    this(new DocLookup(fieldDefLookup), context);
+  }
+
+  public SegmentDocLookup(DocLookup docLookup, LeafReaderContext context) {
+    this.docLookup = docLookup;
     this.context = context;
   }
 
@@ -80,7 +86,7 @@ public class SegmentDocLookup implements Map<String, LoadedDocValues<?>> {
     }
     String fieldName = key.toString();
     try {
-      FieldDef field = fieldDefLookup.apply(fieldName);
+      FieldDef field = docLookup.getFieldDef(fieldName);
       return field instanceof IndexableFieldDef && ((IndexableFieldDef<?>) field).hasDocValues();
     } catch (Exception ignored) {
       return false;
@@ -105,29 +111,111 @@ public class SegmentDocLookup implements Map<String, LoadedDocValues<?>> {
   @Override
   public LoadedDocValues<?> get(Object key) {
     Objects.requireNonNull(key);
-    String fieldName = key.toString();
-    LoadedDocValues<?> docValues = loaderCache.get(fieldName);
+    return get(docLookup.getFieldSlot(key.toString()));
+  }
+
+  /**
+   * Get the {@link LoadedDocValues} for the field in the given slot. Creates a new instance or uses
+   * one from the cache. The data is loaded for the current set document id.
+   *
+   * @param slot field slot from {@link DocLookup#getFieldSlot(String)}
+   * @return {@link LoadedDocValues} implementation for the field
+   * @throws IllegalArgumentException if there is a problem loading the doc values, or setting the
+   *     target doc id
+   */
+  public LoadedDocValues<?> get(int slot) {
+    LoadedDocValues<?> docValues = slot < slotCache.length ? slotCache[slot] : null;
     if (docValues == null) {
-      FieldDef fieldDef = fieldDefLookup.apply(fieldName);
-      if (fieldDef == null) {
-        throw new IllegalArgumentException("Field does not exist: " + fieldName);
-      }
-      if (!(fieldDef instanceof IndexableFieldDef<?> indexableFieldDef)) {
-        throw new IllegalArgumentException("Field cannot have doc values: " + fieldName);
-      }
-      try {
-        docValues = indexableFieldDef.getDocValues(context);
-      } catch (IOException e) {
-        throw new IllegalArgumentException("Could not get doc values for field: " + fieldName, e);
-      }
-      loaderCache.put(fieldName, docValues);
+      docValues = loadDocValues(slot);
     }
     try {
       docValues.setDocId(docId);
     } catch (IOException e) {
       throw new IllegalArgumentException(
-          "Could not set doc: " + docId + ", field: " + fieldName, e);
+          "Could not set doc: " + docId + ", field: " + docLookup.getSlotFieldName(slot), e);
+    }
+    return docValues;
+  }
+
+  /**
+   * Get int doc values for the field in the given slot, without boxing.
+   *
+   * @param slot field slot from {@link DocLookup#getFieldSlot(String)}
+   * @return int values accessor for the current document
+   * @throws IllegalArgumentException if field values cannot be accessed as ints
+   */
+  public LoadedDocValues.IntValues getIntValues(int slot) {
+    if (get(slot) instanceof LoadedDocValues.IntValues intValues) {
+      return intValues;
+    }
+    throw new IllegalArgumentException(
+        "Field does not have int doc values: " + docLookup.getSlotFieldName(slot));
+  }
+
+  /**
+   * Get long doc values for the field in the given slot, without boxing.
+   *
+   * @param slot field slot from {@link DocLookup#getFieldSlot(String)}
+   * @return long values accessor for the current document
+   * @throws IllegalArgumentException if field values cannot be accessed as longs
+   */
+  public LoadedDocValues.LongValues getLongValues(int slot) {
+    if (get(slot) instanceof LoadedDocValues.LongValues longValues) {
+      return longValues;
+    }
+    throw new IllegalArgumentException(
+        "Field does not have long doc values: " + docLookup.getSlotFieldName(slot));
+  }
+
+  /**
+   * Get float doc values for the field in the given slot, without boxing.
+   *
+   * @param slot field slot from {@link DocLookup#getFieldSlot(String)}
+   * @return float values accessor for the current document
+   * @throws IllegalArgumentException if field values cannot be accessed as floats
+   */
+  public LoadedDocValues.FloatValues getFloatValues(int slot) {
+    if (get(slot) instanceof LoadedDocValues.FloatValues floatValues) {
+      return floatValues;
+    }
+    throw new IllegalArgumentException(
+        "Field does not have float doc values: " + docLookup.getSlotFieldName(slot));
+  }
+
+  /**
+   * Get double doc values for the field in the given slot, without boxing.
+   *
+   * @param slot field slot from {@link DocLookup#getFieldSlot(String)}
+   * @return double values accessor for the current document
+   * @throws IllegalArgumentException if field values cannot be accessed as doubles
+   */
+  public LoadedDocValues.DoubleValues getDoubleValues(int slot) {
+    if (get(slot) instanceof LoadedDocValues.DoubleValues doubleValues) {
+      return doubleValues;
+    }
+    throw new IllegalArgumentException(
+        "Field does not have double doc values: " + docLookup.getSlotFieldName(slot));
+  }
+
+  private LoadedDocValues<?> loadDocValues(int slot) {
+    String fieldName = docLookup.getSlotFieldName(slot);
+    FieldDef fieldDef = docLookup.getFieldDef(fieldName);
+    if (fieldDef == null) {
+      throw new IllegalArgumentException("Field does not exist: " + fieldName);
+    }
+    if (!(fieldDef instanceof IndexableFieldDef<?> indexableFieldDef)) {
+      throw new IllegalArgumentException("Field cannot have doc values: " + fieldName);
+    }
+    LoadedDocValues<?> docValues;
+    try {
+      docValues = indexableFieldDef.getDocValues(context);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Could not get doc values for field: " + fieldName, e);
+    }
+    if (slot >= slotCache.length) {
+      slotCache = Arrays.copyOf(slotCache, slot + 1);
     }
+    slotCache[slot] = docValues;
     return docValues;
   }
 
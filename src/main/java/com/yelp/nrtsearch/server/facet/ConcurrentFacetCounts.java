@@ -0,0 +1,308 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.facet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollector.MatchingDocs;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.search.TaskExecutor;
+
+/**
+ * Utility for counting facets over the matching documents of a query in parallel. The segment
+ * matching docs are grouped into slices, each slice is counted by a separate task on a lucene
+ * {@link TaskExecutor}, and the per slice results are merged by the caller.
+ *
+ * <p>The {@link TaskExecutor} runs tasks that have not been started by a pool thread in the thread
+ * waiting for the results, so it is safe to use the search executor even when called from one of
+ * its threads.
+ */
+public class ConcurrentFacetCounts {
+  // min number of matching documents counted by each slice
+  static final int DEFAULT_MIN_DOCS_PER_SLICE = 50_000;
+
+  private ConcurrentFacetCounts() {}
+
+  /**
+   * Counts the matching documents of a single slice.
+   *
+   * @param <T> slice result type
+   */
+  @FunctionalInterface
+  public interface SliceCounter<T> {
+    /**
+     * Count the matching documents in a slice.
+     *
+     * @param sliceHits collector containing only the matching docs of this slice
+     * @return slice result
+     * @throws IOException on error reading index data
+     */
+    T count(FacetsCollector sliceHits) throws IOException;
+  }
+
+  /**
+   * Count the matching documents in slices. If no executor is given, or there is only a single
+   * slice, the counter is called once with all hits in the current thread.
+   *
+   * @param hits all matching documents
+   * @param taskExecutor executor to count slices concurrently, or null
+   * @param counter slice counter
+   * @param <T> slice result type
+   * @return result for each slice
+   * @throws IOException on error reading index data
+   */
+  public static <T> List<T> countSlices(
+      FacetsCollector hits, TaskExecutor taskExecutor, SliceCounter<T> counter)
+      throws IOException {
+    return countSlices(hits, taskExecutor, counter, DEFAULT_MIN_DOCS_PER_SLICE);
+  }
+
+  static <T> List<T> countSlices(
+      FacetsCollector hits, TaskExecutor taskExecutor, SliceCounter<T> counter, int minDocsPerSlice)
+      throws IOException {
+    if (taskExecutor == null) {
+      return List.of(counter.count(hits));
+    }
+    List<List<MatchingDocs>> slices = getSlices(hits.getMatchingDocs(), minDocsPerSlice);
+    if (slices.size() <= 1) {
+      return List.of(counter.count(hits));
+    }
+    List<Callable<T>> tasks = new ArrayList<>(slices.size());
+    for (List<MatchingDocs> slice : slices) {
+      tasks.add(() -> counter.count(new SliceFacetsCollector(slice)));
+    }
+    return taskExecutor.invokeAll(tasks);
+  }
+
+  /**
+   * Get the top children of a dimension, counting slices of the matching documents concurrently.
+   * When there is only a single slice, the result comes directly from the {@link Facets}
+   * implementation. Otherwise, all children are taken from the {@link Facets} of each slice and
+   * merged with {@link #mergeTopRangeChildren(List, int, String, String...)} for range facets, or
+   * {@link #mergeTopChildren(List, int, String, String...)} for other facets.
+   *
+   * @param hits all matching documents
+   * @param taskExecutor executor to count slices concurrently, or null
+   * @param facetsCounter creates the facet counts for a slice
+   * @param topN number of top children
+   * @param rangeChildren if the children are the ranges of a range facet
+   * @param dim dimension
+   * @param path facet path
+   * @return top children
+   * @throws IOException on error reading index data
+   */
+  public static FacetResult getTopChildren(
+      FacetsCollector hits,
+      TaskExecutor taskExecutor,
+      SliceCounter<Facets> facetsCounter,
+      int topN,
+      boolean rangeChildren,
+      String dim,
+      String... path)
+      throws IOException {
+    return getTopChildren(
+        hits,
+        taskExecutor,
+        facetsCounter,
+        DEFAULT_MIN_DOCS_PER_SLICE,
+        topN,
+        rangeChildren,
+        dim,
+        path);
+  }
+
+  static FacetResult getTopChildren(
+      FacetsCollector hits,
+      TaskExecutor taskExecutor,
+      SliceCounter<Facets> facetsCounter,
+      int minDocsPerSlice,
+      int topN,
+      boolean rangeChildren,
+      String dim,
+      String... path)
+      throws IOException {
+    List<Facets> sliceFacets = countSlices(hits, taskExecutor, facetsCounter, minDocsPerSlice);
+    if (sliceFacets.size() == 1) {
+      return sliceFacets.getFirst().getTopChildren(topN, dim, path);
+    }
+    List<FacetResult> sliceResults = new ArrayList<>(sliceFacets.size());
+    for (Facets facets : sliceFacets) {
+      sliceResults.add(facets.getAllChildren(dim, path));
+    }
+    return rangeChildren
+        ? mergeTopRangeChildren(sliceResults, topN, dim, path)
+        : mergeTopChildren(sliceResults, topN, dim, path);
+  }
+
+  /**
+   * Group segment matching docs into slices, each containing at least the given number of hits,
+   * except for the last one. Segments without hits are skipped.
+   */
+  static List<List<MatchingDocs>> getSlices(List<MatchingDocs> matchingDocs, int minDocsPerSlice) {
+    List<List<MatchingDocs>> slices = new ArrayList<>();
+    List<MatchingDocs> currentSlice = new ArrayList<>();
+    long currentDocs = 0;
+    for (MatchingDocs segmentHits : matchingDocs) {
+      if (segmentHits.totalHits() == 0) {
+        continue;
+      }
+      currentSlice.add(segmentHits);
+      currentDocs += segmentHits.totalHits();
+      if (currentDocs >= minDocsPerSlice) {
+        slices.add(currentSlice);
+        currentSlice = new ArrayList<>();
+        currentDocs = 0;
+      }
+    }
+    if (!currentSlice.isEmpty()) {
+      slices.add(currentSlice);
+    }
+    return slices;
+  }
+
+  /**
+   * Merge the children of a dimension counted for each slice, and select the top children. Labels
+   * are ordered by descending count, with ties broken by label, the same as the ordinal order of
+   * sorted set doc values facets. Children with a zero count are dropped, and null is returned if
+   * there are none. The dimension value is the sum of the slice values, or -1 if it is not
+   * available for any slice.
+   *
+   * @param sliceResults result containing all children for each slice, may contain null
+   * @param topN number of top children to keep
+   * @param dim dimension
+   * @param path facet path
+   * @return merged top children, or null if there are no results
+   */
+  public static FacetResult mergeTopChildren(
+      List<FacetResult> sliceResults, int topN, String dim, String... path) {
+    Map<String, Integer> childCounts = new HashMap<>();
+    int value = 0;
+    for (FacetResult sliceResult : sliceResults) {
+      if (sliceResult == null) {
+        continue;
+      }
+      value = mergeValue(value, sliceResult);
+      for (LabelAndValue labelAndValue : sliceResult.labelValues) {
+        int count = labelAndValue.value.intValue();
+        if (count > 0) {
+          childCounts.merge(labelAndValue.label, count, Integer::sum);
+        }
+      }
+    }
+    if (childCounts.isEmpty()) {
+      return null;
+    }
+
+    List<LabelAndValue> children = new ArrayList<>(childCounts.size());
+    for (Map.Entry<String, Integer> entry : childCounts.entrySet()) {
+      children.add(new LabelAndValue(entry.getKey(), entry.getValue()));
+    }
+    children.sort(
+        Comparator.comparingInt((LabelAndValue child) -> child.value.intValue())
+            .reversed()
+            .thenComparing(child -> child.label));
+    return getTopResult(children, topN, value, dim, path);
+  }
+
+  /**
+   * Merge the range children of a dimension counted for each slice, and select the top children.
+   * Each slice result must contain all ranges in the order they were defined, as returned by {@link
+   * Facets#getAllChildren(String, String...)}, so ranges are merged by position and ranges sharing
+   * a label stay separate. The result matches the top children of a single range facet count:
+   * ranges with a zero count are dropped, and the others are ordered by descending count, with
+   * ties in range order.
+   *
+   * @param sliceResults result containing all ranges for each slice, may contain null
+   * @param topN number of top children to keep
+   * @param dim dimension
+   * @param path facet path
+   * @return merged top children, or null if there are no results
+   */
+  public static FacetResult mergeTopRangeChildren(
+      List<FacetResult> sliceResults, int topN, String dim, String... path) {
+    LabelAndValue[] ranges = null;
+    int[] rangeCounts = null;
+    int value = 0;
+    for (FacetResult sliceResult : sliceResults) {
+      if (sliceResult == null) {
+        continue;
+      }
+      if (ranges == null) {
+        ranges = sliceResult.labelValues;
+        rangeCounts = new int[ranges.length];
+      } else if (ranges.length != sliceResult.labelValues.length) {
+        throw new IllegalArgumentException("Slice results must contain the same ranges");
+      }
+      value = mergeValue(value, sliceResult);
+      for (int i = 0; i < rangeCounts.length; ++i) {
+        rangeCounts[i] += sliceResult.labelValues[i].value.intValue();
+      }
+    }
+    if (ranges == null) {
+      return null;
+    }
+
+    List<LabelAndValue> children = new ArrayList<>(ranges.length);
+    for (int i = 0; i < ranges.length; ++i) {
+      if (rangeCounts[i] != 0) {
+        children.add(new LabelAndValue(ranges[i].label, rangeCounts[i]));
+      }
+    }
+    // stable sort, so ties stay in range order
+    children.sort(
+        Comparator.comparingInt((LabelAndValue child) -> child.value.intValue()).reversed());
+    return getTopResult(children, topN, value, dim, path);
+  }
+
+  private static int mergeValue(int value, FacetResult sliceResult) {
+    if (value < 0) {
+      return value;
+    }
+    int sliceValue = sliceResult.value.intValue();
+    return sliceValue < 0 ? -1 : value + sliceValue;
+  }
+
+  private static FacetResult getTopResult(
+      List<LabelAndValue> sortedChildren, int topN, int value, String dim, String... path) {
+    LabelAndValue[] topChildren =
+        sortedChildren
+            .subList(0, Math.min(topN, sortedChildren.size()))
+            .toArray(new LabelAndValue[0]);
+    return new FacetResult(dim, path, value, topChildren, sortedChildren.size());
+  }
+
+  /** {@link FacetsCollector} that provides the matching docs of a single slice. */
+  static class SliceFacetsCollector extends FacetsCollector {
+    private final List<MatchingDocs> sliceMatchingDocs;
+
+    SliceFacetsCollector(List<MatchingDocs> sliceMatchingDocs) {
+      this.sliceMatchingDocs = sliceMatchingDocs;
+    }
+
+    @Override
+    public List<MatchingDocs> getMatchingDocs() {
+      return sliceMatchingDocs;
+    }
+  }
+}
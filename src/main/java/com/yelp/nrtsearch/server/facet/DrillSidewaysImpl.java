@@ -54,11 +54,13 @@ import org.apache.lucene.facet.range.DoubleRangeFacetCounts;
 import org.apache.lucene.facet.range.LongRange;
 import org.apache.lucene.facet.range.LongRangeFacetCounts;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
 import org.apache.lucene.facet.taxonomy.FastTaxonomyFacetCounts;
 import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
 import org.apache.lucene.facet.taxonomy.TaxonomyReader;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TaskExecutor;
 
 public class DrillSidewaysImpl extends DrillSideways {
   private final List<Facet> grpcFacets;
@@ -68,6 +70,7 @@ public class DrillSidewaysImpl extends DrillSideways {
   private final Map<String, FieldDef> dynamicFields;
   private final List<com.yelp.nrtsearch.server.grpc.FacetResult> grpcFacetResults;
   private final Diagnostics.Builder diagnostics;
+  private final TaskExecutor facetTaskExecutor;
 
   /**
    * @param searcher
@@ -91,6 +94,47 @@ public class DrillSidewaysImpl extends DrillSideways {
       List<com.yelp.nrtsearch.server.grpc.FacetResult> grpcFacetResults,
       ExecutorService executorService,
       Diagnostics.Builder diagnostics) {
+    this(
+        searcher,
+        config,
+        taxoReader,
+        grpcFacets,
+        searcherAndTaxonomyManager,
+        indexState,
+        shardState,
+        dynamicFields,
+        grpcFacetResults,
+        executorService,
+        diagnostics,
+        null);
+  }
+
+  /**
+   * @param searcher
+   * @param config
+   * @param taxoReader
+   * @param grpcFacets
+   * @param searcherAndTaxonomyManager
+   * @param shardState
+   * @param dynamicFields
+   * @param diagnostics diagnostics builder for storing facet timing
+   * @param facetTaskExecutor executor to count script, doc values, sorted set doc values and
+   *     numeric range facets over slices of the matching documents in parallel, or null to count in
+   *     the calling thread
+   */
+  public DrillSidewaysImpl(
+      IndexSearcher searcher,
+      FacetsConfig config,
+      TaxonomyReader taxoReader,
+      List<Facet> grpcFacets,
+      SearcherTaxonomyManager.SearcherAndTaxonomy searcherAndTaxonomyManager,
+      IndexState indexState,
+      ShardState shardState,
+      Map<String, FieldDef> dynamicFields,
+      List<com.yelp.nrtsearch.server.grpc.FacetResult> grpcFacetResults,
+      ExecutorService executorService,
+      Diagnostics.Builder diagnostics,
+      TaskExecutor facetTaskExecutor) {
     super(searcher, config, taxoReader, null, executorService);
     this.grpcFacets = grpcFacets;
     this.searcherAndTaxonomyManager = searcherAndTaxonomyManager;
@@ -99,6 +143,7 @@ public class DrillSidewaysImpl extends DrillSideways {
     this.dynamicFields = dynamicFields;
     this.grpcFacetResults = grpcFacetResults;
     this.diagnostics = diagnostics;
+    this.facetTaskExecutor = facetTaskExecutor;
   }
 
   protected Facets buildFacetsResult(
@@ -114,7 +159,8 @@ public class DrillSidewaysImpl extends DrillSideways {
         dynamicFields,
         searcherAndTaxonomyManager,
         grpcFacetResults,
-        diagnostics);
+        diagnostics,
+        facetTaskExecutor);
     return null;
   }
 
@@ -128,7 +174,8 @@ public class DrillSidewaysImpl extends DrillSideways {
       Map<String, FieldDef> dynamicFields,
       SearcherTaxonomyManager.SearcherAndTaxonomy searcherAndTaxonomyManager,
       List<com.yelp.nrtsearch.server.grpc.FacetResult> grpcFacetResults,
-      Diagnostics.Builder diagnostics)
+      Diagnostics.Builder diagnostics,
+      TaskExecutor facetTaskExecutor)
       throws IOException {
 
     Map<String, FacetsCollector> dsDimMap = new HashMap<String, FacetsCollector>();
@@ -157,7 +204,7 @@ public class DrillSidewaysImpl extends DrillSideways {
       com.yelp.nrtsearch.server.grpc.FacetResult facetResult;
       if (facet.hasScript()) {
         // this facet is a FacetScript, run script against all matching documents
-        facetResult = getScriptFacetResult(facet, drillDowns, indexState);
+        facetResult = getScriptFacetResult(facet, drillDowns, indexState, facetTaskExecutor);
       } else {
         facetResult =
             getFieldFacetResult(
@@ -168,7 +215,8 @@ public class DrillSidewaysImpl extends DrillSideways {
                 facet,
                 dynamicFields,
                 searcherAndTaxonomyManager,
-                indexFieldNameToFacets);
+                indexFieldNameToFacets,
+                facetTaskExecutor);
       }
       if (facetResult != null) {
         grpcFacetResults.add(facetResult);
@@ -178,8 +226,28 @@ public class DrillSidewaysImpl extends DrillSideways {
     }
   }
 
+  /** Values counted by a script or doc values facet, for all or a slice of the matching docs. */
+  private record ValueCounts(Map<Object, Integer> countsMap, int totalDocs) {
+    static ValueCounts merge(List<ValueCounts> sliceCounts) {
+      if (sliceCounts.size() == 1) {
+        return sliceCounts.getFirst();
+      }
+      Map<Object, Integer> countsMap = new HashMap<>();
+      int totalDocs = 0;
+      for (ValueCounts counts : sliceCounts) {
+        counts.countsMap().forEach((value, count) -> countsMap.merge(value, count, Integer::sum));
+        totalDocs += counts.totalDocs();
+      }
+      return new ValueCounts(countsMap, totalDocs);
+    }
+  }
+
   private static com.yelp.nrtsearch.server.grpc.FacetResult getScriptFacetResult(
-      Facet facet, FacetsCollector drillDowns, IndexState indexState) throws IOException {
+      Facet facet,
+      FacetsCollector drillDowns,
+      IndexState indexState,
+      TaskExecutor facetTaskExecutor)
+      throws IOException {
 
     FacetScript.Factory factory =
         ScriptService.getInstance().compile(facet.getScript(), FacetScript.CONTEXT);
@@ -187,10 +255,19 @@ public class DrillSidewaysImpl extends DrillSideways {
         factory.newFactory(
             ScriptParamsUtils.decodeParams(facet.getScript().getParamsMap()), indexState.docLookup);
 
+    ValueCounts counts =
+        ValueCounts.merge(
+            ConcurrentFacetCounts.countSlices(
+                drillDowns, facetTaskExecutor, hits -> countScriptValues(segmentFactory, hits)));
+    return buildFacetResultFromCountsGrpc(counts.countsMap(), facet, counts.totalDocs());
+  }
+
+  private static ValueCounts countScriptValues(
+      FacetScript.SegmentFactory segmentFactory, FacetsCollector hits) throws IOException {
     Map<Object, Integer> countsMap = new HashMap<>();
     int totalDocs = 0;
     // run script against all match docs, and aggregate counts
-    for (MatchingDocs matchingDocs : drillDowns.getMatchingDocs()) {
+    for (MatchingDocs matchingDocs : hits.getMatchingDocs()) {
       FacetScript script = segmentFactory.newInstance(matchingDocs.context());
       DocIdSetIterator iterator = matchingDocs.bits().iterator();
       if (iterator == null) {
@@ -207,15 +284,28 @@ public class DrillSidewaysImpl extends DrillSideways {
         docId = iterator.nextDoc();
       }
     }
-    return buildFacetResultFromCountsGrpc(countsMap, facet, totalDocs);
+    return new ValueCounts(countsMap, totalDocs);
   }
 
   private static com.yelp.nrtsearch.server.grpc.FacetResult getDocValuesFacetResult(
-      Facet facet, FacetsCollector drillDowns, IndexableFieldDef<?> fieldDef) throws IOException {
+      Facet facet,
+      FacetsCollector drillDowns,
+      IndexableFieldDef<?> fieldDef,
+      TaskExecutor facetTaskExecutor)
+      throws IOException {
+    ValueCounts counts =
+        ValueCounts.merge(
+            ConcurrentFacetCounts.countSlices(
+                drillDowns, facetTaskExecutor, hits -> countDocValues(fieldDef, hits)));
+    return buildFacetResultFromCountsGrpc(counts.countsMap(), facet, counts.totalDocs());
+  }
+
+  private static ValueCounts countDocValues(IndexableFieldDef<?> fieldDef, FacetsCollector hits)
+      throws IOException {
     Map<Object, Integer> countsMap = new HashMap<>();
     int totalDocs = 0;
     // get doc values for all match docs, and aggregate counts
-    for (MatchingDocs matchingDocs : drillDowns.getMatchingDocs()) {
+    for (MatchingDocs matchingDocs : hits.getMatchingDocs()) {
       LoadedDocValues<?> docValues = fieldDef.getDocValues(matchingDocs.context());
       DocIdSetIterator iterator = matchingDocs.bits().iterator();
       if (iterator == null) {
@@ -233,7 +323,7 @@ public class DrillSidewaysImpl extends DrillSideways {
         docId = iterator.nextDoc();
       }
     }
-    return buildFacetResultFromCountsGrpc(countsMap, facet, totalDocs);
+    return new ValueCounts(countsMap, totalDocs);
   }
 
   private static void processScriptResult(Object scriptResult, Map<Object, Integer> countsMap) {
@@ -312,7 +402,8 @@ public class DrillSidewaysImpl extends DrillSideways {
       Facet facet,
       Map<String, FieldDef> dynamicFields,
       SearcherTaxonomyManager.SearcherAndTaxonomy searcherAndTaxonomyManager,
-      Map<String, Facets> indexFieldNameToFacets)
+      Map<String, Facets> indexFieldNameToFacets,
+      TaskExecutor facetTaskExecutor)
       throws IOException {
 
     String fieldName = facet.getDim();
@@ -356,12 +447,13 @@ public class DrillSidewaysImpl extends DrillSideways {
         if (c == null) {
           c = drillDowns;
         }
-        LongRangeFacetCounts longRangeFacetCounts =
-            new LongRangeFacetCounts(fieldDef.getName(), c, ranges);
-
         facetResult =
-            longRangeFacetCounts.getTopChildren(
+            ConcurrentFacetCounts.getTopChildren(
+                c,
+                facetTaskExecutor,
+                hits -> new LongRangeFacetCounts(fieldDef.getName(), hits, ranges),
                 facet.getTopN(),
+                true,
                 fieldDef.getName(),
                 facet.getPathsList().toArray(new String[facet.getPathsCount()]));
       } else if (fieldDef instanceof FloatFieldDef) {
@@ -388,19 +480,24 @@ public class DrillSidewaysImpl extends DrillSideways {
         if (c == null) {
           c = drillDowns;
         }
-        DoubleRangeFacetCounts doubleRangeFacetCounts;
+        ConcurrentFacetCounts.SliceCounter<Facets> facetsCounter;
         if (fieldDef instanceof VirtualFieldDef virtualFieldDef) {
-          doubleRangeFacetCounts =
-              new DoubleRangeFacetCounts(
-                  virtualFieldDef.getName(), virtualFieldDef.getValuesSource(), c, ranges);
+          facetsCounter =
+              hits ->
+                  new DoubleRangeFacetCounts(
+                      virtualFieldDef.getName(), virtualFieldDef.getValuesSource(), hits, ranges);
 
         } else {
-          doubleRangeFacetCounts = new DoubleRangeFacetCounts(fieldDef.getName(), c, ranges);
+          facetsCounter = hits -> new DoubleRangeFacetCounts(fieldDef.getName(), hits, ranges);
         }
 
         facetResult =
-            doubleRangeFacetCounts.getTopChildren(
+            ConcurrentFacetCounts.getTopChildren(
+                c,
+                facetTaskExecutor,
+                facetsCounter,
                 facet.getTopN(),
+                true,
                 fieldDef.getName(),
                 facet.getPathsList().toArray(new String[facet.getPathsCount()]));
       } else {
@@ -414,20 +511,26 @@ public class DrillSidewaysImpl extends DrillSideways {
         c = drillDowns;
       }
       if (facet.getLabelsCount() > 0) {
-        // filter facet if a label list is provided
+        // filter facet if a label list is provided, slices are counted with the search executor
         FilteredSSDVFacetCounts filteredSSDVFacetCounts =
             new FilteredSSDVFacetCounts(
                 facet.getLabelsList(),
                 fieldDef.getName(),
                 shardState.getSSDVState(indexState, searcherAndTaxonomyManager, fieldDef),
-                c);
+                c,
+                searcherAndTaxonomyManager.searcher().getTaskExecutor());
         facetResult = filteredSSDVFacetCounts.getTopChildren(facet.getTopN(), fieldDef.getName());
       } else {
-        SortedSetDocValuesFacetCounts sortedSetDocValuesFacetCounts =
-            new SortedSetDocValuesFacetCounts(
-                shardState.getSSDVState(indexState, searcherAndTaxonomyManager, fieldDef), c);
+        SortedSetDocValuesReaderState ssdvState =
+            shardState.getSSDVState(indexState, searcherAndTaxonomyManager, fieldDef);
         facetResult =
-            sortedSetDocValuesFacetCounts.getTopChildren(facet.getTopN(), fieldDef.getName());
+            ConcurrentFacetCounts.getTopChildren(
+                c,
+                facetTaskExecutor,
+                hits -> new SortedSetDocValuesFacetCounts(ssdvState, hits),
+                facet.getTopN(),
+                false,
+                fieldDef.getName());
       }
     } else if (fieldDef.getFacetValueType() != IndexableFieldDef.FacetValueType.NO_FACETS) {
 
@@ -508,7 +611,7 @@ public class DrillSidewaysImpl extends DrillSideways {
         throw new IllegalArgumentException(
             "Doc values facet requires doc values enabled : " + fieldName);
       }
-      return getDocValuesFacetResult(facet, drillDowns, indexableFieldDef);
+      return getDocValuesFacetResult(facet, drillDowns, indexableFieldDef, facetTaskExecutor);
     }
     return buildFacetResultGrpc(facetResult, facet.getName());
   }
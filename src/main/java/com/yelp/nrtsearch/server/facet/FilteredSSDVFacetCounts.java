@@ -16,10 +16,10 @@
 package com.yelp.nrtsearch.server.facet;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
 import org.apache.lucene.facet.FacetResult;
 import org.apache.lucene.facet.FacetUtils;
 import org.apache.lucene.facet.Facets;
@@ -33,33 +33,55 @@ import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.index.MultiDocValues;
-import org.apache.lucene.index.MultiDocValues.MultiSortedSetDocValues;
-import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.ConjunctionUtils;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.TaskExecutor;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.LongValues;
 
 /**
  * Facet implementation based off the {@link
  * org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts}. Computes facet counts based on
  * the sorted set doc value ordinals for a provided list of values, acting as an inclusion filter.
  * Only applies to a single dimension.
+ *
+ * <p>Counting is done in segment ordinal space. The provided values are translated to the ordinals
+ * of each segment once, and counted directly into an array indexed by value. This avoids mapping
+ * every document ordinal through the global ordinal map. Segments are grouped into slices, which
+ * may be counted concurrently when a {@link TaskExecutor} is provided.
  */
 public class FilteredSSDVFacetCounts extends Facets {
+  // min number of documents counted by each slice when counting concurrently
+  static final int DEFAULT_MIN_DOCS_PER_SLICE = 50_000;
 
   final SortedSetDocValuesReaderState state;
   final SortedSetDocValues dv;
   final String field;
-  final Map<Long, Integer> globalOrdinalToCountIndex;
   final List<String> values;
+  final BytesRef[] valueTerms;
   int[] counts;
 
+  /** Segment to count, with the matching documents or null to count all live documents. */
+  record SegmentHits(LeafReaderContext context, MatchingDocs hits) {
+    int numDocs() {
+      return hits == null ? context.reader().maxDoc() : hits.totalHits();
+    }
+  }
+
+  /** Requested values present in a segment, sorted by segment ordinal. */
+  record SegmentOrdinals(int[] ords, int[] countIndices) {
+    int minOrd() {
+      return ords[0];
+    }
+
+    int maxOrd() {
+      return ords[ords.length - 1];
+    }
+  }
+
   /**
    * Facet to count based on sorted set doc values, but only considering the provided values.
    *
@@ -72,51 +94,64 @@ public class FilteredSSDVFacetCounts extends Facets {
   public FilteredSSDVFacetCounts(
       List<String> values, String dim, SortedSetDocValuesReaderState state, FacetsCollector hits)
       throws IOException {
+    this(values, dim, state, hits, null, DEFAULT_MIN_DOCS_PER_SLICE);
+  }
+
+  /**
+   * Facet to count based on sorted set doc values, but only considering the provided values.
+   *
+   * @param values values to count
+   * @param dim facet dimension
+   * @param state reader state
+   * @param hits hits to facet over
+   * @param taskExecutor executor to count slices concurrently, or null to count in the current
+   *     thread
+   * @throws IOException
+   */
+  public FilteredSSDVFacetCounts(
+      List<String> values,
+      String dim,
+      SortedSetDocValuesReaderState state,
+      FacetsCollector hits,
+      TaskExecutor taskExecutor)
+      throws IOException {
+    this(values, dim, state, hits, taskExecutor, DEFAULT_MIN_DOCS_PER_SLICE);
+  }
+
+  FilteredSSDVFacetCounts(
+      List<String> values,
+      String dim,
+      SortedSetDocValuesReaderState state,
+      FacetsCollector hits,
+      TaskExecutor taskExecutor,
+      int minDocsPerSlice)
+      throws IOException {
     this.state = state;
     this.field = state.getField();
     this.values = values;
     dv = state.getDocValues();
 
-    // find mapping to go from global ordinal to the value count index
-    globalOrdinalToCountIndex = new HashMap<>();
+    valueTerms = new BytesRef[values.size()];
     for (int i = 0; i < values.size(); ++i) {
-      String[] fullPath = new String[2];
-      fullPath[0] = dim;
-      fullPath[1] = values.get(i);
-      long gOrd = dv.lookupTerm(new BytesRef(FacetsConfig.pathToString(fullPath)));
-      if (gOrd >= 0) {
-        globalOrdinalToCountIndex.put(gOrd, i);
-      }
+      valueTerms[i] = new BytesRef(FacetsConfig.pathToString(new String[] {dim, values.get(i)}));
     }
 
+    List<SegmentHits> segments;
     if (hits == null) {
       // browse only
-      countAll();
+      segments = new ArrayList<>();
+      for (LeafReaderContext context : state.getReader().leaves()) {
+        segments.add(new SegmentHits(context, null));
+      }
     } else {
-      count(hits.getMatchingDocs());
-    }
-  }
-
-  private void initializeCounts() {
-    if (counts == null) {
-      counts = new int[values.size()];
+      segments = getSegmentHits(hits.getMatchingDocs());
     }
+    countSlices(getSlices(segments, minDocsPerSlice), taskExecutor);
   }
 
-  /** Does all the "real work" of tallying up the counts. */
-  private void count(List<MatchingDocs> matchingDocs) throws IOException {
-    OrdinalMap ordinalMap;
-
-    // TODO: is this right?  really, we need a way to
-    // verify that this ordinalMap "matches" the leaves in
-    // matchingDocs...
-    if (dv instanceof MultiDocValues.MultiSortedSetDocValues && matchingDocs.size() > 1) {
-      ordinalMap = ((MultiSortedSetDocValues) dv).mapping;
-    } else {
-      ordinalMap = null;
-    }
+  private List<SegmentHits> getSegmentHits(List<MatchingDocs> matchingDocs) {
     IndexReader reader = state.getReader();
-
+    List<SegmentHits> segments = new ArrayList<>();
     for (MatchingDocs hits : matchingDocs) {
       // LUCENE-5090: make sure the provided reader context "matches"
       // the top-level reader passed to the
@@ -126,205 +161,207 @@ public class FilteredSSDVFacetCounts extends Facets {
         throw new IllegalStateException(
             "the SortedSetDocValuesReaderState provided to this class does not match the reader being searched; you must create a new SortedSetDocValuesReaderState every time you open a new IndexReader");
       }
+      if (hits.totalHits() > 0) {
+        segments.add(new SegmentHits(hits.context(), hits));
+      }
+    }
+    return segments;
+  }
 
-      countOneSegment(ordinalMap, hits.context().reader(), hits.context().ord, hits, null);
+  /**
+   * Group segments into slices, each containing at least the given number of documents, except
+   * for the last one.
+   */
+  static List<List<SegmentHits>> getSlices(List<SegmentHits> segments, int minDocsPerSlice) {
+    List<List<SegmentHits>> slices = new ArrayList<>();
+    List<SegmentHits> currentSlice = new ArrayList<>();
+    long currentDocs = 0;
+    for (SegmentHits segment : segments) {
+      currentSlice.add(segment);
+      currentDocs += segment.numDocs();
+      if (currentDocs >= minDocsPerSlice) {
+        slices.add(currentSlice);
+        currentSlice = new ArrayList<>();
+        currentDocs = 0;
+      }
     }
+    if (!currentSlice.isEmpty()) {
+      slices.add(currentSlice);
+    }
+    return slices;
   }
 
-  // Variant of countOneSegment, that has No Hits or Live Docs
-  private void countOneSegmentNHLD(OrdinalMap ordinalMap, LeafReader reader, int segOrd)
+  /** Does all the "real work" of tallying up the counts. */
+  private void countSlices(List<List<SegmentHits>> slices, TaskExecutor taskExecutor)
       throws IOException {
-    SortedSetDocValues multiValues = DocValues.getSortedSet(reader, field);
-    if (multiValues == null) {
-      // nothing to count
+    if (taskExecutor == null || slices.size() <= 1) {
+      for (List<SegmentHits> slice : slices) {
+        mergeCounts(countSlice(slice));
+      }
       return;
     }
+    List<Callable<int[]>> tasks = new ArrayList<>(slices.size());
+    for (List<SegmentHits> slice : slices) {
+      tasks.add(() -> countSlice(slice));
+    }
+    for (int[] sliceCounts : taskExecutor.invokeAll(tasks)) {
+      mergeCounts(sliceCounts);
+    }
+  }
 
-    // Initialize counts:
-    initializeCounts();
-
-    // It's slightly more efficient to work against SortedDocValues if the field is actually
-    // single-valued (see: LUCENE-5309)
-    SortedDocValues singleValues = DocValues.unwrapSingleton(multiValues);
-
-    // TODO: yet another option is to count all segs
-    // first, only in seg-ord space, and then do a
-    // merge-sort-PQ in the end to only "resolve to
-    // global" those seg ords that can compete, if we know
-    // we just want top K?  ie, this is the same algo
-    // that'd be used for merging facets across shards
-    // (distributed faceting).  but this has much higher
-    // temp ram req'ts (sum of number of ords across all
-    // segs)
-    if (ordinalMap != null) {
-      final LongValues ordMap = ordinalMap.getGlobalOrds(segOrd);
-      int numSegOrds = (int) multiValues.getValueCount();
-
-      // First count in seg-ord space:
-      final int[] segCounts = new int[numSegOrds];
-      if (singleValues != null) {
-        for (int doc = singleValues.nextDoc();
-            doc != DocIdSetIterator.NO_MORE_DOCS;
-            doc = singleValues.nextDoc()) {
-          segCounts[singleValues.ordValue()]++;
-        }
-      } else {
-        for (int doc = multiValues.nextDoc();
-            doc != DocIdSetIterator.NO_MORE_DOCS;
-            doc = multiValues.nextDoc()) {
-          for (int i = 0; i < multiValues.docValueCount(); i++) {
-            int term = (int) multiValues.nextOrd();
-            segCounts[term]++;
-          }
-        }
+  private void mergeCounts(int[] sliceCounts) {
+    if (sliceCounts == null) {
+      return;
+    }
+    if (counts == null) {
+      counts = sliceCounts;
+    } else {
+      for (int i = 0; i < counts.length; ++i) {
+        counts[i] += sliceCounts[i];
       }
+    }
+  }
 
-      // Then, migrate to global ords:
-      for (int ord = 0; ord < numSegOrds; ord++) {
-        int count = segCounts[ord];
-        if (count != 0) {
-          Integer countIndex = globalOrdinalToCountIndex.get(ordMap.get(ord));
-          if (countIndex != null) {
-            counts[countIndex] += count;
-          }
-        }
+  /**
+   * Count the segments in a slice.
+   *
+   * @return slice counts indexed by value, or null if no segment has values for the field
+   */
+  private int[] countSlice(List<SegmentHits> slice) throws IOException {
+    int[] sliceCounts = null;
+    for (SegmentHits segment : slice) {
+      LeafReader reader = segment.context().reader();
+      SortedSetDocValues multiValues = DocValues.getSortedSet(reader, field);
+      if (multiValues == null) {
+        // nothing to count
+        continue;
       }
-    } else {
-      // No ord mapping (e.g., single segment index):
-      // just aggregate directly into counts:
-      if (singleValues != null) {
-        for (int doc = singleValues.nextDoc();
-            doc != DocIdSetIterator.NO_MORE_DOCS;
-            doc = singleValues.nextDoc()) {
-          Integer countIndex = globalOrdinalToCountIndex.get((long) singleValues.ordValue());
-          if (countIndex != null) {
-            counts[countIndex]++;
-          }
-        }
-      } else {
-        for (int doc = multiValues.nextDoc();
-            doc != DocIdSetIterator.NO_MORE_DOCS;
-            doc = multiValues.nextDoc()) {
-          for (int i = 0; i < multiValues.docValueCount(); i++) {
-            int term = (int) multiValues.nextOrd();
-            Integer countIndex = globalOrdinalToCountIndex.get((long) term);
-            if (countIndex != null) {
-              counts[countIndex]++;
-            }
-          }
-        }
+      if (sliceCounts == null) {
+        sliceCounts = new int[values.size()];
+      }
+      SegmentOrdinals segmentOrdinals = getSegmentOrdinals(multiValues);
+      if (segmentOrdinals != null) {
+        countSegment(segment, multiValues, segmentOrdinals, sliceCounts);
       }
     }
+    return sliceCounts;
   }
 
-  private void countOneSegment(
-      OrdinalMap ordinalMap, LeafReader reader, int segOrd, MatchingDocs hits, Bits liveDocs)
-      throws IOException {
-    if (hits != null && hits.totalHits() == 0) {
-      return;
+  /**
+   * Translate the requested values into ordinals for a segment.
+   *
+   * @return ordinals sorted in ascending order, or null if no values are present in the segment
+   */
+  private SegmentOrdinals getSegmentOrdinals(SortedSetDocValues multiValues) throws IOException {
+    // pack segment ordinal and value index, so sorting groups duplicate values by ordinal
+    long[] ordAndIndex = new long[valueTerms.length];
+    int numFound = 0;
+    for (int i = 0; i < valueTerms.length; ++i) {
+      long segOrd = multiValues.lookupTerm(valueTerms[i]);
+      if (segOrd >= 0) {
+        ordAndIndex[numFound++] = (segOrd << 32) | i;
+      }
     }
-
-    SortedSetDocValues multiValues = DocValues.getSortedSet(reader, field);
-    if (multiValues == null) {
-      // nothing to count
-      return;
+    if (numFound == 0) {
+      return null;
     }
+    Arrays.sort(ordAndIndex, 0, numFound);
+
+    int[] ords = new int[numFound];
+    int[] countIndices = new int[numFound];
+    int numOrds = 0;
+    for (int i = 0; i < numFound; ++i) {
+      int ord = (int) (ordAndIndex[i] >>> 32);
+      int countIndex = (int) ordAndIndex[i];
+      if (numOrds > 0 && ords[numOrds - 1] == ord) {
+        // a value requested more than once is counted at its last index
+        countIndices[numOrds - 1] = countIndex;
+      } else {
+        ords[numOrds] = ord;
+        countIndices[numOrds] = countIndex;
+        numOrds++;
+      }
+    }
+    return new SegmentOrdinals(Arrays.copyOf(ords, numOrds), Arrays.copyOf(countIndices, numOrds));
+  }
 
-    // Initialize counts:
-    initializeCounts();
-
+  private void countSegment(
+      SegmentHits segment,
+      SortedSetDocValues multiValues,
+      SegmentOrdinals segmentOrdinals,
+      int[] sliceCounts)
+      throws IOException {
     // It's slightly more efficient to work against SortedDocValues if the field is actually
     // single-valued (see: LUCENE-5309)
     SortedDocValues singleValues = DocValues.unwrapSingleton(multiValues);
     DocIdSetIterator valuesIt = singleValues != null ? singleValues : multiValues;
 
     DocIdSetIterator it;
-    if (hits == null) {
-      assert liveDocs != null;
-      it = FacetUtils.liveDocsDISI(valuesIt, liveDocs);
-      ;
+    if (segment.hits() == null) {
+      Bits liveDocs = segment.context().reader().getLiveDocs();
+      it = liveDocs == null ? valuesIt : FacetUtils.liveDocsDISI(valuesIt, liveDocs);
     } else {
-      it = ConjunctionUtils.intersectIterators(Arrays.asList(hits.bits().iterator(), valuesIt));
+      it =
+          ConjunctionUtils.intersectIterators(
+              Arrays.asList(segment.hits().bits().iterator(), valuesIt));
     }
 
-    // TODO: yet another option is to count all segs
-    // first, only in seg-ord space, and then do a
-    // merge-sort-PQ in the end to only "resolve to
-    // global" those seg ords that can compete, if we know
-    // we just want top K?  ie, this is the same algo
-    // that'd be used for merging facets across shards
-    // (distributed faceting).  but this has much higher
-    // temp ram req'ts (sum of number of ords across all
-    // segs)
-    if (ordinalMap != null) {
-      final LongValues ordMap = ordinalMap.getGlobalOrds(segOrd);
-
-      int numSegOrds = (int) multiValues.getValueCount();
-
-      if (hits != null && hits.totalHits() < numSegOrds / 10) {
-        // Remap every ord to global ord as we iterate:
-        if (singleValues != null) {
-          for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
-            Integer countIndex = globalOrdinalToCountIndex.get(ordMap.get(singleValues.ordValue()));
-            if (countIndex != null) {
-              counts[countIndex]++;
-            }
-          }
-        } else {
-          for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
-            for (int i = 0; i < multiValues.docValueCount(); i++) {
-              int term = (int) multiValues.nextOrd();
-              Integer countIndex = globalOrdinalToCountIndex.get(ordMap.get(term));
-              if (countIndex != null) {
-                counts[countIndex]++;
-              }
-            }
+    int minOrd = segmentOrdinals.minOrd();
+    int maxOrd = segmentOrdinals.maxOrd();
+    int[] ords = segmentOrdinals.ords();
+    int[] countIndices = segmentOrdinals.countIndices();
+
+    if (maxOrd - minOrd < segment.numDocs()) {
+      // count every ordinal in the requested range, then pick out the requested ordinals
+      int[] rangeCounts = new int[maxOrd - minOrd + 1];
+      if (singleValues != null) {
+        for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+          int ord = singleValues.ordValue() - minOrd;
+          if (ord >= 0 && ord < rangeCounts.length) {
+            rangeCounts[ord]++;
           }
         }
       } else {
-        // First count in seg-ord space:
-        final int[] segCounts = new int[numSegOrds];
-        if (singleValues != null) {
-          for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
-            segCounts[singleValues.ordValue()]++;
-          }
-        } else {
-          for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
-            for (int i = 0; i < multiValues.docValueCount(); i++) {
-              int term = (int) multiValues.nextOrd();
-              segCounts[term]++;
+        for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+          for (int i = 0; i < multiValues.docValueCount(); i++) {
+            int ord = (int) multiValues.nextOrd();
+            if (ord > maxOrd) {
+              // ordinals are in ascending order
+              break;
             }
-          }
-        }
-
-        // Then, migrate to global ords:
-        for (int ord = 0; ord < numSegOrds; ord++) {
-          int count = segCounts[ord];
-          if (count != 0) {
-            Integer countIndex = globalOrdinalToCountIndex.get(ordMap.get(ord));
-            if (countIndex != null) {
-              counts[countIndex] += count;
+            if (ord >= minOrd) {
+              rangeCounts[ord - minOrd]++;
             }
           }
         }
       }
+      for (int i = 0; i < ords.length; ++i) {
+        sliceCounts[countIndices[i]] += rangeCounts[ords[i] - minOrd];
+      }
     } else {
-      // No ord mapping (e.g., single segment index):
-      // just aggregate directly into counts:
+      // requested ordinals are spread out, look up each ordinal
       if (singleValues != null) {
         for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
-          Integer countIndex = globalOrdinalToCountIndex.get((long) singleValues.ordValue());
-          if (countIndex != null) {
-            counts[countIndex]++;
+          int ord = singleValues.ordValue();
+          if (ord >= minOrd && ord <= maxOrd) {
+            int index = Arrays.binarySearch(ords, ord);
+            if (index >= 0) {
+              sliceCounts[countIndices[index]]++;
+            }
           }
         }
       } else {
         for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
           for (int i = 0; i < multiValues.docValueCount(); i++) {
-            int term = (int) multiValues.nextOrd();
-            Integer countIndex = globalOrdinalToCountIndex.get((long) term);
-            if (countIndex != null) {
-              counts[countIndex]++;
+            int ord = (int) multiValues.nextOrd();
+            if (ord > maxOrd) {
+              break;
+            }
+            if (ord >= minOrd) {
+              int index = Arrays.binarySearch(ords, ord);
+              if (index >= 0) {
+                sliceCounts[countIndices[index]]++;
+              }
             }
           }
         }
@@ -332,31 +369,6 @@ public class FilteredSSDVFacetCounts extends Facets {
     }
   }
 
-  /** Does all the "real work" of tallying up the counts. */
-  private void countAll() throws IOException {
-
-    OrdinalMap ordinalMap;
-
-    // TODO: is this right?  really, we need a way to
-    // verify that this ordinalMap "matches" the leaves in
-    // matchingDocs...
-    if (dv instanceof MultiDocValues.MultiSortedSetDocValues) {
-      ordinalMap = ((MultiSortedSetDocValues) dv).mapping;
-    } else {
-      ordinalMap = null;
-    }
-
-    for (LeafReaderContext context : state.getReader().leaves()) {
-
-      Bits liveDocs = context.reader().getLiveDocs();
-      if (liveDocs == null) {
-        countOneSegmentNHLD(ordinalMap, context.reader(), context.ord);
-      } else {
-        countOneSegment(ordinalMap, context.reader(), context.ord, null, liveDocs);
-      }
-    }
-  }
-
   @Override
   public FacetResult getAllChildren(String dim, String... path) throws IOException {
     return null;
@@ -429,8 +441,8 @@ public class FilteredSSDVFacetCounts extends Facets {
       return -1;
     }
 
-    Integer countIndex = globalOrdinalToCountIndex.get(ord);
-    if (countIndex == null) {
+    int countIndex = values.lastIndexOf(path[0]);
+    if (countIndex < 0 || counts == null) {
       return -1;
     }
 
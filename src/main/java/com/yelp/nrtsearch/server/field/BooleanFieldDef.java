@@ -90,6 +90,7 @@ public class BooleanFieldDef extends IndexableFieldDef<Boolean> implements TermQ
           "Cannot index multiple values into single value field: " + getName());
     }
 
+    ReusableFields reusableFields = ReusableFields.current();
     for (String fieldStr : fieldValues) {
       boolean value = parseBooleanOrThrow(fieldStr);
       int indexedValue;
@@ -100,7 +101,9 @@ public class BooleanFieldDef extends IndexableFieldDef<Boolean> implements TermQ
       }
 
       if (hasDocValues()) {
-        if (docValuesType == DocValuesType.NUMERIC) {
+        if (reusableFields != null) {
+          document.add(reusableFields.numericDocValues(getName(), docValuesType, indexedValue));
+        } else if (docValuesType == DocValuesType.NUMERIC) {
           document.add(new NumericDocValuesField(getName(), indexedValue));
         } else if (docValuesType == DocValuesType.SORTED_NUMERIC) {
           document.add(new SortedNumericDocValuesField(getName(), indexedValue));
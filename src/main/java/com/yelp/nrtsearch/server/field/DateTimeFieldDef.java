@@ -280,10 +280,13 @@ public class DateTimeFieldDef extends IndexableFieldDef<Instant>
           "Cannot index multiple values into single value field: " + getName());
     }
 
+    ReusableFields reusableFields = ReusableFields.current();
     for (String fieldStr : fieldValues) {
       long indexValue = getTimeToIndex(fieldStr);
       if (hasDocValues()) {
-        if (docValuesType == DocValuesType.NUMERIC) {
+        if (reusableFields != null) {
+          document.add(reusableFields.numericDocValues(getName(), docValuesType, indexValue));
+        } else if (docValuesType == DocValuesType.NUMERIC) {
           document.add(new NumericDocValuesField(getName(), indexValue));
         } else if (docValuesType == DocValuesType.SORTED_NUMERIC) {
           document.add(new SortedNumericDocValuesField(getName(), indexValue));
@@ -294,7 +297,10 @@ public class DateTimeFieldDef extends IndexableFieldDef<Instant>
         }
       }
       if (isSearchable()) {
-        document.add(new LongPoint(getName(), indexValue));
+        document.add(
+            reusableFields == null
+                ? new LongPoint(getName(), indexValue)
+                : reusableFields.longPoint(getName(), indexValue));
       }
       if (isStored()) {
         document.add(new FieldWithData(getName(), fieldType, indexValue));
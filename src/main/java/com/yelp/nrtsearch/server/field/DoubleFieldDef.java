@@ -27,6 +27,7 @@ import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.StoredValue;
 import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.IndexOrDocValuesQuery;
@@ -59,6 +60,17 @@ public class DoubleFieldDef extends NumberFieldDef<Double> {
     return new DoublePoint(getName(), fieldValue.doubleValue());
   }
 
+  @Override
+  protected IndexableField getDocValueField(ReusableFields reusableFields, Number fieldValue) {
+    return reusableFields.numericDocValues(
+        getName(), docValuesType, SORTED_DOUBLE_ENCODER.applyAsLong(fieldValue));
+  }
+
+  @Override
+  protected IndexableField getPointField(ReusableFields reusableFields, Number fieldValue) {
+    return reusableFields.doublePoint(getName(), fieldValue.doubleValue());
+  }
+
   @Override
   protected LoadedDocValues<Double> getNumericDocValues(NumericDocValues docValues) {
     return new LoadedDocValues.SingleDouble(docValues);
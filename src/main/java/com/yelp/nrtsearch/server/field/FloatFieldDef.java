@@ -27,6 +27,7 @@ import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.StoredValue;
 import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.IndexOrDocValuesQuery;
@@ -59,6 +60,17 @@ public class FloatFieldDef extends NumberFieldDef<Float> {
     return new FloatPoint(getName(), fieldValue.floatValue());
   }
 
+  @Override
+  protected IndexableField getDocValueField(ReusableFields reusableFields, Number fieldValue) {
+    return reusableFields.numericDocValues(
+        getName(), docValuesType, SORTED_FLOAT_ENCODER.applyAsLong(fieldValue));
+  }
+
+  @Override
+  protected IndexableField getPointField(ReusableFields reusableFields, Number fieldValue) {
+    return reusableFields.floatPoint(getName(), fieldValue.floatValue());
+  }
+
   @Override
   protected LoadedDocValues<Float> getNumericDocValues(NumericDocValues docValues) {
     return new LoadedDocValues.SingleFloat(docValues);
@@ -100,6 +100,14 @@ public class IdFieldDef extends IndexableFieldDef<String> implements TermQueryab
           "Cannot index multiple values into _id fields, field name: " + getName());
     }
     String fieldStr = fieldValues.get(0);
+    ReusableFields reusableFields = ReusableFields.current();
+    if (reusableFields != null) {
+      if (hasDocValues()) {
+        document.add(reusableFields.stringDocValues(getName(), DocValuesType.SORTED, fieldStr));
+      }
+      document.add(reusableFields.stringField(getName(), fieldType, fieldStr));
+      return;
+    }
     if (hasDocValues()) {
       BytesRef stringBytes = new BytesRef(fieldStr);
       document.add(new SortedDocValuesField(getName(), stringBytes));
@@ -27,6 +27,7 @@ import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.StoredValue;
 import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.IndexOrDocValuesQuery;
@@ -57,6 +58,16 @@ public class IntFieldDef extends NumberFieldDef<Integer> {
     return new IntPoint(getName(), fieldValue.intValue());
   }
 
+  @Override
+  protected IndexableField getDocValueField(ReusableFields reusableFields, Number fieldValue) {
+    return reusableFields.numericDocValues(getName(), docValuesType, fieldValue.intValue());
+  }
+
+  @Override
+  protected IndexableField getPointField(ReusableFields reusableFields, Number fieldValue) {
+    return reusableFields.intPoint(getName(), fieldValue.intValue());
+  }
+
   @Override
   protected LoadedDocValues<Integer> getNumericDocValues(NumericDocValues docValues) {
     return new LoadedDocValues.SingleInteger(docValues);
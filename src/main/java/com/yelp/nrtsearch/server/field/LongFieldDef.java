@@ -27,6 +27,7 @@ import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.StoredValue;
 import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.IndexOrDocValuesQuery;
@@ -57,6 +58,16 @@ public class LongFieldDef extends NumberFieldDef<Long> {
     return new LongPoint(getName(), fieldValue.longValue());
   }
 
+  @Override
+  protected IndexableField getDocValueField(ReusableFields reusableFields, Number fieldValue) {
+    return reusableFields.numericDocValues(getName(), docValuesType, fieldValue.longValue());
+  }
+
+  @Override
+  protected IndexableField getPointField(ReusableFields reusableFields, Number fieldValue) {
+    return reusableFields.longPoint(getName(), fieldValue.longValue());
+  }
+
   @Override
   protected LoadedDocValues<Long> getNumericDocValues(NumericDocValues docValues) {
     return new LoadedDocValues.SingleLong(docValues);
@@ -35,6 +35,7 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.facet.FacetField;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
@@ -135,6 +136,30 @@ public abstract class NumberFieldDef<T> extends IndexableFieldDef<T>
    */
   protected abstract org.apache.lucene.document.Field getPointField(Number fieldValue);
 
+  /**
+   * Get the doc value {@link IndexableField} to add to document during indexing, using a pooled
+   * field instance when possible. The default implementation allocates a new field.
+   *
+   * @param reusableFields active field pool
+   * @param fieldValue field doc value
+   * @return lucene doc value field to index
+   */
+  protected IndexableField getDocValueField(ReusableFields reusableFields, Number fieldValue) {
+    return getDocValueField(fieldValue);
+  }
+
+  /**
+   * Get the point {@link IndexableField} used to search numeric values, using a pooled field
+   * instance when possible. The default implementation allocates a new field.
+   *
+   * @param reusableFields active field pool
+   * @param fieldValue field point value
+   * @return lucene point field to index
+   */
+  protected IndexableField getPointField(ReusableFields reusableFields, Number fieldValue) {
+    return getPointField(fieldValue);
+  }
+
   /**
    * Get the appropriate {@link LoadedDocValues} implementation for the field type using the given
    * {@link NumericDocValues} accessor.
@@ -193,13 +218,20 @@ public abstract class NumberFieldDef<T> extends IndexableFieldDef<T>
       throw new IllegalArgumentException(
           "Cannot index multiple values into single value field: " + getName());
     }
+    ReusableFields reusableFields = ReusableFields.current();
     for (String fieldStr : fieldValues) {
       Number fieldValue = parseNumberString(fieldStr);
       if (hasDocValues()) {
-        document.add(getDocValueField(fieldValue));
+        document.add(
+            reusableFields == null
+                ? getDocValueField(fieldValue)
+                : getDocValueField(reusableFields, fieldValue));
       }
       if (isSearchable()) {
-        document.add(getPointField(fieldValue));
+        document.add(
+            reusableFields == null
+                ? getPointField(fieldValue)
+                : getPointField(reusableFields, fieldValue));
       }
       if (isStored()) {
         document.add(new FieldWithData(getName(), fieldType, fieldValue));
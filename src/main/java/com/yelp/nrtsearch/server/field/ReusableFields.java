@@ -0,0 +1,354 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.field;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.FloatPoint;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+
+/**
+ * Pool of lucene {@link Field} instances that are recycled between documents. When the pool is
+ * active for the current thread, {@link FieldDef} implementations get their numeric, point, doc
+ * value and string fields from it, and the value of a previously created field is set in place
+ * instead of allocating a new one.
+ *
+ * <p>A pool is taken for the duration of an indexing job by {@link #start()}, and returned by
+ * {@link #close()}. Closed pools are kept for the next job on any thread, so that fields are still
+ * reused when each job runs on a new virtual thread. The pool is only bound to the current thread
+ * while it is active, since the lucene {@link org.apache.lucene.document.Document} cannot carry it
+ * to the field definitions.
+ *
+ * <p>Fields are handed out in order for each field name and usage, so a multivalued field gets a
+ * distinct instance for each value. Calling {@link #nextDocument()} makes all fields available
+ * again. This is only safe once the index writer has consumed the previous document, since its
+ * fields are modified by the next one.
+ */
+public class ReusableFields implements AutoCloseable {
+  // max closed pools to keep, more are only needed when there are more concurrent indexing jobs
+  static final int MAX_IDLE_POOLS = 64;
+  private static final BlockingDeque<ReusableFields> IDLE_POOLS =
+      new LinkedBlockingDeque<>(MAX_IDLE_POOLS);
+  private static final ThreadLocal<ReusableFields> ACTIVE_FIELDS = new ThreadLocal<>();
+
+  /** How a field is used in the document, a field name may have one pooled field per usage. */
+  enum Usage {
+    DOC_VALUE,
+    POINT,
+    TERM
+  }
+
+  private static class Slot {
+    final List<Field> fields = new ArrayList<>();
+    // buffers for string doc values, by field index
+    final List<BytesRefBuilder> bytes = new ArrayList<>();
+    int next;
+
+    BytesRefBuilder getBytes(int index) {
+      while (bytes.size() <= index) {
+        bytes.add(new BytesRefBuilder());
+      }
+      return bytes.get(index);
+    }
+  }
+
+  private final Map<String, Slot[]> slots = new HashMap<>();
+  private final List<Slot> usedSlots = new ArrayList<>();
+  private long reusedCount;
+  private long allocatedCount;
+
+  ReusableFields() {}
+
+  /**
+   * Take a field pool and activate it for the current thread. Fields created by earlier indexing
+   * jobs are reused. The pool must be closed by the same thread when indexing is done.
+   *
+   * @return field pool for current thread
+   * @throws IllegalStateException if a pool is already active for the thread
+   */
+  public static ReusableFields start() {
+    if (ACTIVE_FIELDS.get() != null) {
+      throw new IllegalStateException("Reusable fields already active for thread");
+    }
+    // most recently closed first, its fields are the most likely to still be cached
+    ReusableFields reusableFields = IDLE_POOLS.pollFirst();
+    if (reusableFields == null) {
+      reusableFields = new ReusableFields();
+    }
+    reusableFields.reusedCount = 0;
+    reusableFields.allocatedCount = 0;
+    reusableFields.nextDocument();
+    ACTIVE_FIELDS.set(reusableFields);
+    return reusableFields;
+  }
+
+  /**
+   * Get the active field pool for the current thread.
+   *
+   * @return field pool, or null if not active
+   */
+  public static ReusableFields current() {
+    return ACTIVE_FIELDS.get();
+  }
+
+  /** Make all pooled fields available to the next document. */
+  public void nextDocument() {
+    for (Slot slot : usedSlots) {
+      slot.next = 0;
+    }
+    usedSlots.clear();
+  }
+
+  /** Get the number of fields that were reused since the pool was started. */
+  public long getReusedCount() {
+    return reusedCount;
+  }
+
+  /** Get the number of fields that were allocated since the pool was started. */
+  public long getAllocatedCount() {
+    return allocatedCount;
+  }
+
+  /** Deactivate the pool for the current thread, and keep it for the next indexing job. */
+  @Override
+  public void close() {
+    nextDocument();
+    ACTIVE_FIELDS.remove();
+    IDLE_POOLS.offerFirst(this);
+  }
+
+  /**
+   * Get a numeric doc value field with the given value.
+   *
+   * @param name field name
+   * @param docValuesType NUMERIC or SORTED_NUMERIC
+   * @param value doc value
+   * @return doc value field
+   */
+  public Field numericDocValues(String name, DocValuesType docValuesType, long value) {
+    Slot slot = getSlot(name, Usage.DOC_VALUE);
+    Field field = nextField(slot);
+    if (docValuesType == DocValuesType.NUMERIC) {
+      if (field instanceof NumericDocValuesField) {
+        field.setLongValue(value);
+        return reused(field);
+      }
+      return allocated(slot, new NumericDocValuesField(name, value));
+    } else if (docValuesType == DocValuesType.SORTED_NUMERIC) {
+      if (field instanceof SortedNumericDocValuesField) {
+        field.setLongValue(value);
+        return reused(field);
+      }
+      return allocated(slot, new SortedNumericDocValuesField(name, value));
+    }
+    throw new IllegalStateException(
+        String.format("Unsupported doc value type %s for field %s", docValuesType, name));
+  }
+
+  /**
+   * Get a doc value field with the given bytes value.
+   *
+   * @param name field name
+   * @param docValuesType SORTED, SORTED_SET or BINARY
+   * @param value doc value
+   * @return doc value field
+   */
+  public Field bytesDocValues(String name, DocValuesType docValuesType, BytesRef value) {
+    Slot slot = getSlot(name, Usage.DOC_VALUE);
+    return bytesDocValues(slot, nextField(slot), name, docValuesType, value);
+  }
+
+  /**
+   * Get a doc value field with the UTF-8 bytes of the given string value. The bytes are encoded
+   * into a buffer that belongs to the pooled field, so no new {@link BytesRef} is allocated for a
+   * reused field.
+   *
+   * @param name field name
+   * @param docValuesType SORTED, SORTED_SET or BINARY
+   * @param value doc value
+   * @return doc value field
+   */
+  public Field stringDocValues(String name, DocValuesType docValuesType, String value) {
+    Slot slot = getSlot(name, Usage.DOC_VALUE);
+    BytesRefBuilder bytes = slot.getBytes(slot.next);
+    bytes.copyChars(value);
+    return bytesDocValues(slot, nextField(slot), name, docValuesType, bytes.get());
+  }
+
+  private Field bytesDocValues(
+      Slot slot, Field field, String name, DocValuesType docValuesType, BytesRef value) {
+    if (docValuesType == DocValuesType.SORTED) {
+      if (field instanceof SortedDocValuesField) {
+        field.setBytesValue(value);
+        return reused(field);
+      }
+      return allocated(slot, new SortedDocValuesField(name, value));
+    } else if (docValuesType == DocValuesType.SORTED_SET) {
+      if (field instanceof SortedSetDocValuesField) {
+        field.setBytesValue(value);
+        return reused(field);
+      }
+      return allocated(slot, new SortedSetDocValuesField(name, value));
+    } else if (docValuesType == DocValuesType.BINARY) {
+      if (field instanceof BinaryDocValuesField) {
+        field.setBytesValue(value);
+        return reused(field);
+      }
+      return allocated(slot, new BinaryDocValuesField(name, value));
+    }
+    throw new IllegalStateException(
+        String.format("Unsupported doc value type %s for field %s", docValuesType, name));
+  }
+
+  /**
+   * Get an int point field with the given value.
+   *
+   * @param name field name
+   * @param value point value
+   * @return point field
+   */
+  public Field intPoint(String name, int value) {
+    Slot slot = getSlot(name, Usage.POINT);
+    if (nextField(slot) instanceof IntPoint field) {
+      field.setIntValue(value);
+      return reused(field);
+    }
+    return allocated(slot, new IntPoint(name, value));
+  }
+
+  /**
+   * Get a long point field with the given value.
+   *
+   * @param name field name
+   * @param value point value
+   * @return point field
+   */
+  public Field longPoint(String name, long value) {
+    Slot slot = getSlot(name, Usage.POINT);
+    if (nextField(slot) instanceof LongPoint field) {
+      field.setLongValue(value);
+      return reused(field);
+    }
+    return allocated(slot, new LongPoint(name, value));
+  }
+
+  /**
+   * Get a float point field with the given value.
+   *
+   * @param name field name
+   * @param value point value
+   * @return point field
+   */
+  public Field floatPoint(String name, float value) {
+    Slot slot = getSlot(name, Usage.POINT);
+    if (nextField(slot) instanceof FloatPoint field) {
+      field.setFloatValue(value);
+      return reused(field);
+    }
+    return allocated(slot, new FloatPoint(name, value));
+  }
+
+  /**
+   * Get a double point field with the given value.
+   *
+   * @param name field name
+   * @param value point value
+   * @return point field
+   */
+  public Field doublePoint(String name, double value) {
+    Slot slot = getSlot(name, Usage.POINT);
+    if (nextField(slot) instanceof DoublePoint field) {
+      field.setDoubleValue(value);
+      return reused(field);
+    }
+    return allocated(slot, new DoublePoint(name, value));
+  }
+
+  /**
+   * Get a field to index and/or store the given string value. Pooled fields are only reused if
+   * they have the same field type instance, so changes to the field definition are picked up.
+   *
+   * @param name field name
+   * @param fieldType lucene field type
+   * @param value string value
+   * @return string field
+   */
+  public Field stringField(String name, FieldType fieldType, String value) {
+    Slot slot = getSlot(name, Usage.TERM);
+    Field field = nextField(slot);
+    if (field != null && field.fieldType() == fieldType) {
+      field.setStringValue(value);
+      return reused(field);
+    }
+    return allocated(slot, new FieldWithData(name, fieldType, value));
+  }
+
+  private Slot getSlot(String name, Usage usage) {
+    Slot[] fieldSlots = slots.get(name);
+    if (fieldSlots == null) {
+      fieldSlots = new Slot[Usage.values().length];
+      slots.put(name, fieldSlots);
+    }
+    Slot slot = fieldSlots[usage.ordinal()];
+    if (slot == null) {
+      slot = new Slot();
+      fieldSlots[usage.ordinal()] = slot;
+    }
+    if (slot.next == 0) {
+      usedSlots.add(slot);
+    }
+    return slot;
+  }
+
+  private Field nextField(Slot slot) {
+    Field field = slot.next < slot.fields.size() ? slot.fields.get(slot.next) : null;
+    slot.next++;
+    return field;
+  }
+
+  private Field reused(Field field) {
+    reusedCount++;
+    return field;
+  }
+
+  private Field allocated(Slot slot, Field field) {
+    allocatedCount++;
+    // replaces a pooled field of the wrong type, or grows the pool
+    int index = slot.next - 1;
+    if (index < slot.fields.size()) {
+      slot.fields.set(index, field);
+    } else {
+      slot.fields.add(field);
+    }
+    return field;
+  }
+}
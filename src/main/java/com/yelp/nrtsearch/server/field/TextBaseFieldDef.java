@@ -240,9 +240,14 @@ public abstract class TextBaseFieldDef extends IndexableFieldDef<String>
           "Cannot index multiple values into single value field: " + getName());
     }
 
+    ReusableFields reusableFields = ReusableFields.current();
     for (int i = 0; i < fieldValues.size(); i++) {
       String fieldStr = fieldValues.get(i);
-      if (hasDocValues()) {
+      if (hasDocValues() && reusableFields != null) {
+        if (docValuesType == DocValuesType.BINARY || fieldStr.length() <= ignoreAbove) {
+          document.add(reusableFields.stringDocValues(getName(), docValuesType, fieldStr));
+        }
+      } else if (hasDocValues()) {
         BytesRef stringBytes = new BytesRef(fieldStr);
         if (docValuesType == DocValuesType.BINARY) {
           document.add(new BinaryDocValuesField(getName(), stringBytes));
@@ -260,7 +265,10 @@ public abstract class TextBaseFieldDef extends IndexableFieldDef<String>
       }
 
       if ((isStored() || isSearchable()) && fieldStr.length() <= ignoreAbove) {
-        document.add(new FieldWithData(getName(), fieldType, fieldStr));
+        document.add(
+            reusableFields == null
+                ? new FieldWithData(getName(), fieldType, fieldStr)
+                : reusableFields.stringField(getName(), fieldType, fieldStr));
       }
 
       addFacet(
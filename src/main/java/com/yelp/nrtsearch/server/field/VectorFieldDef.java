@@ -515,9 +515,16 @@ public abstract class VectorFieldDef<T> extends IndexableFieldDef<T> implements
       }
       if (parentBitSetProducer != null) {
         return new NrtDiversifyingChildrenFloatKnnVectorQuery(
-            getName(), queryVector, filterQuery, k, numCandidates, parentBitSetProducer);
+            getName(),
+            queryVector,
+            filterQuery,
+            k,
+            numCandidates,
+            parentBitSetProducer,
+            knnQuery.getRescore());
       } else {
-        return new NrtKnnFloatVectorQuery(getName(), queryVector, k, filterQuery, numCandidates);
+        return new NrtKnnFloatVectorQuery(
+            getName(), queryVector, k, filterQuery, numCandidates, knnQuery.getRescore());
       }
     }
 
@@ -67,6 +67,7 @@ import com.yelp.nrtsearch.server.handler.ReleaseSnapshotHandler;
 import com.yelp.nrtsearch.server.handler.ReloadStateHandler;
 import com.yelp.nrtsearch.server.handler.ReplicaCurrentSearchingVersionHandler;
 import com.yelp.nrtsearch.server.handler.SearchHandler;
+import com.yelp.nrtsearch.server.handler.SearchStreamHandler;
 import com.yelp.nrtsearch.server.handler.SearchV2Handler;
 import com.yelp.nrtsearch.server.handler.SendRawFileHandler;
 import com.yelp.nrtsearch.server.handler.SettingsHandler;
@@ -87,6 +88,7 @@ import com.yelp.nrtsearch.server.monitoring.DeadlineMetrics;
 import com.yelp.nrtsearch.server.monitoring.DirSizeCollector;
 import com.yelp.nrtsearch.server.monitoring.IndexMetrics;
 import com.yelp.nrtsearch.server.monitoring.IndexingMetrics;
+import com.yelp.nrtsearch.server.monitoring.MemoryResidencyCollector;
 import com.yelp.nrtsearch.server.monitoring.MergeSchedulerCollector;
 import com.yelp.nrtsearch.server.monitoring.NrtMetrics;
 import com.yelp.nrtsearch.server.monitoring.NrtsearchMonitoringServerInterceptor;
@@ -257,11 +259,13 @@ public class NrtsearchServer {
     // register index metrics
     IndexMetrics.register(prometheusRegistry);
     // register query cache metrics
-    prometheusRegistry.register(new QueryCacheCollector());
+    prometheusRegistry.register(new QueryCacheCollector(globalState));
     // register deadline cancellation metrics
     DeadlineMetrics.register(prometheusRegistry);
     // register directory size metrics
     prometheusRegistry.register(new DirSizeCollector(globalState));
+    // register index file memory residency metrics
+    prometheusRegistry.register(new MemoryResidencyCollector(globalState));
     prometheusRegistry.register(new ProcStatCollector());
     prometheusRegistry.register(new MergeSchedulerCollector(globalState));
     prometheusRegistry.register(new SearchResponseCollector(globalState));
@@ -351,6 +355,7 @@ public class NrtsearchServer {
     private final ReloadStateHandler reloadStateHandler;
     private final SearchHandler searchHandler;
     private final SearchV2Handler searchV2Handler;
+    private final SearchStreamHandler searchStreamHandler;
     private final SettingsHandler settingsHandler;
     private final SettingsV2Handler settingsV2Handler;
     private final StartIndexHandler startIndexHandler;
@@ -415,6 +420,11 @@ public class NrtsearchServer {
       reloadStateHandler = new ReloadStateHandler(globalState);
       searchHandler = new SearchHandler(globalState);
       searchV2Handler = new SearchV2Handler(globalState, searchHandler);
+      searchStreamHandler =
+          new SearchStreamHandler(
+              globalState,
+              searchHandler,
+              ExecutorFactory.getInstance().getExecutor(ExecutorFactory.ExecutorType.SERVER));
       settingsHandler = new SettingsHandler(globalState);
       settingsV2Handler = new SettingsV2Handler(globalState);
       startIndexHandler = new StartIndexHandler(globalState);
@@ -562,6 +572,12 @@ public class NrtsearchServer {
       searchV2Handler.handle(searchRequest, searchResponseStreamObserver);
     }
 
+    @Override
+    public void searchStream(
+        SearchRequest searchRequest, StreamObserver<SearchResponse> responseObserver) {
+      searchStreamHandler.handle(searchRequest, responseObserver);
+    }
+
     @Override
     public void delete(
         AddDocumentRequest addDocumentRequest,
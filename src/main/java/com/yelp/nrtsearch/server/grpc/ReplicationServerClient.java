@@ -226,6 +226,7 @@ public class ReplicationServerClient implements Closeable {
       long fpOffset,
       String indexName,
       String indexId,
+      String replicaName,
       FileChunkStreamingIterator observer) {
     FileInfo fileInfoV2 =
         FileInfo.newBuilder()
@@ -233,6 +234,7 @@ public class ReplicationServerClient implements Closeable {
             .setFpStart(fpOffset)
             .setIndexName(indexName)
             .setIndexId(indexId)
+            .setReplicaName(replicaName)
             .build();
     StreamObserver<FileInfo> responseObserver = this.asyncStub.recvRawFileV2(observer);
     observer.init(responseObserver);
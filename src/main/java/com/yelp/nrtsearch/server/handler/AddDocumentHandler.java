@@ -18,9 +18,11 @@ package com.yelp.nrtsearch.server.handler;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.protobuf.ProtocolStringList;
+import com.sun.management.ThreadMXBean;
 import com.yelp.nrtsearch.server.field.FieldDef;
 import com.yelp.nrtsearch.server.field.IdFieldDef;
 import com.yelp.nrtsearch.server.field.IndexableFieldDef;
+import com.yelp.nrtsearch.server.field.ReusableFields;
 import com.yelp.nrtsearch.server.field.properties.DocValueUpdatable;
 import com.yelp.nrtsearch.server.grpc.AddDocumentRequest;
 import com.yelp.nrtsearch.server.grpc.AddDocumentRequest.MultiValuedField;
@@ -36,6 +38,7 @@ import io.grpc.Context;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -45,7 +48,10 @@ import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
@@ -384,6 +390,7 @@ public class AddDocumentHandler extends Handler<AddDocumentRequest, AddDocumentR
   public static class DocumentIndexer implements Callable<Long> {
 
     public static final double ONE_MILLION = 1000000.0;
+    private static final ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
     private final GlobalState globalState;
     private final List<AddDocumentRequest> addDocumentRequestList;
     private final String indexName;
@@ -404,23 +411,42 @@ public class AddDocumentHandler extends Handler<AddDocumentRequest, AddDocumentR
           String.format(
               "running indexing job on threadId: %s",
               Thread.currentThread().getName() + Thread.currentThread().threadId()));
+      long allocatedBytesStart = getThreadAllocatedBytes();
       Queue<Document> documents = new LinkedBlockingDeque<>();
       IndexState indexState;
       ShardState shardState;
       IdFieldDef idFieldDef;
 
+      DocumentsContextProvider documentsContextProvider = null;
+      ReusableFields reusableFields = null;
       try {
         indexState = globalState.getIndexOrThrow(this.indexName);
         shardState = indexState.getShard(0);
         idFieldDef = indexState.getIdFieldDef().orElse(null);
-        for (AddDocumentRequest addDocumentRequest : addDocumentRequestList) {
+        // the config does not allow field reuse with parallel document building
+        documentsContextProvider =
+            new DocumentsContextProvider(
+                addDocumentRequestList,
+                indexState,
+                globalState.getConfiguration().getDocumentBuildBatchSize(),
+                globalState.getIndexingExecutor());
+        if (globalState.getConfiguration().getDocumentFieldReuse()) {
+          reusableFields = ReusableFields.start();
+        }
+        for (int i = 0; i < addDocumentRequestList.size(); ++i) {
+          AddDocumentRequest addDocumentRequest = addDocumentRequestList.get(i);
           if (addDocumentRequest.getRequestType().equals(IndexingRequestType.UPDATE_DOC_VALUES)) {
             executeDocValueUpdateRequest(indexState, shardState, addDocumentRequest);
             continue;
           }
-          DocumentsContext documentsContext =
-              AddDocumentHandler.LuceneDocumentBuilder.getDocumentsContext(
-                  addDocumentRequest, indexState);
+          if (reusableFields != null) {
+            reusableFields.nextDocument();
+          }
+          if (documentsContextProvider.isTaskStart(i) && !documents.isEmpty()) {
+            // write the documents of the previous build task while later tasks are being built
+            writeDocuments(documents, idFieldDef, indexState, shardState);
+          }
+          DocumentsContext documentsContext = documentsContextProvider.get(i);
           if (documentsContext.hasNested()) {
             try {
               if (idFieldDef != null) {
@@ -443,19 +469,32 @@ public class AddDocumentHandler extends Handler<AddDocumentRequest, AddDocumentR
             }
           } else {
             documents.add(documentsContext.getRootDocument());
+            if (reusableFields != null) {
+              // the fields of this document are modified when building the next one
+              writeDocuments(documents, idFieldDef, indexState, shardState);
+            }
           }
         }
       } catch (Exception e) {
         logger.warn("addDocuments Cancelled", e);
         throw e; // parent thread should catch and send error back to client
+      } finally {
+        if (documentsContextProvider != null) {
+          documentsContextProvider.close();
+        }
+        if (reusableFields != null) {
+          IndexingMetrics.documentFieldsReused
+              .labelValues(indexName)
+              .inc(reusableFields.getReusedCount());
+          IndexingMetrics.documentFieldsAllocated
+              .labelValues(indexName)
+              .inc(reusableFields.getAllocatedCount());
+          reusableFields.close();
+        }
       }
 
       try {
-        if (idFieldDef != null) {
-          updateDocuments(documents, idFieldDef, indexState, shardState);
-        } else {
-          addDocuments(documents, indexState, shardState);
-        }
+        writeDocuments(documents, idFieldDef, indexState, shardState);
       } catch (IOException e) { // This exception should be caught in parent to and set
         // responseObserver.onError(e) so client knows the job failed
         logger.warn(
@@ -464,6 +503,7 @@ public class AddDocumentHandler extends Handler<AddDocumentRequest, AddDocumentR
                 Thread.currentThread().getName() + Thread.currentThread().threadId()));
         throw new IOException(e);
       }
+      recordAllocatedBytes(indexName, allocatedBytesStart);
       logger.debug(
           String.format(
               "indexing job on threadId: %s done with SequenceId: %s",
@@ -472,6 +512,199 @@ public class AddDocumentHandler extends Handler<AddDocumentRequest, AddDocumentR
       return shardState.writer.getMaxCompletedSequenceNumber();
     }
 
+    /**
+     * Add or update the queued documents in the index writer, and clear the queue.
+     *
+     * @param documents queued documents
+     * @param idFieldDef index id field, or null to add documents without update
+     * @param indexState index state
+     * @param shardState shard state
+     * @throws IOException on error writing documents
+     */
+    private void writeDocuments(
+        Queue<Document> documents,
+        IdFieldDef idFieldDef,
+        IndexState indexState,
+        ShardState shardState)
+        throws IOException {
+      if (idFieldDef != null) {
+        updateDocuments(documents, idFieldDef, indexState, shardState);
+      } else {
+        addDocuments(documents, indexState, shardState);
+      }
+      documents.clear();
+    }
+
+    /**
+     * Provides the {@link DocumentsContext} for each request of an indexing batch, in request
+     * order. When the document build batch size is set and smaller than the number of requests,
+     * the requests are split into build tasks of that size. All tasks after the first are submitted
+     * to the indexing executor, so later documents are built while earlier ones are written to the
+     * index. A task that has not started when its documents are needed is run by the indexing
+     * thread, so waiting never depends on a free executor thread. If building a request fails, the
+     * documents of the earlier requests in the task are still provided, and the failure is thrown
+     * when the failed request is reached, the same as when building each document in order.
+     */
+    static class DocumentsContextProvider {
+      private final List<AddDocumentRequest> requests;
+      private final IndexState indexState;
+      private final int batchSize;
+      private final List<FutureTask<BuiltDocuments>> tasks;
+      private int currentTaskIndex = -1;
+      private BuiltDocuments currentDocuments;
+
+      /**
+       * Documents built by a task.
+       *
+       * @param contexts documents for each request of the task, up to the failed request
+       * @param failure error building the request after the last context, or null
+       */
+      private record BuiltDocuments(List<DocumentsContext> contexts, Exception failure) {}
+
+      DocumentsContextProvider(
+          List<AddDocumentRequest> requests,
+          IndexState indexState,
+          int batchSize,
+          ExecutorService executor) {
+        this.requests = requests;
+        this.indexState = indexState;
+        this.batchSize = batchSize;
+        if (batchSize > 0 && requests.size() > batchSize) {
+          tasks = new ArrayList<>();
+          Thread indexingThread = Thread.currentThread();
+          for (int start = 0; start < requests.size(); start += batchSize) {
+            List<AddDocumentRequest> taskRequests =
+                requests.subList(start, Math.min(start + batchSize, requests.size()));
+            tasks.add(
+                new FutureTask<>(
+                    Context.current()
+                        .wrap(() -> buildDocuments(taskRequests, indexState, indexingThread))));
+          }
+          for (int i = 1; i < tasks.size(); ++i) {
+            try {
+              executor.execute(tasks.get(i));
+            } catch (RejectedExecutionException e) {
+              // remaining tasks are run by the indexing thread
+              break;
+            }
+          }
+        } else {
+          tasks = null;
+        }
+      }
+
+      /**
+       * Get if the request is the first one of a build task other than the first task. The
+       * documents of the previous task may be written to the index before getting this request.
+       *
+       * @param index request index in the batch
+       * @return if request starts a new build task
+       */
+      boolean isTaskStart(int index) {
+        return tasks != null && index > 0 && index % batchSize == 0;
+      }
+
+      /**
+       * Get the documents for a request. Must be called with increasing request index.
+       *
+       * @param index request index in the batch
+       * @return documents context for request
+       * @throws Exception on error building documents
+       */
+      DocumentsContext get(int index) throws Exception {
+        if (tasks == null) {
+          return LuceneDocumentBuilder.getDocumentsContext(requests.get(index), indexState);
+        }
+        int taskIndex = index / batchSize;
+        if (taskIndex != currentTaskIndex) {
+          FutureTask<BuiltDocuments> task = tasks.get(taskIndex);
+          // no-op if the task was already started by the executor
+          task.run();
+          try {
+            currentDocuments = task.get();
+          } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception exception) {
+              throw exception;
+            } else if (e.getCause() instanceof Error error) {
+              throw error;
+            }
+            throw e;
+          }
+          currentTaskIndex = taskIndex;
+        }
+        int taskOffset = index % batchSize;
+        if (taskOffset >= currentDocuments.contexts().size()) {
+          throw currentDocuments.failure();
+        }
+        return currentDocuments.contexts().get(taskOffset);
+      }
+
+      /** Cancel any build tasks that have not started. */
+      void close() {
+        if (tasks != null) {
+          for (FutureTask<BuiltDocuments> task : tasks) {
+            task.cancel(false);
+          }
+        }
+      }
+
+      private static BuiltDocuments buildDocuments(
+          List<AddDocumentRequest> requests, IndexState indexState, Thread indexingThread) {
+        // allocation on the indexing thread is recorded by the indexing job
+        boolean recordAllocation = Thread.currentThread() != indexingThread;
+        long allocatedBytesStart = recordAllocation ? getThreadAllocatedBytes() : -1;
+        List<DocumentsContext> contexts = new ArrayList<>(requests.size());
+        Exception failure = null;
+        for (AddDocumentRequest request : requests) {
+          if (request.getRequestType().equals(IndexingRequestType.UPDATE_DOC_VALUES)) {
+            // doc value updates are applied directly by the indexing thread
+            contexts.add(null);
+          } else {
+            try {
+              contexts.add(LuceneDocumentBuilder.getDocumentsContext(request, indexState));
+            } catch (Exception e) {
+              // thrown when the indexing thread reaches this request
+              failure = e;
+              break;
+            }
+          }
+        }
+        if (recordAllocation) {
+          recordAllocatedBytes(indexState.getName(), allocatedBytesStart);
+        }
+        return new BuiltDocuments(contexts, failure);
+      }
+    }
+
+    private static ThreadMXBean getThreadMXBean() {
+      if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean bean
+          && bean.isThreadAllocatedMemorySupported()) {
+        return bean;
+      }
+      return null;
+    }
+
+    /**
+     * Get the total bytes allocated by the current thread.
+     *
+     * @return allocated bytes, or -1 if not supported by the jvm
+     */
+    static long getThreadAllocatedBytes() {
+      if (THREAD_MX_BEAN == null || !THREAD_MX_BEAN.isThreadAllocatedMemoryEnabled()) {
+        return -1;
+      }
+      return THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    private static void recordAllocatedBytes(String indexName, long allocatedBytesStart) {
+      if (allocatedBytesStart >= 0) {
+        long allocatedBytes = getThreadAllocatedBytes() - allocatedBytesStart;
+        if (allocatedBytes > 0) {
+          IndexingMetrics.indexingAllocatedBytes.labelValues(indexName).inc(allocatedBytes);
+        }
+      }
+    }
+
     private void executeDocValueUpdateRequest(
         IndexState indexState, ShardState shardState, AddDocumentRequest addDocumentRequest) {
       try {
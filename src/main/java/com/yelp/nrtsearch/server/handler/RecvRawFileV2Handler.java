@@ -15,43 +15,116 @@
  */
 package com.yelp.nrtsearch.server.handler;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import com.yelp.nrtsearch.server.config.FileCopyConfig;
 import com.yelp.nrtsearch.server.grpc.FileInfo;
 import com.yelp.nrtsearch.server.grpc.RawFileChunk;
 import com.yelp.nrtsearch.server.index.IndexState;
 import com.yelp.nrtsearch.server.index.IndexStateManager;
 import com.yelp.nrtsearch.server.index.ShardState;
+import com.yelp.nrtsearch.server.monitoring.NrtMetrics;
+import com.yelp.nrtsearch.server.nrt.AdaptiveCopyWindow;
 import com.yelp.nrtsearch.server.state.GlobalState;
 import io.grpc.stub.StreamObserver;
+import io.prometheus.metrics.core.datapoints.CounterDataPoint;
+import io.prometheus.metrics.core.datapoints.GaugeDataPoint;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.NRTCachingDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class RecvRawFileV2Handler extends Handler<FileInfo, RawFileChunk> {
   private static final Logger logger = LoggerFactory.getLogger(RecvRawFileV2Handler.class);
+  private static final long MAX_MAP_WINDOW_SIZE = 1L << 30;
+  private static final String UNKNOWN_REPLICA = "unknown";
   private final boolean verifyIndexId;
+  // adaptive flow control windows, keyed by index and replica name
+  private final Cache<String, AdaptiveCopyWindow> copyWindows =
+      CacheBuilder.newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).build();
 
   public RecvRawFileV2Handler(GlobalState globalState, boolean verifyIndexId) {
     super(globalState);
     this.verifyIndexId = verifyIndexId;
   }
 
+  /**
+   * Get the adaptive flow control window for a replica, which is shared by all transfers to the
+   * replica.
+   *
+   * @param indexName index name
+   * @param replicaName replica node name
+   * @param fileCopyConfig file copy config
+   * @return copy window
+   */
+  @VisibleForTesting
+  AdaptiveCopyWindow getCopyWindow(
+      String indexName, String replicaName, FileCopyConfig fileCopyConfig) {
+    try {
+      return copyWindows.get(
+          indexName + ":" + replicaName,
+          () ->
+              new AdaptiveCopyWindow(
+                  fileCopyConfig.getAckEvery(),
+                  fileCopyConfig.getMaxInFlight(),
+                  fileCopyConfig.getChunkSize(),
+                  fileCopyConfig.getMaxChunkSize(),
+                  fileCopyConfig.getMaxInFlightBytes()));
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * Chunk requesting an ack.
+   *
+   * @param seqNum chunk sequence number
+   * @param sendTimeNs time the chunk was sent
+   * @param bytesSent total bytes sent in the transfer, including this chunk
+   */
+  private record PendingAck(int seqNum, long sendTimeNs, long bytesSent) {}
+
   @Override
   public StreamObserver<FileInfo> handle(StreamObserver<RawFileChunk> responseObserver) {
     return new StreamObserver<>() {
+      private final FileCopyConfig fileCopyConfig =
+          getGlobalState().getConfiguration().getFileCopyConfig();
+      private final int ackEvery = fileCopyConfig.getAckEvery();
+      private final Deque<PendingAck> pendingAcks = new ArrayDeque<>();
       private IndexState indexState;
-      private IndexInput luceneFile;
-      private byte[] buffer;
-      private final int ackEvery =
-          getGlobalState().getConfiguration().getFileCopyConfig().getAckEvery();
-      private final int maxInflight =
-          getGlobalState().getConfiguration().getFileCopyConfig().getMaxInFlight();
+      private ChunkSource chunkSource;
+      private AdaptiveCopyWindow copyWindow;
+      private CounterDataPoint sentBytesCounter;
+      private GaugeDataPoint throughputGauge;
+      private GaugeDataPoint windowChunksGauge;
+      private GaugeDataPoint chunkSizeGauge;
       private int lastAckedSeq = 0;
       private int currentSeq = 0;
       private long fileOffset;
       private long fileLength;
+      private long bytesSent = 0;
+      private long lastAckBytes = 0;
+      private long lastAckTimeNs;
 
       @Override
       public void onNext(FileInfo fileInfoRequest) {
@@ -69,13 +142,16 @@ public class RecvRawFileV2Handler extends Handler<FileInfo, RawFileChunk> {
               throw new IllegalStateException(
                   "Error getting shard state for: " + fileInfoRequest.getIndexName());
             }
-            luceneFile =
-                shardState.indexDir.openInput(fileInfoRequest.getFileName(), IOContext.DEFAULT);
-            luceneFile.seek(fileInfoRequest.getFpStart());
             fileOffset = fileInfoRequest.getFpStart();
-            fileLength = luceneFile.length();
-            buffer =
-                new byte[getGlobalState().getConfiguration().getFileCopyConfig().getChunkSize()];
+            fileLength = shardState.indexDir.fileLength(fileInfoRequest.getFileName());
+            chunkSource =
+                openChunkSource(
+                    shardState.indexDir,
+                    fileInfoRequest.getFileName(),
+                    fileOffset,
+                    fileCopyConfig.getZeroCopy());
+            initMetrics(fileInfoRequest);
+            lastAckTimeNs = System.nanoTime();
           } else {
             // ack existing transfer
             lastAckedSeq = fileInfoRequest.getAckSeqNum();
@@ -83,19 +159,30 @@ public class RecvRawFileV2Handler extends Handler<FileInfo, RawFileChunk> {
               throw new IllegalArgumentException(
                   "Invalid ackSeqNum: " + fileInfoRequest.getAckSeqNum());
             }
+            processAck();
           }
-          while (fileOffset < fileLength && (currentSeq - lastAckedSeq) < maxInflight) {
-            int chunkSize = (int) Math.min(buffer.length, (fileLength - fileOffset));
-            luceneFile.readBytes(buffer, 0, chunkSize);
+          while (fileOffset < fileLength) {
+            int chunkSize = getNextChunkSize();
+            if (chunkSize == 0) {
+              break;
+            }
+            ByteString content =
+                chunkSource.next((int) Math.min(chunkSize, (fileLength - fileOffset)));
             currentSeq++;
+            boolean ack = (currentSeq % ackEvery) == 0;
             RawFileChunk rawFileChunk =
                 RawFileChunk.newBuilder()
-                    .setContent(ByteString.copyFrom(buffer, 0, chunkSize))
+                    .setContent(content)
                     .setSeqNum(currentSeq)
-                    .setAck((currentSeq % ackEvery) == 0)
+                    .setAck(ack)
                     .build();
             responseObserver.onNext(rawFileChunk);
-            fileOffset += chunkSize;
+            fileOffset += content.size();
+            bytesSent += content.size();
+            sentBytesCounter.inc(content.size());
+            if (ack) {
+              pendingAcks.addLast(new PendingAck(currentSeq, System.nanoTime(), bytesSent));
+            }
             if (fileOffset == fileLength) {
               responseObserver.onCompleted();
             }
@@ -109,6 +196,55 @@ public class RecvRawFileV2Handler extends Handler<FileInfo, RawFileChunk> {
         }
       }
 
+      private void initMetrics(FileInfo fileInfoRequest) {
+        String indexName = fileInfoRequest.getIndexName();
+        String replicaName =
+            fileInfoRequest.getReplicaName().isEmpty()
+                ? UNKNOWN_REPLICA
+                : fileInfoRequest.getReplicaName();
+        sentBytesCounter = NrtMetrics.nrtAckedCopySentBytes.labelValues(indexName, replicaName);
+        throughputGauge = NrtMetrics.nrtAckedCopyThroughput.labelValues(indexName, replicaName);
+        if (fileCopyConfig.getAdaptiveFlowControl()) {
+          copyWindow = getCopyWindow(indexName, replicaName, fileCopyConfig);
+          windowChunksGauge =
+              NrtMetrics.nrtAckedCopyWindowChunks.labelValues(indexName, replicaName);
+          chunkSizeGauge = NrtMetrics.nrtAckedCopyChunkSize.labelValues(indexName, replicaName);
+        }
+      }
+
+      /** Get the size of the next chunk to send, or 0 if the in flight limit is reached. */
+      private int getNextChunkSize() {
+        int inFlightChunks = currentSeq - lastAckedSeq;
+        if (copyWindow != null) {
+          return copyWindow.getNextChunkSize(inFlightChunks, bytesSent - lastAckBytes);
+        }
+        return inFlightChunks < fileCopyConfig.getMaxInFlight() ? fileCopyConfig.getChunkSize() : 0;
+      }
+
+      /** Measure throughput and round trip time for the most recent chunk covered by the ack. */
+      private void processAck() {
+        long nowNs = System.nanoTime();
+        PendingAck acked = null;
+        while (!pendingAcks.isEmpty() && pendingAcks.peekFirst().seqNum() <= lastAckedSeq) {
+          acked = pendingAcks.pollFirst();
+        }
+        if (acked == null) {
+          return;
+        }
+        long elapsedNs = nowNs - lastAckTimeNs;
+        if (elapsedNs > 0) {
+          double bytesPerNs = (double) (acked.bytesSent() - lastAckBytes) / elapsedNs;
+          throughputGauge.set(bytesPerNs * TimeUnit.SECONDS.toNanos(1));
+        }
+        lastAckBytes = acked.bytesSent();
+        lastAckTimeNs = nowNs;
+        if (copyWindow != null) {
+          copyWindow.onAck(nowNs - acked.sendTimeNs(), nowNs);
+          windowChunksGauge.set(copyWindow.getInFlight());
+          chunkSizeGauge.set(copyWindow.getChunkSize());
+        }
+      }
+
       @Override
       public void onError(Throwable t) {
         logger.error("recvRawFileV2 onError", t);
@@ -123,15 +259,140 @@ public class RecvRawFileV2Handler extends Handler<FileInfo, RawFileChunk> {
       }
 
       private void maybeCloseFile() {
-        if (luceneFile != null) {
+        if (chunkSource != null) {
           try {
-            luceneFile.close();
+            chunkSource.close();
           } catch (IOException e) {
             logger.warn("Error closing index file", e);
           }
-          luceneFile = null;
+          chunkSource = null;
         }
       }
     };
   }
+
+  /**
+   * Open a source of file chunk content. When zero copy is enabled and the file is present on the
+   * local file system, chunks are slices of a read only memory mapping of the file. Otherwise,
+   * chunks are read from the index directory.
+   *
+   * @param indexDir index directory
+   * @param fileName file name
+   * @param fpStart file position to start reading from
+   * @param zeroCopy if chunks should be sent from a memory mapping of the file
+   * @return chunk source
+   * @throws IOException on error opening file
+   */
+  @VisibleForTesting
+  static ChunkSource openChunkSource(
+      Directory indexDir, String fileName, long fpStart, boolean zeroCopy) throws IOException {
+    if (zeroCopy) {
+      Path filePath = getLocalFilePath(indexDir, fileName);
+      if (filePath != null) {
+        return new MappedChunkSource(filePath, fpStart, indexDir.fileLength(fileName));
+      }
+    }
+    IndexInput input = indexDir.openInput(fileName, IOContext.DEFAULT);
+    try {
+      input.seek(fpStart);
+    } catch (Throwable t) {
+      input.close();
+      throw t;
+    }
+    return new IndexInputChunkSource(input);
+  }
+
+  /**
+   * Get the path of a fully written index file on the local file system, or null if the file data
+   * may only be accessed through the directory.
+   */
+  private static Path getLocalFilePath(Directory indexDir, String fileName) throws IOException {
+    if (indexDir instanceof NRTCachingDirectory nrtCachingDirectory
+        && Arrays.asList(nrtCachingDirectory.listCachedFiles()).contains(fileName)) {
+      return null;
+    }
+    if (FilterDirectory.unwrap(indexDir) instanceof FSDirectory fsDirectory) {
+      Path filePath = fsDirectory.getDirectory().resolve(fileName);
+      // a file being moved out of the nrt cache may only be partially written
+      if (Files.exists(filePath) && Files.size(filePath) == indexDir.fileLength(fileName)) {
+        return filePath;
+      }
+    }
+    return null;
+  }
+
+  /** Source of content for the chunks of a single file. */
+  @VisibleForTesting
+  interface ChunkSource extends Closeable {
+    /**
+     * Get the next chunk of file content. The content may be shorter than requested.
+     *
+     * @param maxSize maximum chunk size
+     * @return chunk content
+     * @throws IOException on error reading file
+     */
+    ByteString next(int maxSize) throws IOException;
+  }
+
+  /**
+   * Reads each chunk into a new array, which is wrapped without copying. A new array is needed for
+   * each chunk, since the transport may still reference the content of previous chunks.
+   */
+  static class IndexInputChunkSource implements ChunkSource {
+    private final IndexInput input;
+
+    IndexInputChunkSource(IndexInput input) {
+      this.input = input;
+    }
+
+    @Override
+    public ByteString next(int maxSize) throws IOException {
+      byte[] bytes = new byte[maxSize];
+      input.readBytes(bytes, 0, maxSize);
+      return UnsafeByteOperations.unsafeWrap(bytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+  }
+
+  /**
+   * Provides chunks as slices of a read only memory mapping of the file, so content is only copied
+   * when serialized by the transport. The file is mapped in windows of up to 1GB. Mappings are
+   * released when no longer referenced by any chunk.
+   */
+  static class MappedChunkSource implements ChunkSource {
+    private final Path filePath;
+    private final long fileLength;
+    private long windowEnd;
+    private MappedByteBuffer window;
+
+    MappedChunkSource(Path filePath, long fpStart, long fileLength) {
+      this.filePath = filePath;
+      this.fileLength = fileLength;
+      this.windowEnd = fpStart;
+    }
+
+    @Override
+    public ByteString next(int maxSize) throws IOException {
+      if (window == null || !window.hasRemaining()) {
+        long windowSize = Math.min(MAX_MAP_WINDOW_SIZE, fileLength - windowEnd);
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+          window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, windowSize);
+        }
+        windowEnd += windowSize;
+      }
+      int size = Math.min(maxSize, window.remaining());
+      ByteBuffer chunk = window.slice(window.position(), size);
+      window.position(window.position() + size);
+      return UnsafeByteOperations.unsafeWrap(chunk);
+    }
+
+    @Override
+    public void close() {
+      window = null;
+    }
+  }
 }
@@ -19,6 +19,7 @@ import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.util.JsonFormat.Printer;
+import com.yelp.nrtsearch.server.concurrent.VirtualThreadExecutor;
 import com.yelp.nrtsearch.server.doc.LoadedDocValues;
 import com.yelp.nrtsearch.server.facet.DrillSidewaysImpl;
 import com.yelp.nrtsearch.server.facet.FacetTopDocs;
@@ -50,6 +51,7 @@ import com.yelp.nrtsearch.server.search.SearchContext;
 import com.yelp.nrtsearch.server.search.SearchCutoffWrapper.CollectionTimeoutException;
 import com.yelp.nrtsearch.server.search.SearchRequestProcessor;
 import com.yelp.nrtsearch.server.search.SearcherResult;
+import com.yelp.nrtsearch.server.search.cache.SearchResponseCache;
 import com.yelp.nrtsearch.server.state.GlobalState;
 import com.yelp.nrtsearch.server.utils.ObjectToCompositeFieldTransformer;
 import com.yelp.nrtsearch.server.utils.ProtoMessagePrinter;
@@ -143,6 +145,51 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
 
   public SearchResponse handle(IndexState indexState, SearchRequest searchRequest)
       throws SearchHandlerException {
+    return handle(indexState, searchRequest, null);
+  }
+
+  /**
+   * Execute a search request, sending the response hits to an observer in chunks as they are
+   * fetched, instead of building all hits in memory before responding. Hits are fetched in rank
+   * order chunks, with the number of hits in each chunk sized so that the serialized hits fit
+   * within the chunk byte budget. Within a chunk, documents are still fetched in lucene doc id
+   * order.
+   *
+   * <p>The first message contains the total hits, facet results, collector results and search
+   * state. The last message contains the diagnostics and profile result. All messages contain the
+   * next chunk of hits in rank order. If all hits fit in one chunk, a single message with the full
+   * response is sent. The observer is not completed by this method.
+   *
+   * <p>Fetch tasks are executed separately for each chunk, so {@link
+   * FetchTasks.FetchTask#processAllHits(SearchContext, List)} only receives the hits of one chunk
+   * at a time.
+   *
+   * <p>Streamed responses are not cached, and requests that log hits are not supported, since the
+   * hits logger expects to process all hits at once.
+   *
+   * @param indexState index state
+   * @param searchRequest search request
+   * @param responseObserver observer to send response chunks to
+   * @param chunkBudgetBytes target size of the serialized hits in each chunk
+   * @param initialChunkHits number of hits in the first chunk
+   * @throws SearchHandlerException on error executing search
+   */
+  public void streamSearchResponse(
+      IndexState indexState,
+      SearchRequest searchRequest,
+      StreamObserver<SearchResponse> responseObserver,
+      long chunkBudgetBytes,
+      int initialChunkHits)
+      throws SearchHandlerException {
+    HitChunkStreamer streamer =
+        new HitChunkStreamer(responseObserver, chunkBudgetBytes, initialChunkHits);
+    SearchResponse searchResponse = handle(indexState, searchRequest, streamer);
+    responseObserver.onNext(streamer.getLastChunk(searchResponse));
+  }
+
+  private SearchResponse handle(
+      IndexState indexState, SearchRequest searchRequest, HitChunkStreamer streamer)
+      throws SearchHandlerException {
     // this request may have been waiting in the grpc queue too long
     DeadlineUtils.checkDeadline("SearchHandler: start", "SEARCH");
 
@@ -156,6 +203,9 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
       indexState.verifyStarted();
     }
 
+    SearchResponseCache responseCache = warming ? null : shardState.getSearchResponseCache();
+    SearchResponseCache.Key cacheKey = null;
+
     SearcherTaxonomyManager.SearcherAndTaxonomy s = null;
     SearchContext searchContext;
     try {
@@ -163,6 +213,18 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
           getSearcherAndTaxonomy(
               searchRequest, indexState, shardState, diagnostics, searchExecutor);
 
+      if (streamer == null
+          && responseCache != null
+          && SearchResponseCache.isCacheable(searchRequest, s.taxonomyReader())) {
+        long searcherVersion = ((DirectoryReader) s.searcher().getIndexReader()).getVersion();
+        cacheKey = SearchResponseCache.getKey(searchRequest, searcherVersion, indexState);
+        SearchResponse cachedResponse = responseCache.get(cacheKey);
+        if (cachedResponse != null) {
+          addWarmingQuery(indexState, searchRequest);
+          return getCachedSearchResponse(cachedResponse, indexState, searcherVersion, diagnostics);
+        }
+      }
+
       ProfileResult.Builder profileResultBuilder = null;
       if (searchRequest.getProfile()) {
         profileResultBuilder = ProfileResult.newBuilder();
@@ -171,6 +233,11 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
       searchContext =
           SearchRequestProcessor.buildContextForRequest(
               searchRequest, indexState, shardState, s, diagnostics, profileResultBuilder, warming);
+      if (streamer != null && searchContext.getFetchTasks().getHitsLoggerFetchTask() != null) {
+        throw Status.INVALID_ARGUMENT
+            .withDescription("Hits logging is not supported for streaming search")
+            .asRuntimeException();
+      }
 
       long searchStartTime = System.nanoTime();
 
@@ -183,7 +250,11 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
         // current (grpc) thread. If we use the search thread pool for this, it can cause a
         // deadlock trying to execute the dependent parallel search tasks. Since we do not
         // currently add additional drill down definitions, there will only be one drill
-        // sideways task per query.
+        // sideways task per query. With a virtual thread search executor, a parallel search task
+        // waiting on a concurrency permit has not started, so lucene runs it in the thread
+        // waiting on its result instead. This executor can then be used without a deadlock.
+        // Facet counting may still use the searcher task executor, which runs unstarted tasks in
+        // the waiting thread.
         DrillSideways drillS =
             new DrillSidewaysImpl(
                 s.searcher(),
@@ -195,8 +266,11 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
                 shardState,
                 searchContext.getQueryFields(),
                 grpcFacetResults,
-                DIRECT_EXECUTOR,
-                diagnostics);
+                searchExecutor instanceof VirtualThreadExecutor ? searchExecutor : DIRECT_EXECUTOR,
+                diagnostics,
+                getGlobalState().getConfiguration().getConcurrentFacetCounting()
+                    ? s.searcher().getTaskExecutor()
+                    : null);
         DrillSideways.ConcurrentDrillSidewaysResult<SearcherResult> concurrentDrillSidewaysResult;
         try {
           concurrentDrillSidewaysResult =
@@ -248,6 +322,8 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
           .getResponseBuilder()
           .setTerminatedEarly(searchContext.getCollector().terminatedEarly());
 
+      diagnostics.setEarlyTerminatedSegments(
+          searchContext.getCollector().getEarlyTerminatedSegments());
       diagnostics.setFirstPassSearchTimeMs(((System.nanoTime() - searchStartTime) / 1000000.0));
 
       DeadlineUtils.checkDeadline("SearchHandler: post recall", diagnostics, "SEARCH");
@@ -281,18 +357,6 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
                   searchContext.getTopHits(),
                   searchContext.getHitsToLog() + searchContext.getStartHit()));
 
-      // create Hit.Builder for each hit, and populate with lucene doc id and ranking info
-      setResponseHits(searchContext, hits);
-
-      // fill Hit.Builder with requested fields
-      fetchFields(searchContext);
-
-      // if there were extra hits for the logging, the response size needs to be reduced to match
-      // the topHits
-      if (searchContext.getFetchTasks().getHitsLoggerFetchTask() != null) {
-        setResponseTopHits(searchContext);
-      }
-
       SearchState.Builder searchState = SearchState.newBuilder();
       searchContext.getResponseBuilder().setSearchState(searchState);
       searchState.setTimestamp(searchContext.getTimestampSec());
@@ -309,12 +373,29 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
       }
       searchContext.getResponseBuilder().setSearchState(searchState);
 
+      if (streamer == null) {
+        // create Hit.Builder for each hit, and populate with lucene doc id and ranking info
+        setResponseHits(searchContext, hits);
+
+        // fill Hit.Builder with requested fields
+        fetchFields(searchContext, searchContext.getResponseBuilder().getHitsBuilderList());
+
+        // if there were extra hits for the logging, the response size needs to be reduced to match
+        // the topHits
+        if (searchContext.getFetchTasks().getHitsLoggerFetchTask() != null) {
+          setResponseTopHits(searchContext);
+        }
+      } else {
+        streamHits(searchContext, hits, streamer, diagnostics);
+      }
+
       diagnostics.setGetFieldsTimeMs(((System.nanoTime() - t0) / 1000000.0));
 
       if (searchContext.getFetchTasks().getHighlightFetchTask() != null) {
         diagnostics.setHighlightTimeMs(
             searchContext.getFetchTasks().getHighlightFetchTask().getTimeTakenMs());
       }
+      diagnostics.putAllFetchTasksTimeMs(searchContext.getFetchTasks().getFetchTasksTimeMs());
       if (searchContext.getFetchTasks().getHitsLoggerFetchTask() != null) {
         diagnostics.setLoggingHitsTimeMs(
             searchContext.getFetchTasks().getHitsLoggerFetchTask().getTimeTakenMs());
@@ -354,18 +435,14 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
       }
     }
 
-    // Add searchRequest to warmer if needed
-    try {
-      if (!warming && indexState.getWarmer() != null) {
-        indexState.getWarmer().addSearchRequest(searchRequest);
-      }
-    } catch (Exception e) {
-      logger.error("Unable to add warming query", e);
-    }
+    addWarmingQuery(indexState, searchRequest);
 
     // if we are out of time, don't bother with serialization
     DeadlineUtils.checkDeadline("SearchHandler: end", diagnostics, "SEARCH");
     SearchResponse searchResponse = searchContext.getResponseBuilder().build();
+    if (cacheKey != null && SearchResponseCache.isCacheable(searchResponse)) {
+      responseCache.put(cacheKey, searchResponse);
+    }
     if (!warming) {
       SearchResponseCollector.updateSearchResponseMetrics(
           searchResponse,
@@ -375,19 +452,59 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
     return searchResponse;
   }
 
+  /** Add searchRequest to warmer if needed. */
+  private void addWarmingQuery(IndexState indexState, SearchRequest searchRequest) {
+    try {
+      if (!warming && indexState.getWarmer() != null) {
+        indexState.getWarmer().addSearchRequest(searchRequest);
+      }
+    } catch (Exception e) {
+      logger.error("Unable to add warming query", e);
+    }
+  }
+
+  /**
+   * Create the response for a request served from the {@link SearchResponseCache}. The cached
+   * diagnostics describe the original execution, so they are replaced with the diagnostics of this
+   * request. The search state timestamp and searcher version are also updated for this request.
+   *
+   * @param cachedResponse response from cache
+   * @param indexState index state
+   * @param searcherVersion version of the searcher acquired for this request
+   * @param diagnostics diagnostics for this request
+   * @return search response
+   */
+  private SearchResponse getCachedSearchResponse(
+      SearchResponse cachedResponse,
+      IndexState indexState,
+      long searcherVersion,
+      SearchResponse.Diagnostics.Builder diagnostics) {
+    DeadlineUtils.checkDeadline("SearchHandler: end", diagnostics, "SEARCH");
+    SearchResponse.Builder responseBuilder = cachedResponse.toBuilder().setDiagnostics(diagnostics);
+    responseBuilder
+        .getSearchStateBuilder()
+        .setTimestamp(System.currentTimeMillis() / 1000)
+        .setSearcherVersion(searcherVersion);
+    SearchResponse searchResponse = responseBuilder.build();
+    SearchResponseCollector.updateSearchResponseMetrics(
+        searchResponse, indexState.getName(), indexState.getVerboseMetrics());
+    return searchResponse;
+  }
+
   /**
    * Fetch/compute field values for the top hits. This operation may be done in parallel, based on
    * the setting for the fetch thread pool. In addition to filling hit fields, any query {@link
    * FetchTasks.FetchTask}s are executed.
    *
    * @param searchContext search parameters
+   * @param hits hit builders to fill, in rank order
    * @throws IOException on error reading index data
    * @throws ExecutionException on error when performing parallel fetch
    * @throws InterruptedException if parallel fetch is interrupted
    */
-  private void fetchFields(SearchContext searchContext)
+  private void fetchFields(SearchContext searchContext, List<Hit.Builder> hits)
       throws IOException, ExecutionException, InterruptedException {
-    if (searchContext.getResponseBuilder().getHitsBuilderList().isEmpty()) {
+    if (hits.isEmpty()) {
       // call log even when there is no hits.
       // HitsLogger implementation should decide what to log or not when there is no hits.
       if (searchContext.getFetchTasks().getHitsLoggerFetchTask() != null) {
@@ -400,8 +517,7 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
     }
 
     // sort hits by lucene doc id
-    List<Hit.Builder> hitBuilders =
-        new ArrayList<>(searchContext.getResponseBuilder().getHitsBuilderList());
+    List<Hit.Builder> hitBuilders = new ArrayList<>(hits);
     hitBuilders.sort(Comparator.comparing(Hit.Builder::getLuceneDocId));
 
     IndexState.ParallelFetchConfig parallelFetchConfig =
@@ -458,19 +574,34 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
         }
       }
 
-      // execute per hit fetch tasks
-      for (int hitIndex = 0; hitIndex < hitBuilders.size(); ++hitIndex) {
-        var hitResponse = hitBuilders.get(hitIndex);
-        LeafReaderContext leaf = hitIdToLeaves.get(hitIndex);
-        if (searchContext.isExplain()) {
-          hitResponse.setExplain(
-              searchContext
-                  .getSearcherAndTaxonomy()
-                  .searcher()
-                  .explain(searchContext.getQuery(), hitResponse.getLuceneDocId())
-                  .toString());
+      // execute per hit fetch tasks, in parallel by chunks of hits
+      if ((searchContext.isExplain() || searchContext.getFetchTasks().hasHitTasks())
+          && hitBuilders.size() > parallelFetchConfig.parallelFetchChunkSize()) {
+        int hitParallelism =
+            Math.min(
+                parallelFetchConfig.maxParallelism(),
+                (hitBuilders.size() + parallelFetchConfig.parallelFetchChunkSize() - 1)
+                    / parallelFetchConfig.parallelFetchChunkSize());
+        int hitChunkSize = (hitBuilders.size() + hitParallelism - 1) / hitParallelism;
+        List<Future<?>> hitFutures = new ArrayList<>();
+        for (int start = 0; start < hitBuilders.size(); start += hitChunkSize) {
+          int end = Math.min(start + hitChunkSize, hitBuilders.size());
+          List<Hit.Builder> hitChunk = hitBuilders.subList(start, end);
+          List<LeafReaderContext> leafChunk = hitIdToLeaves.subList(start, end);
+          hitFutures.add(
+              parallelFetchConfig
+                  .fetchExecutor()
+                  .submit(
+                      () -> {
+                        processHits(searchContext, hitChunk, leafChunk);
+                        return null;
+                      }));
         }
-        searchContext.getFetchTasks().processHit(searchContext, leaf, hitResponse);
+        for (Future<?> future : hitFutures) {
+          future.get();
+        }
+      } else {
+        processHits(searchContext, hitBuilders, hitIdToLeaves);
       }
     } else if (!parallelFetchConfig.parallelFetchByField()
         && parallelFetchConfig.maxParallelism() > 1
@@ -507,9 +638,81 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
     }
 
     // execute all hits fetch tasks
-    searchContext
-        .getFetchTasks()
-        .processAllHits(searchContext, searchContext.getResponseBuilder().getHitsBuilderList());
+    searchContext.getFetchTasks().processAllHits(searchContext, hits);
+  }
+
+  /**
+   * Execute the explain and per hit fetch tasks for hits that already have their fields filled.
+   *
+   * @param searchContext search context
+   * @param hitBuilders hits to process
+   * @param hitLeaves lucene segment for each hit
+   * @throws IOException on error reading index data
+   */
+  private static void processHits(
+      SearchContext searchContext, List<Hit.Builder> hitBuilders, List<LeafReaderContext> hitLeaves)
+      throws IOException {
+    for (int hitIndex = 0; hitIndex < hitBuilders.size(); ++hitIndex) {
+      var hitResponse = hitBuilders.get(hitIndex);
+      LeafReaderContext leaf = hitLeaves.get(hitIndex);
+      if (searchContext.isExplain()) {
+        hitResponse.setExplain(
+            searchContext
+                .getSearcherAndTaxonomy()
+                .searcher()
+                .explain(searchContext.getQuery(), hitResponse.getLuceneDocId())
+                .toString());
+      }
+      searchContext.getFetchTasks().processHit(searchContext, leaf, hitResponse);
+    }
+  }
+
+  /**
+   * Fetch the query hits in rank order chunks, sending each chunk to the streamer as it completes.
+   * The first chunk has a fixed number of hits, to keep the time to first response small. Fetch
+   * tasks, including their processAllHits method, are executed separately for each chunk. The
+   * serialized size of each sent chunk is used to estimate the number of hits that fit in the next
+   * chunk. The last chunk is added to the context response builder, to be sent with the final
+   * response.
+   *
+   * @param searchContext search context
+   * @param hits hits from query
+   * @param streamer streamer to send chunks to
+   * @param diagnostics diagnostics for this request
+   * @throws IOException on error reading index data
+   * @throws ExecutionException on error when performing parallel fetch
+   * @throws InterruptedException if parallel fetch is interrupted
+   */
+  private void streamHits(
+      SearchContext searchContext,
+      TopDocs hits,
+      HitChunkStreamer streamer,
+      SearchResponse.Diagnostics.Builder diagnostics)
+      throws IOException, ExecutionException, InterruptedException {
+    setResponseTotalHits(searchContext, hits);
+    int chunkHits = streamer.getInitialChunkHits();
+    int hitIndex = 0;
+    while (true) {
+      int endIndex = Math.min(hits.scoreDocs.length, hitIndex + chunkHits);
+      List<Hit.Builder> chunk = new ArrayList<>(endIndex - hitIndex);
+      for (int i = hitIndex; i < endIndex; ++i) {
+        Hit.Builder hitBuilder = Hit.newBuilder().setLuceneDocId(hits.scoreDocs[i].doc);
+        searchContext.getCollector().fillHitRanking(hitBuilder, hits.scoreDocs[i]);
+        chunk.add(hitBuilder);
+      }
+      fetchFields(searchContext, chunk);
+      hitIndex = endIndex;
+
+      if (hitIndex == hits.scoreDocs.length) {
+        for (Hit.Builder hitBuilder : chunk) {
+          searchContext.getResponseBuilder().addHits(hitBuilder);
+        }
+        return;
+      }
+      long chunkBytes = streamer.sendChunk(searchContext.getResponseBuilder(), chunk);
+      DeadlineUtils.checkDeadline("SearchHandler: stream hits", diagnostics, "SEARCH");
+      chunkHits = streamer.getNextChunkHits(chunk.size(), chunkBytes);
+    }
   }
 
   /**
@@ -560,12 +763,7 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
    * @param hits hits from query
    */
   private static void setResponseHits(SearchContext context, TopDocs hits) {
-    TotalHits totalHits =
-        TotalHits.newBuilder()
-            .setRelation(TotalHits.Relation.valueOf(hits.totalHits.relation().name()))
-            .setValue(hits.totalHits.value())
-            .build();
-    context.getResponseBuilder().setTotalHits(totalHits);
+    setResponseTotalHits(context, hits);
     for (int hitIndex = 0; hitIndex < hits.scoreDocs.length; hitIndex++) {
       var hitResponse = context.getResponseBuilder().addHitsBuilder();
       ScoreDoc hit = hits.scoreDocs[hitIndex];
@@ -574,6 +772,15 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
     }
   }
 
+  private static void setResponseTotalHits(SearchContext context, TopDocs hits) {
+    TotalHits totalHits =
+        TotalHits.newBuilder()
+            .setRelation(TotalHits.Relation.valueOf(hits.totalHits.relation().name()))
+            .setValue(hits.totalHits.value())
+            .build();
+    context.getResponseBuilder().setTotalHits(totalHits);
+  }
+
   /**
    * Returns the requested searcher + taxoReader, either by indexGen, snapshot, version or just the
    * current (latest) one.
@@ -781,7 +988,8 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
                   new MyIndexSearcher.SlicingParams(
                       indexState.getSliceMaxDocs(),
                       indexState.getSliceMaxSegments(),
-                      indexState.getVirtualShards())),
+                      indexState.getVirtualShards(),
+                      indexState.getSlicePartitionMaxDocs())),
               s.taxonomyReader());
       state.slm.record(result.searcher());
       long t1 = System.nanoTime();
@@ -794,6 +1002,46 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
     }
   }
 
+  /**
+   * Add the values of the current document to a composite field value. Numeric values are read
+   * through the primitive accessors and set directly on the value builders, other types use {@link
+   * LoadedDocValues#toFieldValue(int)}.
+   *
+   * @param compositeFieldValue builder to add values to
+   * @param docValues doc values set to the current document
+   */
+  static void addDocValues(
+      CompositeFieldValue.Builder compositeFieldValue, LoadedDocValues<?> docValues) {
+    // int values also implement the wider accessors, so check the narrowest type first
+    switch (docValues) {
+      case LoadedDocValues.IntValues intValues -> {
+        for (int i = 0; i < intValues.size(); ++i) {
+          compositeFieldValue.addFieldValueBuilder().setIntValue(intValues.getInt(i));
+        }
+      }
+      case LoadedDocValues.LongValues longValues -> {
+        for (int i = 0; i < longValues.size(); ++i) {
+          compositeFieldValue.addFieldValueBuilder().setLongValue(longValues.getLong(i));
+        }
+      }
+      case LoadedDocValues.FloatValues floatValues -> {
+        for (int i = 0; i < floatValues.size(); ++i) {
+          compositeFieldValue.addFieldValueBuilder().setFloatValue(floatValues.getFloat(i));
+        }
+      }
+      case LoadedDocValues.DoubleValues doubleValues -> {
+        for (int i = 0; i < doubleValues.size(); ++i) {
+          compositeFieldValue.addFieldValueBuilder().setDoubleValue(doubleValues.getDouble(i));
+        }
+      }
+      default -> {
+        for (int i = 0; i < docValues.size(); ++i) {
+          compositeFieldValue.addFieldValue(docValues.toFieldValue(i));
+        }
+      }
+    }
+  }
+
   public static class FillFieldsTask implements Callable<List<Map<String, CompositeFieldValue>>> {
 
     private final IndexSearcher s;
@@ -897,9 +1145,7 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
           // it may be possible to cache this if there are multiple hits in the same segment
           LoadedDocValues<?> docValues = fieldDef.getDocValues(leaf);
           docValues.setDocId(docID);
-          for (int i = 0; i < docValues.size(); ++i) {
-            compositeFieldValue.addFieldValue(docValues.toFieldValue(i));
-          }
+          addDocValues(compositeFieldValue, docValues);
         }
 
           // retrieve stored fields
@@ -1150,9 +1396,7 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
 
         SearchResponse.Hit.CompositeFieldValue.Builder compositeFieldValue =
             SearchResponse.Hit.CompositeFieldValue.newBuilder();
-        for (int i = 0; i < docValues.size(); ++i) {
-          compositeFieldValue.addFieldValue(docValues.toFieldValue(i));
-        }
+        addDocValues(compositeFieldValue, docValues);
         hit.putFields(name, compositeFieldValue.build());
       }
     }
@@ -1201,6 +1445,94 @@ public class SearchHandler extends Handler<SearchRequest, SearchResponse> {
     return fd.formatEpochMillis(value);
   }
 
+  /**
+   * Sends the chunks of a streamed search response to an observer, and sizes each chunk to fit
+   * within the chunk byte budget.
+   */
+  static class HitChunkStreamer {
+    private final StreamObserver<SearchResponse> responseObserver;
+    private final long chunkBudgetBytes;
+    private final int initialChunkHits;
+    private int sentChunks = 0;
+
+    HitChunkStreamer(
+        StreamObserver<SearchResponse> responseObserver,
+        long chunkBudgetBytes,
+        int initialChunkHits) {
+      if (chunkBudgetBytes <= 0) {
+        throw new IllegalArgumentException("chunkBudgetBytes must be > 0");
+      }
+      if (initialChunkHits <= 0) {
+        throw new IllegalArgumentException("initialChunkHits must be > 0");
+      }
+      this.responseObserver = responseObserver;
+      this.chunkBudgetBytes = chunkBudgetBytes;
+      this.initialChunkHits = initialChunkHits;
+    }
+
+    /** Get the number of hits in the first chunk, before the size of a hit is known. */
+    int getInitialChunkHits() {
+      return initialChunkHits;
+    }
+
+    /**
+     * Send a chunk of fetched hits. The first chunk also contains the current state of the
+     * response, without the diagnostics.
+     *
+     * @param responseBuilder search response builder
+     * @param chunk fetched hits, in rank order
+     * @return serialized size of the chunk hits
+     */
+    long sendChunk(SearchResponse.Builder responseBuilder, List<Hit.Builder> chunk) {
+      SearchResponse.Builder chunkResponse =
+          sentChunks == 0
+              ? responseBuilder.clone().clearDiagnostics()
+              : SearchResponse.newBuilder();
+      long chunkBytes = 0;
+      for (Hit.Builder hitBuilder : chunk) {
+        Hit hit = hitBuilder.build();
+        chunkBytes += hit.getSerializedSize();
+        chunkResponse.addHits(hit);
+      }
+      responseObserver.onNext(chunkResponse.build());
+      sentChunks++;
+      return chunkBytes;
+    }
+
+    /**
+     * Get the number of hits to fetch for the next chunk, based on the size of the last chunk.
+     *
+     * @param lastChunkHits number of hits in the last chunk
+     * @param lastChunkBytes serialized size of the last chunk hits
+     * @return number of hits for the next chunk, at least 1
+     */
+    int getNextChunkHits(int lastChunkHits, long lastChunkBytes) {
+      long bytesPerHit = Math.max(1, lastChunkBytes / Math.max(1, lastChunkHits));
+      return (int) Math.max(1, Math.min(Integer.MAX_VALUE, chunkBudgetBytes / bytesPerHit));
+    }
+
+    /**
+     * Get the last message to send, from the final search response. If chunks have already been
+     * sent, only the hits, diagnostics and profile result are included.
+     *
+     * @param searchResponse final search response
+     * @return last response message
+     */
+    SearchResponse getLastChunk(SearchResponse searchResponse) {
+      if (sentChunks == 0) {
+        return searchResponse;
+      }
+      SearchResponse.Builder lastChunk =
+          SearchResponse.newBuilder()
+              .addAllHits(searchResponse.getHitsList())
+              .setDiagnostics(searchResponse.getDiagnostics());
+      if (searchResponse.hasProfileResult()) {
+        lastChunk.setProfileResult(searchResponse.getProfileResult());
+      }
+      return lastChunk.build();
+    }
+  }
+
   public static class SearchHandlerException extends HandlerException {
 
     public SearchHandlerException(Throwable err) {
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.handler;
+
+import com.google.common.base.Throwables;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.util.JsonFormat.Printer;
+import com.yelp.nrtsearch.server.config.NrtsearchConfig;
+import com.yelp.nrtsearch.server.grpc.DeadlineUtils;
+import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.index.IndexState;
+import com.yelp.nrtsearch.server.state.GlobalState;
+import com.yelp.nrtsearch.server.utils.ProtoMessagePrinter;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handler for the streaming search rpc. The search is executed by the {@link SearchHandler}, which
+ * sends the response hits in chunks as they are fetched. A chunk is only fetched once the previous
+ * one has been accepted by the transport, so that the fetched hits waiting to be sent stay within
+ * the configured chunk budget.
+ *
+ * <p>grpc delivers the on ready and on cancel callbacks of a call in the call thread, so the search
+ * runs on the given executor instead, and the call thread returns once the search is submitted.
+ */
+public class SearchStreamHandler extends Handler<SearchRequest, SearchResponse> {
+  private static final Logger logger = LoggerFactory.getLogger(SearchStreamHandler.class);
+  private static final Printer protoMessagePrinter =
+      ProtoMessagePrinter.omittingInsignificantWhitespace();
+
+  private final SearchHandler searchHandler;
+  private final Executor searchExecutor;
+
+  /**
+   * Constructor.
+   *
+   * @param globalState global state
+   * @param searchHandler handler to execute the search
+   * @param searchExecutor executor to run streaming searches
+   */
+  public SearchStreamHandler(
+      GlobalState globalState, SearchHandler searchHandler, Executor searchExecutor) {
+    super(globalState);
+    this.searchHandler = searchHandler;
+    this.searchExecutor = searchExecutor;
+  }
+
+  @Override
+  public void handle(SearchRequest searchRequest, StreamObserver<SearchResponse> responseObserver) {
+    try {
+      IndexState indexState = getIndexState(searchRequest.getIndexName());
+      setResponseCompression(searchRequest.getResponseCompression(), responseObserver);
+      NrtsearchConfig configuration = getGlobalState().getConfiguration();
+      // the ready and cancel handlers must be registered before the call thread returns
+      FlowControlledObserver flowControlledObserver =
+          new FlowControlledObserver(
+              responseObserver,
+              TimeUnit.MILLISECONDS.toNanos(configuration.getSearchStreamReadyTimeoutMs()));
+      searchExecutor.execute(
+          Context.current()
+              .wrap(
+                  () -> {
+                    try {
+                      searchHandler.streamSearchResponse(
+                          indexState,
+                          searchRequest,
+                          flowControlledObserver,
+                          configuration.getSearchStreamChunkBytes(),
+                          configuration.getSearchStreamInitialChunkHits());
+                      responseObserver.onCompleted();
+                    } catch (Exception e) {
+                      onSearchError(searchRequest, responseObserver, e);
+                    }
+                  }));
+    } catch (RejectedExecutionException e) {
+      logger.error(
+          "Threadpool is full, unable to submit searchStream for index {}",
+          searchRequest.getIndexName());
+      responseObserver.onError(
+          Status.RESOURCE_EXHAUSTED
+              .withDescription(
+                  "Threadpool is full, unable to submit searchStream for index: "
+                      + searchRequest.getIndexName())
+              .augmentDescription(e.getMessage())
+              .asRuntimeException());
+    } catch (Exception e) {
+      onSearchError(searchRequest, responseObserver, e);
+    }
+  }
+
+  private static void onSearchError(
+      SearchRequest searchRequest, StreamObserver<SearchResponse> responseObserver, Exception e) {
+    StatusRuntimeException statusException = getStatusException(e);
+    if (statusException != null && statusException.getStatus().getCode() == Status.Code.CANCELLED) {
+      // the client cancelled the call, this is not a server error
+      logger.debug("searchStream cancelled for index: {}", searchRequest.getIndexName());
+      responseObserver.onError(statusException);
+      return;
+    }
+    String requestStr;
+    try {
+      requestStr = protoMessagePrinter.print(searchRequest);
+    } catch (InvalidProtocolBufferException ignored) {
+      // Ignore as invalid proto would have thrown an exception earlier
+      requestStr = searchRequest.toString();
+    }
+    logger.warn("Error handling searchStream request: {}", requestStr, e);
+    if (statusException != null) {
+      responseObserver.onError(statusException);
+    } else {
+      responseObserver.onError(
+          Status.INTERNAL
+              .withDescription(
+                  String.format(
+                      "Error while trying to execute search for index %s. check logs for full searchRequest.",
+                      searchRequest.getIndexName()))
+              .augmentDescription(e.getMessage())
+              .asRuntimeException());
+    }
+  }
+
+  /**
+   * Get the first {@link StatusRuntimeException} in the causal chain of an exception. Errors from
+   * the flow controlled observer, such as a client cancel, may be wrapped by the search handler.
+   *
+   * @param e exception
+   * @return status exception, or null if there is none
+   */
+  static StatusRuntimeException getStatusException(Throwable e) {
+    for (Throwable cause : Throwables.getCausalChain(e)) {
+      if (cause instanceof StatusRuntimeException statusException) {
+        return statusException;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Observer that blocks after sending each message until the transport is ready to accept more.
+   * The waiting search thread is woken by the grpc on ready and on cancel handlers. The wait is
+   * bounded by the ready timeout, even if the request has no deadline, so that a stalled client
+   * cannot hold the search thread and searcher indefinitely. The observer must be created in the
+   * call thread, since the handlers may only be registered before the call thread returns.
+   */
+  static class FlowControlledObserver implements StreamObserver<SearchResponse> {
+    private final StreamObserver<SearchResponse> delegate;
+    private final ServerCallStreamObserver<SearchResponse> serverObserver;
+    private final long readyTimeoutNs;
+    private final Lock lock = new ReentrantLock();
+    private final Condition readyOrCancelled = lock.newCondition();
+    private volatile boolean cancelled = false;
+
+    FlowControlledObserver(StreamObserver<SearchResponse> delegate, long readyTimeoutNs) {
+      this.delegate = delegate;
+      this.readyTimeoutNs = readyTimeoutNs;
+      if (delegate instanceof ServerCallStreamObserver<SearchResponse> callObserver) {
+        serverObserver = callObserver;
+        serverObserver.setOnReadyHandler(this::signal);
+        serverObserver.setOnCancelHandler(
+            () -> {
+              cancelled = true;
+              signal();
+            });
+      } else {
+        serverObserver = null;
+      }
+    }
+
+    /** Wake the search thread waiting for the transport to be ready. */
+    void signal() {
+      lock.lock();
+      try {
+        readyOrCancelled.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void onNext(SearchResponse value) {
+      if (cancelled) {
+        throw cancelledException();
+      }
+      delegate.onNext(value);
+      if (serverObserver == null) {
+        return;
+      }
+      long waitStartNs = System.nanoTime();
+      lock.lock();
+      try {
+        while (!serverObserver.isReady()) {
+          DeadlineUtils.checkDeadline("SearchStreamHandler: wait for ready", "SEARCH");
+          if (cancelled || serverObserver.isCancelled()) {
+            throw cancelledException();
+          }
+          long remainingNs = readyTimeoutNs - (System.nanoTime() - waitStartNs);
+          if (remainingNs <= 0) {
+            throw Status.DEADLINE_EXCEEDED
+                .withDescription(
+                    String.format(
+                        "Client did not accept search stream message within %d ms",
+                        TimeUnit.NANOSECONDS.toMillis(readyTimeoutNs)))
+                .asRuntimeException();
+          }
+          Deadline deadline = Context.current().getDeadline();
+          if (deadline != null) {
+            // wake up to report the request deadline, at least 1 ns to make progress
+            remainingNs =
+                Math.min(remainingNs, Math.max(deadline.timeRemaining(TimeUnit.NANOSECONDS), 1));
+          }
+          readyOrCancelled.awaitNanos(remainingNs);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw Status.CANCELLED
+            .withDescription("Interrupted while waiting for search stream to be ready")
+            .withCause(e)
+            .asRuntimeException();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private static StatusRuntimeException cancelledException() {
+      return Status.CANCELLED
+          .withDescription("Search stream cancelled by client")
+          .asRuntimeException();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      delegate.onError(t);
+    }
+
+    @Override
+    public void onCompleted() {
+      delegate.onCompleted();
+    }
+  }
+}
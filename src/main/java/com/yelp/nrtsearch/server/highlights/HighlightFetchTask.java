@@ -94,6 +94,12 @@ public class HighlightFetchTask implements FetchTask {
     timeTakenMs.add(((System.nanoTime() - startTime) / TEN_TO_THE_POWER_SIX));
   }
 
+  /** Highlights for each hit are generated independently, so hits may be processed in parallel. */
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
   /**
    * Get the total time taken so far to generate highlights.
    *
@@ -28,6 +28,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.util.Constants;
 
 /** A factory to open a {@link Directory} from a provided filesystem path. */
 public abstract class DirectoryFactory {
@@ -60,6 +61,10 @@ public abstract class DirectoryFactory {
         return new DirectoryFactory() {
           @Override
           public Directory open(Path path, IndexPreloadConfig preloadConfig) throws IOException {
+            // FSDirectory uses an MMapDirectory on 64-bit platforms
+            if (preloadConfig.isResidencyManaged() && Constants.JRE_IS_64BIT) {
+              return openMMapDirectory(path, preloadConfig, config.getMMapGrouping());
+            }
             Directory directory = FSDirectory.open(path);
             if (directory instanceof MMapDirectory mMapDirectory) {
               mMapDirectory.setPreload(preloadConfig.preloadPredicate());
@@ -73,10 +78,7 @@ public abstract class DirectoryFactory {
         return new DirectoryFactory() {
           @Override
           public Directory open(Path path, IndexPreloadConfig preloadConfig) throws IOException {
-            MMapDirectory mMapDirectory = new MMapDirectory(path);
-            mMapDirectory.setPreload(preloadConfig.preloadPredicate());
-            setMMapGrouping(mMapDirectory, config.getMMapGrouping());
-            return mMapDirectory;
+            return openMMapDirectory(path, preloadConfig, config.getMMapGrouping());
           }
         };
       }
@@ -139,6 +141,31 @@ public abstract class DirectoryFactory {
     }
   }
 
+  /**
+   * Open an {@link MMapDirectory}. If the preload config requires managing the memory residency of
+   * files, a {@link ResidencyTrackingMMapDirectory} is used.
+   *
+   * @param path directory path
+   * @param preloadConfig config for preloading index data into memory
+   * @param grouping how files are grouped into memory arenas
+   * @return mmap directory
+   * @throws IOException on error opening directory
+   */
+  @VisibleForTesting
+  static MMapDirectory openMMapDirectory(
+      Path path, IndexPreloadConfig preloadConfig, MMapGrouping grouping) throws IOException {
+    MMapDirectory mMapDirectory;
+    if (preloadConfig.isResidencyManaged()) {
+      mMapDirectory =
+          new ResidencyTrackingMMapDirectory(path, new MemoryResidencyManager(path, preloadConfig));
+    } else {
+      mMapDirectory = new MMapDirectory(path);
+      mMapDirectory.setPreload(preloadConfig.preloadPredicate());
+    }
+    setMMapGrouping(mMapDirectory, grouping);
+    return mMapDirectory;
+  }
+
   // Function to group segments by their names, excluding ".si" files
   public static Function<String, Optional<String>> SEGMENT_EXCEPT_SI_FUNCTION =
       (filename) -> {
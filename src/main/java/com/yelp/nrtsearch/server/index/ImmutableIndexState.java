@@ -30,6 +30,7 @@ import com.google.protobuf.util.FieldMaskUtil;
 import com.google.protobuf.util.JsonFormat;
 import com.yelp.nrtsearch.server.codec.ServerCodec;
 import com.yelp.nrtsearch.server.concurrent.ExecutorFactory;
+import com.yelp.nrtsearch.server.field.DateTimeFieldDef;
 import com.yelp.nrtsearch.server.field.FieldDef;
 import com.yelp.nrtsearch.server.field.IdFieldDef;
 import com.yelp.nrtsearch.server.field.properties.GlobalOrdinalable;
@@ -75,6 +76,7 @@ public class ImmutableIndexState extends IndexState {
   public static final double DEFAULT_NRT_CACHING_MAX_SIZE_MB = 60.0;
   public static final boolean DEFAULT_MERGE_AUTO_THROTTLE = false;
   public static final String DEFAULT_DIRECTORY = "FSDirectory";
+  public static final long DEFAULT_TIME_BUCKET_SIZE_SEC = 86400;
 
   // default settings as message, so they can be merged with saved settings
   public static final IndexSettings DEFAULT_INDEX_SETTINGS =
@@ -94,6 +96,8 @@ public class ImmutableIndexState extends IndexState {
           .setIndexMergeSchedulerAutoThrottle(
               BoolValue.newBuilder().setValue(DEFAULT_MERGE_AUTO_THROTTLE).build())
           .setDirectory(StringValue.newBuilder().setValue(DEFAULT_DIRECTORY).build())
+          .setTimeBucketSizeSec(
+              UInt64Value.newBuilder().setValue(DEFAULT_TIME_BUCKET_SIZE_SEC).build())
           .build();
 
   // Settings
@@ -104,6 +108,8 @@ public class ImmutableIndexState extends IndexState {
   private final Sort indexSort;
   private final boolean indexMergeSchedulerAutoThrottle;
   private final DirectoryFactory directoryFactory;
+  private final String timeBucketField;
+  private final long timeBucketSizeSec;
 
   public static final double DEFAULT_MAX_REFRESH_SEC = 1.0;
   public static final double DEFAULT_MIN_REFRESH_SEC = 0.05;
@@ -130,6 +136,7 @@ public class ImmutableIndexState extends IndexState {
           .setSliceMaxDocs(Int32Value.newBuilder().setValue(DEFAULT_SLICE_MAX_DOCS).build())
           .setSliceMaxSegments(Int32Value.newBuilder().setValue(DEFAULT_SLICE_MAX_SEGMENTS).build())
           .setVirtualShards(Int32Value.newBuilder().setValue(DEFAULT_VIRTUAL_SHARDS).build())
+          .setSlicePartitionMaxDocs(Int32Value.newBuilder().setValue(0).build())
           .setSegmentsPerTier(Int32Value.newBuilder().setValue(DEFAULT_SEGMENTS_PER_TIER).build())
           .setMaxMergedSegmentMB(
               Int32Value.newBuilder().setValue(DEFAULT_MAX_MERGED_SEGMENT_MB).build())
@@ -154,6 +161,7 @@ public class ImmutableIndexState extends IndexState {
   private final int sliceMaxDocs;
   private final int sliceMaxSegments;
   private final int virtualShards;
+  private final int slicePartitionMaxDocs;
   private final int maxMergedSegmentMB;
   private final int segmentsPerTier;
   private final double defaultSearchTimeoutSec;
@@ -233,6 +241,13 @@ public class ImmutableIndexState extends IndexState {
     directoryFactory =
         DirectoryFactory.get(
             mergedSettings.getDirectory().getValue(), globalState.getConfiguration());
+    if (!mergedSettings.getTimeBucketField().getValue().isEmpty()) {
+      timeBucketField = mergedSettings.getTimeBucketField().getValue();
+      validateTimeBucketField(timeBucketField, fieldAndFacetState.getFields());
+    } else {
+      timeBucketField = null;
+    }
+    timeBucketSizeSec = mergedSettings.getTimeBucketSizeSec().getValue();
 
     // live settings
     mergedLiveSettings =
@@ -249,6 +264,7 @@ public class ImmutableIndexState extends IndexState {
     sliceMaxDocs = mergedLiveSettingsWithLocal.getSliceMaxDocs().getValue();
     sliceMaxSegments = mergedLiveSettingsWithLocal.getSliceMaxSegments().getValue();
     virtualShards = mergedLiveSettingsWithLocal.getVirtualShards().getValue();
+    slicePartitionMaxDocs = mergedLiveSettingsWithLocal.getSlicePartitionMaxDocs().getValue();
     maxMergedSegmentMB = mergedLiveSettingsWithLocal.getMaxMergedSegmentMB().getValue();
     segmentsPerTier = mergedLiveSettingsWithLocal.getSegmentsPerTier().getValue();
     defaultSearchTimeoutSec = mergedLiveSettingsWithLocal.getDefaultSearchTimeoutSec().getValue();
@@ -591,7 +607,11 @@ public class ImmutableIndexState extends IndexState {
     iwc.setCodec(new ServerCodec(indexStateManager));
 
     TieredMergePolicy mergePolicy;
-    if (getGlobalState().getConfiguration().getVirtualSharding()) {
+    if (timeBucketField != null) {
+      mergePolicy =
+          new TimeBucketedMergePolicy(
+              new SegmentTimeRanges(timeBucketField), timeBucketSizeSec * 1000);
+    } else if (getGlobalState().getConfiguration().getVirtualSharding()) {
       mergePolicy =
           new BucketedTieredMergePolicy(() -> indexStateManager.getCurrent().getVirtualShards());
     } else {
@@ -693,6 +713,11 @@ public class ImmutableIndexState extends IndexState {
     return virtualShards;
   }
 
+  @Override
+  public int getSlicePartitionMaxDocs() {
+    return slicePartitionMaxDocs;
+  }
+
   @Override
   public int getMaxMergedSegmentMB() {
     return maxMergedSegmentMB;
@@ -703,6 +728,11 @@ public class ImmutableIndexState extends IndexState {
     return segmentsPerTier;
   }
 
+  @Override
+  public Sort getIndexSort() {
+    return indexSort;
+  }
+
   @Override
   public double getDefaultSearchTimeoutSec() {
     return defaultSearchTimeoutSec;
@@ -752,6 +782,9 @@ public class ImmutableIndexState extends IndexState {
     if (settings.getNrtCachingDirectoryMaxMergeSizeMB().getValue() < 0) {
       throw new IllegalArgumentException("nrtCachingDirectoryMaxMergeSizeMB must be >= 0");
     }
+    if (settings.getTimeBucketSizeSec().getValue() <= 0) {
+      throw new IllegalArgumentException("timeBucketSizeSec must be > 0");
+    }
     int maxMergeCount = settings.getConcurrentMergeSchedulerMaxMergeCount().getValue();
     int maxThreadCount = settings.getConcurrentMergeSchedulerMaxThreadCount().getValue();
     if (maxMergeCount != ConcurrentMergeScheduler.AUTO_DETECT_MERGES_AND_THREADS
@@ -772,6 +805,15 @@ public class ImmutableIndexState extends IndexState {
     }
   }
 
+  private static void validateTimeBucketField(String fieldName, Map<String, FieldDef> fields) {
+    FieldDef fieldDef = fields.get(fieldName);
+    if (!(fieldDef instanceof DateTimeFieldDef dateTimeFieldDef)
+        || !dateTimeFieldDef.isSearchable()) {
+      throw new IllegalArgumentException(
+          "timeBucketField must be a searchable DATE_TIME field: " + fieldName);
+    }
+  }
+
   static void validateLiveSettings(IndexLiveSettings liveSettings) {
     if (liveSettings.getMaxRefreshSec().getValue() < liveSettings.getMinRefreshSec().getValue()) {
       throw new IllegalArgumentException("maxRefreshSec must be >= minRefreshSec");
@@ -794,6 +836,9 @@ public class ImmutableIndexState extends IndexState {
     if (liveSettings.getVirtualShards().getValue() <= 0) {
       throw new IllegalArgumentException("virtualShards must be > 0");
     }
+    if (liveSettings.getSlicePartitionMaxDocs().getValue() < 0) {
+      throw new IllegalArgumentException("slicePartitionMaxDocs must be >= 0");
+    }
     if (liveSettings.getMaxMergedSegmentMB().getValue() < 0) {
       throw new IllegalArgumentException("maxMergedSegmentMB must be >= 0");
     }
@@ -54,6 +54,7 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.AnalyzerWrapper;
 import org.apache.lucene.facet.FacetsConfig;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.similarities.PerFieldSimilarityWrapper;
 import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.store.Directory;
@@ -508,6 +509,13 @@ public abstract class IndexState implements Closeable {
    */
   public abstract int getVirtualShards();
 
+  /**
+   * Get the maximum number of documents in an intra-segment partition used for parallel search.
+   * Larger segments are split into multiple doc id range partitions. A value of 0 means segments
+   * are never partitioned.
+   */
+  public abstract int getSlicePartitionMaxDocs();
+
   /** Get maximum sized segment to produce during normal merging */
   public abstract int getMaxMergedSegmentMB();
 
@@ -532,6 +540,9 @@ public abstract class IndexState implements Closeable {
   /** Get if additional index metrics should be collected and published. */
   public abstract boolean getVerboseMetrics();
 
+  /** Get the sort applied to index segments, or null if the index is not sorted. */
+  public abstract Sort getIndexSort();
+
   @Override
   public void close() throws IOException {}
 
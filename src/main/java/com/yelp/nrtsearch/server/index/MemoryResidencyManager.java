@@ -0,0 +1,282 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.index;
+
+import com.yelp.nrtsearch.server.config.IndexPreloadConfig;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.lucene.store.FileSwitchDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.ReadAdvice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manages the memory residency of the files of a single {@link MMapDirectory}. Tracks the bytes of
+ * the mapped and preloaded files by file extension, and decides which files to preload within a
+ * byte budget.
+ *
+ * <p>Files are preloaded in priority order of their extension, as given by {@link
+ * IndexPreloadConfig#getPreloadPriority(String)}. A file is only preloaded if the budget has room
+ * for it, after reserving space for all the files in the directory with a higher priority that are
+ * not yet preloaded. This keeps files such as vector graphs resident, even when lower priority
+ * files of the same segment are opened first. Files that were already refused because they did not
+ * fit are not reserved. Files removed from the directory release their budget.
+ *
+ * <p>The file sizes used for the budget are kept up to date by the directory, see {@link
+ * #onFileWritten(String, long)}, {@link #onFileRenamed(String, String)} and {@link
+ * #onFileDeleted(String)}, so that opening a file does not list the directory. The directory is
+ * only listed when the budget is first used, and when collecting the residency metrics, to pick up
+ * files added or removed outside the directory, such as restored files.
+ *
+ * <p>Files with an extension in {@link IndexPreloadConfig#getRandomAccessExtensions()} are opened
+ * with {@link ReadAdvice#RANDOM}, so that the OS does not read ahead when accessing their pages.
+ */
+public class MemoryResidencyManager {
+  private static final Logger logger = LoggerFactory.getLogger(MemoryResidencyManager.class);
+
+  private final Path directoryPath;
+  private final IndexPreloadConfig preloadConfig;
+  private final Map<String, Long> mappedFiles = new ConcurrentHashMap<>();
+  private final Map<String, Long> preloadedFiles = new ConcurrentHashMap<>();
+  private final AtomicLong budgetSkippedFiles = new AtomicLong();
+
+  // use synchronized access
+  private final Map<String, Long> fileSizes = new HashMap<>();
+  private final Set<String> refusedFiles = new HashSet<>();
+  private boolean fileSizesLoaded = false;
+
+  /**
+   * Constructor.
+   *
+   * @param directoryPath path of managed directory
+   * @param preloadConfig preload config
+   */
+  public MemoryResidencyManager(Path directoryPath, IndexPreloadConfig preloadConfig) {
+    this.directoryPath = directoryPath;
+    this.preloadConfig = preloadConfig;
+  }
+
+  /**
+   * Determine if a file being opened should be preloaded. If so, the file is added to the
+   * preloaded files.
+   *
+   * @param fileName file name
+   * @param context file open context
+   * @return if the file should be preloaded
+   */
+  public boolean shouldPreload(String fileName, IOContext context) {
+    try {
+      return shouldPreload(fileName);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private synchronized boolean shouldPreload(String fileName) throws IOException {
+    int priority = preloadConfig.getPreloadPriority(fileName);
+    if (priority < 0) {
+      return false;
+    }
+    if (preloadedFiles.containsKey(fileName)) {
+      return true;
+    }
+    long budgetBytes = preloadConfig.getBudgetBytes();
+    if (budgetBytes == IndexPreloadConfig.UNLIMITED_BUDGET) {
+      preloadedFiles.put(fileName, Files.size(directoryPath.resolve(fileName)));
+      return true;
+    }
+    if (!fileSizesLoaded) {
+      fileSizes.putAll(listFiles());
+      fileSizesLoaded = true;
+    }
+    Long fileBytes = fileSizes.get(fileName);
+    if (fileBytes == null) {
+      // added outside the directory
+      fileBytes = Files.size(directoryPath.resolve(fileName));
+      fileSizes.put(fileName, fileBytes);
+    }
+
+    long usedBytes = sum(preloadedFiles);
+    long reservedBytes = 0;
+    for (Map.Entry<String, Long> entry : fileSizes.entrySet()) {
+      int filePriority = preloadConfig.getPreloadPriority(entry.getKey());
+      if (filePriority >= 0
+          && filePriority < priority
+          && !preloadedFiles.containsKey(entry.getKey())
+          && !refusedFiles.contains(entry.getKey())) {
+        reservedBytes += entry.getValue();
+      }
+    }
+    if (usedBytes + reservedBytes + fileBytes > budgetBytes) {
+      refusedFiles.add(fileName);
+      budgetSkippedFiles.incrementAndGet();
+      logger.debug(
+          "Not preloading {}, size: {}, used: {}, reserved: {}, budget: {}",
+          fileName,
+          fileBytes,
+          usedBytes,
+          reservedBytes,
+          budgetBytes);
+      return false;
+    }
+    refusedFiles.remove(fileName);
+    preloadedFiles.put(fileName, fileBytes);
+    return true;
+  }
+
+  /**
+   * Record that a file was written to the directory.
+   *
+   * @param fileName file name
+   * @param length file length
+   */
+  public synchronized void onFileWritten(String fileName, long length) {
+    if (fileSizesLoaded) {
+      fileSizes.put(fileName, length);
+    }
+  }
+
+  /**
+   * Record that a file in the directory was renamed.
+   *
+   * @param source source file name
+   * @param dest destination file name
+   */
+  public synchronized void onFileRenamed(String source, String dest) {
+    Long length = fileSizes.remove(source);
+    if (length != null) {
+      fileSizes.put(dest, length);
+    }
+    removeFile(source);
+  }
+
+  /**
+   * Record that a file was deleted from the directory, releasing its preload budget.
+   *
+   * @param fileName file name
+   */
+  public synchronized void onFileDeleted(String fileName) {
+    fileSizes.remove(fileName);
+    removeFile(fileName);
+  }
+
+  private void removeFile(String fileName) {
+    refusedFiles.remove(fileName);
+    preloadedFiles.remove(fileName);
+    mappedFiles.remove(fileName);
+  }
+
+  /**
+   * Get the context to open a file with, applying the configured read advice.
+   *
+   * @param fileName file name
+   * @param context requested open context
+   * @return context to use for opening the file
+   */
+  public IOContext getOpenContext(String fileName, IOContext context) {
+    String extension = FileSwitchDirectory.getExtension(fileName);
+    if (preloadConfig.getRandomAccessExtensions().contains(extension)) {
+      // only changes the advice of default contexts, merges keep reading sequentially
+      return context.withReadAdvice(ReadAdvice.RANDOM);
+    }
+    return context;
+  }
+
+  /**
+   * Record that a file was mapped into memory.
+   *
+   * @param fileName file name
+   * @param length file length
+   */
+  public void onFileMapped(String fileName, long length) {
+    mappedFiles.put(fileName, length);
+  }
+
+  /** Get the total bytes of the currently existing mapped files, by file extension. */
+  public Map<String, Long> getMappedBytesByExtension() throws IOException {
+    return getBytesByExtension(mappedFiles);
+  }
+
+  /** Get the total bytes of the currently existing preloaded files, by file extension. */
+  public Map<String, Long> getPreloadedBytesByExtension() throws IOException {
+    return getBytesByExtension(preloadedFiles);
+  }
+
+  /** Get the number of files that were not preloaded because they did not fit in the budget. */
+  public long getBudgetSkippedFiles() {
+    return budgetSkippedFiles.get();
+  }
+
+  /** Get the preload config used by this manager. */
+  public IndexPreloadConfig getPreloadConfig() {
+    return preloadConfig;
+  }
+
+  private Map<String, Long> getBytesByExtension(Map<String, Long> files) throws IOException {
+    Map<String, Long> directoryFiles = listFiles();
+    updateFileSizes(directoryFiles);
+    files.keySet().retainAll(directoryFiles.keySet());
+    Map<String, Long> bytesByExtension = new HashMap<>();
+    for (Map.Entry<String, Long> entry : files.entrySet()) {
+      String extension = FileSwitchDirectory.getExtension(entry.getKey());
+      bytesByExtension.merge(extension, entry.getValue(), Long::sum);
+    }
+    return bytesByExtension;
+  }
+
+  /** Update the tracked file sizes from a directory listing. */
+  private synchronized void updateFileSizes(Map<String, Long> directoryFiles) {
+    if (fileSizesLoaded) {
+      fileSizes.clear();
+      fileSizes.putAll(directoryFiles);
+    }
+  }
+
+  private Map<String, Long> listFiles() throws IOException {
+    Map<String, Long> files = new HashMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directoryPath)) {
+      for (Path path : stream) {
+        try {
+          if (Files.isRegularFile(path)) {
+            files.put(path.getFileName().toString(), Files.size(path));
+          }
+        } catch (NoSuchFileException ignored) {
+          // deleted while listing
+        }
+      }
+    }
+    return files;
+  }
+
+  private static long sum(Map<String, Long> files) {
+    long total = 0;
+    for (long bytes : files.values()) {
+      total += bytes;
+    }
+    return total;
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.index;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.MMapDirectory;
+
+/**
+ * {@link MMapDirectory} that uses a {@link MemoryResidencyManager} to decide which files to
+ * preload, to apply read advice when opening files, and to track the mapped files. Written, renamed
+ * and deleted files are reported to the manager, so that it can keep the directory file sizes
+ * without listing the directory.
+ */
+public class ResidencyTrackingMMapDirectory extends MMapDirectory {
+  private final MemoryResidencyManager residencyManager;
+
+  /**
+   * Constructor.
+   *
+   * @param path directory path
+   * @param residencyManager residency manager for this directory
+   * @throws IOException on error opening directory
+   */
+  public ResidencyTrackingMMapDirectory(Path path, MemoryResidencyManager residencyManager)
+      throws IOException {
+    super(path);
+    this.residencyManager = residencyManager;
+    setPreload(residencyManager::shouldPreload);
+  }
+
+  @Override
+  public IndexInput openInput(String name, IOContext context) throws IOException {
+    IndexInput indexInput = super.openInput(name, residencyManager.getOpenContext(name, context));
+    residencyManager.onFileMapped(name, indexInput.length());
+    return indexInput;
+  }
+
+  @Override
+  public IndexOutput createOutput(String name, IOContext context) throws IOException {
+    return new SizeTrackingIndexOutput(super.createOutput(name, context));
+  }
+
+  @Override
+  public IndexOutput createTempOutput(String prefix, String suffix, IOContext context)
+      throws IOException {
+    return new SizeTrackingIndexOutput(super.createTempOutput(prefix, suffix, context));
+  }
+
+  @Override
+  public void rename(String source, String dest) throws IOException {
+    super.rename(source, dest);
+    residencyManager.onFileRenamed(source, dest);
+  }
+
+  @Override
+  public void deleteFile(String name) throws IOException {
+    super.deleteFile(name);
+    residencyManager.onFileDeleted(name);
+  }
+
+  /** Get the residency manager for this directory. */
+  public MemoryResidencyManager getResidencyManager() {
+    return residencyManager;
+  }
+
+  /** Output that reports the length of the written file to the residency manager when closed. */
+  private class SizeTrackingIndexOutput extends IndexOutput {
+    private final IndexOutput out;
+
+    SizeTrackingIndexOutput(IndexOutput out) {
+      super("SizeTrackingIndexOutput(" + out + ")", out.getName());
+      this.out = out;
+    }
+
+    @Override
+    public void close() throws IOException {
+      long length = out.getFilePointer();
+      out.close();
+      residencyManager.onFileWritten(getName(), length);
+    }
+
+    @Override
+    public long getFilePointer() {
+      return out.getFilePointer();
+    }
+
+    @Override
+    public long getChecksum() throws IOException {
+      return out.getChecksum();
+    }
+
+    @Override
+    public void writeByte(byte b) throws IOException {
+      out.writeByte(b);
+    }
+
+    @Override
+    public void writeBytes(byte[] b, int offset, int length) throws IOException {
+      out.writeBytes(b, offset, length);
+    }
+
+    @Override
+    public void writeShort(short i) throws IOException {
+      out.writeShort(i);
+    }
+
+    @Override
+    public void writeInt(int i) throws IOException {
+      out.writeInt(i);
+    }
+
+    @Override
+    public void writeLong(long i) throws IOException {
+      out.writeLong(i);
+    }
+  }
+}
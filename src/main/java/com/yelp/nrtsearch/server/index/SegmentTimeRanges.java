@@ -0,0 +1,121 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.index;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentReader;
+
+/**
+ * Tracks the time range of a DATE_TIME field in each index segment. The range comes from the min
+ * and max of the segment point values, so it is available without reading any documents. Ranges
+ * are updated from the leaves of each refreshed index reader. Segments are immutable, so the range
+ * of a segment is only computed the first time it is seen.
+ */
+public class SegmentTimeRanges {
+  private final String field;
+  private volatile Map<String, TimeRange> ranges = Map.of();
+
+  /**
+   * Min and max time of the field values in a segment, in epoch millis.
+   *
+   * @param min min time
+   * @param max max time
+   */
+  public record TimeRange(long min, long max) {
+    /** Range of a segment with no values for the field. */
+    public static final TimeRange EMPTY = new TimeRange(Long.MAX_VALUE, Long.MIN_VALUE);
+
+    /** Get if the segment has no values for the field. */
+    public boolean isEmpty() {
+      return min > max;
+    }
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param field DATE_TIME field name, must be indexed with points
+   */
+  public SegmentTimeRanges(String field) {
+    this.field = field;
+  }
+
+  /** Get the DATE_TIME field name. */
+  public String getField() {
+    return field;
+  }
+
+  /**
+   * Update the segment time ranges with the segments of an index reader. Ranges for segments that
+   * are no longer in the reader are removed.
+   *
+   * @param reader index reader
+   * @throws IOException on error reading point values
+   */
+  public synchronized void update(IndexReader reader) throws IOException {
+    Map<String, TimeRange> currentRanges = ranges;
+    Map<String, TimeRange> updatedRanges = new HashMap<>();
+    for (LeafReaderContext context : reader.leaves()) {
+      LeafReader leafReader = FilterLeafReader.unwrap(context.reader());
+      if (leafReader instanceof SegmentReader segmentReader) {
+        String segmentName = segmentReader.getSegmentName();
+        TimeRange range = currentRanges.get(segmentName);
+        if (range == null) {
+          range = getTimeRange(segmentReader, field);
+        }
+        updatedRanges.put(segmentName, range);
+      }
+    }
+    ranges = updatedRanges;
+  }
+
+  /**
+   * Get the time range of a segment.
+   *
+   * @param info segment info
+   * @return segment time range, or null if the segment has not been seen in a refreshed reader
+   */
+  public TimeRange getTimeRange(SegmentCommitInfo info) {
+    return ranges.get(info.info.name);
+  }
+
+  /**
+   * Get the time range of a field in a segment from its point values.
+   *
+   * @param reader segment reader
+   * @param field DATE_TIME field name
+   * @return segment time range
+   * @throws IOException on error reading point values
+   */
+  public static TimeRange getTimeRange(LeafReader reader, String field) throws IOException {
+    PointValues pointValues = reader.getPointValues(field);
+    if (pointValues == null || pointValues.getDocCount() == 0) {
+      return TimeRange.EMPTY;
+    }
+    return new TimeRange(
+        LongPoint.decodeDimension(pointValues.getMinPackedValue(), 0),
+        LongPoint.decodeDimension(pointValues.getMaxPackedValue(), 0));
+  }
+}
@@ -16,6 +16,7 @@
 package com.yelp.nrtsearch.server.index;
 
 import com.yelp.nrtsearch.server.config.NrtsearchConfig;
+import com.yelp.nrtsearch.server.config.SearchResponseCacheConfig;
 import com.yelp.nrtsearch.server.field.FieldDef;
 import com.yelp.nrtsearch.server.field.IndexableFieldDef.FacetValueType;
 import com.yelp.nrtsearch.server.field.properties.GlobalOrdinalable;
@@ -29,6 +30,7 @@ import com.yelp.nrtsearch.server.nrt.NRTPrimaryNode;
 import com.yelp.nrtsearch.server.nrt.NRTReplicaNode;
 import com.yelp.nrtsearch.server.nrt.NrtDataManager;
 import com.yelp.nrtsearch.server.search.MyIndexSearcher;
+import com.yelp.nrtsearch.server.search.cache.SearchResponseCache;
 import com.yelp.nrtsearch.server.utils.FileUtils;
 import com.yelp.nrtsearch.server.utils.HostPort;
 import com.yelp.nrtsearch.server.warming.WarmerConfig;
@@ -74,6 +76,7 @@ import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.SearcherFactory;
 import org.apache.lucene.search.SearcherLifetimeManager;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.NRTCachingDirectory;
 import org.apache.lucene.util.IOUtils;
@@ -124,6 +127,9 @@ public class ShardState implements Closeable {
    */
   public IndexWriter taxoInternalWriter;
 
+  /** Cache of complete search responses, null if not enabled. */
+  private volatile SearchResponseCache searchResponseCache;
+
   /** Maps snapshot gen -&gt; version. */
   public final Map<Long, Long> snapshotGenToVersion = new ConcurrentHashMap<>();
 
@@ -341,6 +347,10 @@ public class ShardState implements Closeable {
       writer = null;
     }
     slm = new SearcherLifetimeManager();
+    if (searchResponseCache != null) {
+      searchResponseCache.invalidateAll();
+      searchResponseCache = null;
+    }
 
     IOUtils.close(closeables);
   }
@@ -513,7 +523,8 @@ public class ShardState implements Closeable {
               new MyIndexSearcher.SlicingParams(
                   indexState.getSliceMaxDocs(),
                   indexState.getSliceMaxSegments(),
-                  indexState.getVirtualShards()));
+                  indexState.getVirtualShards(),
+                  indexState.getSlicePartitionMaxDocs()));
       searcher.setSimilarity(indexState.searchSimilarity);
       if (loadEagerOrdinals) {
         loadEagerGlobalOrdinals(reader, indexState);
@@ -661,6 +672,8 @@ public class ShardState implements Closeable {
       restartReopenThread();
 
       startSearcherPruningThread(indexState.getGlobalState().getShutdownLatch());
+      initSearchResponseCache(indexState.getGlobalState().getConfiguration());
+      initSegmentTimeRanges(writer.getConfig().getMergePolicy());
       started = true;
     } finally {
       if (!started) {
@@ -797,7 +810,8 @@ public class ShardState implements Closeable {
                           new MyIndexSearcher.SlicingParams(
                               indexState.getSliceMaxDocs(),
                               indexState.getSliceMaxSegments(),
-                              indexState.getVirtualShards()));
+                              indexState.getVirtualShards(),
+                              indexState.getSlicePartitionMaxDocs()));
                   searcher.setSimilarity(indexState.searchSimilarity);
                   return searcher;
                 }
@@ -805,6 +819,8 @@ public class ShardState implements Closeable {
       restartReopenThread();
 
       startSearcherPruningThread(indexState.getGlobalState().getShutdownLatch());
+      initSearchResponseCache(indexState.getGlobalState().getConfiguration());
+      initSegmentTimeRanges(writer.getConfig().getMergePolicy());
       started = true;
     } finally {
       if (!started) {
@@ -927,12 +943,18 @@ public class ShardState implements Closeable {
       if (!Files.exists(indexDirFile)) {
         Files.createDirectories(indexDirFile);
       }
-      nrtDataManager.restoreIfNeeded(indexDirFile);
-      origIndexDir =
-          indexState.getDirectoryFactory().open(indexDirFile, configuration.getPreloadConfig());
+      if (configuration.getLazyReplicaRestore()) {
+        Directory directory =
+            indexState.getDirectoryFactory().open(indexDirFile, configuration.getPreloadConfig());
+        origIndexDir = nrtDataManager.restoreLazilyIfNeeded(indexDirFile, directory);
+      } else {
+        nrtDataManager.restoreIfNeeded(indexDirFile);
+        origIndexDir =
+            indexState.getDirectoryFactory().open(indexDirFile, configuration.getPreloadConfig());
+      }
       // nocommit don't allow RAMDir
       // nocommit remove NRTCachingDir too?
-      if (!(origIndexDir instanceof MMapDirectory)) {
+      if (!(FilterDirectory.unwrap(origIndexDir) instanceof MMapDirectory)) {
         double maxMergeSizeMB = indexState.getNrtCachingDirectoryMaxMergeSizeMB();
         double maxSizeMB = indexState.getNrtCachingDirectoryMaxSizeMB();
         if (maxMergeSizeMB > 0 && maxSizeMB > 0) {
@@ -1008,11 +1030,16 @@ public class ShardState implements Closeable {
       WarmerConfig warmerConfig = configuration.getWarmerConfig();
       if (warmerConfig.isWarmOnStartup() && indexState.getWarmer() != null) {
         try {
-          indexState.getWarmer().warmFromS3(indexState, warmerConfig.getWarmingParallelism());
+          if (warmerConfig.isWarmUntilConverged()) {
+            indexState.getWarmer().warmUntilConverged(indexState, warmerConfig);
+          } else {
+            indexState.getWarmer().warmFromS3(indexState, warmerConfig.getWarmingParallelism());
+          }
         } catch (SearchHandlerException | InterruptedException e) {
           throw new RuntimeException(e);
         }
       }
+      initSearchResponseCache(configuration);
       started = true;
     } finally {
       if (!started) {
@@ -1031,6 +1058,80 @@ public class ShardState implements Closeable {
     }
   }
 
+  /**
+   * Get the cache of complete search responses for this shard.
+   *
+   * @return response cache, or null if not enabled
+   */
+  public SearchResponseCache getSearchResponseCache() {
+    return searchResponseCache;
+  }
+
+  /**
+   * Create the search response cache if enabled in the server configuration. Cached responses are
+   * keyed on the reader version and index state, so entries from older readers or states are dropped
+   * after each refresh to free memory as soon as they can no longer be used by new searches.
+   */
+  private void initSearchResponseCache(NrtsearchConfig configuration) {
+    SearchResponseCacheConfig cacheConfig = configuration.getSearchResponseCacheConfig();
+    if (!cacheConfig.getEnabled()) {
+      return;
+    }
+    SearchResponseCache responseCache = new SearchResponseCache(cacheConfig.getMaxMemoryBytes());
+    addRefreshListener(
+        new ReferenceManager.RefreshListener() {
+          @Override
+          public void beforeRefresh() {}
+
+          @Override
+          public void afterRefresh(boolean didRefresh) throws IOException {
+            if (didRefresh) {
+              SearcherTaxonomyManager.SearcherAndTaxonomy current = acquire();
+              try {
+                responseCache.invalidateStale(
+                    ((DirectoryReader) current.searcher().getIndexReader()).getVersion(),
+                    indexStateManager.getCurrent());
+              } finally {
+                release(current);
+              }
+            }
+          }
+        });
+    searchResponseCache = responseCache;
+  }
+
+  /**
+   * If the index is merged with a {@link TimeBucketedMergePolicy}, update the segment time ranges
+   * used by the policy after each refresh, so that newly flushed segments become eligible for
+   * merging.
+   */
+  private void initSegmentTimeRanges(MergePolicy mergePolicy) throws IOException {
+    if (!(mergePolicy instanceof TimeBucketedMergePolicy timeBucketedMergePolicy)) {
+      return;
+    }
+    SegmentTimeRanges segmentTimeRanges = timeBucketedMergePolicy.getSegmentTimeRanges();
+    ReferenceManager.RefreshListener listener =
+        new ReferenceManager.RefreshListener() {
+          @Override
+          public void beforeRefresh() {}
+
+          @Override
+          public void afterRefresh(boolean didRefresh) throws IOException {
+            if (didRefresh) {
+              SearcherTaxonomyManager.SearcherAndTaxonomy current = acquire();
+              try {
+                segmentTimeRanges.update(current.searcher().getIndexReader());
+              } finally {
+                release(current);
+              }
+            }
+          }
+        };
+    addRefreshListener(listener);
+    // load the ranges of the existing segments
+    listener.afterRefresh(true);
+  }
+
   public void addRefreshListener(ReferenceManager.RefreshListener listener) {
     if (nrtPrimaryNode != null) {
       nrtPrimaryNode.getSearcherManager().addListener(listener);
@@ -42,6 +42,7 @@ public class StartIndexProcessor {
   private final IndexStateManager indexStateManager;
   private final boolean remoteCommit;
   private final int discoveryFileUpdateIntervalMs;
+  private final int remoteCommitUploadThreads;
   private static final Logger logger = LoggerFactory.getLogger(StartIndexProcessor.class);
 
   /**
@@ -53,6 +54,7 @@ public class StartIndexProcessor {
    * @param indexStateManager index state manager
    * @param remoteCommit whether to commit to remote state
    * @param discoveryFileUpdateIntervalMs interval to update backends from discovery file
+   * @param remoteCommitUploadThreads threads for pipelined index file uploads, or 0 to disable
    */
   public StartIndexProcessor(
       String serviceName,
@@ -60,13 +62,15 @@ public class StartIndexProcessor {
       RemoteBackend remoteBackend,
       IndexStateManager indexStateManager,
       boolean remoteCommit,
-      int discoveryFileUpdateIntervalMs) {
+      int discoveryFileUpdateIntervalMs,
+      int remoteCommitUploadThreads) {
     this.serviceName = serviceName;
     this.ephemeralId = ephemeralId;
     this.remoteBackend = remoteBackend;
     this.indexStateManager = indexStateManager;
     this.remoteCommit = remoteCommit;
     this.discoveryFileUpdateIntervalMs = discoveryFileUpdateIntervalMs;
+    this.remoteCommitUploadThreads = remoteCommitUploadThreads;
   }
 
   public StartIndexResponse process(IndexState indexState, StartIndexRequest startIndexRequest)
@@ -111,7 +115,8 @@ public class StartIndexProcessor {
             ephemeralId,
             remoteBackend,
             restoreIndex,
-            remoteCommit);
+            remoteCommit,
+            mode.equals(Mode.PRIMARY) ? remoteCommitUploadThreads : 0);
     if (mode.equals(Mode.PRIMARY)) {
       primaryGen = startIndexRequest.getPrimaryGen();
       primaryClient = null;
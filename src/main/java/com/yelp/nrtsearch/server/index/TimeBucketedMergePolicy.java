@@ -0,0 +1,162 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.index;
+
+import com.yelp.nrtsearch.server.index.BucketedTieredMergePolicy.BucketMergeFunc;
+import com.yelp.nrtsearch.server.index.SegmentTimeRanges.TimeRange;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.MergeTrigger;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.TieredMergePolicy;
+
+/**
+ * Merge policy that partitions the index segments into time buckets, based on the values of a
+ * DATE_TIME field. Each segment belongs to the bucket containing its min time. Merges are found for
+ * each bucket independently as if it were its own index, managed by a {@link TieredMergePolicy}.
+ *
+ * <p>Since segments are not merged across buckets, the time range of each segment stays small. A
+ * query on a recent time window can then skip the older segments, as the point values of the field
+ * show that no document in the segment can match.
+ *
+ * <p>The segment time ranges are provided by {@link SegmentTimeRanges}. Segments that have not yet
+ * been seen in a refreshed reader have an unknown time range, and are left out of natural merges
+ * until the range is known. Segments with no values for the field are kept in their own bucket.
+ *
+ * <p>Forced merges are also done per bucket, with the max segment count applied to each bucket. A
+ * force merge to a single segment leaves one segment for each time bucket, not one for the index.
+ */
+public class TimeBucketedMergePolicy extends TieredMergePolicy {
+  // bucket keys for segments that do not have a time bucket
+  private static final long NO_VALUES_BUCKET = Long.MIN_VALUE;
+  private static final long UNKNOWN_BUCKET = Long.MAX_VALUE;
+
+  private final SegmentTimeRanges segmentTimeRanges;
+  private final long bucketSizeMillis;
+
+  /**
+   * Constructor.
+   *
+   * @param segmentTimeRanges time ranges of the index segments
+   * @param bucketSizeMillis size of the time range covered by each bucket
+   */
+  public TimeBucketedMergePolicy(SegmentTimeRanges segmentTimeRanges, long bucketSizeMillis) {
+    if (bucketSizeMillis <= 0) {
+      throw new IllegalArgumentException("bucketSizeMillis must be > 0");
+    }
+    this.segmentTimeRanges = segmentTimeRanges;
+    this.bucketSizeMillis = bucketSizeMillis;
+  }
+
+  /** Get the time ranges of the index segments. */
+  public SegmentTimeRanges getSegmentTimeRanges() {
+    return segmentTimeRanges;
+  }
+
+  /** Get the size of the time range covered by each bucket. */
+  public long getBucketSizeMillis() {
+    return bucketSizeMillis;
+  }
+
+  @Override
+  public MergeSpecification findMerges(
+      MergeTrigger mergeTrigger, SegmentInfos segmentInfos, MergeContext mergeContext)
+      throws IOException {
+    return findForBuckets(
+        segmentInfos, false, infos -> super.findMerges(mergeTrigger, infos, mergeContext));
+  }
+
+  /**
+   * Find forced merges for each time bucket. The max segment count applies to each bucket, so the
+   * index may be left with more segments than requested.
+   */
+  @Override
+  public MergeSpecification findForcedMerges(
+      SegmentInfos segmentInfos,
+      int maxSegmentCount,
+      Map<SegmentCommitInfo, Boolean> segmentsToMerge,
+      MergeContext mergeContext)
+      throws IOException {
+    return findForBuckets(
+        segmentInfos,
+        true,
+        infos -> super.findForcedMerges(infos, maxSegmentCount, segmentsToMerge, mergeContext));
+  }
+
+  @Override
+  public MergeSpecification findForcedDeletesMerges(
+      SegmentInfos segmentInfos, MergeContext mergeContext) throws IOException {
+    return findForBuckets(
+        segmentInfos, true, infos -> super.findForcedDeletesMerges(infos, mergeContext));
+  }
+
+  /**
+   * Get the time bucket of a segment.
+   *
+   * @param info segment info
+   * @return bucket key, or null if the segment time range is unknown
+   */
+  Long getBucket(SegmentCommitInfo info) {
+    TimeRange timeRange = segmentTimeRanges.getTimeRange(info);
+    if (timeRange == null) {
+      return null;
+    }
+    if (timeRange.isEmpty()) {
+      return NO_VALUES_BUCKET;
+    }
+    return Math.floorDiv(timeRange.min(), bucketSizeMillis);
+  }
+
+  MergePolicy.MergeSpecification findForBuckets(
+      SegmentInfos segmentInfos,
+      boolean includeUnknown,
+      BucketMergeFunc<SegmentInfos, MergeSpecification> bucketFunc)
+      throws IOException {
+    Map<Long, SegmentInfos> buckets = new TreeMap<>();
+    for (SegmentCommitInfo info : segmentInfos) {
+      Long bucket = getBucket(info);
+      if (bucket == null) {
+        if (!includeUnknown) {
+          continue;
+        }
+        bucket = UNKNOWN_BUCKET;
+      }
+      buckets
+          .computeIfAbsent(
+              bucket, k -> new SegmentInfos(segmentInfos.getIndexCreatedVersionMajor()))
+          .add(info);
+    }
+
+    // find merges for each bucket and aggregate them
+    MergeSpecification aggregateMerges = new MergeSpecification();
+    for (SegmentInfos bucketInfos : buckets.values()) {
+      MergeSpecification bucketMerges = bucketFunc.apply(bucketInfos);
+      if (bucketMerges != null) {
+        for (OneMerge merge : bucketMerges.merges) {
+          aggregateMerges.add(merge);
+        }
+      }
+    }
+    if (!aggregateMerges.merges.isEmpty()) {
+      return aggregateMerges;
+    } else {
+      return null;
+    }
+  }
+}
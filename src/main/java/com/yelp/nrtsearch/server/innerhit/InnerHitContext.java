@@ -66,6 +66,7 @@ public class InnerHitContext implements FieldFetchContext {
   private final FetchTasks fetchTasks;
   private SearchContext searchContext = null;
   private final boolean explain;
+  private final boolean batchFetch;
 
   private InnerHitContext(InnerHitContextBuilder builder, boolean needValidation)
       throws IOException {
@@ -86,6 +87,7 @@ public class InnerHitContext implements FieldFetchContext {
     this.queryFields = builder.queryFields;
     this.retrieveFields = builder.retrieveFields;
     this.explain = builder.explain;
+    this.batchFetch = builder.batchFetch;
     this.fetchTasks = new FetchTasks(List.of(), builder.highlightFetchTask, null, null);
 
     if (builder.querySort == null) {
@@ -213,6 +215,14 @@ public class InnerHitContext implements FieldFetchContext {
     return explain;
   }
 
+  /**
+   * Get if the inner hits for all parent hits should be searched and fetched together, instead of
+   * separately for each parent hit.
+   */
+  public boolean isBatchFetch() {
+    return batchFetch;
+  }
+
   /**
    * Get map of all fields usable for this query. This includes all fields defined in the index and
    * dynamic fields from the request. This is read from the top level search.
@@ -259,6 +269,7 @@ public class InnerHitContext implements FieldFetchContext {
     private QuerySortField querySort;
     private boolean explain;
     private LastHitInfo searchAfter;
+    private boolean batchFetch;
 
     private InnerHitContextBuilder() {}
 
@@ -348,5 +359,10 @@ public class InnerHitContext implements FieldFetchContext {
       this.searchAfter = searchAfter;
       return this;
     }
+
+    public InnerHitContextBuilder withBatchFetch(boolean batchFetch) {
+      this.batchFetch = batchFetch;
+      return this;
+    }
   }
 }
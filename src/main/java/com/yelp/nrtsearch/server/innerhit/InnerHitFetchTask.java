@@ -32,6 +32,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.atomic.DoubleAdder;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.ConjunctionUtils;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -48,10 +49,16 @@ import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.join.BitSetProducer;
 import org.apache.lucene.search.join.ParentChildrenBlockJoinQuery;
 import org.apache.lucene.search.join.QueryBitSetProducer;
+import org.apache.lucene.util.BitSet;
 
 /**
  * InnerHit fetch task does a mini-scale search per hit against all child documents for this hit.
  * Parallelism is at the fetchTask level.
+ *
+ * <p>If batch fetch is enabled in the {@link InnerHitContext}, the inner hits are instead processed
+ * for all parent hits together in {@link #processAllHits(SearchContext, List)}. The children of all
+ * parent hits in a segment are collected in a single pass of the inner hit query, and the child
+ * fields are fetched together in doc id order.
  */
 public class InnerHitFetchTask implements FetchTask {
   private static final double NS_PER_MS = Math.pow(10, 6);
@@ -64,6 +71,7 @@ public class InnerHitFetchTask implements FetchTask {
   private final IndexSearcher searcher;
   private final BitSetProducer parentFilter;
   private final Weight innerHitWeight;
+  private final Weight childFilterWeight;
 
   private final DoubleAdder getFieldsTimeMs = new DoubleAdder();
   private final DoubleAdder firstPassSearchTimeMs = new DoubleAdder();
@@ -83,6 +91,14 @@ public class InnerHitFetchTask implements FetchTask {
                 searcher, needScore ? ScoreMode.TOP_SCORES : ScoreMode.COMPLETE_NO_SCORES, 1f);
     this.parentFilter =
         new QueryBitSetProducer(searcher.rewrite(innerHitContext.getParentFilterQuery()));
+    // Only the batched mode uses a shared child filter, per hit mode selects the children with
+    // a ParentChildrenBlockJoinQuery
+    this.childFilterWeight =
+        innerHitContext.isBatchFetch()
+            ? searcher
+                .rewrite(innerHitContext.getChildFilterQuery())
+                .createWeight(searcher, ScoreMode.COMPLETE_NO_SCORES, 1f)
+            : null;
   }
 
   /**
@@ -112,15 +128,158 @@ public class InnerHitFetchTask implements FetchTask {
 
     intersectWeights(filterWeight, innerHitWeight, topDocsCollector, hitLeaf);
     TopDocs topDocs = topDocsCollector.topDocs();
+    firstPassSearchTimeMs.add(((System.nanoTime() - startTime) / NS_PER_MS));
+
+    startTime = System.nanoTime();
+    HitsResult.Builder innerHitResultBuilder = getHitsResultBuilder(topDocs);
+
+    // sort hits by lucene doc id
+    List<Hit.Builder> hitBuilders = new ArrayList<>(innerHitResultBuilder.getHitsBuilderList());
+    hitBuilders.sort(Comparator.comparingInt(Hit.Builder::getLuceneDocId));
+    new SearchHandler.FillDocsTask(innerHitContext, hitBuilders).run();
+
+    hit.putInnerHits(innerHitContext.getInnerHitName(), innerHitResultBuilder.build());
+
+    getFieldsTimeMs.add(((System.nanoTime() - startTime) / NS_PER_MS));
+  }
+
+  /**
+   * Collect the inner hits for all parent hits together. Parent hits are grouped by segment, and
+   * processed in doc id order. Since the children of each parent are the block of documents
+   * directly before it, the child ranges of the parents are also in doc id order. This allows a
+   * single scorer from the shared innerHit weight to be advanced through the child ranges of all
+   * parents in the segment. The fields of all inner hits are then fetched together.
+   *
+   * <p>This is only used when batch fetch is enabled in the {@link InnerHitContext}.
+   */
+  @Override
+  public void processAllHits(SearchContext searchContext, List<SearchResponse.Hit.Builder> hits)
+      throws IOException {
+    if (hits.isEmpty()) {
+      return;
+    }
+    long startTime = System.nanoTime();
+
+    List<Hit.Builder> sortedHits = new ArrayList<>(hits);
+    sortedHits.sort(Comparator.comparingInt(Hit.Builder::getLuceneDocId));
+    List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+    List<TopDocs> topDocsList = new ArrayList<>(sortedHits.size());
+    int hitIndex = 0;
+    while (hitIndex < sortedHits.size()) {
+      LeafReaderContext leaf =
+          leaves.get(ReaderUtil.subIndex(sortedHits.get(hitIndex).getLuceneDocId(), leaves));
+      int endDoc = leaf.docBase + leaf.reader().maxDoc();
+      int endIndex = hitIndex + 1;
+      while (endIndex < sortedHits.size() && sortedHits.get(endIndex).getLuceneDocId() < endDoc) {
+        endIndex++;
+      }
+      collectLeaf(leaf, sortedHits.subList(hitIndex, endIndex), topDocsList);
+      hitIndex = endIndex;
+    }
+    firstPassSearchTimeMs.add(((System.nanoTime() - startTime) / NS_PER_MS));
+
+    startTime = System.nanoTime();
+    List<HitsResult.Builder> innerHitResultBuilders = new ArrayList<>(sortedHits.size());
+    List<Hit.Builder> innerHitBuilders = new ArrayList<>();
+    for (TopDocs topDocs : topDocsList) {
+      HitsResult.Builder innerHitResultBuilder = getHitsResultBuilder(topDocs);
+      innerHitResultBuilders.add(innerHitResultBuilder);
+      innerHitBuilders.addAll(innerHitResultBuilder.getHitsBuilderList());
+    }
+
+    // fetch the inner hits of all parents in lucene doc id order
+    innerHitBuilders.sort(Comparator.comparingInt(Hit.Builder::getLuceneDocId));
+    new SearchHandler.FillDocsTask(innerHitContext, innerHitBuilders).run();
 
+    for (int i = 0; i < sortedHits.size(); ++i) {
+      sortedHits
+          .get(i)
+          .putInnerHits(innerHitContext.getInnerHitName(), innerHitResultBuilders.get(i).build());
+    }
+    getFieldsTimeMs.add(((System.nanoTime() - startTime) / NS_PER_MS));
+  }
+
+  /**
+   * Collect the inner hits for the parent hits in a segment, adding the {@link TopDocs} for each
+   * parent to the output list.
+   *
+   * @param leaf segment containing the parent hits
+   * @param leafHits parent hits in the segment, in doc id order
+   * @param topDocsList output list of top docs
+   * @throws IOException on error reading index data
+   */
+  private void collectLeaf(
+      LeafReaderContext leaf, List<Hit.Builder> leafHits, List<TopDocs> topDocsList)
+      throws IOException {
+    BitSet parents = parentFilter.getBitSet(leaf);
+    DocIdSetIterator iterator = null;
+    Scorer innerHitScorer = null;
+    if (parents != null) {
+      ScorerSupplier childFilterScorerSupplier = childFilterWeight.scorerSupplier(leaf);
+      ScorerSupplier innerHitScorerSupplier = innerHitWeight.scorerSupplier(leaf);
+      if (childFilterScorerSupplier != null && innerHitScorerSupplier != null) {
+        innerHitScorer = innerHitScorerSupplier.get(Long.MAX_VALUE);
+        iterator =
+            ConjunctionUtils.intersectIterators(
+                Arrays.asList(
+                    childFilterScorerSupplier.get(Long.MAX_VALUE).iterator(),
+                    innerHitScorer.iterator()));
+      }
+    }
+
+    for (Hit.Builder hit : leafHits) {
+      TopDocsCollector<?> topDocsCollector =
+          innerHitContext.getTopDocsCollectorManager().newCollector();
+      int parentDoc = hit.getLuceneDocId() - leaf.docBase;
+      // Same child range as the ParentChildrenBlockJoinQuery, the children are the documents
+      // after the previous parent
+      if (iterator != null && parentDoc > 0) {
+        int firstChildDoc = parents.prevSetBit(parentDoc - 1) + 1;
+        int docId = iterator.docID();
+        if (docId < firstChildDoc) {
+          docId = iterator.advance(firstChildDoc);
+        }
+        if (docId < parentDoc) {
+          collectRange(topDocsCollector, leaf, innerHitScorer, iterator, parentDoc);
+        }
+      }
+      topDocsList.add(topDocsCollector.topDocs());
+    }
+  }
+
+  private void collectRange(
+      TopDocsCollector<?> topDocsCollector,
+      LeafReaderContext leaf,
+      Scorer innerHitScorer,
+      DocIdSetIterator iterator,
+      int endDoc)
+      throws IOException {
+    LeafCollector leafCollector = topDocsCollector.getLeafCollector(leaf);
+    try {
+      leafCollector.setScorer(innerHitScorer);
+    } catch (CollectionTerminatedException exception) {
+      // Same as the indexSearcher, innerHit shall swallow this exception. No doc to collect in this
+      // case.
+      return;
+    }
+
+    int docId = iterator.docID();
+    while (docId < endDoc) {
+      leafCollector.collect(docId);
+      docId = iterator.nextDoc();
+    }
+  }
+
+  /**
+   * Create the inner hits result for a parent hit from its collected top docs. The inner hits only
+   * have their lucene doc id and score or sort values set.
+   */
+  private HitsResult.Builder getHitsResultBuilder(TopDocs topDocs) {
     if (innerHitContext.getStartHit() > 0) {
       topDocs =
           SearchHandler.getHitsFromOffset(
               topDocs, innerHitContext.getStartHit(), innerHitContext.getTopHits());
     }
-    firstPassSearchTimeMs.add(((System.nanoTime() - startTime) / NS_PER_MS));
-
-    startTime = System.nanoTime();
     HitsResult.Builder innerHitResultBuilder = HitsResult.newBuilder();
     TotalHits totalInnerHits =
         TotalHits.newBuilder()
@@ -143,15 +302,7 @@ public class InnerHitFetchTask implements FetchTask {
         innerHitResponse.setScore(innerHit.score);
       }
     }
-
-    // sort hits by lucene doc id
-    List<Hit.Builder> hitBuilders = new ArrayList<>(innerHitResultBuilder.getHitsBuilderList());
-    hitBuilders.sort(Comparator.comparingInt(Hit.Builder::getLuceneDocId));
-    new SearchHandler.FillDocsTask(innerHitContext, hitBuilders).run();
-
-    hit.putInnerHits(innerHitContext.getInnerHitName(), innerHitResultBuilder.build());
-
-    getFieldsTimeMs.add(((System.nanoTime() - startTime) / NS_PER_MS));
+    return innerHitResultBuilder;
   }
 
   private void intersectWeights(
@@ -192,6 +343,15 @@ public class InnerHitFetchTask implements FetchTask {
     }
   }
 
+  /**
+   * Each parent hit is searched with its own collector, and only the reusable innerHit weight is
+   * shared, so hits may be processed in parallel.
+   */
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
   public SearchResponse.Diagnostics getDiagnostic() {
     Builder builder =
         Diagnostics.newBuilder()
@@ -19,6 +19,7 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.google.inject.*;
 import com.yelp.nrtsearch.server.config.NrtsearchConfig;
 import com.yelp.nrtsearch.server.remote.RemoteBackend;
+import com.yelp.nrtsearch.server.remote.local.LocalBackend;
 import com.yelp.nrtsearch.server.remote.s3.S3Backend;
 
 public class BackendModule extends AbstractModule {
@@ -27,6 +28,9 @@ public class BackendModule extends AbstractModule {
   @Singleton
   @Provides
   protected RemoteBackend providesRemoteBackend(NrtsearchConfig configuration, AmazonS3 s3) {
+    if (configuration.getLocalBackendConfig().isEnabled()) {
+      return new LocalBackend(configuration);
+    }
     return new S3Backend(configuration, s3);
   }
 }
@@ -54,6 +54,41 @@ public class BootstrapMetrics {
           .unit(Unit.SECONDS)
           .build();
 
+  public static final Gauge dataRestoreTotalBytes =
+      Gauge.builder()
+          .name("data_restore_total_bytes")
+          .help("total size of the index files to restore from the remote source.")
+          .constLabels(Labels.of("nrtsearch_version", Version.CURRENT.toString()))
+          .labelNames("index", "unique_index_name")
+          .unit(Unit.BYTES)
+          .build();
+
+  public static final Gauge dataRestoreProgressBytes =
+      Gauge.builder()
+          .name("data_restore_progress_bytes")
+          .help("size of the index file data restored so far from the remote source.")
+          .constLabels(Labels.of("nrtsearch_version", Version.CURRENT.toString()))
+          .labelNames("index", "unique_index_name")
+          .unit(Unit.BYTES)
+          .build();
+
+  public static final Gauge dataRestorePendingBytes =
+      Gauge.builder()
+          .name("data_restore_pending_bytes")
+          .help("size of the lazily restored index files that are not yet local.")
+          .constLabels(Labels.of("nrtsearch_version", Version.CURRENT.toString()))
+          .labelNames("index", "unique_index_name")
+          .unit(Unit.BYTES)
+          .build();
+
+  public static final Gauge dataRestoreThroughput =
+      Gauge.builder()
+          .name("data_restore_throughput_bytes_per_second")
+          .help("average throughput of restoring index files from the remote source.")
+          .constLabels(Labels.of("nrtsearch_version", Version.CURRENT.toString()))
+          .labelNames("index", "unique_index_name")
+          .build();
+
   public static final Gauge initialNRTTimer =
       Gauge.builder()
           .name("initial_nrt_time_seconds")
@@ -72,6 +107,40 @@ public class BootstrapMetrics {
           .unit(Unit.SECONDS)
           .build();
 
+  public static final Gauge warmingPhaseTimer =
+      Gauge.builder()
+          .name("warming_phase_time_seconds")
+          .help("timer to record the boostrap time spent on each phase of warming.")
+          .constLabels(Labels.of("nrtsearch_version", Version.CURRENT.toString()))
+          .labelNames("service", "index", "phase")
+          .unit(Unit.SECONDS)
+          .build();
+
+  public static final Gauge warmingPasses =
+      Gauge.builder()
+          .name("warming_passes")
+          .help("number of passes over the warming queries before latency converged.")
+          .constLabels(Labels.of("nrtsearch_version", Version.CURRENT.toString()))
+          .labelNames("service", "index")
+          .build();
+
+  public static final Gauge warmingLatencyP95 =
+      Gauge.builder()
+          .name("warming_latency_p95_seconds")
+          .help("p95 latency of the warming queries in the last warming pass.")
+          .constLabels(Labels.of("nrtsearch_version", Version.CURRENT.toString()))
+          .labelNames("service", "index")
+          .unit(Unit.SECONDS)
+          .build();
+
+  public static final Gauge warmingTouchedFields =
+      Gauge.builder()
+          .name("warming_touched_fields")
+          .help("number of index fields referenced by the warming queries.")
+          .constLabels(Labels.of("nrtsearch_version", Version.CURRENT.toString()))
+          .labelNames("service", "index")
+          .build();
+
   /**
    * Add all bootstrap metrics to the collector registry.
    *
@@ -81,7 +150,15 @@ public class BootstrapMetrics {
     registry.register(nrtsearchBootstrapTimer);
     registry.register(pluginInitializationTimer);
     registry.register(dataRestoreTimer);
+    registry.register(dataRestoreTotalBytes);
+    registry.register(dataRestoreProgressBytes);
+    registry.register(dataRestorePendingBytes);
+    registry.register(dataRestoreThroughput);
     registry.register(initialNRTTimer);
     registry.register(warmingQueryTimer);
+    registry.register(warmingPhaseTimer);
+    registry.register(warmingPasses);
+    registry.register(warmingLatencyP95);
+    registry.register(warmingTouchedFields);
   }
 }
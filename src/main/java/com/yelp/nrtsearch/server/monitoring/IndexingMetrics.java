@@ -26,6 +26,9 @@ public class IndexingMetrics {
   public static final String ADD_DOCUMENT_REQUESTS_RECEIVED = "nrt_add_document_requests_received";
   public static final String UPDATE_DOC_VALUES_LATENCY = "nrt_update_doc_values_latency_ms";
   public static final String ADD_DOCUMENT_LATENCY = "nrt_add_document_latency_ms";
+  public static final String INDEXING_ALLOCATED_BYTES = "nrt_indexing_allocated_bytes";
+  public static final String DOCUMENT_FIELDS_REUSED = "nrt_document_fields_reused";
+  public static final String DOCUMENT_FIELDS_ALLOCATED = "nrt_document_fields_allocated";
 
   public static final Counter updateDocValuesRequestsReceived =
       Counter.builder()
@@ -65,10 +68,35 @@ public class IndexingMetrics {
           .quantile(0.99, 0.01)
           .build();
 
+  // bytes allocated while building and indexing documents, to monitor the allocation rate
+  public static final Counter indexingAllocatedBytes =
+      Counter.builder()
+          .name(INDEXING_ALLOCATED_BYTES)
+          .help("Bytes allocated by threads building and indexing documents")
+          .labelNames("index")
+          .build();
+
+  public static final Counter documentFieldsReused =
+      Counter.builder()
+          .name(DOCUMENT_FIELDS_REUSED)
+          .help("Number of document fields reused from the per thread field pool")
+          .labelNames("index")
+          .build();
+
+  public static final Counter documentFieldsAllocated =
+      Counter.builder()
+          .name(DOCUMENT_FIELDS_ALLOCATED)
+          .help("Number of document fields allocated by the per thread field pool")
+          .labelNames("index")
+          .build();
+
   public static void register(PrometheusRegistry registry) {
     registry.register(updateDocValuesRequestsReceived);
     registry.register(addDocumentRequestsReceived);
     registry.register(updateDocValuesLatency);
     registry.register(addDocumentLatency);
+    registry.register(indexingAllocatedBytes);
+    registry.register(documentFieldsReused);
+    registry.register(documentFieldsAllocated);
   }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.monitoring;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.yelp.nrtsearch.server.config.IndexPreloadConfig;
+import com.yelp.nrtsearch.server.index.MemoryResidencyManager;
+import com.yelp.nrtsearch.server.index.ResidencyTrackingMMapDirectory;
+import com.yelp.nrtsearch.server.index.ShardState;
+import com.yelp.nrtsearch.server.state.GlobalState;
+import io.prometheus.metrics.core.metrics.Gauge;
+import io.prometheus.metrics.model.registry.MultiCollector;
+import io.prometheus.metrics.model.snapshots.MetricSnapshot;
+import io.prometheus.metrics.model.snapshots.MetricSnapshots;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.store.FilterDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collector to produce metrics for the memory residency of index files, for indices opened with a
+ * {@link ResidencyTrackingMMapDirectory}.
+ */
+public class MemoryResidencyCollector implements MultiCollector {
+  private static final Logger logger = LoggerFactory.getLogger(MemoryResidencyCollector.class);
+
+  @VisibleForTesting
+  static final Gauge indexMappedBytes =
+      Gauge.builder()
+          .name("nrt_index_mapped_bytes")
+          .help("Size of index files mapped into memory, by file extension.")
+          .labelNames("index", "extension")
+          .build();
+
+  @VisibleForTesting
+  static final Gauge indexPreloadedBytes =
+      Gauge.builder()
+          .name("nrt_index_preloaded_bytes")
+          .help("Size of index files preloaded into memory, by file extension.")
+          .labelNames("index", "extension")
+          .build();
+
+  @VisibleForTesting
+  static final Gauge indexPreloadBudgetBytes =
+      Gauge.builder()
+          .name("nrt_index_preload_budget_bytes")
+          .help("Max size of index files to preload into memory, -1 if unlimited.")
+          .labelNames("index")
+          .build();
+
+  @VisibleForTesting
+  static final Gauge indexPreloadSkippedFiles =
+      Gauge.builder()
+          .name("nrt_index_preload_skipped_files")
+          .help("Number of index files not preloaded because they did not fit in the budget.")
+          .labelNames("index")
+          .build();
+
+  private final GlobalState globalState;
+
+  public MemoryResidencyCollector(GlobalState globalState) {
+    this.globalState = globalState;
+  }
+
+  @Override
+  public MetricSnapshots collect() {
+    List<MetricSnapshot> metrics = new ArrayList<>();
+    try {
+      // clear values for files and indices that no longer exist
+      indexMappedBytes.clear();
+      indexPreloadedBytes.clear();
+      boolean hasManagedIndex = false;
+      for (String indexName : globalState.getIndexNames()) {
+        ShardState shardState = globalState.getIndexOrThrow(indexName).getShard(0);
+        if (shardState != null
+            && FilterDirectory.unwrap(shardState.origIndexDir)
+                instanceof ResidencyTrackingMMapDirectory directory) {
+          hasManagedIndex = true;
+          setIndexMetrics(indexName, directory.getResidencyManager());
+        }
+      }
+      if (hasManagedIndex) {
+        metrics.add(indexMappedBytes.collect());
+        metrics.add(indexPreloadedBytes.collect());
+        metrics.add(indexPreloadBudgetBytes.collect());
+        metrics.add(indexPreloadSkippedFiles.collect());
+      }
+    } catch (Exception e) {
+      logger.warn("Error getting memory residency metrics: ", e);
+    }
+    return new MetricSnapshots(metrics);
+  }
+
+  private static void setIndexMetrics(String indexName, MemoryResidencyManager residencyManager)
+      throws IOException {
+    for (Map.Entry<String, Long> entry : residencyManager.getMappedBytesByExtension().entrySet()) {
+      indexMappedBytes.labelValues(indexName, entry.getKey()).set(entry.getValue());
+    }
+    for (Map.Entry<String, Long> entry :
+        residencyManager.getPreloadedBytesByExtension().entrySet()) {
+      indexPreloadedBytes.labelValues(indexName, entry.getKey()).set(entry.getValue());
+    }
+    IndexPreloadConfig preloadConfig = residencyManager.getPreloadConfig();
+    indexPreloadBudgetBytes.labelValues(indexName).set(preloadConfig.getBudgetBytes());
+    indexPreloadSkippedFiles.labelValues(indexName).set(residencyManager.getBudgetSkippedFiles());
+  }
+}
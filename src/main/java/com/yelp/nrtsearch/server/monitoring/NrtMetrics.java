@@ -119,6 +119,34 @@ public class NrtMetrics {
           .labelNames("index")
           .build();
 
+  public static final Counter nrtAckedCopySentBytes =
+      Counter.builder()
+          .name("nrt_acked_copy_sent_bytes")
+          .help("Total acked copy data sent by the primary to each replica.")
+          .labelNames("index", "replica")
+          .build();
+
+  public static final Gauge nrtAckedCopyThroughput =
+      Gauge.builder()
+          .name("nrt_acked_copy_throughput_bytes_per_second")
+          .help("Acked copy throughput from the primary to each replica, measured between acks.")
+          .labelNames("index", "replica")
+          .build();
+
+  public static final Gauge nrtAckedCopyWindowChunks =
+      Gauge.builder()
+          .name("nrt_acked_copy_window_chunks")
+          .help("Max in flight chunks for each replica, when using adaptive flow control.")
+          .labelNames("index", "replica")
+          .build();
+
+  public static final Gauge nrtAckedCopyChunkSize =
+      Gauge.builder()
+          .name("nrt_acked_copy_chunk_size_bytes")
+          .help("Chunk size for each replica, when using adaptive flow control.")
+          .labelNames("index", "replica")
+          .build();
+
   /**
    * Add all nrt metrics to the collector registry.
    *
@@ -137,5 +165,9 @@ public class NrtMetrics {
     registry.register(nrtMergeCopyStartCount);
     registry.register(nrtMergeCopyEndCount);
     registry.register(nrtAckedCopyMB);
+    registry.register(nrtAckedCopySentBytes);
+    registry.register(nrtAckedCopyThroughput);
+    registry.register(nrtAckedCopyWindowChunks);
+    registry.register(nrtAckedCopyChunkSize);
   }
 }
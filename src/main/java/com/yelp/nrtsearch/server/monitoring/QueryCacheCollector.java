@@ -15,7 +15,10 @@
  */
 package com.yelp.nrtsearch.server.monitoring;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.yelp.nrtsearch.server.search.cache.NrtQueryCache;
+import com.yelp.nrtsearch.server.search.cache.SearchResponseCache;
+import com.yelp.nrtsearch.server.state.GlobalState;
 import io.prometheus.metrics.core.metrics.Gauge;
 import io.prometheus.metrics.model.registry.MultiCollector;
 import io.prometheus.metrics.model.snapshots.MetricSnapshot;
@@ -24,9 +27,16 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.QueryCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-/** Class to manage collection of metrics related to the query cache. */
+/**
+ * Class to manage collection of metrics related to the query cache, and the per index search
+ * response cache.
+ */
 public class QueryCacheCollector implements MultiCollector {
+  private static final Logger logger = LoggerFactory.getLogger(QueryCacheCollector.class);
+
   private static final Gauge queryCacheHits =
       Gauge.builder()
           .name("nrt_query_cache_hits")
@@ -73,11 +83,69 @@ public class QueryCacheCollector implements MultiCollector {
           .help("Total number of query cache query evictions.")
           .build();
 
+  @VisibleForTesting
+  static final Gauge searchResponseCacheHits =
+      Gauge.builder()
+          .name("nrt_search_response_cache_hits")
+          .help("Total number of search response cache hits.")
+          .labelNames("index")
+          .build();
+
+  @VisibleForTesting
+  static final Gauge searchResponseCacheMisses =
+      Gauge.builder()
+          .name("nrt_search_response_cache_misses")
+          .help("Total number of search response cache misses.")
+          .labelNames("index")
+          .build();
+
+  @VisibleForTesting
+  static final Gauge searchResponseCacheSize =
+      Gauge.builder()
+          .name("nrt_search_response_cache_size")
+          .help("Total number of entries in search response cache.")
+          .labelNames("index")
+          .build();
+
+  @VisibleForTesting
+  static final Gauge searchResponseCacheSizeBytes =
+      Gauge.builder()
+          .name("nrt_search_response_cache_size_bytes")
+          .help("Total serialized size of entries in search response cache.")
+          .labelNames("index")
+          .build();
+
+  @VisibleForTesting
+  static final Gauge searchResponseCacheEvictionCount =
+      Gauge.builder()
+          .name("nrt_search_response_cache_eviction_count")
+          .help("Total number of search response cache evictions.")
+          .labelNames("index")
+          .build();
+
+  private final GlobalState globalState;
+
+  /**
+   * Constructor.
+   *
+   * @param globalState global state, used to find index search response caches
+   */
+  public QueryCacheCollector(GlobalState globalState) {
+    this.globalState = globalState;
+  }
+
   @Override
   public MetricSnapshots collect() {
+    List<MetricSnapshot> metrics = new ArrayList<>();
+    collectQueryCacheMetrics(metrics);
+    collectSearchResponseCacheMetrics(metrics);
+    return new MetricSnapshots(metrics);
+  }
+
+  private void collectQueryCacheMetrics(List<MetricSnapshot> metrics) {
     QueryCache queryCache = IndexSearcher.getDefaultQueryCache();
     if (!(queryCache instanceof NrtQueryCache nrtQueryCache)) {
-      return new MetricSnapshots();
+      return;
     }
 
     queryCacheHits.set(nrtQueryCache.getHitCount());
@@ -93,7 +161,6 @@ public class QueryCacheCollector implements MultiCollector {
     queryCacheQueryCount.set(cacheQueryCount);
     queryCacheQueryEvictionCount.set(cacheQueryCount - cacheQuerySize);
 
-    List<MetricSnapshot> metrics = new ArrayList<>();
     metrics.add(queryCacheHits.collect());
     metrics.add(queryCacheMisses.collect());
     metrics.add(queryCacheSize.collect());
@@ -103,7 +170,34 @@ public class QueryCacheCollector implements MultiCollector {
     metrics.add(queryCacheQuerySize.collect());
     metrics.add(queryCacheQueryCount.collect());
     metrics.add(queryCacheQueryEvictionCount.collect());
+  }
 
-    return new MetricSnapshots(metrics);
+  private void collectSearchResponseCacheMetrics(List<MetricSnapshot> metrics) {
+    try {
+      boolean hasCache = false;
+      for (String indexName : globalState.getIndexNames()) {
+        SearchResponseCache responseCache =
+            globalState.getIndexOrThrow(indexName).getShard(0).getSearchResponseCache();
+        if (responseCache != null) {
+          hasCache = true;
+          searchResponseCacheHits.labelValues(indexName).set(responseCache.getHitCount());
+          searchResponseCacheMisses.labelValues(indexName).set(responseCache.getMissCount());
+          searchResponseCacheSize.labelValues(indexName).set(responseCache.getCacheSize());
+          searchResponseCacheSizeBytes.labelValues(indexName).set(responseCache.getSizeBytes());
+          searchResponseCacheEvictionCount
+              .labelValues(indexName)
+              .set(responseCache.getEvictionCount());
+        }
+      }
+      if (hasCache) {
+        metrics.add(searchResponseCacheHits.collect());
+        metrics.add(searchResponseCacheMisses.collect());
+        metrics.add(searchResponseCacheSize.collect());
+        metrics.add(searchResponseCacheSizeBytes.collect());
+        metrics.add(searchResponseCacheEvictionCount.collect());
+      }
+    } catch (Exception e) {
+      logger.warn("Error getting search response cache metrics: ", e);
+    }
   }
 }
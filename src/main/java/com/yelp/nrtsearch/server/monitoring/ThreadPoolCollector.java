@@ -15,6 +15,7 @@
  */
 package com.yelp.nrtsearch.server.monitoring;
 
+import com.yelp.nrtsearch.server.concurrent.VirtualThreadExecutor;
 import io.prometheus.metrics.core.metrics.Counter;
 import io.prometheus.metrics.core.metrics.Gauge;
 import io.prometheus.metrics.model.registry.MultiCollector;
@@ -28,9 +29,10 @@ import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 
 /**
- * Collector implementation to gather metrics for {@link ThreadPoolExecutor}. Records thread and
- * queue usage, as well as rejection count. Executors must be added with {@link #addPool(String,
- * ThreadPoolExecutor)}.
+ * Collector implementation to gather metrics for {@link ThreadPoolExecutor} and {@link
+ * VirtualThreadExecutor}. Records thread and queue usage, as well as rejection count. Executors must
+ * be added with {@link #addPool(String, ThreadPoolExecutor)} or {@link #addPool(String,
+ * VirtualThreadExecutor)}.
  */
 public class ThreadPoolCollector implements MultiCollector {
 
@@ -95,28 +97,104 @@ public class ThreadPoolCollector implements MultiCollector {
     }
   }
 
-  private static final Map<String, ThreadPoolExecutor> pools = new ConcurrentHashMap<>();
+  /** Common view of the stats for the different executor types. */
+  private interface PoolStats {
+    int poolSize();
+
+    int maxPoolSize();
+
+    int activeCount();
+
+    long taskCount();
+
+    int queueSize();
+
+    int queueRemaining();
+  }
+
+  private record ThreadPoolExecutorStats(ThreadPoolExecutor executor) implements PoolStats {
+    public int poolSize() {
+      return executor.getPoolSize();
+    }
+
+    public int maxPoolSize() {
+      return executor.getMaximumPoolSize();
+    }
+
+    public int activeCount() {
+      return executor.getActiveCount();
+    }
+
+    public long taskCount() {
+      return executor.getTaskCount();
+    }
+
+    public int queueSize() {
+      return executor.getQueue().size();
+    }
+
+    public int queueRemaining() {
+      return executor.getQueue().remainingCapacity();
+    }
+  }
+
+  /**
+   * Stats for a {@link VirtualThreadExecutor}. The pool size is the number of live virtual threads,
+   * and the max size is the concurrency limit.
+   */
+  private record VirtualThreadExecutorStats(VirtualThreadExecutor executor) implements PoolStats {
+    public int poolSize() {
+      return executor.getPoolSize();
+    }
+
+    public int maxPoolSize() {
+      return executor.getMaxConcurrency();
+    }
+
+    public int activeCount() {
+      return executor.getActiveCount();
+    }
+
+    public long taskCount() {
+      return executor.getTaskCount();
+    }
+
+    public int queueSize() {
+      return executor.getQueueSize();
+    }
+
+    public int queueRemaining() {
+      return executor.getQueueRemainingCapacity();
+    }
+  }
+
+  private static final Map<String, PoolStats> pools = new ConcurrentHashMap<>();
 
   public static void addPool(String name, ThreadPoolExecutor threadPoolExecutor) {
-    pools.put(name, threadPoolExecutor);
+    pools.put(name, new ThreadPoolExecutorStats(threadPoolExecutor));
     RejectedExecutionHandler handler = threadPoolExecutor.getRejectedExecutionHandler();
     threadPoolExecutor.setRejectedExecutionHandler(new RejectionCounterWrapper(handler, name));
   }
 
+  public static void addPool(String name, VirtualThreadExecutor virtualThreadExecutor) {
+    pools.put(name, new VirtualThreadExecutorStats(virtualThreadExecutor));
+    virtualThreadExecutor.setRejectionListener(
+        () -> RejectionCounterWrapper.rejectionCounter.labelValues(name).inc());
+  }
+
   @Override
   public MetricSnapshots collect() {
     List<MetricSnapshot> metrics = new ArrayList<>();
 
-    for (Map.Entry<String, ThreadPoolExecutor> entry : pools.entrySet()) {
+    for (Map.Entry<String, PoolStats> entry : pools.entrySet()) {
       String poolLabel = entry.getKey();
-      poolSize.labelValues(poolLabel).set(entry.getValue().getPoolSize());
-      poolMax.labelValues(poolLabel).set(entry.getValue().getMaximumPoolSize());
-      poolActive.labelValues(poolLabel).set(entry.getValue().getActiveCount());
-      poolTasks.labelValues(poolLabel).set(entry.getValue().getTaskCount());
-      poolQueueSize.labelValues(poolLabel).set(entry.getValue().getQueue().size());
-      poolQueueRemaining
-          .labelValues(poolLabel)
-          .set(entry.getValue().getQueue().remainingCapacity());
+      PoolStats stats = entry.getValue();
+      poolSize.labelValues(poolLabel).set(stats.poolSize());
+      poolMax.labelValues(poolLabel).set(stats.maxPoolSize());
+      poolActive.labelValues(poolLabel).set(stats.activeCount());
+      poolTasks.labelValues(poolLabel).set(stats.taskCount());
+      poolQueueSize.labelValues(poolLabel).set(stats.queueSize());
+      poolQueueRemaining.labelValues(poolLabel).set(stats.queueRemaining());
     }
 
     metrics.add(poolSize.collect());
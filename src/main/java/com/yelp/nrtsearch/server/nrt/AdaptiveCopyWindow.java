@@ -0,0 +1,154 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.nrt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flow control window for acked file copy to a single replica. The window is the number of chunks
+ * that may be in flight, and the size of each chunk. It is adjusted using the round trip time of
+ * chunk acks, similar to delay based TCP congestion control.
+ *
+ * <p>The minimum round trip time seen over a recent interval is used as the base latency of the
+ * link. While acks return close to this latency, the link and replica are keeping up, and the
+ * window grows. It starts by doubling on each ack, then grows additively by {@code ackEvery} chunks
+ * after the first congestion signal. Once the in flight chunks reach the maximum, the chunk size is
+ * doubled instead. When the round trip time exceeds the base latency by {@link
+ * #CONGESTION_RTT_RATIO}, data is queueing in the network or on the replica, and both the in flight
+ * chunks and chunk size are halved.
+ *
+ * <p>The replica buffers all received chunks of a file, so the bytes in flight for a file transfer
+ * are limited to {@code maxInFlightBytes}. The in flight chunks never exceed this limit divided by
+ * the chunk size, so when the chunk size is doubled the in flight chunks are reduced to match. The
+ * chunk size only grows while the minimum window of {@code ackEvery} chunks still fits in the
+ * limit.
+ *
+ * <p>The window is shared by all file transfers to the replica, so it is not relearned for each
+ * file. Methods are synchronized, since transfers may run concurrently.
+ */
+public class AdaptiveCopyWindow {
+  static final double CONGESTION_RTT_RATIO = 2.0;
+  static final long MIN_RTT_EXPIRATION_NS = TimeUnit.SECONDS.toNanos(10);
+
+  private final int minInFlight;
+  private final int maxInFlight;
+  private final int minChunkSize;
+  private final int maxChunkSize;
+  private final long maxInFlightBytes;
+
+  private int inFlight;
+  private int chunkSize;
+  private boolean slowStart = true;
+  private long minRttNs = Long.MAX_VALUE;
+  private long minRttTimeNs;
+
+  /**
+   * Constructor.
+   *
+   * @param ackEvery chunks sent between acks, which is also the minimum in flight chunks
+   * @param maxInFlight maximum in flight chunks
+   * @param minChunkSize initial and minimum chunk size
+   * @param maxChunkSize maximum chunk size
+   * @param maxInFlightBytes maximum bytes in flight for a file transfer
+   */
+  public AdaptiveCopyWindow(
+      int ackEvery, int maxInFlight, int minChunkSize, int maxChunkSize, long maxInFlightBytes) {
+    if (ackEvery > maxInFlight) {
+      throw new IllegalArgumentException("ackEvery must be less than or equal to maxInFlight");
+    }
+    if (minChunkSize > maxChunkSize) {
+      throw new IllegalArgumentException("minChunkSize must be less than or equal to maxChunkSize");
+    }
+    if ((long) ackEvery * minChunkSize > maxInFlightBytes) {
+      throw new IllegalArgumentException(
+          "maxInFlightBytes must be at least ackEvery * minChunkSize");
+    }
+    // the window must always allow the next chunk requesting an ack to be sent
+    this.minInFlight = ackEvery;
+    this.maxInFlight = maxInFlight;
+    this.minChunkSize = minChunkSize;
+    this.maxChunkSize = maxChunkSize;
+    this.maxInFlightBytes = maxInFlightBytes;
+    this.inFlight = ackEvery;
+    this.chunkSize = minChunkSize;
+  }
+
+  /** Get the current maximum number of in flight chunks. */
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /** Get the current chunk size. */
+  public synchronized int getChunkSize() {
+    return chunkSize;
+  }
+
+  /** Get the maximum bytes in flight for a file transfer. */
+  public long getMaxInFlightBytes() {
+    return maxInFlightBytes;
+  }
+
+  /**
+   * Get the size of the next chunk to send for a file transfer, or 0 if the window is full. The
+   * chunks requested before the next ack are always within the window, since the chunks in flight
+   * after the last ack are fewer than {@code ackEvery} and none are larger than {@code
+   * maxInFlightBytes / ackEvery}.
+   *
+   * @param inFlightChunks chunks sent for the transfer and not yet acked
+   * @param inFlightBytes bytes sent for the transfer and not yet acked
+   * @return next chunk size, or 0 if no chunk may be sent
+   */
+  public synchronized int getNextChunkSize(int inFlightChunks, long inFlightBytes) {
+    if (inFlightChunks >= inFlight || inFlightBytes + chunkSize > maxInFlightBytes) {
+      return 0;
+    }
+    return chunkSize;
+  }
+
+  /**
+   * Update the window with the round trip time of an ack.
+   *
+   * @param rttNs time between sending the acked chunk and receiving the ack
+   * @param nowNs current {@link System#nanoTime()}
+   */
+  public synchronized void onAck(long rttNs, long nowNs) {
+    if (rttNs <= minRttNs || nowNs - minRttTimeNs > MIN_RTT_EXPIRATION_NS) {
+      // base latency may change over time, so the minimum is only kept for a limited interval
+      minRttNs = rttNs;
+      minRttTimeNs = nowNs;
+    }
+    if (rttNs > minRttNs * CONGESTION_RTT_RATIO) {
+      slowStart = false;
+      inFlight = Math.max(minInFlight, inFlight / 2);
+      chunkSize = Math.max(minChunkSize, chunkSize / 2);
+    } else if (inFlight < getMaxChunks(chunkSize)) {
+      int increase = slowStart ? inFlight : minInFlight;
+      inFlight = (int) Math.min(getMaxChunks(chunkSize), (long) inFlight + increase);
+    } else {
+      int nextChunkSize = (int) Math.min(maxChunkSize, 2L * chunkSize);
+      // send fewer, larger chunks, as long as the minimum window fits in the bytes limit
+      if ((long) minInFlight * nextChunkSize <= maxInFlightBytes) {
+        chunkSize = nextChunkSize;
+        inFlight = (int) Math.min(inFlight, getMaxChunks(chunkSize));
+      }
+    }
+  }
+
+  /** Get the maximum in flight chunks for a chunk size. */
+  private long getMaxChunks(int size) {
+    return Math.min(maxInFlight, maxInFlightBytes / size);
+  }
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.nrt;
+
+import static com.yelp.nrtsearch.server.state.BackendGlobalState.getBaseIndexName;
+
+import com.yelp.nrtsearch.server.monitoring.BootstrapMetrics;
+import com.yelp.nrtsearch.server.nrt.state.NrtFileMetaData;
+import com.yelp.nrtsearch.server.remote.RemoteBackend;
+import com.yelp.nrtsearch.server.utils.FileUtils;
+import io.prometheus.metrics.core.datapoints.GaugeDataPoint;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Directory that opens a restored index before its files are local. The point state files are
+ * fetched from the {@link RemoteBackend} when they are first read, and in the background in order
+ * of increasing size, so that a replica can start serving searches without waiting for the whole
+ * index to download.
+ *
+ * <p>Lucene reads the header and footer of most index files when opening a segment, and replica
+ * nodes read them to compare their files with the primary. These reads are served from the point
+ * state file metadata, so large data files are not fetched until a search uses them. Any other read
+ * fetches the complete file with the ranged concurrent download of the backend, since the wrapped
+ * directory may memory map it.
+ *
+ * <p>Cloning or slicing an input also fetches the complete file, since the clone or slice reads
+ * independently of the original input. Compound files are always opened by slicing, so a {@code
+ * .cfs} file is effectively fetched eagerly when its segment is opened.
+ *
+ * <p>Files are downloaded into a temporary directory next to the index directory, and atomically
+ * moved into place when complete. Until all files are fetched, the local index is not complete, see
+ * {@link #isFullyLocal()}.
+ */
+public class LazyRestoreDirectory extends FilterDirectory {
+  static final String TEMP_DIR_SUFFIX = "_restore_tmp";
+  private static final Logger logger = LoggerFactory.getLogger(LazyRestoreDirectory.class);
+
+  private final Path indexDir;
+  private final Path tempDir;
+  private final RemoteBackend remoteBackend;
+  private final String serviceName;
+  private final String indexIdentifier;
+  private final GaugeDataPoint pendingBytesGauge;
+  private final ExecutorService prefetchExecutor;
+
+  // use synchronized access
+  private final Map<String, NrtFileMetaData> pendingFiles;
+  private final Map<String, CompletableFuture<Void>> fetches = new HashMap<>();
+  private long pendingBytes = 0;
+
+  /**
+   * Constructor. Starts fetching the files in the background.
+   *
+   * @param in directory opened on the index data directory
+   * @param indexDir index data directory
+   * @param remoteBackend backend to fetch files from
+   * @param serviceName service name
+   * @param indexIdentifier unique index identifier
+   * @param files files that are not yet local
+   * @throws IOException on error creating the temporary download directory
+   */
+  public LazyRestoreDirectory(
+      Directory in,
+      Path indexDir,
+      RemoteBackend remoteBackend,
+      String serviceName,
+      String indexIdentifier,
+      Map<String, NrtFileMetaData> files)
+      throws IOException {
+    super(in);
+    this.indexDir = indexDir;
+    this.tempDir = indexDir.resolveSibling(indexDir.getFileName() + TEMP_DIR_SUFFIX);
+    this.remoteBackend = remoteBackend;
+    this.serviceName = serviceName;
+    this.indexIdentifier = indexIdentifier;
+    this.pendingFiles = new HashMap<>(files);
+    for (NrtFileMetaData fileMetaData : files.values()) {
+      pendingBytes += fileMetaData.length;
+    }
+    this.pendingBytesGauge =
+        BootstrapMetrics.dataRestorePendingBytes.labelValues(
+            getBaseIndexName(indexIdentifier), indexIdentifier);
+    pendingBytesGauge.set(pendingBytes);
+
+    FileUtils.deleteAllFiles(tempDir);
+    Files.createDirectories(tempDir);
+    prefetchExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("lazy-restore-"));
+    prefetchExecutor.execute(this::prefetchAll);
+  }
+
+  /** Get if all restored files have been fetched. */
+  public synchronized boolean isFullyLocal() {
+    return pendingFiles.isEmpty();
+  }
+
+  /** Get the total size of the restored files that have not been fetched. */
+  public synchronized long getPendingBytes() {
+    return pendingBytes;
+  }
+
+  @Override
+  public String[] listAll() throws IOException {
+    String[] localFiles = in.listAll();
+    Set<String> allFiles;
+    synchronized (this) {
+      if (pendingFiles.isEmpty()) {
+        return localFiles;
+      }
+      allFiles = new TreeSet<>(pendingFiles.keySet());
+    }
+    allFiles.addAll(Arrays.asList(localFiles));
+    return allFiles.toArray(new String[0]);
+  }
+
+  @Override
+  public long fileLength(String name) throws IOException {
+    NrtFileMetaData fileMetaData = getPendingFile(name);
+    if (fileMetaData != null) {
+      return fileMetaData.length;
+    }
+    return in.fileLength(name);
+  }
+
+  @Override
+  public IndexInput openInput(String name, IOContext context) throws IOException {
+    NrtFileMetaData fileMetaData = getPendingFile(name);
+    if (fileMetaData != null) {
+      return new LazyIndexInput(name, context, fileMetaData);
+    }
+    return in.openInput(name, context);
+  }
+
+  @Override
+  public IndexOutput createOutput(String name, IOContext context) throws IOException {
+    if (getPendingFile(name) != null) {
+      throw new FileAlreadyExistsException(name);
+    }
+    return in.createOutput(name, context);
+  }
+
+  @Override
+  public void deleteFile(String name) throws IOException {
+    while (true) {
+      CompletableFuture<Void> fetch;
+      synchronized (this) {
+        fetch = fetches.get(name);
+        if (fetch == null) {
+          if (pendingFiles.containsKey(name)) {
+            removePending(name);
+            return;
+          }
+          break;
+        }
+      }
+      try {
+        fetch.join();
+      } catch (CompletionException ignored) {
+        // fetch failed, the file is still pending
+      }
+    }
+    in.deleteFile(name);
+  }
+
+  @Override
+  public void rename(String source, String dest) throws IOException {
+    ensureLocal(source);
+    in.rename(source, dest);
+  }
+
+  /** Files that are not yet local are skipped, they are synced when fetched. */
+  @Override
+  public void sync(Collection<String> names) throws IOException {
+    List<String> localNames = new ArrayList<>(names.size());
+    synchronized (this) {
+      for (String name : names) {
+        if (!pendingFiles.containsKey(name)) {
+          localNames.add(name);
+        }
+      }
+    }
+    in.sync(localNames);
+  }
+
+  @Override
+  public void close() throws IOException {
+    prefetchExecutor.shutdownNow();
+    try {
+      prefetchExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      FileUtils.deleteAllFiles(tempDir);
+    } finally {
+      super.close();
+    }
+  }
+
+  private synchronized NrtFileMetaData getPendingFile(String name) {
+    return pendingFiles.get(name);
+  }
+
+  private synchronized void removePending(String name) {
+    NrtFileMetaData fileMetaData = pendingFiles.remove(name);
+    if (fileMetaData != null) {
+      pendingBytes -= fileMetaData.length;
+      pendingBytesGauge.set(pendingBytes);
+      if (pendingFiles.isEmpty()) {
+        logger.info("Restored index data is fully local for index: {}", indexIdentifier);
+      }
+    }
+  }
+
+  private void prefetchAll() {
+    List<String> names;
+    synchronized (this) {
+      names = new ArrayList<>(pendingFiles.keySet());
+      names.sort(Comparator.comparingLong(name -> pendingFiles.get(name).length));
+    }
+    for (String name : names) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      try {
+        ensureLocal(name);
+      } catch (IOException e) {
+        logger.warn("Error prefetching file: {}, index: {}", name, indexIdentifier, e);
+      }
+    }
+  }
+
+  /**
+   * Fetch a file if it is not local, blocking until it is complete. Concurrent calls for the same
+   * file wait on the same fetch.
+   *
+   * @param name file name
+   * @throws IOException on error fetching the file
+   */
+  void ensureLocal(String name) throws IOException {
+    CompletableFuture<Void> fetch;
+    boolean doFetch = false;
+    synchronized (this) {
+      if (!pendingFiles.containsKey(name)) {
+        return;
+      }
+      fetch = fetches.get(name);
+      if (fetch == null) {
+        fetch = new CompletableFuture<>();
+        fetches.put(name, fetch);
+        doFetch = true;
+      }
+    }
+    if (doFetch) {
+      try {
+        fetchFile(name);
+        fetch.complete(null);
+      } catch (Throwable t) {
+        fetch.completeExceptionally(t);
+      } finally {
+        synchronized (this) {
+          fetches.remove(name);
+        }
+      }
+    }
+    try {
+      fetch.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException ioException) {
+        throw ioException;
+      }
+      throw new IOException("Error fetching file: " + name, e.getCause());
+    }
+  }
+
+  private void fetchFile(String name) throws IOException {
+    NrtFileMetaData fileMetaData = getPendingFile(name);
+    remoteBackend.downloadIndexFiles(
+        serviceName, indexIdentifier, tempDir, Map.of(name, fileMetaData));
+    Path tempFile = tempDir.resolve(name);
+    try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+      channel.force(true);
+    }
+    Files.move(tempFile, indexDir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+    removePending(name);
+  }
+
+  /**
+   * Input for a file that is not yet local. Reads within the file header and footer are served from
+   * the file metadata. Any other access fetches the file and delegates to an input opened on the
+   * local file.
+   */
+  private class LazyIndexInput extends IndexInput {
+    private final String name;
+    private final IOContext context;
+    private final byte[] header;
+    private final byte[] footer;
+    private final long length;
+    private long position = 0;
+    private IndexInput delegate = null;
+
+    LazyIndexInput(String name, IOContext context, NrtFileMetaData fileMetaData) {
+      super("LazyIndexInput(name=" + name + ")");
+      this.name = name;
+      this.context = context;
+      this.header = fileMetaData.header;
+      this.footer = fileMetaData.footer;
+      this.length = fileMetaData.length;
+    }
+
+    private IndexInput getDelegate() throws IOException {
+      if (delegate == null) {
+        ensureLocal(name);
+        delegate = in.openInput(name, context);
+        delegate.seek(position);
+      }
+      return delegate;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+      if (delegate == null) {
+        long footerStart = length - footer.length;
+        if (position < header.length) {
+          return header[(int) position++];
+        } else if (position >= footerStart && position < length) {
+          return footer[(int) (position++ - footerStart)];
+        }
+      }
+      return getDelegate().readByte();
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len) throws IOException {
+      if (delegate == null) {
+        long footerStart = length - footer.length;
+        if (position + len <= header.length) {
+          System.arraycopy(header, (int) position, b, offset, len);
+          position += len;
+          return;
+        } else if (position >= footerStart && position + len <= length) {
+          System.arraycopy(footer, (int) (position - footerStart), b, offset, len);
+          position += len;
+          return;
+        }
+      }
+      getDelegate().readBytes(b, offset, len);
+    }
+
+    @Override
+    public long getFilePointer() {
+      return delegate == null ? position : delegate.getFilePointer();
+    }
+
+    @Override
+    public void seek(long pos) throws IOException {
+      if (delegate != null) {
+        delegate.seek(pos);
+      } else if (pos < 0 || pos > length) {
+        throw new EOFException("seek past EOF: pos=" + pos + ", length=" + length + ": " + this);
+      } else {
+        position = pos;
+      }
+    }
+
+    @Override
+    public long length() {
+      return length;
+    }
+
+    @Override
+    public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+      return getDelegate().slice(sliceDescription, offset, length);
+    }
+
+    @Override
+    public IndexInput clone() {
+      try {
+        return getDelegate().clone();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void prefetch(long offset, long length) throws IOException {
+      if (delegate != null) {
+        delegate.prefetch(offset, length);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (delegate != null) {
+        delegate.close();
+      }
+    }
+  }
+}
@@ -31,15 +31,23 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.replicator.nrt.CopyState;
 import org.apache.lucene.replicator.nrt.FileMetaData;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,6 +61,12 @@ import org.slf4j.LoggerFactory;
  *
  * <p>There is only one active upload and one pending upload at a time. If a new upload is enqueued
  * while there is already a pending upload, the new upload will be merged with the pending upload.
+ *
+ * <p>If upload threads are configured, index file uploads are pipelined. The new files of a {@link
+ * CopyState} start uploading on the upload threads as soon as it is enqueued, each file as a
+ * separate upload. The upload manager thread then only waits for the files of its task to finish
+ * before uploading the point state. A file that is already uploading for an earlier task is not
+ * uploaded again. A {@link CopyState} is not released until its file uploads are complete.
  */
 public class NrtDataManager implements Closeable {
   private static final Logger logger = LoggerFactory.getLogger(NrtDataManager.class);
@@ -62,6 +76,8 @@ public class NrtDataManager implements Closeable {
   private final RemoteBackend remoteBackend;
   private final RestoreIndex restoreIndex;
   private final boolean remoteCommit;
+  // null if uploads are not pipelined
+  private final ExecutorService uploadExecutor;
 
   // Set during startUploadManager
   private NRTPrimaryNode primaryNode;
@@ -75,6 +91,8 @@ public class NrtDataManager implements Closeable {
   private UploadTask currentUploadTask = null;
   private UploadTask nextUploadTask = null;
   private boolean closed = false;
+  // pipelined uploads of files not in the last point state, use synchronized access
+  private final Map<String, PendingUpload> pendingUploads = new HashMap<>();
 
   /**
    * Represents an upload task that is enqueued to be processed by the UploadManagerThread.
@@ -84,6 +102,16 @@ public class NrtDataManager implements Closeable {
    */
   record UploadTask(CopyState copyState, List<RefreshUploadFuture> watchers) {}
 
+  /**
+   * Represents a pipelined upload of a single index file.
+   *
+   * @param fileMetaData metadata of the uploaded file, used in the point state
+   * @param future future completed when the upload is done
+   * @param version latest CopyState version that contains the file
+   */
+  record PendingUpload(
+      NrtFileMetaData fileMetaData, CompletableFuture<Void> future, long version) {}
+
   /**
    * Create a new NrtDataManager.
    *
@@ -101,12 +129,42 @@ public class NrtDataManager implements Closeable {
       RemoteBackend remoteBackend,
       RestoreIndex restoreIndex,
       boolean remoteCommit) {
+    this(serviceName, indexIdentifier, ephemeralId, remoteBackend, restoreIndex, remoteCommit, 0);
+  }
+
+  /**
+   * Create a new NrtDataManager.
+   *
+   * @param serviceName Name of the service
+   * @param indexIdentifier Unique identifier for the index
+   * @param ephemeralId Ephemeral ID for the node
+   * @param remoteBackend Remote backend to use for uploading and downloading index files
+   * @param restoreIndex RestoreIndex object to use for restoring index files, or null if no restore
+   * @param remoteCommit Whether to commit to the remote backend
+   * @param uploadThreads Number of threads for pipelined index file uploads, or 0 to upload the
+   *     files of each task together in the upload manager thread
+   */
+  public NrtDataManager(
+      String serviceName,
+      String indexIdentifier,
+      String ephemeralId,
+      RemoteBackend remoteBackend,
+      RestoreIndex restoreIndex,
+      boolean remoteCommit,
+      int uploadThreads) {
+    if (uploadThreads < 0) {
+      throw new IllegalArgumentException("uploadThreads must be >= 0");
+    }
     this.serviceName = serviceName;
     this.ephemeralId = ephemeralId;
     this.indexIdentifier = indexIdentifier;
     this.remoteBackend = remoteBackend;
     this.restoreIndex = restoreIndex;
     this.remoteCommit = remoteCommit;
+    this.uploadExecutor =
+        remoteCommit && uploadThreads > 0
+            ? Executors.newFixedThreadPool(uploadThreads, new NamedThreadFactory("nrt-upload-"))
+            : null;
   }
 
   @VisibleForTesting
@@ -124,6 +182,11 @@ public class NrtDataManager implements Closeable {
     return nextUploadTask;
   }
 
+  @VisibleForTesting
+  synchronized Map<String, PendingUpload> getPendingUploads() {
+    return new HashMap<>(pendingUploads);
+  }
+
   @VisibleForTesting
   void startWithoutThread(NRTPrimaryNode primaryNode, Path shardDataDir) {
     this.primaryNode = primaryNode;
@@ -183,28 +246,36 @@ public class NrtDataManager implements Closeable {
     }
     if (hasRestoreData()) {
       logger.info("Restoring index data for service: {}, index: {}", serviceName, indexIdentifier);
-      InputStream pointStateStream = remoteBackend.downloadPointState(serviceName, indexIdentifier);
-      byte[] pointStateBytes = pointStateStream.readAllBytes();
-      NrtPointState pointState = RemoteUtils.pointStateFromUtf8(pointStateBytes);
+      NrtPointState pointState = downloadRestorePointState();
+      String baseIndexName = getBaseIndexName(indexIdentifier);
+      long totalBytes = recordTotalBytes(pointState);
 
       long start = System.nanoTime();
+      boolean restored = false;
       try {
         remoteBackend.downloadIndexFiles(
             serviceName, indexIdentifier, shardDataDir, pointState.files);
         writeSegmentsFile(pointState.infosBytes, pointState.gen, shardDataDir);
+        restored = true;
       } finally {
         double timeSpentMs = (System.nanoTime() - start) / 1_000_000.0;
         logger.info(
-            "Restored index data for service: {}, index: {} in {}ms",
+            "Restored index data for service: {}, index: {}, bytes: {} in {}ms",
             serviceName,
             indexIdentifier,
+            totalBytes,
             timeSpentMs);
+        if (restored && timeSpentMs > 0) {
+          BootstrapMetrics.dataRestoreThroughput
+              .labelValues(baseIndexName, indexIdentifier)
+              .set(totalBytes / (timeSpentMs / 1_000.0));
+        }
         // Record in seconds, required by prometheus {@link
         // https://prometheus.io/docs/instrumenting/writing_exporters/#naming}: Metrics must use
         // base units (e.g. seconds, bytes) and leave converting them to something more readable to
         // graphing tools.
         BootstrapMetrics.dataRestoreTimer
-            .labelValues(getBaseIndexName(indexIdentifier), indexIdentifier)
+            .labelValues(baseIndexName, indexIdentifier)
             .set(timeSpentMs / 1_000.0);
       }
 
@@ -212,6 +283,60 @@ public class NrtDataManager implements Closeable {
     }
   }
 
+  /**
+   * Restore the index data if it is available in the remote backend, without downloading the index
+   * files. The segments file is written to the shard data directory, and the directory is wrapped
+   * in a {@link LazyRestoreDirectory} that fetches the index files on first access and in the
+   * background. Local files with the same names as restored files are removed, since their contents
+   * may be different.
+   *
+   * @param shardDataDir Path to the shard index data directory
+   * @param directory directory opened on the shard index data directory
+   * @return lazy restore directory, or the given directory if there is no data to restore
+   * @throws IOException if an error occurs while restoring the index data
+   */
+  public Directory restoreLazilyIfNeeded(Path shardDataDir, Directory directory)
+      throws IOException {
+    if (restoreIndex == null) {
+      return directory;
+    }
+    if (restoreIndex.getDeleteExistingData()) {
+      FileUtils.deleteAllFilesInDir(shardDataDir);
+    }
+    if (!hasRestoreData()) {
+      return directory;
+    }
+    logger.info(
+        "Lazily restoring index data for service: {}, index: {}", serviceName, indexIdentifier);
+    NrtPointState pointState = downloadRestorePointState();
+    recordTotalBytes(pointState);
+    for (String fileName : pointState.files.keySet()) {
+      Files.deleteIfExists(shardDataDir.resolve(fileName));
+    }
+    writeSegmentsFile(pointState.infosBytes, pointState.gen, shardDataDir);
+    lastPointState = pointState;
+    return new LazyRestoreDirectory(
+        directory, shardDataDir, remoteBackend, serviceName, indexIdentifier, pointState.files);
+  }
+
+  private NrtPointState downloadRestorePointState() throws IOException {
+    InputStream pointStateStream = remoteBackend.downloadPointState(serviceName, indexIdentifier);
+    byte[] pointStateBytes = pointStateStream.readAllBytes();
+    return RemoteUtils.pointStateFromUtf8(pointStateBytes);
+  }
+
+  /** Get the total size of the point state files, and record it in the restore metrics. */
+  private long recordTotalBytes(NrtPointState pointState) {
+    long totalBytes = 0;
+    for (NrtFileMetaData fileMetaData : pointState.files.values()) {
+      totalBytes += fileMetaData.length;
+    }
+    BootstrapMetrics.dataRestoreTotalBytes
+        .labelValues(getBaseIndexName(indexIdentifier), indexIdentifier)
+        .set(totalBytes);
+    return totalBytes;
+  }
+
   @VisibleForTesting
   static void writeSegmentsFile(byte[] segmentBytes, long gen, Path shardDataDir)
       throws IOException {
@@ -237,18 +362,31 @@ public class NrtDataManager implements Closeable {
       throw new IllegalStateException("NrtDataManager is closed");
     }
     UploadTask uploadTask = new UploadTask(copyState, watchers);
+    if (uploadExecutor != null) {
+      // start uploading new files now, instead of when the task is processed
+      for (Map.Entry<String, FileMetaData> entry : copyState.files().entrySet()) {
+        if (!isInLastPointState(entry.getKey(), entry.getValue())) {
+          getOrStartUpload(entry.getKey(), entry.getValue(), copyState.version());
+        }
+      }
+    }
     if (currentUploadTask == null) {
       currentUploadTask = uploadTask;
       notifyAll();
     } else if (nextUploadTask == null) {
       nextUploadTask = uploadTask;
     } else {
-      nextUploadTask = mergeTasks(nextUploadTask, uploadTask, primaryNode);
+      nextUploadTask = mergeTasks(nextUploadTask, uploadTask, this::releaseAfterUploads);
     }
   }
 
   @VisibleForTesting
   static UploadTask mergeTasks(UploadTask previous, UploadTask next, NRTPrimaryNode primaryNode) {
+    return mergeTasks(previous, next, copyState -> releaseCopyState(primaryNode, copyState));
+  }
+
+  private static UploadTask mergeTasks(
+      UploadTask previous, UploadTask next, Consumer<CopyState> releaseFunc) {
     List<RefreshUploadFuture> combinedWatchers = new ArrayList<>(previous.watchers);
     combinedWatchers.addAll(next.watchers);
 
@@ -264,13 +402,104 @@ public class NrtDataManager implements Closeable {
     }
 
     // release previous CopyState to unref index files
+    releaseFunc.accept(releaseCopyState);
+
+    return new UploadTask(taskCopyState, combinedWatchers);
+  }
+
+  private static void releaseCopyState(NRTPrimaryNode primaryNode, CopyState copyState) {
     try {
-      primaryNode.releaseCopyState(releaseCopyState);
+      primaryNode.releaseCopyState(copyState);
     } catch (Throwable t) {
       logger.warn("Failed to release copy state", t);
     }
+  }
 
-    return new UploadTask(taskCopyState, combinedWatchers);
+  /**
+   * Release a CopyState once any pipelined uploads of its files are complete, so that the files
+   * are not deleted while they are being uploaded.
+   *
+   * @param copyState CopyState to release
+   */
+  private synchronized void releaseAfterUploads(CopyState copyState) {
+    List<CompletableFuture<Void>> uploads = new ArrayList<>();
+    for (Map.Entry<String, FileMetaData> entry : copyState.files().entrySet()) {
+      PendingUpload pendingUpload = pendingUploads.get(entry.getKey());
+      if (pendingUpload != null
+          && !pendingUpload.future().isDone()
+          && UploadManagerThread.isSameFile(entry.getValue(), pendingUpload.fileMetaData())) {
+        uploads.add(pendingUpload.future());
+      }
+    }
+    if (uploads.isEmpty()) {
+      releaseCopyState(primaryNode, copyState);
+    } else {
+      CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0]))
+          .whenComplete((v, t) -> releaseCopyState(primaryNode, copyState));
+    }
+  }
+
+  private boolean isInLastPointState(String fileName, FileMetaData fileMetaData) {
+    NrtPointState pointState = lastPointState;
+    if (pointState == null) {
+      return false;
+    }
+    NrtFileMetaData lastFileMetaData = pointState.files.get(fileName);
+    return lastFileMetaData != null
+        && UploadManagerThread.isSameFile(fileMetaData, lastFileMetaData);
+  }
+
+  /**
+   * Get the pipelined upload of an index file, starting a new upload if the file is not already
+   * uploading or the previous upload failed. Must be called while holding the instance lock.
+   *
+   * @param fileName index file name
+   * @param fileMetaData index file metadata
+   * @param version version of the CopyState containing the file
+   * @return pending file upload
+   */
+  private PendingUpload getOrStartUpload(String fileName, FileMetaData fileMetaData, long version) {
+    PendingUpload pendingUpload = pendingUploads.get(fileName);
+    if (pendingUpload == null
+        || pendingUpload.future().isCompletedExceptionally()
+        || !UploadManagerThread.isSameFile(fileMetaData, pendingUpload.fileMetaData())) {
+      NrtFileMetaData nrtFileMetaData =
+          new NrtFileMetaData(fileMetaData, ephemeralId, TimeStringUtils.generateTimeStringSec());
+      CompletableFuture<Void> future =
+          CompletableFuture.runAsync(() -> uploadFile(fileName, nrtFileMetaData), uploadExecutor);
+      pendingUpload = new PendingUpload(nrtFileMetaData, future, version);
+      pendingUploads.put(fileName, pendingUpload);
+    } else if (pendingUpload.version() < version) {
+      pendingUpload =
+          new PendingUpload(pendingUpload.fileMetaData(), pendingUpload.future(), version);
+      pendingUploads.put(fileName, pendingUpload);
+    }
+    return pendingUpload;
+  }
+
+  private void uploadFile(String fileName, NrtFileMetaData fileMetaData) {
+    try {
+      remoteBackend.uploadIndexFiles(
+          serviceName, indexIdentifier, shardDataDir, Map.of(fileName, fileMetaData));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Set the last committed point state. Pipelined uploads of files in the point state are now
+   * tracked by it, and files only contained in older versions have been removed from the index.
+   *
+   * @param pointState committed point state
+   */
+  private synchronized void setLastPointState(NrtPointState pointState) {
+    lastPointState = pointState;
+    pendingUploads
+        .entrySet()
+        .removeIf(
+            entry ->
+                pointState.files.containsKey(entry.getKey())
+                    || entry.getValue().version() <= pointState.version);
   }
 
   /** Background thread that processes upload tasks. */
@@ -309,7 +538,7 @@ public class NrtDataManager implements Closeable {
             NrtPointState pointState = new NrtPointState(task.copyState, versionFiles, ephemeralId);
             byte[] data = RemoteUtils.pointStateToUtf8(pointState);
             remoteBackend.uploadPointState(serviceName, indexIdentifier, pointState, data);
-            lastPointState = pointState;
+            setLastPointState(pointState);
           } else {
             logger.info(
                 "Later version committed, skipping. Committed version: {}, Task version: {}",
@@ -325,11 +554,7 @@ public class NrtDataManager implements Closeable {
           }
         } finally {
           // release current task index file references
-          try {
-            primaryNode.releaseCopyState(task.copyState);
-          } catch (Throwable t) {
-            logger.warn("Failed to release copy state", t);
-          }
+          releaseAfterUploads(task.copyState);
           // set next task as current task
           synchronized (NrtDataManager.this) {
             currentUploadTask = nextUploadTask;
@@ -344,6 +569,9 @@ public class NrtDataManager implements Closeable {
     }
 
     private Map<String, NrtFileMetaData> uploadDiff(CopyState copyState) throws IOException {
+      if (uploadExecutor != null) {
+        return awaitPipelinedUploads(copyState);
+      }
       Map<String, NrtFileMetaData> lastPointFiles =
           lastPointState != null ? lastPointState.files : Map.of();
       Map<String, NrtFileMetaData> currentPointFiles = new HashMap<>();
@@ -369,6 +597,38 @@ public class NrtDataManager implements Closeable {
       return currentPointFiles;
     }
 
+    private Map<String, NrtFileMetaData> awaitPipelinedUploads(CopyState copyState)
+        throws IOException {
+      Map<String, NrtFileMetaData> currentPointFiles = new HashMap<>();
+      List<CompletableFuture<Void>> uploads = new ArrayList<>();
+      synchronized (NrtDataManager.this) {
+        Map<String, NrtFileMetaData> lastPointFiles =
+            lastPointState != null ? lastPointState.files : Map.of();
+        for (Map.Entry<String, FileMetaData> entry : copyState.files().entrySet()) {
+          String fileName = entry.getKey();
+          NrtFileMetaData lastFileMetaData = lastPointFiles.get(fileName);
+          if (lastFileMetaData != null && isSameFile(entry.getValue(), lastFileMetaData)) {
+            currentPointFiles.put(fileName, lastFileMetaData);
+          } else {
+            PendingUpload pendingUpload =
+                getOrStartUpload(fileName, entry.getValue(), copyState.version());
+            currentPointFiles.put(fileName, pendingUpload.fileMetaData());
+            uploads.add(pendingUpload.future());
+          }
+        }
+      }
+      logger.info("Waiting for {} pipelined index file uploads", uploads.size());
+      try {
+        CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      } catch (ExecutionException e) {
+        throw new IOException("Error uploading index files", e.getCause());
+      }
+      return currentPointFiles;
+    }
+
     @VisibleForTesting
     static boolean isSameFile(FileMetaData fileMetaData, NrtFileMetaData nrtFileMetaData) {
       return fileMetaData.length() == nrtFileMetaData.length
@@ -399,14 +659,14 @@ public class NrtDataManager implements Closeable {
         cleanupTask(nextUploadTask);
       }
     }
+    if (uploadExecutor != null) {
+      // let started uploads finish, so their copy states are released
+      uploadExecutor.shutdown();
+    }
   }
 
   private void cleanupTask(UploadTask task) {
-    try {
-      primaryNode.releaseCopyState(task.copyState);
-    } catch (Throwable t) {
-      logger.warn("Failed to release copy state", t);
-    }
+    releaseAfterUploads(task.copyState);
     Exception e = new IllegalStateException("NrtDataManager is closed");
     for (RefreshUploadFuture watcher : task.watchers) {
       watcher.setDone(e);
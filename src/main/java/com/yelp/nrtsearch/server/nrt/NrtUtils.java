@@ -18,9 +18,13 @@ package com.yelp.nrtsearch.server.nrt;
 import static org.apache.lucene.replicator.nrt.Node.VERBOSE_FILES;
 import static org.apache.lucene.replicator.nrt.Node.bytesToString;
 
+import com.google.protobuf.ByteOutput;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.NoSuchFileException;
 import java.util.Map;
 import org.apache.lucene.codecs.CodecUtil;
@@ -29,6 +33,7 @@ import org.apache.lucene.replicator.nrt.FileMetaData;
 import org.apache.lucene.replicator.nrt.Node;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
 
 public class NrtUtils {
 
@@ -92,4 +97,65 @@ public class NrtUtils {
 
     return result;
   }
+
+  /**
+   * Get a {@link ByteOutput} that writes to an {@link IndexOutput}. Content written with {@link
+   * UnsafeByteOperations#unsafeWriteTo(ByteString, ByteOutput)} passes the backing array of heap
+   * based content directly to the output, instead of making a copy as {@link
+   * ByteString#toByteArray()} or {@link ByteString#writeTo(java.io.OutputStream)} would. Direct
+   * buffer content is copied through a small reused buffer.
+   *
+   * @param output index output to write to
+   * @return byte output writing to the index output
+   */
+  public static ByteOutput indexByteOutput(IndexOutput output) {
+    return new IndexByteOutput(output);
+  }
+
+  private static class IndexByteOutput extends ByteOutput {
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+    private final IndexOutput output;
+    private byte[] copyBuffer;
+
+    IndexByteOutput(IndexOutput output) {
+      this.output = output;
+    }
+
+    @Override
+    public void write(byte value) throws IOException {
+      output.writeByte(value);
+    }
+
+    @Override
+    public void write(byte[] value, int offset, int length) throws IOException {
+      output.writeBytes(value, offset, length);
+    }
+
+    @Override
+    public void writeLazy(byte[] value, int offset, int length) throws IOException {
+      output.writeBytes(value, offset, length);
+    }
+
+    @Override
+    public void write(ByteBuffer value) throws IOException {
+      if (value.hasArray()) {
+        output.writeBytes(value.array(), value.arrayOffset() + value.position(), value.remaining());
+        value.position(value.limit());
+        return;
+      }
+      if (copyBuffer == null) {
+        copyBuffer = new byte[COPY_BUFFER_SIZE];
+      }
+      while (value.hasRemaining()) {
+        int length = Math.min(value.remaining(), copyBuffer.length);
+        value.get(copyBuffer, 0, length);
+        output.writeBytes(copyBuffer, 0, length);
+      }
+    }
+
+    @Override
+    public void writeLazy(ByteBuffer value) throws IOException {
+      write(value);
+    }
+  }
 }
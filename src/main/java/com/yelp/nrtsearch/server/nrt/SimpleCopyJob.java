@@ -230,7 +230,9 @@ public class SimpleCopyJob extends CopyJob {
       try {
         if (ackedCopy) {
           FileChunkStreamingIterator fcsi = new FileChunkStreamingIterator(indexName);
-          primaryAddres.recvRawFileV2(fileName, 0, indexName, indexId, fcsi);
+          String replicaName =
+              dest instanceof NRTReplicaNode replicaNode ? replicaNode.getNodeName() : "";
+          primaryAddres.recvRawFileV2(fileName, 0, indexName, indexId, replicaName, fcsi);
           rawFileChunkIterator = fcsi;
         } else {
           rawFileChunkIterator = primaryAddres.recvRawFile(fileName, 0, indexName, indexId);
@@ -299,7 +301,8 @@ public class SimpleCopyJob extends CopyJob {
 
     @Override
     public void onNext(RawFileChunk value) {
-      // buffer all file chunks, this is bounded by the max in flight config value
+      // buffer all file chunks, this is bounded by the max in flight chunks of the fixed chunk
+      // size, or by the max in flight bytes with adaptive flow control
       pendingChunks.add(value);
       NrtMetrics.nrtAckedCopyMB.labelValues(indexName).inc(value.getSerializedSize() * BYTES_TO_MB);
     }
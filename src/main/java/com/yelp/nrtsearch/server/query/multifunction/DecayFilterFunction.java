@@ -37,6 +37,12 @@ public abstract class DecayFilterFunction extends FilterFunction {
     }
   }
 
+  /** Decay functions score in the range [0, 1], before the weight is applied. */
+  @Override
+  public double getMaxScore() {
+    return getWeight() >= 0 ? getWeight() : Double.POSITIVE_INFINITY;
+  }
+
   protected DecayFunction getDecayType(MultiFunctionScoreQuery.DecayType decayType) {
     return switch (decayType) {
       case DECAY_TYPE_GUASSIAN -> new GuassianDecayFunction();
@@ -131,6 +131,17 @@ public abstract class FilterFunction {
     return weight;
   }
 
+  /**
+   * Get an upper bound for the weighted score this function produces for any document. A bound is
+   * only given if the function score is also known to never be negative, which allows it to be
+   * combined with the bounds of other functions and the inner query.
+   *
+   * @return max function score, or {@link Double#POSITIVE_INFINITY} if not known
+   */
+  public double getMaxScore() {
+    return Double.POSITIVE_INFINITY;
+  }
+
   /**
    * Get the function implementation as applies to an index leaf segment.
    *
@@ -41,6 +41,7 @@ public class GeoPointDecayFilterFunction extends DecayFilterFunction {
   private final double decay;
   private final LatLng origin;
   private final IndexState indexState;
+  private final int fieldSlot;
 
   /**
    * Constructor.
@@ -70,6 +71,7 @@ public class GeoPointDecayFilterFunction extends DecayFilterFunction {
             : 0.0;
     this.indexState = indexState;
     validateLatLonField(indexState.getFieldOrThrow(fieldName));
+    this.fieldSlot = indexState.docLookup.getFieldSlot(fieldName);
   }
 
   public void validateLatLonField(FieldDef fieldDef) {
@@ -106,7 +108,7 @@ public class GeoPointDecayFilterFunction extends DecayFilterFunction {
     public double score(int docId, float innerQueryScore) throws IOException {
       segmentDocLookup.setDocId(docId);
       LoadedDocValues<GeoPoint> geoPointLoadedDocValues =
-          (LoadedDocValues<GeoPoint>) segmentDocLookup.get(fieldName);
+          (LoadedDocValues<GeoPoint>) segmentDocLookup.get(fieldSlot);
       if (geoPointLoadedDocValues.isEmpty()) {
         return 0.0;
       } else {
@@ -124,7 +126,7 @@ public class GeoPointDecayFilterFunction extends DecayFilterFunction {
       double score;
       segmentDocLookup.setDocId(docId);
       LoadedDocValues<GeoPoint> geoPointLoadedDocValues =
-          (LoadedDocValues<GeoPoint>) segmentDocLookup.get(fieldName);
+          (LoadedDocValues<GeoPoint>) segmentDocLookup.get(fieldSlot);
       if (!geoPointLoadedDocValues.isEmpty()) {
         GeoPoint latLng = geoPointLoadedDocValues.get(0);
         double distance =
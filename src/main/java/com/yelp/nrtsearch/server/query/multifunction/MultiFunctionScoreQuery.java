@@ -165,25 +165,87 @@ public class MultiFunctionScoreQuery extends Query {
                 1.0f);
       }
     }
-    Weight innerWeight =
-        innerQuery.createWeight(
-            searcher,
-            boostMode == BoostMode.BOOST_MODE_REPLACE
-                ? ScoreMode.COMPLETE_NO_SCORES
-                : ScoreMode.COMPLETE,
-            boost);
-    return new MultiFunctionWeight(this, innerWeight, filterWeights);
+    double maxFunctionScore = getMaxFunctionScore();
+    // the inner scorer can only skip non-competitive docs if the function score is bounded
+    boolean innerTopScores =
+        scoreMode == ScoreMode.TOP_SCORES
+            && boostMode != BoostMode.BOOST_MODE_REPLACE
+            && Double.isFinite(maxFunctionScore);
+    ScoreMode innerScoreMode;
+    if (boostMode == BoostMode.BOOST_MODE_REPLACE) {
+      innerScoreMode = ScoreMode.COMPLETE_NO_SCORES;
+    } else if (innerTopScores) {
+      innerScoreMode = ScoreMode.TOP_SCORES;
+    } else {
+      innerScoreMode = ScoreMode.COMPLETE;
+    }
+    Weight innerWeight = innerQuery.createWeight(searcher, innerScoreMode, boost);
+    return new MultiFunctionWeight(
+        this, innerWeight, filterWeights, maxFunctionScore, innerTopScores);
+  }
+
+  /**
+   * Get an upper bound for the combined score of all functions for any document. A bound is only
+   * known if all functions have a non-negative max score. When a function has a filter query, it
+   * may not apply to a document, which contributes a factor of 1 in multiply mode. In sum mode, the
+   * score is 1 when no function applies.
+   *
+   * @return max function score, or {@link Double#POSITIVE_INFINITY} if not known
+   */
+  double getMaxFunctionScore() {
+    if (functions.length == 0) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double maxScore;
+    switch (scoreMode) {
+      case SCORE_MODE_MULTIPLY:
+        maxScore = 1.0;
+        for (FilterFunction function : functions) {
+          double functionMaxScore = function.getMaxScore();
+          if (!isBounded(functionMaxScore)) {
+            return Double.POSITIVE_INFINITY;
+          }
+          maxScore *=
+              function.hasFilterQuery() ? Math.max(1.0, functionMaxScore) : functionMaxScore;
+        }
+        return maxScore;
+      case SCORE_MODE_SUM:
+        maxScore = 0.0;
+        for (FilterFunction function : functions) {
+          double functionMaxScore = function.getMaxScore();
+          if (!isBounded(functionMaxScore)) {
+            return Double.POSITIVE_INFINITY;
+          }
+          maxScore += functionMaxScore;
+        }
+        return Math.max(1.0, maxScore);
+      default:
+        return Double.POSITIVE_INFINITY;
+    }
+  }
+
+  private static boolean isBounded(double maxScore) {
+    return maxScore >= 0 && Double.isFinite(maxScore);
   }
 
   /** Weight that produces scorers that modify document scores with provided functions. */
   class MultiFunctionWeight extends Weight {
     private final Weight innerWeight;
     private final Weight[] filterWeights;
-
-    protected MultiFunctionWeight(Query query, Weight innerWeight, Weight[] filterWeights) {
+    private final double maxFunctionScore;
+    private final boolean innerTopScores;
+
+    protected MultiFunctionWeight(
+        Query query,
+        Weight innerWeight,
+        Weight[] filterWeights,
+        double maxFunctionScore,
+        boolean innerTopScores) {
       super(query);
       this.innerWeight = innerWeight;
       this.filterWeights = filterWeights;
+      this.maxFunctionScore = maxFunctionScore;
+      this.innerTopScores = innerTopScores;
     }
 
     @Override
@@ -282,7 +344,14 @@ public class MultiFunctionScoreQuery extends Query {
           }
 
           Scorer scorer =
-              new MultiFunctionScorer(innerScorer, scoreMode, boostMode, leafFunctions, docSets);
+              new MultiFunctionScorer(
+                  innerScorer,
+                  scoreMode,
+                  boostMode,
+                  leafFunctions,
+                  docSets,
+                  maxFunctionScore,
+                  innerTopScores);
           if (isMinScoreWrapperUsed()) {
             scorer = new MinScoreWrapper(scorer, minScore, minExcluded);
           }
@@ -407,6 +476,12 @@ public class MultiFunctionScoreQuery extends Query {
       return in.advanceShallow(target);
     }
 
+    @Override
+    public void setMinCompetitiveScore(float minScore) throws IOException {
+      // the score is not modified, only filtered
+      in.setMinCompetitiveScore(minScore);
+    }
+
     @Override
     public int docID() {
       return in.docID();
@@ -416,12 +491,19 @@ public class MultiFunctionScoreQuery extends Query {
   /**
    * Scorer that computes the function score value for segment document, and uses it to modify the
    * query document score.
+   *
+   * <p>When the function score has a known upper bound, the max score of the inner scorer is
+   * combined with it to provide score bounds for dynamic pruning. If the inner scorer was created
+   * for top scores, the min competitive score is also converted to a min inner score, so the inner
+   * scorer can skip non-competitive blocks.
    */
   public static class MultiFunctionScorer extends FilterScorer {
     private final FunctionScoreMode scoreMode;
     private final BoostMode boostMode;
     private final LeafFunction[] leafFunctions;
     private final Bits[] docSets;
+    private final double maxFunctionScore;
+    private final boolean innerTopScores;
 
     public MultiFunctionScorer(
         Scorer innerScorer,
@@ -429,11 +511,42 @@ public class MultiFunctionScoreQuery extends Query {
         BoostMode boostMode,
         LeafFunction[] leafFunctions,
         Bits[] docSets) {
+      this(
+          innerScorer,
+          scoreMode,
+          boostMode,
+          leafFunctions,
+          docSets,
+          Double.POSITIVE_INFINITY,
+          false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param innerScorer scorer for the inner query
+     * @param scoreMode mode to combine function scores
+     * @param boostMode mode to combine function and document scores
+     * @param leafFunctions functions for this segment
+     * @param docSets documents each function applies to
+     * @param maxFunctionScore upper bound of the combined function score, or infinity if not known
+     * @param innerTopScores if the inner scorer was created with {@link ScoreMode#TOP_SCORES}
+     */
+    public MultiFunctionScorer(
+        Scorer innerScorer,
+        FunctionScoreMode scoreMode,
+        BoostMode boostMode,
+        LeafFunction[] leafFunctions,
+        Bits[] docSets,
+        double maxFunctionScore,
+        boolean innerTopScores) {
       super(innerScorer);
       this.scoreMode = scoreMode;
       this.boostMode = boostMode;
       this.leafFunctions = leafFunctions;
       this.docSets = docSets;
+      this.maxFunctionScore = maxFunctionScore;
+      this.innerTopScores = innerTopScores;
     }
 
     @Override
@@ -493,9 +606,46 @@ public class MultiFunctionScoreQuery extends Query {
       };
     }
 
+    @Override
+    public int advanceShallow(int target) throws IOException {
+      if (boostMode == BoostMode.BOOST_MODE_REPLACE) {
+        // bound does not depend on the inner scorer
+        return DocIdSetIterator.NO_MORE_DOCS;
+      }
+      return in.advanceShallow(target);
+    }
+
     @Override
     public float getMaxScore(int upTo) throws IOException {
-      return Float.MAX_VALUE;
+      if (leafFunctions.length == 0 || !Double.isFinite(maxFunctionScore)) {
+        return Float.MAX_VALUE;
+      }
+      double maxScore =
+          switch (boostMode) {
+            case BOOST_MODE_MULTIPLY -> in.getMaxScore(upTo) * maxFunctionScore;
+            case BOOST_MODE_SUM -> in.getMaxScore(upTo) + maxFunctionScore;
+            case BOOST_MODE_REPLACE -> maxFunctionScore;
+            default -> throw new IllegalStateException("Unknown boost mode type: " + boostMode);
+          };
+      // round up, so the bound is never below a float score
+      return maxScore >= Float.MAX_VALUE ? Float.MAX_VALUE : Math.nextUp((float) maxScore);
+    }
+
+    @Override
+    public void setMinCompetitiveScore(float minScore) throws IOException {
+      if (!innerTopScores || leafFunctions.length == 0) {
+        return;
+      }
+      // inner score needed for the final score to reach the min score, rounded down
+      double minInnerScore =
+          switch (boostMode) {
+            case BOOST_MODE_MULTIPLY -> maxFunctionScore > 0 ? minScore / maxFunctionScore : 0;
+            case BOOST_MODE_SUM -> minScore - maxFunctionScore;
+            default -> 0;
+          };
+      if (minInnerScore > 0) {
+        in.setMinCompetitiveScore(Math.nextDown((float) minInnerScore));
+      }
     }
   }
 
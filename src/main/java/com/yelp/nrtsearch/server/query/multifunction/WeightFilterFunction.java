@@ -58,6 +58,11 @@ public class WeightFilterFunction extends FilterFunction {
     return 0;
   }
 
+  @Override
+  public double getMaxScore() {
+    return getWeight() >= 0 ? getWeight() : Double.POSITIVE_INFINITY;
+  }
+
   @Override
   public LeafFunction getLeafFunction(LeafReaderContext leafContext) throws IOException {
     return leafFunction;
@@ -16,52 +16,70 @@
 package com.yelp.nrtsearch.server.query.vector;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import org.apache.lucene.codecs.perfield.PerFieldKnnVectorsFormat;
+import org.apache.lucene.index.ByteVectorValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FloatVectorValues;
+import org.apache.lucene.index.KnnVectorValues;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.BulkScorer;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.QueryVisitor;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TaskExecutor;
 import org.apache.lucene.search.VectorScorer;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
 
 /**
  * Query that does a brute force search to find documents with the best similarity to the query
  * vector.
+ *
+ * <p>Fields indexed with raw vectors are scored in blocks with the JDK vector API, when the
+ * jdk.incubator.vector module is enabled, or with scalar code otherwise. Byte vectors are compared
+ * as bytes. When documents are iterated in order, the vectors of the next 64 documents are read and
+ * scored together. When the iterator is advanced, such as when intersected with a filter, only the
+ * visited documents are scored. Fields using other vector formats, such as scalar quantized, are
+ * scored with the {@link VectorScorer} of the format, which compares the quantized byte vectors, so
+ * that scores match those of a knn search.
+ *
+ * <p>When this query is the top level scoring clause, the vectors in the searched doc id range are
+ * scored before collection. The range is split into partitions of at least 1024 vectors, which are
+ * scored concurrently on the search executor.
  */
 public abstract class ExactVectorQuery extends Query {
-  protected final String field;
-  private final VectorScorerSupplier vectorScorerFunction;
+  // number of vectors scored together
+  static final int BLOCK_SIZE = 64;
+  // minimum number of vectors in a concurrently scored partition
+  static final int MIN_PARTITION_VECTORS = 1024;
+  // maximum number of partitions a segment is split into
+  static final int MAX_PARTITIONS = 32;
+  // format that scores vectors by comparing the raw values with the similarity function
+  private static final String RAW_VECTORS_FORMAT = "Lucene99HnswVectorsFormat";
+  private static final VectorBlockSimilarity BLOCK_SIMILARITY = VectorBlockSimilarity.getInstance();
 
-  /** Function for creating a {@link VectorScorer} for a given {@link LeafReader}. */
-  @FunctionalInterface
-  protected interface VectorScorerSupplier {
-    /**
-     * Get a {@link VectorScorer} for the given {@link LeafReader}.
-     *
-     * @param reader the reader to get the scorer for
-     * @return the scorer
-     * @throws IOException if an error occurs
-     */
-    VectorScorer get(LeafReader reader) throws IOException;
-  }
+  protected final String field;
 
   /**
    * Constructor.
    *
    * @param field the field to search
-   * @param vectorScorerFunction function for creating a {@link VectorScorer} for a given {@link
-   *     LeafReader}
    */
-  protected ExactVectorQuery(String field, VectorScorerSupplier vectorScorerFunction) {
+  protected ExactVectorQuery(String field) {
     this.field = field;
-    this.vectorScorerFunction = vectorScorerFunction;
   }
 
   /**
@@ -73,55 +91,94 @@ public abstract class ExactVectorQuery extends Query {
     return field;
   }
 
+  /**
+   * Get the vectors of a segment to score against the query vector.
+   *
+   * @param reader segment reader
+   * @return segment vectors, or null if the segment has no vectors for the field
+   * @throws IOException if an error occurs
+   */
+  abstract SegmentVectors getSegmentVectors(LeafReader reader) throws IOException;
+
   @Override
   public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) {
-    return new ExactVectorQueryWeight(this, field, boost, vectorScorerFunction);
+    return new ExactVectorQueryWeight(this, scoreMode, boost, searcher.getTaskExecutor());
+  }
+
+  /**
+   * Get if the vectors of a field are scored by comparing the raw vector values with the field
+   * similarity function, so that they may be scored in blocks.
+   *
+   * @param fieldInfo vector field info
+   * @return if the field vector format scores the raw vectors
+   */
+  static boolean isRawVectorsFormat(FieldInfo fieldInfo) {
+    return RAW_VECTORS_FORMAT.equals(
+        fieldInfo.getAttribute(PerFieldKnnVectorsFormat.PER_FIELD_FORMAT_KEY));
   }
 
   private static class ExactVectorQueryWeight extends Weight {
-    private final String field;
+    private final ExactVectorQuery query;
+    private final ScoreMode scoreMode;
     private final float boost;
-    private final VectorScorerSupplier vectorScorerFunction;
+    private final TaskExecutor taskExecutor;
 
     /**
      * Sole constructor.
      *
      * @param query the parent query
-     * @param field the field to search
+     * @param scoreMode score mode
      * @param boost scoring boost
-     * @param vectorScorerFunction function for creating a {@link VectorScorer} for a given {@link
-     *     LeafReader}
+     * @param taskExecutor executor for concurrently scoring partitions of a segment
      */
-    protected ExactVectorQueryWeight(
-        Query query, String field, float boost, VectorScorerSupplier vectorScorerFunction) {
+    ExactVectorQueryWeight(
+        ExactVectorQuery query, ScoreMode scoreMode, float boost, TaskExecutor taskExecutor) {
       super(query);
-      this.field = field;
+      this.query = query;
+      this.scoreMode = scoreMode;
       this.boost = boost;
-      this.vectorScorerFunction = vectorScorerFunction;
+      this.taskExecutor = taskExecutor;
     }
 
     @Override
     public Explanation explain(LeafReaderContext context, int doc) throws IOException {
-      VectorScorer vectorScorer = vectorScorerFunction.get(context.reader());
-      if (vectorScorer == null) {
-        return Explanation.noMatch("No vector found for field: " + field);
+      SegmentVectors segmentVectors = query.getSegmentVectors(context.reader());
+      if (segmentVectors == null) {
+        return Explanation.noMatch("No vector found for field: " + query.field);
       }
-      DocIdSetIterator iterator = vectorScorer.iterator();
-      if (iterator.advance(doc) == doc) {
-        float score = vectorScorer.score();
+      Scorer scorer = segmentVectors.scorer(1.0f);
+      if (scorer.iterator().advance(doc) == doc) {
+        float score = scorer.score();
         return Explanation.match(score * boost, "Found vector with similarity: " + score);
       }
-      return Explanation.noMatch("No document vector for field: " + field);
+      return Explanation.noMatch("No document vector for field: " + query.field);
     }
 
     @Override
     public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
-      VectorScorer vectorScorer = vectorScorerFunction.get(context.reader());
-      if (vectorScorer == null) {
+      SegmentVectors segmentVectors = query.getSegmentVectors(context.reader());
+      if (segmentVectors == null) {
         return null;
       }
-      Scorer vectorValuesScorer = new VectorValuesScorer(vectorScorer, boost);
-      return new DefaultScorerSupplier(vectorValuesScorer);
+      return new ScorerSupplier() {
+        @Override
+        public Scorer get(long leadCost) throws IOException {
+          return segmentVectors.scorer(boost);
+        }
+
+        @Override
+        public BulkScorer bulkScorer() throws IOException {
+          if (!scoreMode.needsScores()) {
+            return super.bulkScorer();
+          }
+          return new PartitionedBulkScorer(segmentVectors, boost, taskExecutor);
+        }
+
+        @Override
+        public long cost() {
+          return segmentVectors.size();
+        }
+      };
     }
 
     @Override
@@ -130,11 +187,275 @@ public abstract class ExactVectorQuery extends Query {
     }
   }
 
+  /** Vectors of a single segment, which are scored against the query vector. */
+  abstract static class SegmentVectors {
+    private final int size;
+
+    /**
+     * Constructor.
+     *
+     * @param size number of vectors in the segment
+     */
+    SegmentVectors(int size) {
+      this.size = size;
+    }
+
+    /** Get the number of vectors in the segment. */
+    int size() {
+      return size;
+    }
+
+    /**
+     * Load a new instance of the segment vector values. Vector values must not be shared between
+     * threads or iterators, so each user loads its own.
+     *
+     * @return vector values
+     * @throws IOException if an error occurs
+     */
+    abstract KnnVectorValues loadVectorValues() throws IOException;
+
+    /**
+     * Get a new iterator over the documents with a vector, which also provides the vector ordinal
+     * of the current document.
+     *
+     * @return vector iterator
+     * @throws IOException if an error occurs
+     */
+    KnnVectorValues.DocIndexIterator iterator() throws IOException {
+      return loadVectorValues().iterator();
+    }
+
+    /**
+     * Score the vectors with ordinals in a range. This may be called concurrently for different
+     * ranges.
+     *
+     * @param startOrd first vector ordinal, inclusive
+     * @param endOrd last vector ordinal, exclusive
+     * @param scores array to receive the scores
+     * @param offset index in the scores array for the score of the first ordinal
+     * @throws IOException if an error occurs
+     */
+    abstract void score(int startOrd, int endOrd, float[] scores, int offset) throws IOException;
+
+    /**
+     * Create a scorer that only scores the documents it visits.
+     *
+     * @param boost scoring boost
+     * @return scorer
+     * @throws IOException if an error occurs
+     */
+    abstract Scorer scorer(float boost) throws IOException;
+  }
+
+  /** Scores a block of vectors by their ordinals. */
+  @FunctionalInterface
+  interface BlockScorer {
+    /**
+     * Score a block of vectors.
+     *
+     * @param ords vector ordinals
+     * @param count number of ordinals to score
+     * @param scores array to receive the score of each vector
+     * @throws IOException if an error occurs reading vectors
+     */
+    void score(int[] ords, int count, float[] scores) throws IOException;
+  }
+
+  /** Segment vectors for a raw vector format, which are scored in blocks. */
+  private abstract static class RawSegmentVectors extends SegmentVectors {
+
+    RawSegmentVectors(int size) {
+      super(size);
+    }
+
+    /**
+     * Create a scorer for blocks of vectors, which uses its own vector values.
+     *
+     * @return block scorer
+     * @throws IOException if an error occurs
+     */
+    abstract BlockScorer newBlockScorer() throws IOException;
+
+    @Override
+    void score(int startOrd, int endOrd, float[] scores, int offset) throws IOException {
+      BlockScorer blockScorer = newBlockScorer();
+      int[] ords = new int[BLOCK_SIZE];
+      float[] blockScores = new float[BLOCK_SIZE];
+      for (int ord = startOrd; ord < endOrd; ord += BLOCK_SIZE) {
+        int count = Math.min(BLOCK_SIZE, endOrd - ord);
+        for (int i = 0; i < count; ++i) {
+          ords[i] = ord + i;
+        }
+        blockScorer.score(ords, count, blockScores);
+        System.arraycopy(blockScores, 0, scores, offset + ord - startOrd, count);
+      }
+    }
+
+    @Override
+    Scorer scorer(float boost) throws IOException {
+      return new BlockVectorScorer(iterator(), newBlockScorer(), boost);
+    }
+  }
+
+  /** Segment vectors for a format that provides its own {@link VectorScorer}. */
+  private abstract static class FormatSegmentVectors extends SegmentVectors {
+
+    FormatSegmentVectors(int size) {
+      super(size);
+    }
+
+    /**
+     * Create the format scorer for the query vector.
+     *
+     * @param values vector values to score
+     * @return format vector scorer
+     * @throws IOException if an error occurs
+     */
+    abstract VectorScorer newVectorScorer(KnnVectorValues values) throws IOException;
+
+    @Override
+    void score(int startOrd, int endOrd, float[] scores, int offset) throws IOException {
+      KnnVectorValues vectorValues = loadVectorValues();
+      VectorScorer vectorScorer = newVectorScorer(vectorValues);
+      DocIdSetIterator iterator = vectorScorer.iterator();
+      // vector ordinals are assigned in doc id order
+      iterator.advance(vectorValues.ordToDoc(startOrd));
+      for (int i = offset; i < offset + endOrd - startOrd; ++i) {
+        if (i > offset) {
+          iterator.nextDoc();
+        }
+        scores[i] = vectorScorer.score();
+      }
+    }
+
+    @Override
+    Scorer scorer(float boost) throws IOException {
+      return new FormatVectorScorer(newVectorScorer(loadVectorValues()), boost);
+    }
+  }
+
   /**
-   * Scorer that scores documents based on the similarity of the document vector to the query
-   * vector.
+   * Scorer for raw vectors. Calls to {@link DocIdSetIterator#nextDoc()} read ahead a block of
+   * documents from the vector iterator and score them together. Calls to {@link
+   * DocIdSetIterator#advance(int)} past the current block only score the target document, when its
+   * score is requested.
    */
-  private static class VectorValuesScorer extends Scorer {
+  private static class BlockVectorScorer extends Scorer {
+    private final KnnVectorValues.DocIndexIterator vectorIterator;
+    private final BlockScorer blockScorer;
+    private final float boost;
+    private final int[] blockDocs = new int[BLOCK_SIZE];
+    private final int[] blockOrds = new int[BLOCK_SIZE];
+    private final float[] blockScores = new float[BLOCK_SIZE];
+    private final DocIdSetIterator iterator;
+    private int blockSize;
+    // index of the current doc in the block, or -1 if the vector iterator is on the current doc
+    private int blockIndex = -1;
+    private boolean vectorsExhausted;
+    private int doc = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param vectorIterator iterator over documents with a vector
+     * @param blockScorer scorer for blocks of vectors
+     * @param boost scoring boost
+     */
+    BlockVectorScorer(
+        KnnVectorValues.DocIndexIterator vectorIterator, BlockScorer blockScorer, float boost) {
+      this.vectorIterator = vectorIterator;
+      this.blockScorer = blockScorer;
+      this.boost = boost;
+      this.iterator =
+          new DocIdSetIterator() {
+            @Override
+            public int docID() {
+              return doc;
+            }
+
+            @Override
+            public int nextDoc() throws IOException {
+              if (blockIndex >= 0 && blockIndex + 1 < blockSize) {
+                blockIndex++;
+                return doc = blockDocs[blockIndex];
+              }
+              return nextBlock();
+            }
+
+            @Override
+            public int advance(int target) throws IOException {
+              if (blockIndex >= 0) {
+                while (++blockIndex < blockSize) {
+                  if (blockDocs[blockIndex] >= target) {
+                    return doc = blockDocs[blockIndex];
+                  }
+                }
+                blockIndex = -1;
+              }
+              if (vectorsExhausted) {
+                return doc = NO_MORE_DOCS;
+              }
+              doc = vectorIterator.advance(target);
+              vectorsExhausted = doc == NO_MORE_DOCS;
+              return doc;
+            }
+
+            @Override
+            public long cost() {
+              return vectorIterator.cost();
+            }
+          };
+    }
+
+    private int nextBlock() throws IOException {
+      blockIndex = -1;
+      blockSize = 0;
+      while (!vectorsExhausted && blockSize < BLOCK_SIZE) {
+        int nextDoc = vectorIterator.nextDoc();
+        if (nextDoc == DocIdSetIterator.NO_MORE_DOCS) {
+          vectorsExhausted = true;
+        } else {
+          blockDocs[blockSize] = nextDoc;
+          blockOrds[blockSize] = vectorIterator.index();
+          blockSize++;
+        }
+      }
+      if (blockSize == 0) {
+        return doc = DocIdSetIterator.NO_MORE_DOCS;
+      }
+      blockScorer.score(blockOrds, blockSize, blockScores);
+      blockIndex = 0;
+      return doc = blockDocs[0];
+    }
+
+    @Override
+    public DocIdSetIterator iterator() {
+      return iterator;
+    }
+
+    @Override
+    public float getMaxScore(int upTo) throws IOException {
+      return Float.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public float score() throws IOException {
+      if (blockIndex < 0) {
+        blockOrds[0] = vectorIterator.index();
+        blockScorer.score(blockOrds, 1, blockScores);
+        return blockScores[0] * boost;
+      }
+      return blockScores[blockIndex] * boost;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+  }
+
+  /** Scorer that scores each document with the {@link VectorScorer} of the vector format. */
+  private static class FormatVectorScorer extends Scorer {
     private final VectorScorer vectorScorer;
     private final DocIdSetIterator iterator;
     private final float boost;
@@ -145,7 +466,7 @@ public abstract class ExactVectorQuery extends Query {
      * @param vectorScorer the vector scorer to use
      * @param boost scoring boost
      */
-    protected VectorValuesScorer(VectorScorer vectorScorer, float boost) {
+    FormatVectorScorer(VectorScorer vectorScorer, float boost) {
       this.vectorScorer = vectorScorer;
       this.iterator = vectorScorer.iterator();
       this.boost = boost;
@@ -172,6 +493,219 @@ public abstract class ExactVectorQuery extends Query {
     }
   }
 
+  /** Scorer that returns scores computed ahead of time, indexed by vector ordinal. */
+  private static class PrecomputedScorer extends Scorer {
+    private final KnnVectorValues.DocIndexIterator iterator;
+    private final float boost;
+    private float[] scores;
+    private int startOrd;
+
+    PrecomputedScorer(KnnVectorValues.DocIndexIterator iterator, float boost) {
+      this.iterator = iterator;
+      this.boost = boost;
+    }
+
+    void setScores(float[] scores, int startOrd) {
+      this.scores = scores;
+      this.startOrd = startOrd;
+    }
+
+    @Override
+    public DocIdSetIterator iterator() {
+      return iterator;
+    }
+
+    @Override
+    public float getMaxScore(int upTo) throws IOException {
+      return Float.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public float score() throws IOException {
+      return scores[iterator.index() - startOrd] * boost;
+    }
+
+    @Override
+    public int docID() {
+      return iterator.docID();
+    }
+  }
+
+  /**
+   * Bulk scorer used when this query is the top level scoring clause. All vectors in the scored
+   * doc id range are scored before collection, split into partitions that are scored concurrently
+   * on the search executor.
+   */
+  private static class PartitionedBulkScorer extends BulkScorer {
+    private final SegmentVectors segmentVectors;
+    private final TaskExecutor taskExecutor;
+    private final PrecomputedScorer scorer;
+
+    PartitionedBulkScorer(SegmentVectors segmentVectors, float boost, TaskExecutor taskExecutor)
+        throws IOException {
+      this.segmentVectors = segmentVectors;
+      this.taskExecutor = taskExecutor;
+      this.scorer = new PrecomputedScorer(segmentVectors.iterator(), boost);
+    }
+
+    @Override
+    public int score(LeafCollector collector, Bits acceptDocs, int min, int max)
+        throws IOException {
+      KnnVectorValues.DocIndexIterator iterator = scorer.iterator;
+      int doc = iterator.docID();
+      if (doc < min) {
+        doc = iterator.advance(min);
+      }
+      if (doc >= max) {
+        return doc;
+      }
+      int startOrd = iterator.index();
+      int endOrd = segmentVectors.size();
+      if (max != DocIdSetIterator.NO_MORE_DOCS) {
+        KnnVectorValues.DocIndexIterator endIterator = segmentVectors.iterator();
+        if (endIterator.advance(max) != DocIdSetIterator.NO_MORE_DOCS) {
+          endOrd = endIterator.index();
+        }
+      }
+      scorer.setScores(scoreRange(startOrd, endOrd), startOrd);
+
+      collector.setScorer(scorer);
+      while (doc < max) {
+        if (acceptDocs == null || acceptDocs.get(doc)) {
+          collector.collect(doc);
+        }
+        doc = iterator.nextDoc();
+      }
+      return doc;
+    }
+
+    private float[] scoreRange(int startOrd, int endOrd) throws IOException {
+      int numVectors = endOrd - startOrd;
+      float[] scores = new float[numVectors];
+      int numPartitions =
+          Math.max(1, Math.min(numVectors / MIN_PARTITION_VECTORS, MAX_PARTITIONS));
+      List<Callable<Void>> tasks = new ArrayList<>(numPartitions);
+      for (int i = 0; i < numPartitions; ++i) {
+        int partitionStart = startOrd + (int) ((long) numVectors * i / numPartitions);
+        int partitionEnd = startOrd + (int) ((long) numVectors * (i + 1) / numPartitions);
+        tasks.add(
+            () -> {
+              segmentVectors.score(partitionStart, partitionEnd, scores, partitionStart - startOrd);
+              return null;
+            });
+      }
+      taskExecutor.invokeAll(tasks);
+      return scores;
+    }
+
+    @Override
+    public long cost() {
+      return segmentVectors.size();
+    }
+  }
+
+  /**
+   * Get the vectors of a float vector field.
+   *
+   * @param reader segment reader
+   * @param field vector field
+   * @param queryVector query vector
+   * @return segment vectors, or null if the segment has no vectors for the field
+   * @throws IOException if an error occurs
+   */
+  static SegmentVectors floatSegmentVectors(LeafReader reader, String field, float[] queryVector)
+      throws IOException {
+    FloatVectorValues vectorValues = reader.getFloatVectorValues(field);
+    if (vectorValues == null) {
+      return null;
+    }
+    FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+    if (!isRawVectorsFormat(fieldInfo)) {
+      return new FormatSegmentVectors(vectorValues.size()) {
+        @Override
+        KnnVectorValues loadVectorValues() throws IOException {
+          return reader.getFloatVectorValues(field);
+        }
+
+        @Override
+        VectorScorer newVectorScorer(KnnVectorValues values) throws IOException {
+          return ((FloatVectorValues) values).scorer(queryVector);
+        }
+      };
+    }
+    VectorSimilarityFunction similarityFunction = fieldInfo.getVectorSimilarityFunction();
+    return new RawSegmentVectors(vectorValues.size()) {
+      @Override
+      KnnVectorValues loadVectorValues() throws IOException {
+        return reader.getFloatVectorValues(field);
+      }
+
+      @Override
+      BlockScorer newBlockScorer() throws IOException {
+        FloatVectorValues blockValues = reader.getFloatVectorValues(field);
+        int dims = queryVector.length;
+        float[] vectors = new float[BLOCK_SIZE * dims];
+        return (ords, count, scores) -> {
+          for (int i = 0; i < count; ++i) {
+            System.arraycopy(blockValues.vectorValue(ords[i]), 0, vectors, i * dims, dims);
+          }
+          BLOCK_SIMILARITY.compare(similarityFunction, queryVector, vectors, count, scores);
+        };
+      }
+    };
+  }
+
+  /**
+   * Get the vectors of a byte vector field.
+   *
+   * @param reader segment reader
+   * @param field vector field
+   * @param queryVector query vector
+   * @return segment vectors, or null if the segment has no vectors for the field
+   * @throws IOException if an error occurs
+   */
+  static SegmentVectors byteSegmentVectors(LeafReader reader, String field, byte[] queryVector)
+      throws IOException {
+    ByteVectorValues vectorValues = reader.getByteVectorValues(field);
+    if (vectorValues == null) {
+      return null;
+    }
+    FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+    if (!isRawVectorsFormat(fieldInfo)) {
+      return new FormatSegmentVectors(vectorValues.size()) {
+        @Override
+        KnnVectorValues loadVectorValues() throws IOException {
+          return reader.getByteVectorValues(field);
+        }
+
+        @Override
+        VectorScorer newVectorScorer(KnnVectorValues values) throws IOException {
+          return ((ByteVectorValues) values).scorer(queryVector);
+        }
+      };
+    }
+    VectorSimilarityFunction similarityFunction = fieldInfo.getVectorSimilarityFunction();
+    return new RawSegmentVectors(vectorValues.size()) {
+      @Override
+      KnnVectorValues loadVectorValues() throws IOException {
+        return reader.getByteVectorValues(field);
+      }
+
+      @Override
+      BlockScorer newBlockScorer() throws IOException {
+        ByteVectorValues blockValues = reader.getByteVectorValues(field);
+        int dims = queryVector.length;
+        byte[] vectors = new byte[BLOCK_SIZE * dims];
+        return (ords, count, scores) -> {
+          for (int i = 0; i < count; ++i) {
+            System.arraycopy(blockValues.vectorValue(ords[i]), 0, vectors, i * dims, dims);
+          }
+          BLOCK_SIMILARITY.compare(similarityFunction, queryVector, vectors, count, scores);
+        };
+      }
+    };
+  }
+
   /**
    * Query that does a brute force search to find documents with the best similarity to the query
    * vector, for fields using the float element type.
@@ -186,10 +720,15 @@ public abstract class ExactVectorQuery extends Query {
      * @param queryVector the query vector
      */
     public ExactFloatVectorQuery(String field, float[] queryVector) {
-      super(field, reader -> reader.getFloatVectorValues(field).scorer(queryVector));
+      super(field);
       this.queryVector = queryVector;
     }
 
+    @Override
+    SegmentVectors getSegmentVectors(LeafReader reader) throws IOException {
+      return floatSegmentVectors(reader, field, queryVector);
+    }
+
     @Override
     public String toString(String field) {
       return "ExactFloatVectorQuery";
@@ -232,10 +771,15 @@ public abstract class ExactVectorQuery extends Query {
      * @param queryVector the query vector
      */
     public ExactByteVectorQuery(String field, byte[] queryVector) {
-      super(field, reader -> reader.getByteVectorValues(field).scorer(queryVector));
+      super(field);
       this.queryVector = queryVector;
     }
 
+    @Override
+    SegmentVectors getSegmentVectors(LeafReader reader) throws IOException {
+      return byteSegmentVectors(reader, field, queryVector);
+    }
+
     @Override
     public String toString(String field) {
       return "ExactByteVectorQuery";
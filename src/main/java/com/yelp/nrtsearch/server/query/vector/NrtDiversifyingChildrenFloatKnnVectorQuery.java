@@ -15,6 +15,9 @@
  */
 package com.yelp.nrtsearch.server.query.vector;
 
+import java.io.IOException;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHits;
@@ -25,11 +28,17 @@ import org.apache.lucene.search.join.DiversifyingChildrenFloatKnnVectorQuery;
  * A {@link DiversifyingChildrenFloatKnnVectorQuery} that has its functionality slightly modified.
  * The {@link TotalHits} from the vector search are available after the query has been rewritten
  * using the {@link WithVectorTotalHits} interface. The results merging has also been modified to
- * produce the top k hits from the top numCandidates hits from each leaf.
+ * produce the top k hits from the top numCandidates hits from each leaf. When rescoring is enabled,
+ * the top numCandidates hits are re-ranked with the full precision vectors before selecting the
+ * top k.
  */
 public class NrtDiversifyingChildrenFloatKnnVectorQuery
     extends DiversifyingChildrenFloatKnnVectorQuery implements WithVectorTotalHits {
+  private final float[] target;
   private final int topHits;
+  private final int numCandidates;
+  private final boolean rescore;
+  private IndexReader reader;
   private TotalHits totalHits;
 
   public NrtDiversifyingChildrenFloatKnnVectorQuery(
@@ -39,8 +48,34 @@ public class NrtDiversifyingChildrenFloatKnnVectorQuery
       int k,
       int numCandidates,
       BitSetProducer parentsFilter) {
+    this(field, target, filter, k, numCandidates, parentsFilter, false);
+  }
+
+  public NrtDiversifyingChildrenFloatKnnVectorQuery(
+      String field,
+      float[] target,
+      Query filter,
+      int k,
+      int numCandidates,
+      BitSetProducer parentsFilter,
+      boolean rescore) {
     super(field, target, filter, numCandidates, parentsFilter);
+    this.target = target;
     this.topHits = k;
+    this.numCandidates = numCandidates;
+    this.rescore = rescore;
+  }
+
+  /** Get if the top candidates are rescored with full precision vectors. */
+  public boolean isRescore() {
+    return rescore;
+  }
+
+  @Override
+  public Query rewrite(IndexSearcher indexSearcher) throws IOException {
+    // reader is needed to access the full precision vectors when merging results
+    reader = indexSearcher.getIndexReader();
+    return super.rewrite(indexSearcher);
   }
 
   @Override
@@ -50,7 +85,17 @@ public class NrtDiversifyingChildrenFloatKnnVectorQuery
 
   @Override
   protected TopDocs mergeLeafResults(TopDocs[] perLeafResults) {
-    TopDocs topDocs = TopDocs.merge(topHits, perLeafResults);
+    TopDocs topDocs;
+    if (rescore) {
+      TopDocs candidates = TopDocs.merge(numCandidates, perLeafResults);
+      try {
+        topDocs = VectorRescorer.rescore(reader, field, target, candidates, topHits);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    } else {
+      topDocs = TopDocs.merge(topHits, perLeafResults);
+    }
     totalHits = topDocs.totalHits;
     return topDocs;
   }
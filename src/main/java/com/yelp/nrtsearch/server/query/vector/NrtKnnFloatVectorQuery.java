@@ -15,6 +15,9 @@
  */
 package com.yelp.nrtsearch.server.query.vector;
 
+import java.io.IOException;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.KnnFloatVectorQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TopDocs;
@@ -24,10 +27,15 @@ import org.apache.lucene.search.TotalHits;
  * A {@link KnnFloatVectorQuery} that has its functionality slightly modified. The {@link TotalHits}
  * from the vector search are available after the query has been rewritten using the {@link
  * WithVectorTotalHits} interface. The results merging has also been modified to produce the top k
- * hits from the top numCandidates hits from each leaf.
+ * hits from the top numCandidates hits from each leaf. When rescoring is enabled, the top
+ * numCandidates hits are re-ranked with the full precision vectors before selecting the top k.
  */
 public class NrtKnnFloatVectorQuery extends KnnFloatVectorQuery implements WithVectorTotalHits {
+  private final float[] target;
   private final int topHits;
+  private final int numCandidates;
+  private final boolean rescore;
+  private IndexReader reader;
   private TotalHits totalHits;
 
   /**
@@ -41,8 +49,38 @@ public class NrtKnnFloatVectorQuery extends KnnFloatVectorQuery implements WithV
    */
   public NrtKnnFloatVectorQuery(
       String field, float[] target, int k, Query filter, int numCandidates) {
+    this(field, target, k, filter, numCandidates, false);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param field field name
+   * @param target query vector
+   * @param k number of top hits to return
+   * @param filter filter to use for vector search, or null
+   * @param numCandidates number of candidates to retrieve from each leaf
+   * @param rescore if the top numCandidates hits should be rescored with full precision vectors
+   */
+  public NrtKnnFloatVectorQuery(
+      String field, float[] target, int k, Query filter, int numCandidates, boolean rescore) {
     super(field, target, numCandidates, filter);
+    this.target = target;
     this.topHits = k;
+    this.numCandidates = numCandidates;
+    this.rescore = rescore;
+  }
+
+  /** Get if the top candidates are rescored with full precision vectors. */
+  public boolean isRescore() {
+    return rescore;
+  }
+
+  @Override
+  public Query rewrite(IndexSearcher indexSearcher) throws IOException {
+    // reader is needed to access the full precision vectors when merging results
+    reader = indexSearcher.getIndexReader();
+    return super.rewrite(indexSearcher);
   }
 
   @Override
@@ -52,7 +90,17 @@ public class NrtKnnFloatVectorQuery extends KnnFloatVectorQuery implements WithV
 
   @Override
   protected TopDocs mergeLeafResults(TopDocs[] perLeafResults) {
-    TopDocs topDocs = TopDocs.merge(topHits, perLeafResults);
+    TopDocs topDocs;
+    if (rescore) {
+      TopDocs candidates = TopDocs.merge(numCandidates, perLeafResults);
+      try {
+        topDocs = VectorRescorer.rescore(reader, field, target, candidates, topHits);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    } else {
+      topDocs = TopDocs.merge(topHits, perLeafResults);
+    }
     totalHits = topDocs.totalHits;
     return topDocs;
   }
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.query.vector;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link VectorBlockSimilarity} implemented with the JDK vector API. Float dot products and
+ * distances are computed for groups of vectors at a time, so that each load of the query is shared
+ * by the group. Byte vectors are widened to ints, with the query widened once per block. This class
+ * must only be loaded when the jdk.incubator.vector module is enabled.
+ */
+final class PanamaVectorBlockSimilarity extends ScalarVectorBlockSimilarity {
+  private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+  // one byte lane for each int lane, there is no byte vector shape smaller than 64 bits
+  private static final VectorSpecies<Byte> BYTE_SPECIES =
+      INT_SPECIES.length() >= 8
+          ? VectorSpecies.of(byte.class, VectorShape.forBitSize(INT_SPECIES.length() * Byte.SIZE))
+          : null;
+  // number of vectors scored together in a pass over the query
+  private static final int GROUP_SIZE = 4;
+
+  /** Get if the platform has vector registers wide enough to be faster than scalar code. */
+  static boolean isSupported() {
+    return FLOAT_SPECIES.length() >= 4;
+  }
+
+  @Override
+  void dotProducts(float[] query, float[] vectors, int count, float[] results) {
+    int dims = query.length;
+    int bound = FLOAT_SPECIES.loopBound(dims);
+    int v = 0;
+    for (; v + GROUP_SIZE <= count; v += GROUP_SIZE) {
+      int offset0 = v * dims;
+      int offset1 = offset0 + dims;
+      int offset2 = offset1 + dims;
+      int offset3 = offset2 + dims;
+      FloatVector acc0 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc1 = acc0;
+      FloatVector acc2 = acc0;
+      FloatVector acc3 = acc0;
+      for (int i = 0; i < bound; i += FLOAT_SPECIES.length()) {
+        FloatVector q = FloatVector.fromArray(FLOAT_SPECIES, query, i);
+        acc0 = acc0.add(q.mul(FloatVector.fromArray(FLOAT_SPECIES, vectors, offset0 + i)));
+        acc1 = acc1.add(q.mul(FloatVector.fromArray(FLOAT_SPECIES, vectors, offset1 + i)));
+        acc2 = acc2.add(q.mul(FloatVector.fromArray(FLOAT_SPECIES, vectors, offset2 + i)));
+        acc3 = acc3.add(q.mul(FloatVector.fromArray(FLOAT_SPECIES, vectors, offset3 + i)));
+      }
+      results[v] =
+          acc0.reduceLanes(VectorOperators.ADD) + dotProduct(query, vectors, offset0, bound);
+      results[v + 1] =
+          acc1.reduceLanes(VectorOperators.ADD) + dotProduct(query, vectors, offset1, bound);
+      results[v + 2] =
+          acc2.reduceLanes(VectorOperators.ADD) + dotProduct(query, vectors, offset2, bound);
+      results[v + 3] =
+          acc3.reduceLanes(VectorOperators.ADD) + dotProduct(query, vectors, offset3, bound);
+    }
+    for (; v < count; ++v) {
+      results[v] = dotProduct(query, vectors, v * dims);
+    }
+  }
+
+  @Override
+  void squareDistances(float[] query, float[] vectors, int count, float[] results) {
+    int dims = query.length;
+    int bound = FLOAT_SPECIES.loopBound(dims);
+    int v = 0;
+    for (; v + GROUP_SIZE <= count; v += GROUP_SIZE) {
+      int offset0 = v * dims;
+      int offset1 = offset0 + dims;
+      int offset2 = offset1 + dims;
+      int offset3 = offset2 + dims;
+      FloatVector acc0 = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector acc1 = acc0;
+      FloatVector acc2 = acc0;
+      FloatVector acc3 = acc0;
+      for (int i = 0; i < bound; i += FLOAT_SPECIES.length()) {
+        FloatVector q = FloatVector.fromArray(FLOAT_SPECIES, query, i);
+        FloatVector diff0 = q.sub(FloatVector.fromArray(FLOAT_SPECIES, vectors, offset0 + i));
+        FloatVector diff1 = q.sub(FloatVector.fromArray(FLOAT_SPECIES, vectors, offset1 + i));
+        FloatVector diff2 = q.sub(FloatVector.fromArray(FLOAT_SPECIES, vectors, offset2 + i));
+        FloatVector diff3 = q.sub(FloatVector.fromArray(FLOAT_SPECIES, vectors, offset3 + i));
+        acc0 = acc0.add(diff0.mul(diff0));
+        acc1 = acc1.add(diff1.mul(diff1));
+        acc2 = acc2.add(diff2.mul(diff2));
+        acc3 = acc3.add(diff3.mul(diff3));
+      }
+      results[v] =
+          acc0.reduceLanes(VectorOperators.ADD) + squareDistance(query, vectors, offset0, bound);
+      results[v + 1] =
+          acc1.reduceLanes(VectorOperators.ADD) + squareDistance(query, vectors, offset1, bound);
+      results[v + 2] =
+          acc2.reduceLanes(VectorOperators.ADD) + squareDistance(query, vectors, offset2, bound);
+      results[v + 3] =
+          acc3.reduceLanes(VectorOperators.ADD) + squareDistance(query, vectors, offset3, bound);
+    }
+    for (; v < count; ++v) {
+      results[v] = squareDistance(query, vectors, v * dims);
+    }
+  }
+
+  @Override
+  void cosines(float[] query, float[] vectors, int count, float[] results) {
+    int dims = query.length;
+    int bound = FLOAT_SPECIES.loopBound(dims);
+    float queryNorm = dotProduct(query, query, 0);
+    for (int v = 0; v < count; ++v) {
+      int offset = v * dims;
+      FloatVector sumAcc = FloatVector.zero(FLOAT_SPECIES);
+      FloatVector normAcc = sumAcc;
+      for (int i = 0; i < bound; i += FLOAT_SPECIES.length()) {
+        FloatVector q = FloatVector.fromArray(FLOAT_SPECIES, query, i);
+        FloatVector d = FloatVector.fromArray(FLOAT_SPECIES, vectors, offset + i);
+        sumAcc = sumAcc.add(q.mul(d));
+        normAcc = normAcc.add(d.mul(d));
+      }
+      float sum =
+          sumAcc.reduceLanes(VectorOperators.ADD) + dotProduct(query, vectors, offset, bound);
+      float norm =
+          normAcc.reduceLanes(VectorOperators.ADD) + squareNorm(vectors, offset, dims, bound);
+      results[v] = cosine(sum, queryNorm, norm);
+    }
+  }
+
+  @Override
+  void dotProducts(byte[] query, byte[] vectors, int count, float[] results) {
+    if (BYTE_SPECIES == null) {
+      super.dotProducts(query, vectors, count, results);
+      return;
+    }
+    int[] queryInts = widen(query);
+    for (int v = 0; v < count; ++v) {
+      results[v] = dotProduct(queryInts, query, vectors, v * query.length);
+    }
+  }
+
+  @Override
+  void squareDistances(byte[] query, byte[] vectors, int count, float[] results) {
+    if (BYTE_SPECIES == null) {
+      super.squareDistances(query, vectors, count, results);
+      return;
+    }
+    int[] queryInts = widen(query);
+    int bound = BYTE_SPECIES.loopBound(query.length);
+    for (int v = 0; v < count; ++v) {
+      int offset = v * query.length;
+      IntVector acc = IntVector.zero(INT_SPECIES);
+      for (int i = 0; i < bound; i += BYTE_SPECIES.length()) {
+        IntVector diff =
+            IntVector.fromArray(INT_SPECIES, queryInts, i).sub(load(vectors, offset + i));
+        acc = acc.add(diff.mul(diff));
+      }
+      results[v] =
+          acc.reduceLanes(VectorOperators.ADD) + squareDistance(query, vectors, offset, bound);
+    }
+  }
+
+  @Override
+  void cosines(byte[] query, byte[] vectors, int count, float[] results) {
+    if (BYTE_SPECIES == null) {
+      super.cosines(query, vectors, count, results);
+      return;
+    }
+    int dims = query.length;
+    int[] queryInts = widen(query);
+    int queryNorm = dotProduct(queryInts, query, query, 0);
+    int bound = BYTE_SPECIES.loopBound(dims);
+    for (int v = 0; v < count; ++v) {
+      int offset = v * dims;
+      IntVector sumAcc = IntVector.zero(INT_SPECIES);
+      IntVector normAcc = sumAcc;
+      for (int i = 0; i < bound; i += BYTE_SPECIES.length()) {
+        IntVector d = load(vectors, offset + i);
+        sumAcc = sumAcc.add(IntVector.fromArray(INT_SPECIES, queryInts, i).mul(d));
+        normAcc = normAcc.add(d.mul(d));
+      }
+      int sum =
+          sumAcc.reduceLanes(VectorOperators.ADD) + dotProduct(query, vectors, offset, bound);
+      int norm =
+          normAcc.reduceLanes(VectorOperators.ADD) + squareNorm(vectors, offset, dims, bound);
+      results[v] = cosine(sum, queryNorm, norm);
+    }
+  }
+
+  private static float dotProduct(float[] query, float[] vectors, int offset) {
+    int bound = FLOAT_SPECIES.loopBound(query.length);
+    FloatVector acc = FloatVector.zero(FLOAT_SPECIES);
+    for (int i = 0; i < bound; i += FLOAT_SPECIES.length()) {
+      FloatVector q = FloatVector.fromArray(FLOAT_SPECIES, query, i);
+      acc = acc.add(q.mul(FloatVector.fromArray(FLOAT_SPECIES, vectors, offset + i)));
+    }
+    return acc.reduceLanes(VectorOperators.ADD) + dotProduct(query, vectors, offset, bound);
+  }
+
+  private static float squareDistance(float[] query, float[] vectors, int offset) {
+    int bound = FLOAT_SPECIES.loopBound(query.length);
+    FloatVector acc = FloatVector.zero(FLOAT_SPECIES);
+    for (int i = 0; i < bound; i += FLOAT_SPECIES.length()) {
+      FloatVector q = FloatVector.fromArray(FLOAT_SPECIES, query, i);
+      FloatVector diff = q.sub(FloatVector.fromArray(FLOAT_SPECIES, vectors, offset + i));
+      acc = acc.add(diff.mul(diff));
+    }
+    return acc.reduceLanes(VectorOperators.ADD) + squareDistance(query, vectors, offset, bound);
+  }
+
+  private static int dotProduct(int[] queryInts, byte[] query, byte[] vectors, int offset) {
+    int bound = BYTE_SPECIES.loopBound(query.length);
+    IntVector acc = IntVector.zero(INT_SPECIES);
+    for (int i = 0; i < bound; i += BYTE_SPECIES.length()) {
+      acc = acc.add(IntVector.fromArray(INT_SPECIES, queryInts, i).mul(load(vectors, offset + i)));
+    }
+    return acc.reduceLanes(VectorOperators.ADD) + dotProduct(query, vectors, offset, bound);
+  }
+
+  private static IntVector load(byte[] vectors, int offset) {
+    return (IntVector)
+        ByteVector.fromArray(BYTE_SPECIES, vectors, offset)
+            .convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+  }
+
+  private static int[] widen(byte[] query) {
+    int[] queryInts = new int[query.length];
+    for (int i = 0; i < query.length; ++i) {
+      queryInts[i] = query[i];
+    }
+    return queryInts;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.query.vector;
+
+/**
+ * {@link VectorBlockSimilarity} implemented with scalar code, used when the JDK vector API is not
+ * available. The static methods compute the similarity of a single vector from a given dimension,
+ * so that they may also be used for the tail of vectorized loops.
+ */
+class ScalarVectorBlockSimilarity extends VectorBlockSimilarity {
+
+  @Override
+  void dotProducts(float[] query, float[] vectors, int count, float[] results) {
+    for (int i = 0; i < count; ++i) {
+      results[i] = dotProduct(query, vectors, i * query.length, 0);
+    }
+  }
+
+  @Override
+  void squareDistances(float[] query, float[] vectors, int count, float[] results) {
+    for (int i = 0; i < count; ++i) {
+      results[i] = squareDistance(query, vectors, i * query.length, 0);
+    }
+  }
+
+  @Override
+  void cosines(float[] query, float[] vectors, int count, float[] results) {
+    float queryNorm = dotProduct(query, query, 0, 0);
+    for (int i = 0; i < count; ++i) {
+      int offset = i * query.length;
+      float sum = dotProduct(query, vectors, offset, 0);
+      float norm = squareNorm(vectors, offset, query.length, 0);
+      results[i] = cosine(sum, queryNorm, norm);
+    }
+  }
+
+  @Override
+  void dotProducts(byte[] query, byte[] vectors, int count, float[] results) {
+    for (int i = 0; i < count; ++i) {
+      results[i] = dotProduct(query, vectors, i * query.length, 0);
+    }
+  }
+
+  @Override
+  void squareDistances(byte[] query, byte[] vectors, int count, float[] results) {
+    for (int i = 0; i < count; ++i) {
+      results[i] = squareDistance(query, vectors, i * query.length, 0);
+    }
+  }
+
+  @Override
+  void cosines(byte[] query, byte[] vectors, int count, float[] results) {
+    int queryNorm = dotProduct(query, query, 0, 0);
+    for (int i = 0; i < count; ++i) {
+      int offset = i * query.length;
+      int sum = dotProduct(query, vectors, offset, 0);
+      int norm = squareNorm(vectors, offset, query.length, 0);
+      results[i] = cosine(sum, queryNorm, norm);
+    }
+  }
+
+  /** Dot product of the query and the vector at the offset, from the start dimension. */
+  static float dotProduct(float[] query, float[] vectors, int offset, int start) {
+    float sum = 0;
+    for (int i = start; i < query.length; ++i) {
+      sum += query[i] * vectors[offset + i];
+    }
+    return sum;
+  }
+
+  /** Squared distance of the query to the vector at the offset, from the start dimension. */
+  static float squareDistance(float[] query, float[] vectors, int offset, int start) {
+    float sum = 0;
+    for (int i = start; i < query.length; ++i) {
+      float diff = query[i] - vectors[offset + i];
+      sum += diff * diff;
+    }
+    return sum;
+  }
+
+  /** Squared norm of the vector at the offset, from the start dimension. */
+  static float squareNorm(float[] vectors, int offset, int dims, int start) {
+    float sum = 0;
+    for (int i = start; i < dims; ++i) {
+      sum += vectors[offset + i] * vectors[offset + i];
+    }
+    return sum;
+  }
+
+  /** Dot product of the query and the vector at the offset, from the start dimension. */
+  static int dotProduct(byte[] query, byte[] vectors, int offset, int start) {
+    int sum = 0;
+    for (int i = start; i < query.length; ++i) {
+      sum += query[i] * vectors[offset + i];
+    }
+    return sum;
+  }
+
+  /** Squared distance of the query to the vector at the offset, from the start dimension. */
+  static int squareDistance(byte[] query, byte[] vectors, int offset, int start) {
+    int sum = 0;
+    for (int i = start; i < query.length; ++i) {
+      int diff = query[i] - vectors[offset + i];
+      sum += diff * diff;
+    }
+    return sum;
+  }
+
+  /** Squared norm of the vector at the offset, from the start dimension. */
+  static int squareNorm(byte[] vectors, int offset, int dims, int start) {
+    int sum = 0;
+    for (int i = start; i < dims; ++i) {
+      sum += vectors[offset + i] * vectors[offset + i];
+    }
+    return sum;
+  }
+
+  /** Cosine from the dot product and the squared norms, computed the same way as lucene. */
+  static float cosine(float sum, float queryNorm, float norm) {
+    return (float) (sum / Math.sqrt((double) queryNorm * (double) norm));
+  }
+
+  /** Cosine from the dot product and the squared norms, computed the same way as lucene. */
+  static float cosine(int sum, int queryNorm, int norm) {
+    return (float) (sum / Math.sqrt((double) queryNorm * (double) norm));
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.query.vector;
+
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.util.VectorUtil;
+
+/**
+ * Computes the similarity of a query vector to a block of document vectors. The vectors of a block
+ * are packed one after another in a single array. Scores are computed the same way as by the
+ * {@link VectorSimilarityFunction}. Byte vector scores are identical, float vector scores may differ
+ * in the last bits, since the products are summed in a different order.
+ *
+ * <p>The JDK vector API implementation is used when the jdk.incubator.vector module is enabled, and
+ * the scalar implementation otherwise.
+ */
+abstract class VectorBlockSimilarity {
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+  private static final VectorBlockSimilarity INSTANCE = createInstance();
+
+  /** Get the implementation to use for this jvm. */
+  static VectorBlockSimilarity getInstance() {
+    return INSTANCE;
+  }
+
+  private static VectorBlockSimilarity createInstance() {
+    if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+      try {
+        if (PanamaVectorBlockSimilarity.isSupported()) {
+          return new PanamaVectorBlockSimilarity();
+        }
+      } catch (LinkageError ignored) {
+        // vector api not usable, fall back to scalar code
+      }
+    }
+    return new ScalarVectorBlockSimilarity();
+  }
+
+  /**
+   * Compute the similarity scores of a query vector to a block of float vectors.
+   *
+   * @param similarityFunction field similarity function
+   * @param query query vector
+   * @param vectors block of vectors, each with the same length as the query
+   * @param count number of vectors in the block
+   * @param scores array to receive the score of each vector
+   */
+  final void compare(
+      VectorSimilarityFunction similarityFunction,
+      float[] query,
+      float[] vectors,
+      int count,
+      float[] scores) {
+    switch (similarityFunction) {
+      case EUCLIDEAN -> {
+        squareDistances(query, vectors, count, scores);
+        for (int i = 0; i < count; ++i) {
+          scores[i] = 1 / (1 + scores[i]);
+        }
+      }
+      case DOT_PRODUCT -> {
+        dotProducts(query, vectors, count, scores);
+        for (int i = 0; i < count; ++i) {
+          scores[i] = Math.max((1 + scores[i]) / 2, 0);
+        }
+      }
+      case COSINE -> {
+        cosines(query, vectors, count, scores);
+        for (int i = 0; i < count; ++i) {
+          scores[i] = Math.max((1 + scores[i]) / 2, 0);
+        }
+      }
+      case MAXIMUM_INNER_PRODUCT -> {
+        dotProducts(query, vectors, count, scores);
+        for (int i = 0; i < count; ++i) {
+          scores[i] = VectorUtil.scaleMaxInnerProductScore(scores[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute the similarity scores of a query vector to a block of byte vectors.
+   *
+   * @param similarityFunction field similarity function
+   * @param query query vector
+   * @param vectors block of vectors, each with the same length as the query
+   * @param count number of vectors in the block
+   * @param scores array to receive the score of each vector
+   */
+  final void compare(
+      VectorSimilarityFunction similarityFunction,
+      byte[] query,
+      byte[] vectors,
+      int count,
+      float[] scores) {
+    switch (similarityFunction) {
+      case EUCLIDEAN -> {
+        squareDistances(query, vectors, count, scores);
+        for (int i = 0; i < count; ++i) {
+          scores[i] = 1 / (1f + scores[i]);
+        }
+      }
+      case DOT_PRODUCT -> {
+        dotProducts(query, vectors, count, scores);
+        // divide by the maximum absolute value of the dot product
+        float denom = (float) (query.length * (1 << 15));
+        for (int i = 0; i < count; ++i) {
+          scores[i] = 0.5f + scores[i] / denom;
+        }
+      }
+      case COSINE -> {
+        cosines(query, vectors, count, scores);
+        for (int i = 0; i < count; ++i) {
+          scores[i] = (1 + scores[i]) / 2;
+        }
+      }
+      case MAXIMUM_INNER_PRODUCT -> {
+        dotProducts(query, vectors, count, scores);
+        for (int i = 0; i < count; ++i) {
+          scores[i] = VectorUtil.scaleMaxInnerProductScore(scores[i]);
+        }
+      }
+    }
+  }
+
+  /** Compute the dot product of the query with each vector in the block. */
+  abstract void dotProducts(float[] query, float[] vectors, int count, float[] results);
+
+  /** Compute the squared euclidean distance of the query to each vector in the block. */
+  abstract void squareDistances(float[] query, float[] vectors, int count, float[] results);
+
+  /** Compute the cosine of the angle between the query and each vector in the block. */
+  abstract void cosines(float[] query, float[] vectors, int count, float[] results);
+
+  /** Compute the dot product of the query with each vector in the block. */
+  abstract void dotProducts(byte[] query, byte[] vectors, int count, float[] results);
+
+  /** Compute the squared euclidean distance of the query to each vector in the block. */
+  abstract void squareDistances(byte[] query, byte[] vectors, int count, float[] results);
+
+  /** Compute the cosine of the angle between the query and each vector in the block. */
+  abstract void cosines(byte[] query, byte[] vectors, int count, float[] results);
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.query.vector;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.lucene.index.FloatVectorValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.KnnVectorValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+
+/**
+ * Utility to re-rank vector search candidates using the full precision vectors of a field. When a
+ * field is indexed with quantized vectors, the graph search similarity is only an approximation.
+ * Rescoring the top candidates with the original vectors recovers most of the lost accuracy, while
+ * only reading the vectors of the candidate documents.
+ */
+public class VectorRescorer {
+  private static final Comparator<ScoreDoc> SCORE_ORDER =
+      Comparator.comparingDouble((ScoreDoc scoreDoc) -> scoreDoc.score)
+          .reversed()
+          .thenComparingInt(scoreDoc -> scoreDoc.doc);
+
+  private VectorRescorer() {}
+
+  /**
+   * Rescore candidate hits of a float vector field using the full precision similarity to the query
+   * vector, and select the top k.
+   *
+   * @param reader index reader the candidates are from
+   * @param field vector field
+   * @param queryVector query vector
+   * @param candidates candidate hits, with index level doc ids
+   * @param k number of top hits to keep
+   * @return top k rescored hits, with the total hits of the candidates
+   * @throws IOException on error reading vectors
+   */
+  public static TopDocs rescore(
+      IndexReader reader, String field, float[] queryVector, TopDocs candidates, int k)
+      throws IOException {
+    ScoreDoc[] scoreDocs = candidates.scoreDocs.clone();
+    // score candidates in doc id order, so that each segment vector iterator only moves forward
+    Arrays.sort(scoreDocs, Comparator.comparingInt(scoreDoc -> scoreDoc.doc));
+
+    List<LeafReaderContext> leaves = reader.leaves();
+    int start = 0;
+    while (start < scoreDocs.length) {
+      LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(scoreDocs[start].doc, leaves));
+      int leafEnd = leaf.docBase + leaf.reader().maxDoc();
+      int end = start + 1;
+      while (end < scoreDocs.length && scoreDocs[end].doc < leafEnd) {
+        end++;
+      }
+      rescoreLeaf(leaf, field, queryVector, scoreDocs, start, end);
+      start = end;
+    }
+
+    Arrays.sort(scoreDocs, SCORE_ORDER);
+    ScoreDoc[] topDocs = Arrays.copyOf(scoreDocs, Math.min(k, scoreDocs.length));
+    return new TopDocs(candidates.totalHits, topDocs);
+  }
+
+  private static void rescoreLeaf(
+      LeafReaderContext leaf,
+      String field,
+      float[] queryVector,
+      ScoreDoc[] scoreDocs,
+      int start,
+      int end)
+      throws IOException {
+    FloatVectorValues vectorValues = leaf.reader().getFloatVectorValues(field);
+    if (vectorValues == null) {
+      throw new IllegalStateException("No vectors for field " + field + " in segment with hits");
+    }
+    // the raw vector values are full precision, even when the format also stores quantized vectors
+    VectorSimilarityFunction similarityFunction =
+        leaf.reader().getFieldInfos().fieldInfo(field).getVectorSimilarityFunction();
+    KnnVectorValues.DocIndexIterator iterator = vectorValues.iterator();
+    for (int i = start; i < end; ++i) {
+      ScoreDoc scoreDoc = scoreDocs[i];
+      int leafDoc = scoreDoc.doc - leaf.docBase;
+      if (iterator.advance(leafDoc) != leafDoc) {
+        throw new IllegalStateException("No vector for field " + field + " in doc " + leafDoc);
+      }
+      float score =
+          similarityFunction.compare(queryVector, vectorValues.vectorValue(iterator.index()));
+      scoreDocs[i] = new ScoreDoc(scoreDoc.doc, score, scoreDoc.shardIndex);
+    }
+  }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.remote;
+
+import static com.yelp.nrtsearch.server.state.BackendGlobalState.getBaseIndexName;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.yelp.nrtsearch.server.monitoring.BootstrapMetrics;
+import io.prometheus.metrics.core.datapoints.GaugeDataPoint;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.lucene.index.IndexFileNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Downloads a set of index files from a remote backend using concurrent ranged reads. Files larger
+ * than the range size are split into multiple ranges, which are written directly into a
+ * pre-allocated local file with positional writes. Small metadata files (segments_N, .si, .fnm) are
+ * downloaded first, followed by the remaining files in order of increasing size.
+ *
+ * <p>Each running range copies through a fixed size buffer, so memory use is bounded by the
+ * executor parallelism, regardless of file sizes.
+ *
+ * <p>A failed range is retried from its start, with an exponential backoff between attempts, so a
+ * single failed request does not fail the whole download. The download fails once a range has
+ * used all of its attempts.
+ */
+public class RangedFileDownloader {
+  private static final Logger logger = LoggerFactory.getLogger(RangedFileDownloader.class);
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+  private static final long STATUS_INTERVAL_MS = 30_000;
+  static final int DEFAULT_MAX_RANGE_ATTEMPTS = 3;
+  static final long DEFAULT_RETRY_BACKOFF_MS = 200;
+
+  /** Source of remote file data. */
+  @FunctionalInterface
+  public interface RangeSource {
+    /**
+     * Open a stream to read file data from the remote backend.
+     *
+     * @param backendFileName name of file in the remote backend
+     * @param start first byte to read
+     * @param end end of range (exclusive), or -1 to read the whole file
+     * @return stream of file data
+     * @throws IOException on error opening the stream
+     */
+    InputStream open(String backendFileName, long start, long end) throws IOException;
+  }
+
+  /**
+   * File to download.
+   *
+   * @param fileName local file name
+   * @param backendFileName name of file in the remote backend
+   * @param length expected file length
+   */
+  public record FileDownload(String fileName, String backendFileName, long length) {}
+
+  private final ExecutorService executor;
+  private final long rangeSizeBytes;
+  private final int maxRangeAttempts;
+  private final long retryBackoffMs;
+
+  /**
+   * Constructor.
+   *
+   * @param executor executor to run range downloads, parallelism is limited by its thread count
+   * @param rangeSizeBytes max size of each range request
+   */
+  public RangedFileDownloader(ExecutorService executor, long rangeSizeBytes) {
+    this(executor, rangeSizeBytes, DEFAULT_MAX_RANGE_ATTEMPTS, DEFAULT_RETRY_BACKOFF_MS);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param executor executor to run range downloads, parallelism is limited by its thread count
+   * @param rangeSizeBytes max size of each range request
+   * @param maxRangeAttempts max number of attempts to download each range
+   * @param retryBackoffMs wait before the first retry of a range, doubled for each further retry
+   */
+  @VisibleForTesting
+  RangedFileDownloader(
+      ExecutorService executor, long rangeSizeBytes, int maxRangeAttempts, long retryBackoffMs) {
+    if (rangeSizeBytes <= 0) {
+      throw new IllegalArgumentException("rangeSizeBytes must be > 0");
+    }
+    if (maxRangeAttempts <= 0) {
+      throw new IllegalArgumentException("maxRangeAttempts must be > 0");
+    }
+    if (retryBackoffMs < 0) {
+      throw new IllegalArgumentException("retryBackoffMs must be >= 0");
+    }
+    this.executor = executor;
+    this.rangeSizeBytes = rangeSizeBytes;
+    this.maxRangeAttempts = maxRangeAttempts;
+    this.retryBackoffMs = retryBackoffMs;
+  }
+
+  /**
+   * Download files into the given directory. Blocks until all ranges are complete. Failed ranges
+   * are retried up to the max number of attempts. On failure, no new ranges are started or
+   * retried, and running ranges are allowed to finish before the exception is thrown.
+   *
+   * @param indexIdentifier unique index identifier, used for metrics
+   * @param indexDir local directory to write files into
+   * @param files files to download
+   * @param rangeSource source of remote file data
+   * @throws IOException on error downloading files
+   */
+  public void download(
+      String indexIdentifier, Path indexDir, List<FileDownload> files, RangeSource rangeSource)
+      throws IOException {
+    GaugeDataPoint progressGauge =
+        BootstrapMetrics.dataRestoreProgressBytes.labelValues(
+            getBaseIndexName(indexIdentifier), indexIdentifier);
+    progressGauge.set(0);
+
+    List<FileState> fileStates = new ArrayList<>();
+    List<RangeTask> tasks = new ArrayList<>();
+    long totalBytes = 0;
+    for (FileDownload file : getDownloadOrder(files)) {
+      FileState fileState = new FileState(indexDir.resolve(file.fileName()), file);
+      fileStates.add(fileState);
+      tasks.addAll(fileState.createRanges(rangeSizeBytes));
+      totalBytes += file.length();
+    }
+
+    DownloadState state =
+        new DownloadState(rangeSource, progressGauge, maxRangeAttempts, retryBackoffMs);
+    List<Future<?>> futures = new ArrayList<>(tasks.size());
+    Throwable failureCause = null;
+    try {
+      for (RangeTask task : tasks) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  task.run(state);
+                  return null;
+                }));
+      }
+      long lastStatusTimeMs = System.currentTimeMillis();
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (failureCause == null) {
+            failureCause = e.getCause();
+            state.failed = true;
+          }
+        }
+        state.updateProgress();
+        long currentTimeMs = System.currentTimeMillis();
+        if (currentTimeMs - lastStatusTimeMs > STATUS_INTERVAL_MS) {
+          logger.info(
+              String.format(
+                  "Download status for index %s: %.2f%% of %d bytes",
+                  indexIdentifier,
+                  totalBytes > 0 ? 100.0 * state.bytesWritten.get() / totalBytes : 100.0,
+                  totalBytes));
+          lastStatusTimeMs = currentTimeMs;
+        }
+      }
+    } catch (InterruptedException e) {
+      state.failed = true;
+      Thread.currentThread().interrupt();
+      failureCause = e;
+    } catch (Throwable t) {
+      // unable to submit all tasks, let already submitted tasks finish before closing files
+      state.failed = true;
+      failureCause = t;
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (Exception ignored) {
+        }
+      }
+    } finally {
+      state.updateProgress();
+      for (FileState fileState : fileStates) {
+        try {
+          fileState.close();
+        } catch (IOException e) {
+          if (failureCause == null) {
+            failureCause = e;
+          }
+        }
+      }
+    }
+    if (failureCause != null) {
+      throw new IOException("Error while downloading index files. ", failureCause);
+    }
+  }
+
+  /**
+   * Get the order to download files in. Metadata files needed to open the index are first, then
+   * all other files by increasing size.
+   *
+   * @param files files to download
+   * @return ordered files
+   */
+  @VisibleForTesting
+  static List<FileDownload> getDownloadOrder(List<FileDownload> files) {
+    List<FileDownload> ordered = new ArrayList<>(files);
+    ordered.sort(
+        Comparator.comparing((FileDownload file) -> !isMetadataFile(file.fileName()))
+            .thenComparingLong(FileDownload::length)
+            .thenComparing(FileDownload::fileName));
+    return ordered;
+  }
+
+  @VisibleForTesting
+  static boolean isMetadataFile(String fileName) {
+    if (fileName.startsWith(IndexFileNames.SEGMENTS)) {
+      return true;
+    }
+    String extension = IndexFileNames.getExtension(fileName);
+    return "si".equals(extension) || "fnm".equals(extension);
+  }
+
+  /** State shared by all range tasks of a download. */
+  private static class DownloadState {
+    final RangeSource rangeSource;
+    final GaugeDataPoint progressGauge;
+    final int maxRangeAttempts;
+    final long retryBackoffMs;
+    final AtomicLong bytesWritten = new AtomicLong();
+    volatile boolean failed = false;
+
+    DownloadState(
+        RangeSource rangeSource,
+        GaugeDataPoint progressGauge,
+        int maxRangeAttempts,
+        long retryBackoffMs) {
+      this.rangeSource = rangeSource;
+      this.progressGauge = progressGauge;
+      this.maxRangeAttempts = maxRangeAttempts;
+      this.retryBackoffMs = retryBackoffMs;
+    }
+
+    void addBytes(long bytes) {
+      bytesWritten.addAndGet(bytes);
+    }
+
+    void updateProgress() {
+      progressGauge.set(bytesWritten.get());
+    }
+  }
+
+  /** Local file being written by one or more range tasks. */
+  private static class FileState {
+    final Path path;
+    final FileDownload file;
+    final AtomicInteger remainingRanges = new AtomicInteger();
+    boolean ranged;
+    FileChannel channel;
+    boolean closed = false;
+
+    FileState(Path path, FileDownload file) {
+      this.path = path;
+      this.file = file;
+    }
+
+    List<RangeTask> createRanges(long rangeSizeBytes) {
+      List<RangeTask> ranges = new ArrayList<>();
+      ranged = file.length() > rangeSizeBytes;
+      if (ranged) {
+        for (long start = 0; start < file.length(); start += rangeSizeBytes) {
+          ranges.add(new RangeTask(this, start, Math.min(start + rangeSizeBytes, file.length())));
+        }
+      } else {
+        // read the whole object, its length is checked against the file length when done
+        ranges.add(new RangeTask(this, 0, -1));
+      }
+      remainingRanges.set(ranges.size());
+      return ranges;
+    }
+
+    synchronized FileChannel getChannel() throws IOException {
+      if (closed) {
+        throw new IOException("File already closed: " + path);
+      }
+      if (channel == null) {
+        channel =
+            FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (ranged) {
+          // pre-allocate the full file, so ranges may be written in any order
+          channel.write(ByteBuffer.allocate(1), file.length() - 1);
+        }
+      }
+      return channel;
+    }
+
+    void rangeComplete() throws IOException {
+      if (remainingRanges.decrementAndGet() == 0) {
+        close();
+      }
+    }
+
+    synchronized void close() throws IOException {
+      closed = true;
+      if (channel != null) {
+        channel.close();
+        channel = null;
+      }
+    }
+  }
+
+  /** Download of a single range of a file. */
+  private record RangeTask(FileState fileState, long start, long end) {
+    void run(DownloadState state) throws IOException {
+      if (state.failed) {
+        return;
+      }
+      for (int attempt = 1; ; ++attempt) {
+        try {
+          download(state);
+          break;
+        } catch (IOException e) {
+          // stop retrying if another range already failed the download
+          if (attempt >= state.maxRangeAttempts || state.failed) {
+            throw e;
+          }
+          long backoffMs = state.retryBackoffMs << (attempt - 1);
+          logger.warn(
+              String.format(
+                  "Error downloading file: %s, range: [%d, %d), attempt %d/%d, retry in %d ms",
+                  fileState.file.backendFileName(),
+                  start,
+                  end,
+                  attempt,
+                  state.maxRangeAttempts,
+                  backoffMs),
+              e);
+          try {
+            Thread.sleep(backoffMs);
+          } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interruptedException =
+                new InterruptedIOException("Interrupted while waiting to retry range download");
+            interruptedException.addSuppressed(e);
+            throw interruptedException;
+          }
+        }
+      }
+      fileState.rangeComplete();
+    }
+
+    private void download(DownloadState state) throws IOException {
+      FileChannel channel = fileState.getChannel();
+      if (end == -1) {
+        // remove any data written by a previous attempt
+        channel.truncate(0);
+      }
+      long position = start;
+      try {
+        try (InputStream inputStream =
+            state.rangeSource.open(fileState.file.backendFileName(), start, end)) {
+          byte[] buffer = new byte[COPY_BUFFER_SIZE];
+          ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+          int read;
+          while ((read = inputStream.read(buffer)) != -1) {
+            byteBuffer.clear().limit(read);
+            while (byteBuffer.hasRemaining()) {
+              position += channel.write(byteBuffer, position);
+            }
+            state.addBytes(read);
+          }
+        }
+        long expectedEnd = end == -1 ? fileState.file.length() : end;
+        if (position != expectedEnd) {
+          throw new IOException(
+              String.format(
+                  "Unexpected end of data for file: %s, range: [%d, %d), read to: %d",
+                  fileState.file.backendFileName(), start, expectedEnd, position));
+        }
+      } catch (IOException e) {
+        // the range is downloaded again from the start
+        state.addBytes(start - position);
+        throw e;
+      }
+    }
+  }
+}
@@ -0,0 +1,478 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.remote.local;
+
+import static com.yelp.nrtsearch.server.remote.s3.S3Backend.CURRENT_VERSION;
+import static com.yelp.nrtsearch.server.remote.s3.S3Backend.getGlobalStateFileName;
+import static com.yelp.nrtsearch.server.remote.s3.S3Backend.getGlobalStateResourcePrefix;
+import static com.yelp.nrtsearch.server.remote.s3.S3Backend.getIndexBackendFileName;
+import static com.yelp.nrtsearch.server.remote.s3.S3Backend.getIndexDataPrefix;
+import static com.yelp.nrtsearch.server.remote.s3.S3Backend.getIndexResourcePrefix;
+import static com.yelp.nrtsearch.server.remote.s3.S3Backend.getIndexStateFileName;
+import static com.yelp.nrtsearch.server.remote.s3.S3Backend.getPointStateFileName;
+import static com.yelp.nrtsearch.server.remote.s3.S3Backend.getWarmingQueriesFileName;
+
+import com.google.common.io.ByteStreams;
+import com.yelp.nrtsearch.server.config.LocalBackendConfig;
+import com.yelp.nrtsearch.server.config.NrtsearchConfig;
+import com.yelp.nrtsearch.server.config.RemoteDownloadConfig;
+import com.yelp.nrtsearch.server.nrt.state.NrtFileMetaData;
+import com.yelp.nrtsearch.server.nrt.state.NrtPointState;
+import com.yelp.nrtsearch.server.remote.RangedFileDownloader;
+import com.yelp.nrtsearch.server.remote.RangedFileDownloader.FileDownload;
+import com.yelp.nrtsearch.server.remote.RemoteBackend;
+import com.yelp.nrtsearch.server.state.StateUtils;
+import com.yelp.nrtsearch.server.utils.ZipUtils;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Backend implementation that stores data in a local or network mounted directory. Resources use
+ * the same key layout as the {@link com.yelp.nrtsearch.server.remote.s3.S3Backend}, with each key
+ * being a file path relative to the root directory.
+ *
+ * <p>Index file contents are stored once in a blob directory for each service, addressed by the
+ * file checksum, length, header and footer. Lucene file headers contain the unique segment id, so
+ * files with the same address have the same contents. The file in the index data directory is a
+ * hard link to its blob, so a file that is uploaded again under a different backend name, such as
+ * by a new primary, does not use more space. If the file system does not support hard links, the
+ * blob is copied instead.
+ *
+ * <p>Files are written to a temporary file that is synced and atomically moved into place, so
+ * readers never see a partially written file. Index files are uploaded and downloaded concurrently,
+ * with large files downloaded in ranges by the {@link RangedFileDownloader}.
+ */
+public class LocalBackend implements RemoteBackend {
+  static final String BLOBS = "_blobs";
+  static final String TEMP_SUFFIX = ".tmp";
+
+  private static final Logger logger = LoggerFactory.getLogger(LocalBackend.class);
+  private static final String ZIP_EXTENSION = ".zip";
+
+  private final Path rootDir;
+  private final boolean linkDownloads;
+  private final boolean saveBeforeUnzip;
+  private final ExecutorService executor;
+  private final RangedFileDownloader fileDownloader;
+
+  /**
+   * Constructor.
+   *
+   * @param configuration configuration
+   */
+  public LocalBackend(NrtsearchConfig configuration) {
+    this(
+        configuration.getLocalBackendConfig(),
+        configuration.getSavePluginBeforeUnzip(),
+        configuration.getRemoteDownloadConfig());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param localBackendConfig backend root directory and download config
+   * @param savePluginBeforeUnzip save plugin before unzipping
+   * @param downloadConfig config for transfer threads and ranged index file downloads
+   */
+  public LocalBackend(
+      LocalBackendConfig localBackendConfig,
+      boolean savePluginBeforeUnzip,
+      RemoteDownloadConfig downloadConfig) {
+    if (!localBackendConfig.isEnabled()) {
+      throw new IllegalArgumentException("localBackend.path must be set");
+    }
+    this.rootDir = Path.of(localBackendConfig.getPath());
+    this.linkDownloads = localBackendConfig.getLinkDownloads();
+    this.saveBeforeUnzip = savePluginBeforeUnzip;
+    this.executor =
+        Executors.newFixedThreadPool(
+            downloadConfig.getThreads(), new NamedThreadFactory("local-backend-"));
+    this.fileDownloader = new RangedFileDownloader(executor, downloadConfig.getRangeSizeBytes());
+  }
+
+  /** Get the root directory of the backend. */
+  public Path getRootDir() {
+    return rootDir;
+  }
+
+  /**
+   * If the plugin path is a zip file in the backend, extract it into the destination directory.
+   * The path may be absolute, or relative to the backend root directory.
+   */
+  @Override
+  public String downloadPluginIfNeeded(String pluginNameOrPath, Path destPath) {
+    if (pluginNameOrPath.endsWith(ZIP_EXTENSION)) {
+      Path pluginFile = rootDir.resolve(pluginNameOrPath);
+      if (Files.isRegularFile(pluginFile)) {
+        logger.info("Extracting plugin: {}", pluginFile);
+        try (InputStream inputStream = Files.newInputStream(pluginFile)) {
+          ZipUtils.extractZip(inputStream, destPath, saveBeforeUnzip);
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+        // Assuming that the plugin directory is same as the name of the file
+        String fileName = pluginFile.getFileName().toString();
+        return fileName.substring(0, fileName.length() - ZIP_EXTENSION.length());
+      }
+    }
+    return pluginNameOrPath;
+  }
+
+  @Override
+  public void close() {
+    try {
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public boolean exists(String service, GlobalResourceType resourceType) throws IOException {
+    String prefix =
+        switch (resourceType) {
+          case GLOBAL_STATE -> getGlobalStateResourcePrefix(service);
+        };
+    return currentResourceExists(prefix);
+  }
+
+  @Override
+  public boolean exists(String service, String indexIdentifier, IndexResourceType resourceType)
+      throws IOException {
+    return currentResourceExists(getIndexResourcePrefix(service, indexIdentifier, resourceType));
+  }
+
+  @Override
+  public void uploadGlobalState(String service, byte[] data) throws IOException {
+    uploadResource(getGlobalStateResourcePrefix(service), getGlobalStateFileName(), data);
+  }
+
+  @Override
+  public InputStream downloadGlobalState(String service) throws IOException {
+    return downloadResource(getGlobalStateResourcePrefix(service));
+  }
+
+  @Override
+  public void uploadIndexState(String service, String indexIdentifier, byte[] data)
+      throws IOException {
+    String prefix = getIndexResourcePrefix(service, indexIdentifier, IndexResourceType.INDEX_STATE);
+    uploadResource(prefix, getIndexStateFileName(), data);
+  }
+
+  @Override
+  public InputStream downloadIndexState(String service, String indexIdentifier) throws IOException {
+    return downloadResource(
+        getIndexResourcePrefix(service, indexIdentifier, IndexResourceType.INDEX_STATE));
+  }
+
+  @Override
+  public void uploadWarmingQueries(String service, String indexIdentifier, byte[] data)
+      throws IOException {
+    String prefix =
+        getIndexResourcePrefix(service, indexIdentifier, IndexResourceType.WARMING_QUERIES);
+    uploadResource(prefix, getWarmingQueriesFileName(), data);
+  }
+
+  @Override
+  public InputStream downloadWarmingQueries(String service, String indexIdentifier)
+      throws IOException {
+    return downloadResource(
+        getIndexResourcePrefix(service, indexIdentifier, IndexResourceType.WARMING_QUERIES));
+  }
+
+  /**
+   * Upload index files concurrently. The contents of each file are only copied if no blob exists
+   * with the same address. Files already in the index data directory are skipped, since backend
+   * file names are unique for each version of a file.
+   */
+  @Override
+  public void uploadIndexFiles(
+      String service, String indexIdentifier, Path indexDir, Map<String, NrtFileMetaData> files)
+      throws IOException {
+    Path dataDir = rootDir.resolve(getIndexDataPrefix(service, indexIdentifier));
+    Path blobDir = getBlobDir(service);
+    Files.createDirectories(dataDir);
+    Files.createDirectories(blobDir);
+
+    List<Future<?>> futures = new ArrayList<>(files.size());
+    try {
+      for (Map.Entry<String, NrtFileMetaData> entry : files.entrySet()) {
+        Path localFile = indexDir.resolve(entry.getKey());
+        Path dataFile = dataDir.resolve(getIndexBackendFileName(entry.getKey(), entry.getValue()));
+        Path blobFile = blobDir.resolve(getBlobName(entry.getValue()));
+        futures.add(
+            executor.submit(
+                () -> {
+                  uploadIndexFile(localFile, dataFile, blobFile);
+                  return null;
+                }));
+      }
+    } finally {
+      waitForAll(futures, "Error while uploading index files. ");
+    }
+  }
+
+  /**
+   * Download index files. When hard linking downloads is enabled, files are linked from the index
+   * data directory if possible. Other files are copied concurrently in ranges, see {@link
+   * RangedFileDownloader}.
+   */
+  @Override
+  public void downloadIndexFiles(
+      String service, String indexIdentifier, Path indexDir, Map<String, NrtFileMetaData> files)
+      throws IOException {
+    Path dataDir = rootDir.resolve(getIndexDataPrefix(service, indexIdentifier));
+    List<FileDownload> fileDownloads = new ArrayList<>(files.size());
+    for (Map.Entry<String, NrtFileMetaData> entry : files.entrySet()) {
+      String backendFileName = getIndexBackendFileName(entry.getKey(), entry.getValue());
+      if (linkDownloads
+          && tryLink(indexDir.resolve(entry.getKey()), dataDir.resolve(backendFileName))) {
+        continue;
+      }
+      fileDownloads.add(new FileDownload(entry.getKey(), backendFileName, entry.getValue().length));
+    }
+    fileDownloader.download(
+        indexIdentifier,
+        indexDir,
+        fileDownloads,
+        (backendFileName, start, end) -> openRange(dataDir.resolve(backendFileName), start, end));
+  }
+
+  @Override
+  public void uploadPointState(
+      String service, String indexIdentifier, NrtPointState nrtPointState, byte[] data)
+      throws IOException {
+    String prefix = getIndexResourcePrefix(service, indexIdentifier, IndexResourceType.POINT_STATE);
+    uploadResource(prefix, getPointStateFileName(nrtPointState), data);
+  }
+
+  @Override
+  public InputStream downloadPointState(String service, String indexIdentifier) throws IOException {
+    return downloadResource(
+        getIndexResourcePrefix(service, indexIdentifier, IndexResourceType.POINT_STATE));
+  }
+
+  /**
+   * Get the current blessed resource version for the specified prefix.
+   *
+   * @param prefix resource prefix
+   * @return current resource version
+   * @throws IOException if an error occurs while reading the current resource version
+   */
+  public String getCurrentResourceName(String prefix) throws IOException {
+    Path currentFile = rootDir.resolve(prefix).resolve(CURRENT_VERSION);
+    try {
+      return StateUtils.fromUTF8(Files.readAllBytes(currentFile));
+    } catch (NoSuchFileException e) {
+      throw new IllegalArgumentException(String.format("File %s not found", currentFile), e);
+    }
+  }
+
+  /**
+   * Set the current blessed resource version for the specified prefix.
+   *
+   * @param prefix resource prefix
+   * @param version resource version
+   * @throws IOException on error writing the current resource version
+   */
+  public void setCurrentResource(String prefix, String version) throws IOException {
+    writeAtomic(rootDir.resolve(prefix).resolve(CURRENT_VERSION), StateUtils.toUTF8(version));
+    logger.info("Set current resource - prefix: {}, version: {}", prefix, version);
+  }
+
+  boolean currentResourceExists(String prefix) {
+    return Files.exists(rootDir.resolve(prefix).resolve(CURRENT_VERSION));
+  }
+
+  /**
+   * Get the directory that stores index file blobs for a service.
+   *
+   * @param service service name
+   * @return blob directory
+   */
+  Path getBlobDir(String service) {
+    return rootDir.resolve(service).resolve(BLOBS);
+  }
+
+  /**
+   * Get the content address of an index file, which is used as its blob file name.
+   *
+   * @param fileMetaData file metadata
+   * @return blob file name
+   */
+  static String getBlobName(NrtFileMetaData fileMetaData) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(fileMetaData.header);
+      digest.update(fileMetaData.footer);
+      digest.update(
+          ByteBuffer.allocate(2 * Long.BYTES)
+              .putLong(fileMetaData.checksum)
+              .putLong(fileMetaData.length)
+              .array());
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void uploadResource(String prefix, String fileName, byte[] data) throws IOException {
+    writeAtomic(rootDir.resolve(prefix).resolve(fileName), data);
+    setCurrentResource(prefix, fileName);
+  }
+
+  private InputStream downloadResource(String prefix) throws IOException {
+    Path resourceFile = rootDir.resolve(prefix).resolve(getCurrentResourceName(prefix));
+    try {
+      return Files.newInputStream(resourceFile);
+    } catch (NoSuchFileException e) {
+      throw new IllegalArgumentException(String.format("File %s not found", resourceFile), e);
+    }
+  }
+
+  private void uploadIndexFile(Path localFile, Path dataFile, Path blobFile) throws IOException {
+    if (Files.exists(dataFile)) {
+      return;
+    }
+    if (!Files.exists(blobFile)) {
+      copyAtomic(localFile, blobFile);
+    }
+    try {
+      Files.createLink(dataFile, blobFile);
+    } catch (FileAlreadyExistsException e) {
+      // uploaded concurrently by another writer
+    } catch (UnsupportedOperationException | FileSystemException e) {
+      copyAtomic(blobFile, dataFile);
+    }
+  }
+
+  /**
+   * Try to hard link a local index file to its backend file.
+   *
+   * @return if the file was linked
+   */
+  private boolean tryLink(Path localFile, Path dataFile) {
+    try {
+      Files.deleteIfExists(localFile);
+      Files.createLink(localFile, dataFile);
+      return true;
+    } catch (UnsupportedOperationException | IOException e) {
+      return false;
+    }
+  }
+
+  private static InputStream openRange(Path file, long start, long end) throws IOException {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      throw new FileNotFoundException(String.format("File %s not found", file));
+    }
+    try {
+      InputStream inputStream = Channels.newInputStream(channel.position(start));
+      return end == -1 ? inputStream : ByteStreams.limit(inputStream, end - start);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static void writeAtomic(Path file, byte[] data) throws IOException {
+    Path tempFile = createTempFile(file);
+    try {
+      try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(true);
+      }
+      Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  private static void copyAtomic(Path source, Path dest) throws IOException {
+    Path tempFile = createTempFile(dest);
+    try {
+      Files.copy(source, tempFile, StandardCopyOption.REPLACE_EXISTING);
+      try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+        channel.force(true);
+      }
+      Files.move(tempFile, dest, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  private static Path createTempFile(Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    return Files.createTempFile(file.getParent(), file.getFileName() + ".", TEMP_SUFFIX);
+  }
+
+  private static void waitForAll(List<Future<?>> futures, String errorMessage) throws IOException {
+    Throwable failureCause = null;
+    for (Future<?> future : futures) {
+      if (failureCause != null) {
+        future.cancel(false);
+      }
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        if (failureCause == null) {
+          failureCause = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if (failureCause == null) {
+          failureCause = e;
+        }
+      } catch (Exception e) {
+        // cancelled after failure
+      }
+    }
+    if (failureCause != null) {
+      throw new IOException(errorMessage, failureCause);
+    }
+  }
+}
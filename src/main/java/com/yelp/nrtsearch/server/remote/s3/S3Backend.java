@@ -25,22 +25,26 @@ import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
-import com.amazonaws.services.s3.transfer.Download;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import com.amazonaws.services.s3.transfer.Upload;
 import com.google.common.annotations.VisibleForTesting;
 import com.yelp.nrtsearch.server.config.NrtsearchConfig;
+import com.yelp.nrtsearch.server.config.RemoteDownloadConfig;
 import com.yelp.nrtsearch.server.nrt.state.NrtFileMetaData;
 import com.yelp.nrtsearch.server.nrt.state.NrtPointState;
+import com.yelp.nrtsearch.server.remote.RangedFileDownloader;
+import com.yelp.nrtsearch.server.remote.RangedFileDownloader.FileDownload;
 import com.yelp.nrtsearch.server.remote.RemoteBackend;
 import com.yelp.nrtsearch.server.state.StateUtils;
 import com.yelp.nrtsearch.server.utils.ZipUtils;
 import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.SequenceInputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.LinkedList;
 import java.util.List;
@@ -73,9 +77,9 @@ public class S3Backend implements RemoteBackend {
   private static final Logger logger = LoggerFactory.getLogger(S3Backend.class);
   private static final String ZIP_EXTENSION = ".zip";
 
-  public static final int NUM_S3_THREADS = 20;
-
   private final ThreadPoolExecutor executor;
+  private final int numThreads;
+  private final RangedFileDownloader fileDownloader;
   private final boolean saveBeforeUnzip;
   private final AmazonS3 s3;
   private final String serviceBucket;
@@ -96,7 +100,11 @@ public class S3Backend implements RemoteBackend {
    * @param s3 s3 client
    */
   public S3Backend(NrtsearchConfig configuration, AmazonS3 s3) {
-    this(configuration.getBucketName(), configuration.getSavePluginBeforeUnzip(), s3);
+    this(
+        configuration.getBucketName(),
+        configuration.getSavePluginBeforeUnzip(),
+        configuration.getRemoteDownloadConfig(),
+        s3);
   }
 
   /**
@@ -107,8 +115,26 @@ public class S3Backend implements RemoteBackend {
    * @param s3 s3 client
    */
   public S3Backend(String serviceBucket, boolean savePluginBeforeUnzip, AmazonS3 s3) {
+    this(serviceBucket, savePluginBeforeUnzip, RemoteDownloadConfig.DEFAULT_CONFIG, s3);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param serviceBucket bucket name
+   * @param savePluginBeforeUnzip save plugin before unzipping
+   * @param downloadConfig config for s3 transfer threads and ranged index file downloads
+   * @param s3 s3 client
+   */
+  public S3Backend(
+      String serviceBucket,
+      boolean savePluginBeforeUnzip,
+      RemoteDownloadConfig downloadConfig,
+      AmazonS3 s3) {
     this.s3 = s3;
-    this.executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(NUM_S3_THREADS);
+    this.numThreads = downloadConfig.getThreads();
+    this.executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(numThreads);
+    this.fileDownloader = new RangedFileDownloader(executor, downloadConfig.getRangeSizeBytes());
     this.saveBeforeUnzip = savePluginBeforeUnzip;
     this.serviceBucket = serviceBucket;
     this.transferManager =
@@ -203,7 +229,7 @@ public class S3Backend implements RemoteBackend {
       @Override
       public InputStream nextElement() {
         // top off the work queue so parts can download in parallel
-        while (pendingParts.size() < NUM_S3_THREADS && queuedPart <= numParts) {
+        while (pendingParts.size() < numThreads && queuedPart <= numParts) {
           // set to final variable for use in lambda
           final int finalPart = queuedPart;
           pendingParts.add(
@@ -400,46 +426,48 @@ public class S3Backend implements RemoteBackend {
     }
   }
 
+  /**
+   * Download index files with concurrent ranged GET requests. Files larger than the configured
+   * range size are fetched in multiple parts that are written directly into the local file. See
+   * {@link RangedFileDownloader}.
+   */
   @Override
   public void downloadIndexFiles(
       String service, String indexIdentifier, Path indexDir, Map<String, NrtFileMetaData> files)
       throws IOException {
-    List<FileNamePair> fileList = getFileNamePairs(files);
     String backendPrefix = getIndexDataPrefix(service, indexIdentifier);
-    List<Download> downloadList = new LinkedList<>();
-    boolean hasFailure = false;
-    Throwable failureCause = null;
-    for (FileNamePair pair : fileList) {
-      String backendKey = backendPrefix + pair.backendFileName;
-      Path localFile = indexDir.resolve(pair.fileName);
-      GetObjectRequest request = new GetObjectRequest(serviceBucket, backendKey);
-      request.setGeneralProgressListener(
-          new S3ProgressListenerImpl(service, indexIdentifier, "download_index_files"));
-      try {
-        Download download = transferManager.download(request, localFile.toFile());
-        downloadList.add(download);
-      } catch (Throwable t) {
-        hasFailure = true;
-        failureCause = t;
-        break;
-      }
-    }
-
-    for (Download download : downloadList) {
-      if (hasFailure) {
-        download.abort();
-      } else {
-        try {
-          download.waitForCompletion();
-        } catch (Throwable t) {
-          hasFailure = true;
-          failureCause = t;
-        }
-      }
-    }
-    if (hasFailure) {
-      throw new IOException("Error while downloading index files from s3. ", failureCause);
+    List<FileDownload> fileDownloads = new ArrayList<>(files.size());
+    for (Map.Entry<String, NrtFileMetaData> entry : files.entrySet()) {
+      fileDownloads.add(
+          new FileDownload(
+              entry.getKey(),
+              getIndexBackendFileName(entry.getKey(), entry.getValue()),
+              entry.getValue().length));
     }
+    S3ProgressListenerImpl progressListener =
+        new S3ProgressListenerImpl(service, indexIdentifier, "download_index_files");
+    fileDownloader.download(
+        indexIdentifier,
+        indexDir,
+        fileDownloads,
+        (backendFileName, start, end) -> {
+          GetObjectRequest request =
+              new GetObjectRequest(serviceBucket, backendPrefix + backendFileName);
+          if (end != -1) {
+            // s3 range end is inclusive
+            request.setRange(start, end - 1);
+          }
+          request.setGeneralProgressListener(progressListener);
+          try {
+            return s3.getObject(request).getObjectContent();
+          } catch (AmazonS3Exception e) {
+            if (isNotFoundException(e)) {
+              throw new FileNotFoundException(
+                  String.format("Object s3://%s/%s not found", serviceBucket, request.getKey()));
+            }
+            throw e;
+          }
+        });
   }
 
   @VisibleForTesting
@@ -505,8 +533,12 @@ public class S3Backend implements RemoteBackend {
     return downloadFromS3Path(serviceBucket, backendKey);
   }
 
-  @VisibleForTesting
-  static String getGlobalStateFileName() {
+  /**
+   * Get file name to use to store global state in S3. The file name will be unique for each call.
+   *
+   * @return file name
+   */
+  public static String getGlobalStateFileName() {
     String timestamp = generateTimeStringSec();
     return String.format(GLOBAL_STATE_FILE_FORMAT, timestamp, UUID.randomUUID());
   }
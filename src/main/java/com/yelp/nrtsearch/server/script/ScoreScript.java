@@ -31,11 +31,16 @@ import org.apache.lucene.search.IndexSearcher;
  * function. This class conforms with the script compile contract, see {@link ScriptContext}. The
  * script has access to the query parameters, the document doc values through {@link
  * SegmentDocLookup}, and the document score through get_score.
+ *
+ * <p>Scripts that access the same fields for every document should resolve the field slots once
+ * with {@link #getFieldSlot(String)}, such as in the constructor, and use the slot based accessors.
+ * These avoid the field name lookup, and the primitive accessors do not box values.
  */
 public abstract class ScoreScript extends DoubleValues {
   private static final int DOC_UNSET = -1;
 
   private final Map<String, Object> params;
+  private final DocLookup docLookup;
   private final SegmentDocLookup segmentDocLookup;
   private final DoubleValues scores;
   private int docId = DOC_UNSET;
@@ -58,6 +63,7 @@ public abstract class ScoreScript extends DoubleValues {
       LeafReaderContext leafContext,
       DoubleValues scores) {
     this.params = params;
+    this.docLookup = docLookup;
     this.segmentDocLookup = docLookup.getSegmentLookup(leafContext);
     this.scores = scores;
   }
@@ -120,6 +126,72 @@ public abstract class ScoreScript extends DoubleValues {
     return segmentDocLookup;
   }
 
+  /**
+   * Get the slot for a doc values field. The slot is valid for the lifetime of the query, and
+   * should be resolved once instead of for each document.
+   *
+   * @param fieldName field name
+   * @return field slot
+   * @throws IllegalArgumentException if the field does not exist, or cannot have doc values
+   */
+  public int getFieldSlot(String fieldName) {
+    return docLookup.getFieldSlot(fieldName);
+  }
+
+  /**
+   * Get doc values for the current document by field slot.
+   *
+   * @param slot field slot from {@link #getFieldSlot(String)}
+   * @return field doc values
+   */
+  public LoadedDocValues<?> getDocValues(int slot) {
+    return segmentDocLookup.get(slot);
+  }
+
+  /**
+   * Get int doc values for the current document by field slot, without boxing.
+   *
+   * @param slot field slot from {@link #getFieldSlot(String)}
+   * @return int values accessor
+   * @throws IllegalArgumentException if field values cannot be accessed as ints
+   */
+  public LoadedDocValues.IntValues getIntValues(int slot) {
+    return segmentDocLookup.getIntValues(slot);
+  }
+
+  /**
+   * Get long doc values for the current document by field slot, without boxing.
+   *
+   * @param slot field slot from {@link #getFieldSlot(String)}
+   * @return long values accessor
+   * @throws IllegalArgumentException if field values cannot be accessed as longs
+   */
+  public LoadedDocValues.LongValues getLongValues(int slot) {
+    return segmentDocLookup.getLongValues(slot);
+  }
+
+  /**
+   * Get float doc values for the current document by field slot, without boxing.
+   *
+   * @param slot field slot from {@link #getFieldSlot(String)}
+   * @return float values accessor
+   * @throws IllegalArgumentException if field values cannot be accessed as floats
+   */
+  public LoadedDocValues.FloatValues getFloatValues(int slot) {
+    return segmentDocLookup.getFloatValues(slot);
+  }
+
+  /**
+   * Get double doc values for the current document by field slot, without boxing.
+   *
+   * @param slot field slot from {@link #getFieldSlot(String)}
+   * @return double values accessor
+   * @throws IllegalArgumentException if field values cannot be accessed as doubles
+   */
+  public LoadedDocValues.DoubleValues getDoubleValues(int slot) {
+    return segmentDocLookup.getDoubleValues(slot);
+  }
+
   /**
    * Factory required from the compilation of a ScoreScript. Used to produce request level {@link
    * DoubleValuesSource}. See script compile contract {@link ScriptContext}.
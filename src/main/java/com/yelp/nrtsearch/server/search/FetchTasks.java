@@ -21,12 +21,19 @@ import com.yelp.nrtsearch.server.highlights.HighlightFetchTask;
 import com.yelp.nrtsearch.server.innerhit.InnerHitFetchTask;
 import com.yelp.nrtsearch.server.logging.HitsLoggerFetchTask;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
 import java.util.stream.Collectors;
 import org.apache.lucene.index.LeafReaderContext;
 
 /** Class that manages the execution of custom {@link FetchTask}s. */
 public class FetchTasks {
+  private static final double TEN_TO_THE_POWER_SIX = Math.pow(10, 6);
+  static final String HIGHLIGHT_TASK_NAME = "highlight";
+  static final String INNER_HIT_TASK_PREFIX = "inner_hit:";
 
   /**
    * Interface for a custom task that should be run while fetching field values. There are two
@@ -44,12 +51,25 @@ public class FetchTasks {
    * LeafReaderContext, SearchResponse.Hit.Builder)} method is called for each {@link FetchTask} in
    * order
    *
-   * <p>2) The {@link FetchTask#processAllHits(SearchContext, List)} method is called for each
+   * <p>2) The {@link InnerHitFetchTask#processAllHits(SearchContext, List)} method is called for
+   * each {@link InnerHitFetchTask} with batch fetch enabled, instead of processing each hit in 1c
+   *
+   * <p>3) The {@link FetchTask#processAllHits(SearchContext, List)} method is called for each
    * {@link FetchTask} in order
+   *
+   * <p>For a streaming search, the hits are fetched and sent in rank order chunks. All the steps
+   * above are done for each chunk, so {@link FetchTask#processAllHits(SearchContext, List)} is
+   * called once per chunk, with only the hits in that chunk. Tasks that need to see all the hits
+   * at once, such as ranking or deduplication across hits, do not work with streaming search.
+   *
+   * <p>Hits may be divided into chunks that are processed in parallel on the fetch executor. A task
+   * that is not {@link FetchTask#isThreadSafe()} only has its processHit method called by one
+   * thread at a time.
    */
   public interface FetchTask {
     /**
-     * Process the list of all query hits. This is the final fetch operation.
+     * Process the list of all query hits. This is the final fetch operation. For a streaming
+     * search, this is called for each chunk of hits instead.
      *
      * @param searchContext search context
      * @param hits query hits
@@ -71,9 +91,50 @@ public class FetchTasks {
     default void processHit(
         SearchContext searchContext, LeafReaderContext hitLeaf, SearchResponse.Hit.Builder hit)
         throws IOException {}
+
+    /**
+     * Get if {@link #processHit(SearchContext, LeafReaderContext, SearchResponse.Hit.Builder)} may
+     * be called concurrently for different hits. If false, calls are serialized when hits are
+     * fetched in parallel.
+     *
+     * @return if task is thread safe
+     */
+    default boolean isThreadSafe() {
+      return false;
+    }
   }
 
-  private final List<FetchTask> taskList;
+  /** Query {@link FetchTask} with the name it was created from and its total execution time. */
+  private record TimedFetchTask(String name, FetchTask task, DoubleAdder timeTakenMs) {
+    void processHit(
+        SearchContext searchContext, LeafReaderContext segment, SearchResponse.Hit.Builder hit)
+        throws IOException {
+      if (task.isThreadSafe()) {
+        long startTime = System.nanoTime();
+        task.processHit(searchContext, segment, hit);
+        addTime(startTime);
+      } else {
+        synchronized (task) {
+          long startTime = System.nanoTime();
+          task.processHit(searchContext, segment, hit);
+          addTime(startTime);
+        }
+      }
+    }
+
+    void processAllHits(SearchContext searchContext, List<SearchResponse.Hit.Builder> hits)
+        throws IOException {
+      long startTime = System.nanoTime();
+      task.processAllHits(searchContext, hits);
+      addTime(startTime);
+    }
+
+    private void addTime(long startTime) {
+      timeTakenMs.add(((System.nanoTime() - startTime) / TEN_TO_THE_POWER_SIX));
+    }
+  }
+
+  private final List<TimedFetchTask> taskList;
 
   // TopHitsCollector supports highlightFetchTask only for now. Use this to retrieve
   // highlightFetchTasks only.
@@ -81,6 +142,12 @@ public class FetchTasks {
   private List<InnerHitFetchTask> innerHitFetchTaskList;
   private HitsLoggerFetchTask hitsLoggerFetchTask;
 
+  // timed wrappers of the highlight and innerHit tasks, so they are serialized when not thread
+  // safe and are included in the task times
+  private TimedFetchTask timedHighlightFetchTask;
+  private List<TimedFetchTask> timedInnerHitHitTasks = List.of();
+  private List<TimedFetchTask> timedInnerHitBatchTasks = List.of();
+
   public HighlightFetchTask getHighlightFetchTask() {
     return highlightFetchTask;
   }
@@ -95,10 +162,32 @@ public class FetchTasks {
 
   public void setHighlightFetchTask(HighlightFetchTask highlightFetchTask) {
     this.highlightFetchTask = highlightFetchTask;
+    this.timedHighlightFetchTask =
+        highlightFetchTask == null
+            ? null
+            : new TimedFetchTask(HIGHLIGHT_TASK_NAME, highlightFetchTask, new DoubleAdder());
   }
 
   public void setInnerHitFetchTaskList(List<InnerHitFetchTask> innerHitFetchTaskList) {
     this.innerHitFetchTaskList = innerHitFetchTaskList;
+    List<TimedFetchTask> hitTasks = new ArrayList<>();
+    List<TimedFetchTask> batchTasks = new ArrayList<>();
+    if (innerHitFetchTaskList != null) {
+      for (InnerHitFetchTask innerHitFetchTask : innerHitFetchTaskList) {
+        TimedFetchTask timedTask =
+            new TimedFetchTask(
+                INNER_HIT_TASK_PREFIX + innerHitFetchTask.getInnerHitContext().getInnerHitName(),
+                innerHitFetchTask,
+                new DoubleAdder());
+        if (innerHitFetchTask.getInnerHitContext().isBatchFetch()) {
+          batchTasks.add(timedTask);
+        } else {
+          hitTasks.add(timedTask);
+        }
+      }
+    }
+    this.timedInnerHitHitTasks = hitTasks;
+    this.timedInnerHitBatchTasks = batchTasks;
   }
 
   public void setHitsLoggerFetchTask(HitsLoggerFetchTask hitsLoggerFetchTask) {
@@ -129,10 +218,15 @@ public class FetchTasks {
       HitsLoggerFetchTask hitsLoggerFetchTask) {
     taskList =
         grpcTaskList.stream()
-            .map(t -> FetchTaskCreator.getInstance().createFetchTask(t))
+            .map(
+                t ->
+                    new TimedFetchTask(
+                        t.getName(),
+                        FetchTaskCreator.getInstance().createFetchTask(t),
+                        new DoubleAdder()))
             .collect(Collectors.toList());
-    this.highlightFetchTask = highlightFetchTask;
-    this.innerHitFetchTaskList = innerHitFetchTaskList;
+    setHighlightFetchTask(highlightFetchTask);
+    setInnerHitFetchTaskList(innerHitFetchTaskList);
     this.hitsLoggerFetchTask = hitsLoggerFetchTask;
   }
 
@@ -146,10 +240,15 @@ public class FetchTasks {
    */
   public void processAllHits(SearchContext searchContext, List<SearchResponse.Hit.Builder> hits)
       throws IOException {
-    for (FetchTask task : taskList) {
+    // batched innerHits run first, so that the inner hits are available to the other tasks, the
+    // same as innerHits processed per hit
+    for (TimedFetchTask innerHitTask : timedInnerHitBatchTasks) {
+      innerHitTask.processAllHits(searchContext, hits);
+    }
+    for (TimedFetchTask task : taskList) {
       task.processAllHits(searchContext, hits);
     }
-    // highlight and innerHit doesn't support processAllHits now
+    // highlight doesn't support processAllHits now
     // hitsLogger should be the last fetch task to run because it might need shared data from other
     // plugins, including
     // other fetch task plugins
@@ -170,16 +269,50 @@ public class FetchTasks {
   public void processHit(
       SearchContext searchContext, LeafReaderContext segment, SearchResponse.Hit.Builder hit)
       throws IOException {
-    for (FetchTask task : taskList) {
+    for (TimedFetchTask task : taskList) {
       task.processHit(searchContext, segment, hit);
     }
-    if (highlightFetchTask != null) {
-      highlightFetchTask.processHit(searchContext, segment, hit);
+    if (timedHighlightFetchTask != null) {
+      timedHighlightFetchTask.processHit(searchContext, segment, hit);
     }
-    if (innerHitFetchTaskList != null) {
-      for (InnerHitFetchTask innerHitFetchTask : innerHitFetchTaskList) {
-        innerHitFetchTask.processHit(searchContext, segment, hit);
-      }
+    for (TimedFetchTask innerHitTask : timedInnerHitHitTasks) {
+      innerHitTask.processHit(searchContext, segment, hit);
+    }
+  }
+
+  /**
+   * Get if there are any tasks that process each hit, including highlight and inner hits that are
+   * not batch fetched.
+   */
+  public boolean hasHitTasks() {
+    return !taskList.isEmpty() || highlightFetchTask != null || !timedInnerHitHitTasks.isEmpty();
+  }
+
+  /**
+   * Get the total time taken so far by each query {@link FetchTask}, keyed by task name. Times for
+   * multiple tasks with the same name are summed. The highlight task is included as {@value
+   * #HIGHLIGHT_TASK_NAME}, and each innerHit task as {@value #INNER_HIT_TASK_PREFIX} followed by
+   * the innerHit name.
+   *
+   * @return map of task name to time taken in ms
+   */
+  public Map<String, Double> getFetchTasksTimeMs() {
+    Map<String, Double> timeTakenMs = new LinkedHashMap<>();
+    for (TimedFetchTask task : taskList) {
+      timeTakenMs.merge(task.name(), task.timeTakenMs().doubleValue(), Double::sum);
+    }
+    if (timedHighlightFetchTask != null) {
+      timeTakenMs.merge(
+          timedHighlightFetchTask.name(),
+          timedHighlightFetchTask.timeTakenMs().doubleValue(),
+          Double::sum);
+    }
+    for (TimedFetchTask task : timedInnerHitBatchTasks) {
+      timeTakenMs.merge(task.name(), task.timeTakenMs().doubleValue(), Double::sum);
+    }
+    for (TimedFetchTask task : timedInnerHitHitTasks) {
+      timeTakenMs.merge(task.name(), task.timeTakenMs().doubleValue(), Double::sum);
     }
+    return timeTakenMs;
   }
 }
@@ -32,7 +32,17 @@ import org.apache.lucene.search.IndexSearcher;
  */
 public class MyIndexSearcher extends IndexSearcher {
 
-  public record SlicingParams(int sliceMaxDocs, int sliceMaxSegments, int virtualShards) {}
+  /**
+   * Parameters used to divide the index into parallel search slices.
+   *
+   * @param sliceMaxDocs maximum number of documents in a slice of multiple segments
+   * @param sliceMaxSegments maximum number of segments in a slice
+   * @param virtualShards number of virtual shards to group segments into
+   * @param slicePartitionMaxDocs segments with more documents than this are split into doc id range
+   *     partitions, each searched as its own slice, or 0 to always search entire segments
+   */
+  public record SlicingParams(
+      int sliceMaxDocs, int sliceMaxSegments, int virtualShards, int slicePartitionMaxDocs) {}
 
   private static final Object slicingLock = new Object();
   private static SlicingParams staticSlicingParams;
@@ -86,9 +96,14 @@ public class MyIndexSearcher extends IndexSearcher {
           leaves,
           slicingParams.virtualShards,
           slicingParams.sliceMaxDocs,
-          slicingParams.sliceMaxSegments);
+          slicingParams.sliceMaxSegments,
+          slicingParams.slicePartitionMaxDocs);
     } else {
-      return slices(leaves, slicingParams.sliceMaxDocs, slicingParams.sliceMaxSegments);
+      return slices(
+          leaves,
+          slicingParams.sliceMaxDocs,
+          slicingParams.sliceMaxSegments,
+          slicingParams.slicePartitionMaxDocs);
     }
   }
 
@@ -115,7 +130,11 @@ public class MyIndexSearcher extends IndexSearcher {
   }
 
   private static LeafSlice[] slicesForShards(
-      List<LeafReaderContext> leaves, int virtualShards, int sliceMaxDocs, int sliceMaxSegments) {
+      List<LeafReaderContext> leaves,
+      int virtualShards,
+      int sliceMaxDocs,
+      int sliceMaxSegments,
+      int slicePartitionMaxDocs) {
     if (leaves.isEmpty()) {
       return new LeafSlice[0];
     }
@@ -144,7 +163,8 @@ public class MyIndexSearcher extends IndexSearcher {
     while (!shardQueue.isEmpty()) {
       VirtualShardLeaves shardLeaves = shardQueue.poll();
       if (!shardLeaves.leaves.isEmpty()) {
-        LeafSlice[] shardSlices = slices(shardLeaves.leaves, sliceMaxDocs, sliceMaxSegments);
+        LeafSlice[] shardSlices =
+            slices(shardLeaves.leaves, sliceMaxDocs, sliceMaxSegments, slicePartitionMaxDocs);
         for (LeafSlice leafSlice : shardSlices) {
           sortedSlices.add(new SliceAndSize(leafSlice));
         }
@@ -162,6 +182,26 @@ public class MyIndexSearcher extends IndexSearcher {
   /** Static method to segregate LeafReaderContexts amongst multiple slices */
   public static LeafSlice[] slices(
       List<LeafReaderContext> leaves, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+    return slices(leaves, maxDocsPerSlice, maxSegmentsPerSlice, 0);
+  }
+
+  /**
+   * Static method to segregate LeafReaderContexts amongst multiple slices. If maxDocsPerPartition
+   * is > 0, any segment with more documents is split into doc id range partitions of roughly equal
+   * size, and each partition is put into its own slice. Lucene requires that partitions of the same
+   * segment are never searched in the same slice.
+   *
+   * @param leaves index leaves
+   * @param maxDocsPerSlice maximum documents in a slice of multiple segments
+   * @param maxSegmentsPerSlice maximum segments in a slice
+   * @param maxDocsPerPartition maximum documents in a segment partition, or 0 to disable
+   * @return search slices
+   */
+  public static LeafSlice[] slices(
+      List<LeafReaderContext> leaves,
+      int maxDocsPerSlice,
+      int maxSegmentsPerSlice,
+      int maxDocsPerPartition) {
     // Make a copy so we can sort:
     List<LeafReaderContext> sortedLeaves = new ArrayList<>(leaves);
 
@@ -173,7 +213,12 @@ public class MyIndexSearcher extends IndexSearcher {
     long docSum = 0;
     List<LeafReaderContextPartition> group = null;
     for (LeafReaderContext ctx : sortedLeaves) {
-      if (ctx.reader().maxDoc() > maxDocsPerSlice) {
+      if (maxDocsPerPartition > 0 && ctx.reader().maxDoc() > maxDocsPerPartition) {
+        assert group == null;
+        for (LeafReaderContextPartition partition : partition(ctx, maxDocsPerPartition)) {
+          groupedLeaves.add(Collections.singletonList(partition));
+        }
+      } else if (ctx.reader().maxDoc() > maxDocsPerSlice) {
         assert group == null;
         groupedLeaves.add(
             Collections.singletonList(LeafReaderContextPartition.createForEntireSegment(ctx)));
@@ -206,4 +251,27 @@ public class MyIndexSearcher extends IndexSearcher {
 
     return slices;
   }
+
+  /**
+   * Split a segment into contiguous doc id range partitions. The number of partitions is the
+   * minimum needed to have no more than maxDocsPerPartition documents in each, with the documents
+   * spread evenly between them.
+   *
+   * @param ctx segment leaf context
+   * @param maxDocsPerPartition maximum documents in a partition
+   * @return segment partitions, in doc id order
+   */
+  static List<LeafReaderContextPartition> partition(
+      LeafReaderContext ctx, int maxDocsPerPartition) {
+    int maxDoc = ctx.reader().maxDoc();
+    int numPartitions = (int) ((maxDoc + (long) maxDocsPerPartition - 1) / maxDocsPerPartition);
+    List<LeafReaderContextPartition> partitions = new ArrayList<>(numPartitions);
+    int minDocId = 0;
+    for (int i = 0; i < numPartitions; ++i) {
+      int maxDocId = (int) ((long) maxDoc * (i + 1) / numPartitions);
+      partitions.add(LeafReaderContextPartition.createFromAndTo(ctx, minDocId, maxDocId));
+      minDocId = maxDocId;
+    }
+    return partitions;
+  }
 }
@@ -28,6 +28,7 @@ import java.util.Map;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
@@ -196,6 +197,15 @@ public class SearchCollectorManager
           leafCollector.collect(doc);
         }
       }
+
+      @Override
+      public DocIdSetIterator competitiveIterator() throws IOException {
+        // additional collectors must see all matching documents
+        if (additionalLeafCollectors.isEmpty()) {
+          return hitLeafCollector.competitiveIterator();
+        }
+        return null;
+      }
     }
   }
 }
@@ -23,6 +23,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
@@ -200,6 +201,11 @@ public class SearchCutoffWrapper<C extends Collector>
         leafCollector.collect(doc);
         collectionCount++;
       }
+
+      @Override
+      public DocIdSetIterator competitiveIterator() throws IOException {
+        return leafCollector.competitiveIterator();
+      }
     }
   }
 
@@ -661,6 +661,7 @@ public class SearchRequestProcessor {
                     innerHit.getHighlight())
                 : null)
         .withExplain(explain)
+        .withBatchFetch(innerHit.getBatchFetch())
         .build(true);
   }
 }
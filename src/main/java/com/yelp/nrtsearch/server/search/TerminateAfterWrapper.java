@@ -160,6 +160,9 @@ public class TerminateAfterWrapper<C extends Collector>
         leafCollector.collect(doc);
         docCount++;
       }
+
+      // The competitive iterator of the wrapped collector is not exposed, since documents it skips
+      // would not be counted toward terminateAfter and terminateAfterMaxRecallCount.
     }
   }
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.search.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.index.IndexState;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.lucene.facet.taxonomy.TaxonomyReader;
+
+/**
+ * Shard level cache of complete {@link SearchResponse}s. Entries are keyed on the normalized {@link
+ * SearchRequest}, the version of the {@link org.apache.lucene.index.DirectoryReader} that produced
+ * the response, and the {@link IndexState} used to execute the request, so a response is never
+ * served for a different point in time. Updating index settings, live settings or fields creates a
+ * new index state without changing the reader version, so the state is compared by identity.
+ * Entries for older reader versions or index states are dropped by {@link #invalidateStale(long,
+ * IndexState)} when the shard searcher is refreshed. Eviction is bounded by the serialized size of
+ * the cached requests and responses.
+ */
+public class SearchResponseCache {
+  private final Cache<Key, SearchResponse> cache;
+  private final AtomicLong sizeBytes = new AtomicLong();
+
+  /**
+   * Cache key.
+   *
+   * @param request normalized search request
+   * @param readerVersion version of the index reader used to execute the request
+   * @param indexState index state used to execute the request
+   */
+  public record Key(SearchRequest request, long readerVersion, IndexState indexState) {}
+
+  /**
+   * Constructor.
+   *
+   * @param maxMemoryBytes maximum serialized size of all cache entries
+   */
+  public SearchResponseCache(long maxMemoryBytes) {
+    RemovalListener<Key, SearchResponse> removalListener =
+        notification -> sizeBytes.addAndGet(-weigh(notification.getKey(), notification.getValue()));
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maxMemoryBytes)
+            .weigher(SearchResponseCache::weigh)
+            .removalListener(removalListener)
+            .recordStats()
+            .build();
+  }
+
+  private static int weigh(Key key, SearchResponse response) {
+    return key.request().getSerializedSize() + response.getSerializedSize();
+  }
+
+  /**
+   * Get if the response for the given request may be cached. Profiled requests are not cached,
+   * since the profile result describes a single execution. Requests that log hits are not cached,
+   * since the logging is a side effect of executing the request.
+   *
+   * @param searchRequest search request
+   * @return if response may be cached
+   */
+  public static boolean isCacheable(SearchRequest searchRequest) {
+    return !searchRequest.getProfile() && !searchRequest.hasLoggingHits();
+  }
+
+  /**
+   * Get if the response for the given request may be cached when executed with the given taxonomy
+   * reader. The cache key does not include the taxonomy, so requests with facets are only cached
+   * when there is no taxonomy reader.
+   *
+   * @param searchRequest search request
+   * @param taxonomyReader taxonomy reader of the acquired searcher, may be null
+   * @return if response may be cached
+   */
+  public static boolean isCacheable(SearchRequest searchRequest, TaxonomyReader taxonomyReader) {
+    return isCacheable(searchRequest)
+        && (taxonomyReader == null || searchRequest.getFacetsList().isEmpty());
+  }
+
+  /**
+   * Get if a response may be stored in the cache. Responses that hit the search timeout may only
+   * contain partial results, which depend on the execution time.
+   *
+   * @param searchResponse search response
+   * @return if response may be stored
+   */
+  public static boolean isCacheable(SearchResponse searchResponse) {
+    return !searchResponse.getHitTimeout();
+  }
+
+  /**
+   * Create the cache key for a request executed against the given reader version and index state.
+   * Request fields that do not change the response content, such as timeouts, response compression
+   * and the requested searcher, are cleared. The searcher selection is already represented by the
+   * reader version.
+   *
+   * @param searchRequest search request
+   * @param readerVersion index reader version
+   * @param indexState index state
+   * @return cache key
+   */
+  public static Key getKey(SearchRequest searchRequest, long readerVersion, IndexState indexState) {
+    SearchRequest normalized =
+        searchRequest.toBuilder()
+            .clearTimeoutSec()
+            .clearTimeoutCheckEvery()
+            .clearResponseCompression()
+            .clearSearcher()
+            .build();
+    return new Key(normalized, readerVersion, indexState);
+  }
+
+  /**
+   * Get cached response for key.
+   *
+   * @param key cache key
+   * @return cached response, or null if not present
+   */
+  public SearchResponse get(Key key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Add response to the cache.
+   *
+   * @param key cache key
+   * @param searchResponse response to cache
+   */
+  public void put(Key key, SearchResponse searchResponse) {
+    sizeBytes.addAndGet(weigh(key, searchResponse));
+    cache.put(key, searchResponse);
+  }
+
+  /**
+   * Remove all entries that were not produced by the given reader version and index state.
+   *
+   * @param currentReaderVersion version of the current index reader
+   * @param currentIndexState current index state
+   */
+  public void invalidateStale(long currentReaderVersion, IndexState currentIndexState) {
+    cache
+        .asMap()
+        .keySet()
+        .removeIf(
+            key ->
+                key.readerVersion() != currentReaderVersion
+                    || key.indexState() != currentIndexState);
+  }
+
+  /** Remove all entries. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** Get number of requests served from the cache. */
+  public long getHitCount() {
+    return getStats().hitCount();
+  }
+
+  /** Get number of requests not found in the cache. */
+  public long getMissCount() {
+    return getStats().missCount();
+  }
+
+  /** Get number of entries evicted due to the size limit. */
+  public long getEvictionCount() {
+    return getStats().evictionCount();
+  }
+
+  /** Get current number of cached entries. */
+  public long getCacheSize() {
+    return cache.size();
+  }
+
+  /** Get current serialized size of all cached entries. */
+  public long getSizeBytes() {
+    return sizeBytes.get();
+  }
+
+  private CacheStats getStats() {
+    return cache.stats();
+  }
+}
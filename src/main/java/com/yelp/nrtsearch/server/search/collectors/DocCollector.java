@@ -129,6 +129,15 @@ public abstract class DocCollector {
     return terminatedEarly;
   }
 
+  /**
+   * Get the number of index segments where hit collection terminated early, because the remaining
+   * segment documents could not be competitive. This is only possible when hits are sorted by a
+   * prefix of the index sort.
+   */
+  public int getEarlyTerminatedSegments() {
+    return 0;
+  }
+
   /** Get a lucene level {@link CollectorManager} to rank document for search. */
   public abstract CollectorManager<? extends Collector, ? extends TopDocs> getManager();
 
@@ -21,13 +21,21 @@ import com.yelp.nrtsearch.server.grpc.SearchResponse.SearchState;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.DocIdStream;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.TotalHits.Relation;
+import org.apache.lucene.search.Weight;
 
 /**
  * Document collector that only tracks the count of recalled documents. Used when no hits need to be
@@ -61,22 +69,82 @@ public class HitCountCollector extends DocCollector {
   @Override
   public void fillLastHit(SearchState.Builder stateBuilder, ScoreDoc lastHit) {}
 
-  /** Collector manager to do parallel collection of hit count. */
+  /**
+   * Collector manager to do parallel collection of hit count. Supports searching segments that are
+   * split into multiple doc id range partitions, by only using the per segment count shortcut of
+   * the query {@link Weight} once for each segment.
+   */
   public static class HitCountCollectorManager
-      implements CollectorManager<TotalHitCountCollector, TopDocs> {
+      implements CollectorManager<
+          HitCountCollectorManager.PartitionAwareHitCountCollector, TopDocs> {
+    // segments that have been counted using the weight count shortcut
+    private final Set<LeafReaderContext> countedLeaves = ConcurrentHashMap.newKeySet();
 
     @Override
-    public TotalHitCountCollector newCollector() throws IOException {
-      return new TotalHitCountCollector();
+    public PartitionAwareHitCountCollector newCollector() throws IOException {
+      return new PartitionAwareHitCountCollector();
     }
 
     @Override
-    public TopDocs reduce(Collection<TotalHitCountCollector> collectors) throws IOException {
+    public TopDocs reduce(Collection<PartitionAwareHitCountCollector> collectors)
+        throws IOException {
       long count = 0;
-      for (TotalHitCountCollector collector : collectors) {
+      for (PartitionAwareHitCountCollector collector : collectors) {
         count += collector.getTotalHits();
       }
       return new TopDocs(new TotalHits(count, Relation.EQUAL_TO), new ScoreDoc[0]);
     }
+
+    /**
+     * Collector that counts the total hits. Like lucene's {@link
+     * org.apache.lucene.search.TotalHitCountCollector}, the query {@link Weight} is used to count
+     * segment hits without collection when possible. Since there may be multiple leaf collectors
+     * for a segment when it is split into partitions, the count is only added by the first one.
+     * This is consistent, as whether the weight can provide the count only depends on the segment.
+     */
+    public class PartitionAwareHitCountCollector implements Collector {
+      private Weight weight;
+      private long totalHits;
+
+      /** Get the number of hits counted by this collector. */
+      public long getTotalHits() {
+        return totalHits;
+      }
+
+      @Override
+      public void setWeight(Weight weight) {
+        this.weight = weight;
+      }
+
+      @Override
+      public ScoreMode scoreMode() {
+        return ScoreMode.COMPLETE_NO_SCORES;
+      }
+
+      @Override
+      public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        int leafCount = weight == null ? -1 : weight.count(context);
+        if (leafCount != -1) {
+          if (countedLeaves.add(context)) {
+            totalHits += leafCount;
+          }
+          throw new CollectionTerminatedException();
+        }
+        return new LeafCollector() {
+          @Override
+          public void setScorer(Scorable scorer) {}
+
+          @Override
+          public void collect(int doc) {
+            totalHits++;
+          }
+
+          @Override
+          public void collect(DocIdStream stream) throws IOException {
+            totalHits += stream.count();
+          }
+        };
+      }
+    }
   }
 }
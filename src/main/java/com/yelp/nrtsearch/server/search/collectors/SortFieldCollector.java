@@ -21,25 +21,48 @@ import com.yelp.nrtsearch.server.grpc.SearchResponse;
 import com.yelp.nrtsearch.server.search.SearchRequestProcessor;
 import com.yelp.nrtsearch.server.search.sort.SortContext;
 import com.yelp.nrtsearch.server.search.sort.SortParser;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.DocIdStream;
 import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.TopFieldCollectorManager;
 import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Collector for getting documents ranked by sorting fields. */
+/**
+ * Collector for getting documents ranked by sorting fields.
+ *
+ * <p>When the query sort is a prefix of the index sort, the documents of each segment are visited
+ * in sort order. Once enough hits are collected, collection of the segment can stop. In this case,
+ * the default total hits threshold is lowered to the number of hits to collect, unless the request
+ * specifies its own threshold.
+ */
 public class SortFieldCollector extends DocCollector {
   private static final Logger logger = LoggerFactory.getLogger(SortFieldCollector.class);
 
-  private final CollectorManager<TopFieldCollector, TopFieldDocs> manager;
+  private final CollectorManager<EarlyTerminationCountingCollector, TopFieldDocs> manager;
   private final SortContext sortContext;
+  private final AtomicInteger earlyTerminatedSegments = new AtomicInteger();
 
   public SortFieldCollector(
       CollectorCreatorContext context,
@@ -57,6 +80,8 @@ public class SortFieldCollector extends DocCollector {
               lastHitInfo, context.getRequest().getQuerySort(), context.getQueryFields());
     }
 
+    sortContext = new SortContext(context.getRequest().getQuerySort(), context.getQueryFields());
+
     // if there are additional collectors, we cannot skip any recalled docs
     if (!additionalCollectors.isEmpty()) {
       totalHitsThreshold = Integer.MAX_VALUE;
@@ -65,12 +90,36 @@ public class SortFieldCollector extends DocCollector {
       }
     } else if (context.getRequest().getTotalHitsThreshold() != 0) {
       totalHitsThreshold = context.getRequest().getTotalHitsThreshold();
+    } else if (isIndexSortPrefix(sortContext.getSort(), context.getIndexState().getIndexSort())) {
+      // stop collecting segments as soon as the top hits are known
+      totalHitsThreshold = topHits;
     }
 
-    sortContext = new SortContext(context.getRequest().getQuerySort(), context.getQueryFields());
     manager =
-        new TopFieldCollectorManager(
-            sortContext.getSort(), topHits, searchAfter, totalHitsThreshold);
+        new EarlyTerminationCountingManager(
+            new TopFieldCollectorManager(
+                sortContext.getSort(), topHits, searchAfter, totalHitsThreshold));
+  }
+
+  /**
+   * Get if segment collection can terminate early for a query sort, which is the case when the sort
+   * is a prefix of the index sort.
+   *
+   * @param sort query sort
+   * @param indexSort index sort, or null if the index is not sorted
+   * @return if the query sort is a prefix of the index sort
+   */
+  public static boolean isIndexSortPrefix(Sort sort, Sort indexSort) {
+    if (indexSort == null) {
+      return false;
+    }
+    SortField[] sortFields = sort.getSort();
+    SortField[] indexSortFields = indexSort.getSort();
+    if (sortFields.length > indexSortFields.length) {
+      return false;
+    }
+    return Arrays.asList(sortFields)
+        .equals(Arrays.asList(indexSortFields).subList(0, sortFields.length));
   }
 
   @Override
@@ -78,6 +127,11 @@ public class SortFieldCollector extends DocCollector {
     return manager;
   }
 
+  @Override
+  public int getEarlyTerminatedSegments() {
+    return earlyTerminatedSegments.get();
+  }
+
   @Override
   public void fillHitRanking(SearchResponse.Hit.Builder hitResponse, ScoreDoc scoreDoc) {
     FieldDoc fd = (FieldDoc) scoreDoc;
@@ -103,4 +157,102 @@ public class SortFieldCollector extends DocCollector {
     }
     stateBuilder.setLastHitInfo(lastHitBuilder.build());
   }
+
+  /** Manager that counts the segments where the wrapped sorted hit collection terminated early. */
+  class EarlyTerminationCountingManager
+      implements CollectorManager<EarlyTerminationCountingCollector, TopFieldDocs> {
+    private final CollectorManager<TopFieldCollector, TopFieldDocs> in;
+
+    EarlyTerminationCountingManager(CollectorManager<TopFieldCollector, TopFieldDocs> in) {
+      this.in = in;
+    }
+
+    @Override
+    public EarlyTerminationCountingCollector newCollector() throws IOException {
+      return new EarlyTerminationCountingCollector(in.newCollector());
+    }
+
+    @Override
+    public TopFieldDocs reduce(Collection<EarlyTerminationCountingCollector> collectors)
+        throws IOException {
+      List<TopFieldCollector> innerCollectors = new ArrayList<>(collectors.size());
+      for (EarlyTerminationCountingCollector collector : collectors) {
+        innerCollectors.add(collector.collector);
+      }
+      return in.reduce(innerCollectors);
+    }
+  }
+
+  /** Collector wrapper that counts the segments where the wrapped collector terminated early. */
+  class EarlyTerminationCountingCollector implements Collector {
+    private final TopFieldCollector collector;
+
+    EarlyTerminationCountingCollector(TopFieldCollector collector) {
+      this.collector = collector;
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+      try {
+        return new EarlyTerminationCountingLeafCollector(collector.getLeafCollector(context));
+      } catch (CollectionTerminatedException e) {
+        earlyTerminatedSegments.incrementAndGet();
+        throw e;
+      }
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+      return collector.scoreMode();
+    }
+
+    @Override
+    public void setWeight(Weight weight) {
+      collector.setWeight(weight);
+    }
+  }
+
+  /** Leaf collector wrapper that counts the early termination of segment collection. */
+  class EarlyTerminationCountingLeafCollector implements LeafCollector {
+    private final LeafCollector in;
+
+    EarlyTerminationCountingLeafCollector(LeafCollector in) {
+      this.in = in;
+    }
+
+    @Override
+    public void setScorer(Scorable scorer) throws IOException {
+      in.setScorer(scorer);
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+      try {
+        in.collect(doc);
+      } catch (CollectionTerminatedException e) {
+        earlyTerminatedSegments.incrementAndGet();
+        throw e;
+      }
+    }
+
+    @Override
+    public void collect(DocIdStream stream) throws IOException {
+      try {
+        in.collect(stream);
+      } catch (CollectionTerminatedException e) {
+        earlyTerminatedSegments.incrementAndGet();
+        throw e;
+      }
+    }
+
+    @Override
+    public DocIdSetIterator competitiveIterator() throws IOException {
+      return in.competitiveIterator();
+    }
+
+    @Override
+    public void finish() throws IOException {
+      in.finish();
+    }
+  }
 }
@@ -289,6 +289,10 @@ public abstract class GlobalState implements Closeable {
     return indexExecutor.submit(job);
   }
 
+  public ExecutorService getIndexingExecutor() {
+    return indexExecutor;
+  }
+
   /**
    * Submit a task to the commit executor.
    *
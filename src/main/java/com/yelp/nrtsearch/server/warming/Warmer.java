@@ -19,12 +19,17 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.util.JsonFormat;
+import com.yelp.nrtsearch.server.field.FieldDef;
+import com.yelp.nrtsearch.server.field.IndexableFieldDef.FacetValueType;
+import com.yelp.nrtsearch.server.field.properties.GlobalOrdinalable;
 import com.yelp.nrtsearch.server.grpc.SearchRequest;
 import com.yelp.nrtsearch.server.handler.SearchHandler;
 import com.yelp.nrtsearch.server.index.IndexState;
+import com.yelp.nrtsearch.server.index.ShardState;
 import com.yelp.nrtsearch.server.monitoring.BootstrapMetrics;
 import com.yelp.nrtsearch.server.remote.RemoteBackend;
 import com.yelp.nrtsearch.server.remote.RemoteBackend.IndexResourceType;
+import com.yelp.nrtsearch.server.search.cache.NrtQueryCache;
 import com.yelp.nrtsearch.server.state.StateUtils;
 import io.prometheus.metrics.core.datapoints.Timer;
 import java.io.BufferedReader;
@@ -34,12 +39,21 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.util.NamedThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +69,7 @@ public class Warmer {
   private final int maxWarmingQueries;
   private final int warmBasicQueryOnlyPerc;
   protected final ThreadLocal<Random> randomThreadLocal;
+  private volatile WarmingReport lastWarmingReport;
 
   public Warmer(RemoteBackend remoteBackend, String service, String index, int maxWarmingQueries) {
     this(remoteBackend, service, index, maxWarmingQueries, 0);
@@ -80,6 +95,11 @@ public class Warmer {
     return warmingRequests.size();
   }
 
+  /** Get the report from the last time the index was warmed until converged, or null. */
+  public WarmingReport getLastWarmingReport() {
+    return lastWarmingReport;
+  }
+
   public void addSearchRequest(SearchRequest searchRequest) {
     ReservoirSampler.SampleResult sampleResult = reservoirSampler.sample();
     if (sampleResult.isSample()) {
@@ -135,20 +155,8 @@ public class Warmer {
       logger.info("No warming queries found in S3 for service: {} and index: {}", service, index);
       return;
     }
-    ThreadPoolExecutor threadPoolExecutor = null;
     long startMS = System.currentTimeMillis();
-    if (parallelism > 1) {
-      int numThreads = parallelism - 1;
-      threadPoolExecutor =
-          new ThreadPoolExecutor(
-              numThreads,
-              numThreads,
-              0,
-              TimeUnit.SECONDS,
-              new SynchronousQueue<>(),
-              new NamedThreadFactory("warming-"),
-              new ThreadPoolExecutor.CallerRunsPolicy());
-    }
+    ThreadPoolExecutor threadPoolExecutor = createThreadPoolExecutor(parallelism);
     try (BufferedReader reader =
         new BufferedReader(
             new InputStreamReader(
@@ -197,4 +205,245 @@ public class Warmer {
       threadPoolExecutor.submit(() -> searchHandler.handle(indexState, searchRequest));
     }
   }
+
+  /**
+   * Warm the index by replaying the warming queries in passes, until the p95 query latency of a
+   * pass does not improve on the previous pass by at least the configured percentage, or the max
+   * number of passes is reached. The eager global ordinals of the current searcher are loaded
+   * before replaying. Replaying the same queries multiple times also lets the query cache policy
+   * see repeated filters and cache them, so the caches are primed when warming finishes. The time
+   * spent in each phase is published in the bootstrap metrics.
+   *
+   * @param indexState index state
+   * @param warmerConfig warmer configuration
+   * @return warming report, or null if there are no warming queries
+   */
+  public WarmingReport warmUntilConverged(IndexState indexState, WarmerConfig warmerConfig)
+      throws IOException, SearchHandler.SearchHandlerException, InterruptedException {
+    try (Timer _timer =
+        BootstrapMetrics.warmingQueryTimer.labelValues(service, index).startTimer()) {
+      Set<String> primedOrdinalFields;
+      try (Timer _phaseTimer =
+          BootstrapMetrics.warmingPhaseTimer
+              .labelValues(service, index, "prime_ordinals")
+              .startTimer()) {
+        primedOrdinalFields = primeGlobalOrdinals(indexState);
+      }
+      SearchHandler searchHandler =
+          new SearchHandler(indexState.getGlobalState(), indexState.getSearchExecutor(), true);
+      return warmUntilConverged(indexState, warmerConfig, searchHandler, primedOrdinalFields);
+    }
+  }
+
+  @VisibleForTesting
+  WarmingReport warmUntilConverged(
+      IndexState indexState,
+      WarmerConfig warmerConfig,
+      SearchHandler searchHandler,
+      Set<String> primedOrdinalFields)
+      throws IOException, SearchHandler.SearchHandlerException, InterruptedException {
+    if (!remoteBackend.exists(service, index, IndexResourceType.WARMING_QUERIES)) {
+      logger.info("No warming queries found in S3 for service: {} and index: {}", service, index);
+      return null;
+    }
+    List<SearchRequest> searchRequests = downloadWarmingRequests();
+    Set<String> touchedFields = new TreeSet<>();
+    for (SearchRequest searchRequest : searchRequests) {
+      for (String fieldName : WarmingUtils.getReferencedFields(searchRequest)) {
+        if (indexState.getField(fieldName) != null) {
+          touchedFields.add(fieldName);
+        }
+      }
+    }
+
+    long startCacheQueryCount = getCacheQueryCount();
+    List<Double> passP95Millis = new ArrayList<>();
+    boolean converged = false;
+    ThreadPoolExecutor threadPoolExecutor =
+        createThreadPoolExecutor(warmerConfig.getWarmingParallelism());
+    try (Timer _timer =
+        BootstrapMetrics.warmingPhaseTimer.labelValues(service, index, "replay").startTimer()) {
+      while (!searchRequests.isEmpty()
+          && passP95Millis.size() < warmerConfig.getMaxWarmingPasses()) {
+        double p95Millis =
+            replayPass(indexState, searchHandler, threadPoolExecutor, searchRequests);
+        if (!passP95Millis.isEmpty()
+            && !isImproved(
+                passP95Millis.getLast(), p95Millis, warmerConfig.getConvergenceThresholdPerc())) {
+          converged = true;
+        }
+        passP95Millis.add(p95Millis);
+        if (converged) {
+          break;
+        }
+      }
+    } finally {
+      if (threadPoolExecutor != null) {
+        threadPoolExecutor.shutdown();
+        threadPoolExecutor.awaitTermination(10, TimeUnit.SECONDS);
+      }
+    }
+
+    WarmingReport warmingReport =
+        new WarmingReport(
+            searchRequests.size(),
+            passP95Millis,
+            converged,
+            touchedFields,
+            primedOrdinalFields,
+            getCacheQueryCount() - startCacheQueryCount);
+    BootstrapMetrics.warmingPasses.labelValues(service, index).set(warmingReport.getNumPasses());
+    BootstrapMetrics.warmingTouchedFields.labelValues(service, index).set(touchedFields.size());
+    if (!passP95Millis.isEmpty()) {
+      BootstrapMetrics.warmingLatencyP95
+          .labelValues(service, index)
+          .set(passP95Millis.getLast() / 1000.0);
+    }
+    logger.info(
+        "Warmed index: {} with {} warming queries in {} passes, converged: {}, p95 ms per pass: {},"
+            + " touched fields: {}, primed ordinal fields: {}, query cache entries added: {}",
+        index,
+        warmingReport.numQueries(),
+        warmingReport.getNumPasses(),
+        converged,
+        passP95Millis,
+        touchedFields,
+        primedOrdinalFields,
+        warmingReport.queryCacheEntriesAdded());
+    lastWarmingReport = warmingReport;
+    return warmingReport;
+  }
+
+  private List<SearchRequest> downloadWarmingRequests() throws IOException {
+    List<SearchRequest> searchRequests = new ArrayList<>();
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(
+                remoteBackend.downloadWarmingQueries(service, index),
+                StateUtils.getValidatingUTF8Decoder()))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        SearchRequest.Builder builder = SearchRequest.newBuilder();
+        JsonFormat.parser().merge(line, builder);
+        // basic queries are chosen once, so each pass replays the same requests
+        if (randomThreadLocal.get().nextInt(100) < warmBasicQueryOnlyPerc) {
+          WarmingUtils.simplifySearchRequestForWarming(builder);
+        }
+        searchRequests.add(builder.build());
+      }
+    }
+    return searchRequests;
+  }
+
+  /** Replay all warming requests once, and return the p95 request latency in milliseconds. */
+  private double replayPass(
+      IndexState indexState,
+      SearchHandler searchHandler,
+      ThreadPoolExecutor threadPoolExecutor,
+      List<SearchRequest> searchRequests)
+      throws SearchHandler.SearchHandlerException, InterruptedException {
+    long[] latencyNanos = new long[searchRequests.size()];
+    if (threadPoolExecutor == null) {
+      for (int i = 0; i < searchRequests.size(); ++i) {
+        latencyNanos[i] = timeRequest(indexState, searchHandler, searchRequests.get(i));
+      }
+    } else {
+      List<Future<?>> futures = new ArrayList<>(searchRequests.size());
+      for (int i = 0; i < searchRequests.size(); ++i) {
+        int requestIndex = i;
+        futures.add(
+            threadPoolExecutor.submit(
+                () -> {
+                  latencyNanos[requestIndex] =
+                      timeRequest(indexState, searchHandler, searchRequests.get(requestIndex));
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof SearchHandler.SearchHandlerException searchHandlerException) {
+            throw searchHandlerException;
+          }
+          throw new RuntimeException(e.getCause());
+        }
+      }
+    }
+    return getPercentile(latencyNanos, 95) / 1_000_000.0;
+  }
+
+  private static long timeRequest(
+      IndexState indexState, SearchHandler searchHandler, SearchRequest searchRequest)
+      throws SearchHandler.SearchHandlerException {
+    long startNanos = System.nanoTime();
+    searchHandler.handle(indexState, searchRequest);
+    return System.nanoTime() - startNanos;
+  }
+
+  @VisibleForTesting
+  static long getPercentile(long[] values, int percentile) {
+    long[] sorted = Arrays.copyOf(values, values.length);
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+  }
+
+  /** If the latency improved on the previous latency by at least the given percentage. */
+  @VisibleForTesting
+  static boolean isImproved(double previous, double current, int thresholdPerc) {
+    return previous > 0 && (previous - current) * 100 >= previous * thresholdPerc;
+  }
+
+  /**
+   * Load the global ordinals of all fields with eager global ordinals for the current searcher, in
+   * case they were not loaded when the searcher was opened.
+   */
+  private Set<String> primeGlobalOrdinals(IndexState indexState) throws IOException {
+    Set<String> primedFields = new TreeSet<>();
+    ShardState shardState = indexState.getShard(0);
+    SearcherTaxonomyManager.SearcherAndTaxonomy s = shardState.acquire();
+    try {
+      IndexReader reader = s.searcher().getIndexReader();
+      for (Map.Entry<String, FieldDef> entry :
+          indexState.getEagerGlobalOrdinalFields().entrySet()) {
+        // only sorted set doc values facet currently supported
+        if (entry.getValue().getFacetValueType() == FacetValueType.SORTED_SET_DOC_VALUES) {
+          shardState.getSSDVStateForReader(indexState, reader, entry.getValue());
+          primedFields.add(entry.getKey());
+        }
+      }
+      for (Map.Entry<String, GlobalOrdinalable> entry :
+          indexState.getEagerFieldGlobalOrdinalFields().entrySet()) {
+        if (entry.getValue().usesOrdinals()) {
+          entry.getValue().getOrdinalLookup(reader);
+          primedFields.add(entry.getKey());
+        }
+      }
+    } finally {
+      shardState.release(s);
+    }
+    return primedFields;
+  }
+
+  private static long getCacheQueryCount() {
+    return IndexSearcher.getDefaultQueryCache() instanceof NrtQueryCache nrtQueryCache
+        ? nrtQueryCache.getCacheQueryCount()
+        : 0;
+  }
+
+  private static ThreadPoolExecutor createThreadPoolExecutor(int parallelism) {
+    if (parallelism <= 1) {
+      return null;
+    }
+    int numThreads = parallelism - 1;
+    return new ThreadPoolExecutor(
+        numThreads,
+        numThreads,
+        0,
+        TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        new NamedThreadFactory("warming-"),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
 }
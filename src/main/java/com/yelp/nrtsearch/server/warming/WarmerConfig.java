@@ -23,11 +23,17 @@ public class WarmerConfig {
   private static final int DEFAULT_WARMING_PARALLELISM = 1;
   private static final int DEFAULT_WARM_BASIC_QUERY_ONLY_PERC = 0;
   private static final boolean DEFAULT_WARM_ON_STARTUP = false;
+  private static final boolean DEFAULT_WARM_UNTIL_CONVERGED = false;
+  private static final int DEFAULT_MAX_WARMING_PASSES = 5;
+  private static final int DEFAULT_CONVERGENCE_THRESHOLD_PERC = 5;
 
   private final int maxWarmingQueries;
   private final int warmingParallelism;
   private final int warmBasicQueryOnlyPerc;
   private final boolean warmOnStartup;
+  private final boolean warmUntilConverged;
+  private final int maxWarmingPasses;
+  private final int convergenceThresholdPerc;
 
   /**
    * Configuration for warmer.
@@ -43,10 +49,48 @@ public class WarmerConfig {
       int warmingParallelism,
       int warmBasicQueryOnlyPerc,
       boolean warmOnStartup) {
+    this(
+        maxWarmingQueries,
+        warmingParallelism,
+        warmBasicQueryOnlyPerc,
+        warmOnStartup,
+        DEFAULT_WARM_UNTIL_CONVERGED,
+        DEFAULT_MAX_WARMING_PASSES,
+        DEFAULT_CONVERGENCE_THRESHOLD_PERC);
+  }
+
+  /**
+   * Configuration for warmer.
+   *
+   * @param maxWarmingQueries maximum queries to store for warming
+   * @param warmingParallelism number of parallel queries while warming on startup
+   * @param warmBasicQueryOnlyPerc percentage of warming queries that should be basic queries for
+   *     the fast boostrap
+   * @param warmOnStartup if true will try to download queries from S3 and use them to warm
+   * @param warmUntilConverged if true the warming queries are replayed in passes until the p95
+   *     query latency stops improving
+   * @param maxWarmingPasses maximum number of replay passes when warming until converged
+   * @param convergenceThresholdPerc minimum percentage the p95 latency must improve by over the
+   *     previous pass to replay another pass
+   */
+  public WarmerConfig(
+      int maxWarmingQueries,
+      int warmingParallelism,
+      int warmBasicQueryOnlyPerc,
+      boolean warmOnStartup,
+      boolean warmUntilConverged,
+      int maxWarmingPasses,
+      int convergenceThresholdPerc) {
+    if (maxWarmingPasses < 1) {
+      throw new IllegalArgumentException("maxWarmingPasses must be > 0");
+    }
     this.maxWarmingQueries = maxWarmingQueries;
     this.warmingParallelism = warmingParallelism;
     this.warmBasicQueryOnlyPerc = warmBasicQueryOnlyPerc;
     this.warmOnStartup = warmOnStartup;
+    this.warmUntilConverged = warmUntilConverged;
+    this.maxWarmingPasses = maxWarmingPasses;
+    this.convergenceThresholdPerc = convergenceThresholdPerc;
   }
 
   public static WarmerConfig fromConfig(YamlConfigReader configReader) {
@@ -59,9 +103,22 @@ public class WarmerConfig {
             CONFIG_PREFIX + "warmBasicQueryOnlyPerc", DEFAULT_WARM_BASIC_QUERY_ONLY_PERC);
     boolean warmOnStartup =
         configReader.getBoolean(CONFIG_PREFIX + "warmOnStartup", DEFAULT_WARM_ON_STARTUP);
+    boolean warmUntilConverged =
+        configReader.getBoolean(CONFIG_PREFIX + "warmUntilConverged", DEFAULT_WARM_UNTIL_CONVERGED);
+    int maxWarmingPasses =
+        configReader.getInteger(CONFIG_PREFIX + "maxWarmingPasses", DEFAULT_MAX_WARMING_PASSES);
+    int convergenceThresholdPerc =
+        configReader.getInteger(
+            CONFIG_PREFIX + "convergenceThresholdPerc", DEFAULT_CONVERGENCE_THRESHOLD_PERC);
 
     return new WarmerConfig(
-        maxWarmingQueries, warmingParallelism, warmBasicQueryOnlyPerc, warmOnStartup);
+        maxWarmingQueries,
+        warmingParallelism,
+        warmBasicQueryOnlyPerc,
+        warmOnStartup,
+        warmUntilConverged,
+        maxWarmingPasses,
+        convergenceThresholdPerc);
   }
 
   public int getMaxWarmingQueries() {
@@ -79,4 +136,16 @@ public class WarmerConfig {
   public boolean isWarmOnStartup() {
     return warmOnStartup;
   }
+
+  public boolean isWarmUntilConverged() {
+    return warmUntilConverged;
+  }
+
+  public int getMaxWarmingPasses() {
+    return maxWarmingPasses;
+  }
+
+  public int getConvergenceThresholdPerc() {
+    return convergenceThresholdPerc;
+  }
 }
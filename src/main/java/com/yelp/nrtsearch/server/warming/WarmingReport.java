@@ -0,0 +1,43 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.warming;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Summary of warming an index by replaying the warming queries until the query latency converged.
+ *
+ * @param numQueries number of warming queries replayed in each pass
+ * @param passP95Millis p95 latency of the warming queries in each pass, in milliseconds
+ * @param converged if the latency stopped improving before reaching the max number of passes
+ * @param touchedFields index fields referenced by the warming queries
+ * @param primedOrdinalFields fields with eager global ordinals loaded before replaying
+ * @param queryCacheEntriesAdded number of queries added to the query cache while replaying
+ */
+public record WarmingReport(
+    int numQueries,
+    List<Double> passP95Millis,
+    boolean converged,
+    Set<String> touchedFields,
+    Set<String> primedOrdinalFields,
+    long queryCacheEntriesAdded) {
+
+  /** Get the number of replay passes over the warming queries. */
+  public int getNumPasses() {
+    return passP95Millis.size();
+  }
+}
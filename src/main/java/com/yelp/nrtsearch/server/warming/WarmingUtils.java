@@ -15,6 +15,8 @@
  */
 package com.yelp.nrtsearch.server.warming;
 
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
 import com.yelp.nrtsearch.server.grpc.BooleanClause;
 import com.yelp.nrtsearch.server.grpc.BooleanQuery;
 import com.yelp.nrtsearch.server.grpc.ConstantScoreQuery;
@@ -23,8 +25,53 @@ import com.yelp.nrtsearch.server.grpc.MultiFunctionScoreQuery;
 import com.yelp.nrtsearch.server.grpc.NestedQuery;
 import com.yelp.nrtsearch.server.grpc.Query;
 import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class WarmingUtils {
+  // request message fields that contain the name of an index field
+  private static final Set<String> FIELD_NAME_KEYS =
+      Set.of("field", "fields", "fieldName", "dim", "retrieveFields");
+
+  /**
+   * Get the names of the index fields referenced by a search request, such as query, sort, facet
+   * and retrieve fields. Names are taken from all message fields that conventionally hold a field
+   * name, so the result may contain names that are not defined in the index.
+   *
+   * @param searchRequest search request
+   * @return referenced field names
+   */
+  public static Set<String> getReferencedFields(SearchRequest searchRequest) {
+    Set<String> fieldNames = new HashSet<>();
+    addReferencedFields(searchRequest, fieldNames);
+    return fieldNames;
+  }
+
+  private static void addReferencedFields(Message message, Set<String> fieldNames) {
+    for (Map.Entry<FieldDescriptor, Object> entry : message.getAllFields().entrySet()) {
+      FieldDescriptor descriptor = entry.getKey();
+      if (descriptor.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
+        if (descriptor.isRepeated()) {
+          for (Object value : (List<?>) entry.getValue()) {
+            addReferencedFields((Message) value, fieldNames);
+          }
+        } else {
+          addReferencedFields((Message) entry.getValue(), fieldNames);
+        }
+      } else if (descriptor.getJavaType() == FieldDescriptor.JavaType.STRING
+          && FIELD_NAME_KEYS.contains(descriptor.getName())) {
+        if (descriptor.isRepeated()) {
+          for (Object value : (List<?>) entry.getValue()) {
+            fieldNames.add((String) value);
+          }
+        } else {
+          fieldNames.add((String) entry.getValue());
+        }
+      }
+    }
+  }
 
   public static SearchRequest simplifySearchRequestForWarming(
       SearchRequest.Builder searchRequestBuilder) {
@@ -81,6 +81,11 @@ public class LiveSettingsV2Command implements Callable<Integer> {
       description = "Number of virtual shards to partition index into")
   private Integer virtualShards;
 
+  @CommandLine.Option(
+      names = {"--slicePartitionMaxDocs"},
+      description = "Max documents per intra-segment partition, or 0 to not partition segments")
+  private Integer slicePartitionMaxDocs;
+
   @CommandLine.Option(
       names = {"--maxMergedSegmentMB"},
       description = "Max sized segment to produce during normal merging")
@@ -177,6 +182,10 @@ public class LiveSettingsV2Command implements Callable<Integer> {
         liveSettingsBuilder.setVirtualShards(
             Int32Value.newBuilder().setValue(virtualShards).build());
       }
+      if (slicePartitionMaxDocs != null) {
+        liveSettingsBuilder.setSlicePartitionMaxDocs(
+            Int32Value.newBuilder().setValue(slicePartitionMaxDocs).build());
+      }
       if (maxMergedSegmentMB != null) {
         liveSettingsBuilder.setMaxMergedSegmentMB(
             Int32Value.newBuilder().setValue(maxMergedSegmentMB).build());
@@ -15,8 +15,11 @@
  */
 package org.apache.lucene.replicator.nrt;
 
+import com.google.protobuf.ByteOutput;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import com.yelp.nrtsearch.server.grpc.RawFileChunk;
+import com.yelp.nrtsearch.server.nrt.NrtUtils;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -29,6 +32,7 @@ import org.apache.lucene.store.IndexOutput;
 public class CopyOneFile implements Closeable {
   private final Iterator<RawFileChunk> rawFileChunkIterator;
   private final IndexOutput out;
+  private final ByteOutput byteOutput;
   private final ReplicaNode dest;
   public final String name;
   public final String tmpName;
@@ -53,6 +57,7 @@ public class CopyOneFile implements Closeable {
     // TODO: pass correct IOCtx, e.g. seg total size
     out = dest.createTempOutput(name, "copy", IOContext.DEFAULT);
     tmpName = out.getName();
+    byteOutput = NrtUtils.indexByteOutput(out);
     // last 8 bytes are checksum:
     bytesToCopy = metaData.length() - Long.BYTES;
     if (Node.VERBOSE_FILES) {
@@ -100,18 +105,19 @@ public class CopyOneFile implements Closeable {
       RawFileChunk rawFileChunk = rawFileChunkIterator.next();
       ByteString byteString = rawFileChunk.getContent();
       bytesCopied += byteString.size();
+      // write directly from the chunk content, to avoid copying it to a new array
       if (bytesCopied < bytesToCopy) {
-        out.writeBytes(byteString.toByteArray(), 0, byteString.size());
+        UnsafeByteOperations.unsafeWriteTo(byteString, byteOutput);
       } else {
         int checksumBytesRead = (int) (bytesCopied - bytesToCopy);
         if (byteString.size() > checksumBytesRead) {
           // This chunk contains some data and some checksum
-          out.writeBytes(byteString.toByteArray(), 0, byteString.size() - checksumBytesRead);
-          checksumBuffer.put(
-              byteString.toByteArray(), byteString.size() - checksumBytesRead, checksumBytesRead);
+          int dataBytes = byteString.size() - checksumBytesRead;
+          UnsafeByteOperations.unsafeWriteTo(byteString.substring(0, dataBytes), byteOutput);
+          checksumBuffer.put(byteString.substring(dataBytes).asReadOnlyByteBuffer());
         } else {
           // This chunk only contains checksum
-          checksumBuffer.put(byteString.toByteArray());
+          checksumBuffer.put(byteString.asReadOnlyByteBuffer());
         }
         // Only get the checksum after it has been entirely read
         if (checksumBytesRead == Long.BYTES) {
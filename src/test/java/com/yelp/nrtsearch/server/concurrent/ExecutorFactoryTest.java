@@ -17,6 +17,7 @@ package com.yelp.nrtsearch.server.concurrent;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import com.yelp.nrtsearch.server.config.NrtsearchConfig;
 import com.yelp.nrtsearch.server.config.ThreadPoolConfiguration;
@@ -301,4 +302,24 @@ public class ExecutorFactoryTest {
     assertEquals(executor.getCorePoolSize(), 3);
     assertEquals(executor.getQueue().remainingCapacity(), 25);
   }
+
+  @Test
+  public void testVirtualThreads() {
+    init(
+        String.join(
+            "\n",
+            "threadPoolConfiguration:",
+            "  fetch:",
+            "    maxThreads: 7",
+            "    maxBufferedItems: 30",
+            "    useVirtualThreads: true"));
+    VirtualThreadExecutor executor =
+        (VirtualThreadExecutor)
+            ExecutorFactory.getInstance().getExecutor(ExecutorFactory.ExecutorType.FETCH);
+    assertEquals(7, executor.getMaxConcurrency());
+    assertEquals(30, executor.getMaxBufferedItems());
+    assertTrue(
+        ExecutorFactory.getInstance().getExecutor(ExecutorFactory.ExecutorType.SEARCH)
+            instanceof ThreadPoolExecutor);
+  }
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.lucene.search.TaskExecutor;
+import org.junit.Test;
+
+public class VirtualThreadExecutorTest {
+
+  @Test
+  public void testRunsTasks() throws Exception {
+    VirtualThreadExecutor executor = new VirtualThreadExecutor(2, 100, "TestExecutor");
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < 10; ++i) {
+        futures.add(executor.submit(() -> Thread.currentThread().isVirtual()));
+      }
+      for (Future<Boolean> future : futures) {
+        assertTrue(future.get());
+      }
+      assertEquals(10, executor.getTaskCount());
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void testThreadName() throws Exception {
+    VirtualThreadExecutor executor = new VirtualThreadExecutor(2, 100, "TestExecutor");
+    try {
+      String name = executor.submit(() -> Thread.currentThread().getName()).get();
+      assertTrue(name.startsWith("TestExecutor-"));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testConcurrencyLimit() throws Exception {
+    VirtualThreadExecutor executor = new VirtualThreadExecutor(2, 100, "TestExecutor");
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 6; ++i) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                  release.await();
+                  running.decrementAndGet();
+                  return null;
+                }));
+      }
+      waitFor(() -> executor.getActiveCount() == 2 && executor.getQueueSize() == 4);
+      assertEquals(6, executor.getPoolSize());
+      assertEquals(96, executor.getQueueRemainingCapacity());
+
+      release.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      assertEquals(2, maxRunning.get());
+      waitFor(() -> executor.getPoolSize() == 0);
+      assertEquals(0, executor.getActiveCount());
+      assertEquals(0, executor.getQueueSize());
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testRejectsWhenQueueFull() throws Exception {
+    VirtualThreadExecutor executor = new VirtualThreadExecutor(1, 2, "TestExecutor");
+    AtomicInteger rejections = new AtomicInteger();
+    executor.setRejectionListener(rejections::incrementAndGet);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      for (int i = 0; i < 3; ++i) {
+        executor.execute(
+            () -> {
+              try {
+                release.await();
+              } catch (InterruptedException ignored) {
+              }
+            });
+      }
+      waitFor(() -> executor.getActiveCount() == 1 && executor.getQueueSize() == 2);
+      try {
+        executor.execute(() -> {});
+        fail();
+      } catch (RejectedExecutionException e) {
+        assertEquals("Executor queue is full, max buffered items: 2", e.getMessage());
+      }
+      assertEquals(1, rejections.get());
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testRejectsAfterShutdown() throws Exception {
+    VirtualThreadExecutor executor = new VirtualThreadExecutor(1, 2, "TestExecutor");
+    executor.shutdown();
+    assertTrue(executor.isShutdown());
+    assertTrue(executor.isTerminated());
+    try {
+      executor.execute(() -> {});
+      fail();
+    } catch (RejectedExecutionException e) {
+      assertEquals("Executor is shut down", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testAwaitTermination() throws Exception {
+    VirtualThreadExecutor executor = new VirtualThreadExecutor(1, 2, "TestExecutor");
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(
+        () -> {
+          try {
+            release.await();
+          } catch (InterruptedException ignored) {
+          }
+        });
+    executor.shutdown();
+    assertFalse(executor.isTerminated());
+    assertFalse(executor.awaitTermination(10, TimeUnit.MILLISECONDS));
+    release.countDown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    assertTrue(executor.isTerminated());
+  }
+
+  @Test
+  public void testShutdownNow() throws Exception {
+    VirtualThreadExecutor executor = new VirtualThreadExecutor(1, 2, "TestExecutor");
+    CountDownLatch neverReleased = new CountDownLatch(1);
+    AtomicInteger interrupted = new AtomicInteger();
+    AtomicInteger started = new AtomicInteger();
+    for (int i = 0; i < 3; ++i) {
+      executor.execute(
+          () -> {
+            started.incrementAndGet();
+            try {
+              neverReleased.await();
+            } catch (InterruptedException e) {
+              interrupted.incrementAndGet();
+            }
+          });
+    }
+    waitFor(() -> executor.getActiveCount() == 1 && executor.getQueueSize() == 2);
+    assertTrue(executor.shutdownNow().isEmpty());
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals(1, started.get());
+    assertEquals(1, interrupted.get());
+  }
+
+  @Test
+  public void testNestedLuceneTasks() throws Exception {
+    // lucene runs nested tasks that have not started in the waiting thread, so parallel search
+    // tasks waiting on a permit cannot deadlock the executor
+    VirtualThreadExecutor executor = new VirtualThreadExecutor(2, 100, "TestExecutor");
+    TaskExecutor taskExecutor = new TaskExecutor(executor);
+    try {
+      List<Callable<Integer>> outerTasks = new ArrayList<>();
+      for (int i = 0; i < 4; ++i) {
+        outerTasks.add(
+            () -> {
+              List<Callable<Integer>> innerTasks = new ArrayList<>();
+              for (int j = 0; j < 4; ++j) {
+                innerTasks.add(() -> 1);
+              }
+              return taskExecutor.invokeAll(innerTasks).stream().mapToInt(v -> v).sum();
+            });
+      }
+      Future<List<Integer>> result = executor.submit(() -> taskExecutor.invokeAll(outerTasks));
+      assertEquals(List.of(4, 4, 4, 4), result.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidConcurrency() {
+    new VirtualThreadExecutor(0, 2, "TestExecutor");
+  }
+
+  private interface Condition {
+    boolean isMet();
+  }
+
+  private void waitFor(Condition condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.isMet()) {
+      if (System.nanoTime() > deadline) {
+        fail("Condition not met");
+      }
+      Thread.sleep(10);
+    }
+  }
+}
@@ -36,6 +36,12 @@ public class FileCopyConfigTest {
     assertEquals(FileCopyConfig.DEFAULT_CHUNK_SIZE, config.getChunkSize());
     assertEquals(FileCopyConfig.DEFAULT_ACK_EVERY, config.getAckEvery());
     assertEquals(FileCopyConfig.DEFAULT_MAX_IN_FLIGHT, config.getMaxInFlight());
+    assertFalse(config.getZeroCopy());
+    assertFalse(config.getAdaptiveFlowControl());
+    assertEquals(FileCopyConfig.DEFAULT_MAX_CHUNK_SIZE, config.getMaxChunkSize());
+    assertEquals(
+        (long) FileCopyConfig.DEFAULT_MAX_IN_FLIGHT * FileCopyConfig.DEFAULT_CHUNK_SIZE,
+        config.getMaxInFlightBytes());
   }
 
   @Test
@@ -48,16 +54,40 @@ public class FileCopyConfigTest {
             "  ackedCopy: true",
             "  chunkSize: 100",
             "  ackEvery: 10",
-            "  maxInFlight: 1000");
+            "  maxInFlight: 1000",
+            "  zeroCopy: true",
+            "  adaptiveFlowControl: true",
+            "  maxChunkSize: 1000",
+            "  maxInFlightBytes: 5000");
     FileCopyConfig config = getConfig(configFile);
     assertTrue(config.getAckedCopy());
     assertEquals(100, config.getChunkSize());
     assertEquals(10, config.getAckEvery());
     assertEquals(1000, config.getMaxInFlight());
+    assertTrue(config.getZeroCopy());
+    assertTrue(config.getAdaptiveFlowControl());
+    assertEquals(1000, config.getMaxChunkSize());
+    assertEquals(5000, config.getMaxInFlightBytes());
   }
 
   @Test(expected = IllegalArgumentException.class)
   public void invalidAckEvery() {
     new FileCopyConfig(true, 100, 1000, 10);
   }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidMaxChunkSize() {
+    new FileCopyConfig(true, 100, 10, 100, false, true, 50);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidMaxInFlightBytes() {
+    new FileCopyConfig(true, 100, 10, 100, false, true, 1000, 999);
+  }
+
+  @Test
+  public void testMaxChunkSizeNotAdaptive() {
+    FileCopyConfig config = new FileCopyConfig(true, 100, 10, 100, false, false, 50);
+    assertFalse(config.getAdaptiveFlowControl());
+  }
 }
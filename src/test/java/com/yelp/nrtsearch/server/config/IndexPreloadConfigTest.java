@@ -18,9 +18,12 @@ package com.yelp.nrtsearch.server.config;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import org.apache.lucene.store.IOContext;
 import org.junit.Test;
@@ -85,4 +88,77 @@ public class IndexPreloadConfigTest {
     assertFalse(config.preloadPredicate().test("file.tim", IOContext.DEFAULT));
     assertFalse(config.preloadPredicate().test("file", IOContext.DEFAULT));
   }
+
+  @Test
+  public void testBudgetConfig() {
+    String configFile =
+        String.join(
+            "\n",
+            "preload:",
+            "  enabled: true",
+            "  budgetBytes: 1000",
+            "  extensions:",
+            "    - vex",
+            "    - vec",
+            "    - dvd",
+            "  randomAccessExtensions:",
+            "    - vex");
+    IndexPreloadConfig config = getConfig(configFile);
+    assertEquals(1000, config.getBudgetBytes());
+    assertEquals(List.of("vex", "vec", "dvd"), new ArrayList<>(config.getExtensions()));
+    assertEquals(Set.of("vex"), config.getRandomAccessExtensions());
+    assertTrue(config.isResidencyManaged());
+  }
+
+  @Test
+  public void testBudgetDefault() {
+    IndexPreloadConfig config = getConfig("preload:\n enabled: true");
+    assertEquals(IndexPreloadConfig.UNLIMITED_BUDGET, config.getBudgetBytes());
+    assertEquals(Collections.emptySet(), config.getRandomAccessExtensions());
+    assertFalse(config.isResidencyManaged());
+  }
+
+  @Test
+  public void testResidencyManaged() {
+    // budget only applies when preloading
+    assertFalse(getConfig("preload:\n budgetBytes: 1000").isResidencyManaged());
+    assertTrue(
+        getConfig(String.join("\n", "preload:", "  randomAccessExtensions:", "    - vex"))
+            .isResidencyManaged());
+  }
+
+  @Test
+  public void testInvalidBudget() {
+    try {
+      getConfig(String.join("\n", "preload:", "  enabled: true", "  budgetBytes: -2"));
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("Preload budgetBytes must be >= 0, or -1 for unlimited", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testPreloadPriority() {
+    String configFile =
+        String.join(
+            "\n",
+            "preload:",
+            "  enabled: true",
+            "  extensions:",
+            "    - vec",
+            "    - dvd",
+            "    - '*'");
+    IndexPreloadConfig config = getConfig(configFile);
+    assertEquals(0, config.getPreloadPriority("_0.vec"));
+    assertEquals(1, config.getPreloadPriority("_0.dvd"));
+    assertEquals(3, config.getPreloadPriority("_0.tim"));
+
+    config =
+        getConfig(String.join("\n", "preload:", "  enabled: true", "  extensions:", "    - vec"));
+    assertEquals(0, config.getPreloadPriority("_0.vec"));
+    assertEquals(-1, config.getPreloadPriority("_0.tim"));
+
+    config = getConfig("preload:\n enabled: false");
+    assertEquals(-1, config.getPreloadPriority("_0.vec"));
+  }
 }
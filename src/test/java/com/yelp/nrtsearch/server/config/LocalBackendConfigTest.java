@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import org.junit.Test;
+
+public class LocalBackendConfigTest {
+
+  private static LocalBackendConfig getConfig(String configFile) {
+    return LocalBackendConfig.fromConfig(
+        new YamlConfigReader(new ByteArrayInputStream(configFile.getBytes())));
+  }
+
+  @Test
+  public void testDefault() {
+    LocalBackendConfig config = getConfig("nodeName: \"server_foo\"");
+    assertFalse(config.isEnabled());
+    assertEquals("", config.getPath());
+    assertFalse(config.getLinkDownloads());
+  }
+
+  @Test
+  public void testSetConfig() {
+    String configFile =
+        String.join("\n", "localBackend:", "  path: /tmp/backend", "  linkDownloads: true");
+    LocalBackendConfig config = getConfig(configFile);
+    assertTrue(config.isEnabled());
+    assertEquals("/tmp/backend", config.getPath());
+    assertTrue(config.getLinkDownloads());
+  }
+}
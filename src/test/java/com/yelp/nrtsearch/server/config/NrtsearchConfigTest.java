@@ -232,4 +232,55 @@ public class NrtsearchConfigTest {
     NrtsearchConfig luceneConfig = getForConfig(config);
     assertEquals(2048, luceneConfig.getMaxClauseCount());
   }
+
+  @Test
+  public void testSearchStream_default() {
+    String config = "nodeName: \"server_foo\"";
+    NrtsearchConfig luceneConfig = getForConfig(config);
+    assertEquals(10, luceneConfig.getSearchStreamInitialChunkHits());
+    assertEquals(30000, luceneConfig.getSearchStreamReadyTimeoutMs());
+  }
+
+  @Test
+  public void testSearchStream_set() {
+    String config =
+        String.join("\n", "searchStreamInitialChunkHits: 25", "searchStreamReadyTimeoutMs: 5000");
+    NrtsearchConfig luceneConfig = getForConfig(config);
+    assertEquals(25, luceneConfig.getSearchStreamInitialChunkHits());
+    assertEquals(5000, luceneConfig.getSearchStreamReadyTimeoutMs());
+  }
+
+  @Test
+  public void testSearchStream_invalid() {
+    try {
+      getForConfig("searchStreamInitialChunkHits: 0");
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("searchStreamInitialChunkHits must be > 0", e.getMessage());
+    }
+    try {
+      getForConfig("searchStreamReadyTimeoutMs: 0");
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("searchStreamReadyTimeoutMs must be > 0", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testDocumentFieldReuse() {
+    NrtsearchConfig luceneServerConfiguration = getForConfig("documentFieldReuse: true");
+    assertTrue(luceneServerConfiguration.getDocumentFieldReuse());
+    assertEquals(0, luceneServerConfiguration.getDocumentBuildBatchSize());
+  }
+
+  @Test
+  public void testDocumentFieldReuse_batchSize() {
+    try {
+      getForConfig("documentFieldReuse: true\ndocumentBuildBatchSize: 10");
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals(
+          "documentFieldReuse cannot be enabled with documentBuildBatchSize > 0", e.getMessage());
+    }
+  }
 }
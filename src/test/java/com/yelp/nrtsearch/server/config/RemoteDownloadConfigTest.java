@@ -0,0 +1,66 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import org.junit.Test;
+
+public class RemoteDownloadConfigTest {
+
+  private static RemoteDownloadConfig getConfig(String configFile) {
+    return RemoteDownloadConfig.fromConfig(
+        new YamlConfigReader(new ByteArrayInputStream(configFile.getBytes())));
+  }
+
+  @Test
+  public void testDefault() {
+    RemoteDownloadConfig config = getConfig("nodeName: \"server_foo\"");
+    assertEquals(RemoteDownloadConfig.DEFAULT_THREADS, config.getThreads());
+    assertEquals(8L * 1024 * 1024, config.getRangeSizeBytes());
+  }
+
+  @Test
+  public void testSetConfig() {
+    String configFile =
+        String.join("\n", "remoteDownload:", "  threads: 64", "  rangeSize: '512KB'");
+    RemoteDownloadConfig config = getConfig(configFile);
+    assertEquals(64, config.getThreads());
+    assertEquals(512L * 1024, config.getRangeSizeBytes());
+  }
+
+  @Test
+  public void testInvalidThreads() {
+    try {
+      getConfig(String.join("\n", "remoteDownload:", "  threads: 0"));
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("remoteDownload.threads must be > 0", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testInvalidRangeSize() {
+    try {
+      getConfig(String.join("\n", "remoteDownload:", "  rangeSize: '0'"));
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("remoteDownload.rangeSize must be > 0", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import org.junit.Test;
+
+public class SearchResponseCacheConfigTest {
+
+  private static SearchResponseCacheConfig getConfig(String configFile) {
+    return SearchResponseCacheConfig.fromConfig(
+        new YamlConfigReader(new ByteArrayInputStream(configFile.getBytes())));
+  }
+
+  @Test
+  public void testDefault() {
+    String configFile = "nodeName: \"server_foo\"";
+    SearchResponseCacheConfig config = getConfig(configFile);
+    assertFalse(config.getEnabled());
+    assertEquals(64L * 1024 * 1024, config.getMaxMemoryBytes());
+  }
+
+  @Test
+  public void testSetConfig() {
+    String configFile =
+        String.join(
+            "\n",
+            "nodeName: \"server_foo\"",
+            "searchResponseCache:",
+            "  enabled: true",
+            "  maxMemory: '128MB'");
+    SearchResponseCacheConfig config = getConfig(configFile);
+    assertTrue(config.getEnabled());
+    assertEquals(128L * 1024 * 1024, config.getMaxMemoryBytes());
+  }
+
+  @Test
+  public void testInvalidMaxMemory() {
+    String configFile = String.join("\n", "searchResponseCache:", "  maxMemory: '0'");
+    try {
+      getConfig(configFile);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("searchResponseCache.maxMemory must be > 0", e.getMessage());
+    }
+  }
+}
@@ -49,6 +49,42 @@ public class ThreadPoolConfigurationTest {
     assertEquals(threadPoolSettings.maxBufferedItems(), 100);
   }
 
+  @Test
+  public void testUseVirtualThreads_default() {
+    String config = "nodeName: node1";
+    ThreadPoolConfiguration threadPoolConfiguration =
+        new ThreadPoolConfiguration(getReaderForConfig(config));
+    for (ExecutorFactory.ExecutorType executorType : ExecutorFactory.ExecutorType.values()) {
+      assertFalse(threadPoolConfiguration.getThreadPoolSettings(executorType).useVirtualThreads());
+    }
+  }
+
+  @Test
+  public void testUseVirtualThreads_set() {
+    String config =
+        String.join(
+            "\n",
+            "threadPoolConfiguration:",
+            "  search:",
+            "    useVirtualThreads: true",
+            "  commit:",
+            "    useVirtualThreads: false");
+    ThreadPoolConfiguration threadPoolConfiguration =
+        new ThreadPoolConfiguration(getReaderForConfig(config));
+    assertTrue(
+        threadPoolConfiguration
+            .getThreadPoolSettings(ExecutorFactory.ExecutorType.SEARCH)
+            .useVirtualThreads());
+    assertFalse(
+        threadPoolConfiguration
+            .getThreadPoolSettings(ExecutorFactory.ExecutorType.COMMIT)
+            .useVirtualThreads());
+    assertFalse(
+        threadPoolConfiguration
+            .getThreadPoolSettings(ExecutorFactory.ExecutorType.INDEX)
+            .useVirtualThreads());
+  }
+
   @Test
   public void testSearchThreadPool_default() {
     String config = "nodeName: node1";
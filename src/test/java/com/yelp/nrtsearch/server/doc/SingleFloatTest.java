@@ -41,6 +41,7 @@ public class SingleFloatTest {
     assertEquals(value, loadedData.get(0), 0.0);
     assertEquals(value, loadedData.getValue(), 0.0);
     assertEquals(value, loadedData.getFloat(0), 0.0);
+    assertEquals(value, loadedData.getDouble(0), 0.0);
     assertEquals(
         SearchResponse.Hit.FieldValue.newBuilder().setFloatValue(value).build(),
         loadedData.toFieldValue(0));
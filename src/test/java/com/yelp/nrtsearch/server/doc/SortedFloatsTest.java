@@ -42,6 +42,7 @@ public class SortedFloatsTest {
     for (int i = 0; i < values.length; i++) {
       assertEquals(values[i], loadedData.get(i), 0.0);
       assertEquals(values[i], loadedData.getFloat(i), 0.0);
+      assertEquals(values[i], loadedData.getDouble(i), 0.0);
       assertEquals(
           SearchResponse.Hit.FieldValue.newBuilder().setFloatValue(values[i]).build(),
           loadedData.toFieldValue(i));
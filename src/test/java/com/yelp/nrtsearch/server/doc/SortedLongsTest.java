@@ -41,6 +41,7 @@ public class SortedLongsTest {
     for (int i = 0; i < values.length; i++) {
       assertEquals(values[i], loadedData.get(i).longValue());
       assertEquals(values[i], loadedData.getLong(i));
+      assertEquals(values[i], loadedData.getDouble(i), 0.0);
       assertEquals(
           SearchResponse.Hit.FieldValue.newBuilder().setLongValue(values[i]).build(),
           loadedData.toFieldValue(i));
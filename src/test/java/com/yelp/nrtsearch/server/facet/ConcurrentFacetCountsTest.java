@@ -0,0 +1,427 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.facet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.yelp.nrtsearch.server.ServerTestCase;
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest;
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest.MultiValuedField;
+import com.yelp.nrtsearch.server.grpc.Facet;
+import com.yelp.nrtsearch.server.grpc.FieldDefRequest;
+import com.yelp.nrtsearch.server.grpc.NumericRangeType;
+import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.index.IndexState;
+import com.yelp.nrtsearch.server.index.ShardState;
+import io.grpc.testing.GrpcCleanupRule;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollector.MatchingDocs;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.range.LongRange;
+import org.apache.lucene.facet.range.LongRangeFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TaskExecutor;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class ConcurrentFacetCountsTest extends ServerTestCase {
+  private static final int NUM_SEGMENTS = 3;
+  private static final int DOCS_PER_SEGMENT = 20;
+  private static final String SSDV_FIELD = "ssdv_facet_field";
+  private static final String RANGE_FIELD = "long_range_field";
+
+  @ClassRule public static final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+  @Override
+  public FieldDefRequest getIndexDef(String name) throws IOException {
+    return getFieldsFromResourceFile("/facet/concurrent_facets.json");
+  }
+
+  @Override
+  protected String getExtraConfig() {
+    return "concurrentFacetCounting: true";
+  }
+
+  @Override
+  public void initIndex(String name) throws Exception {
+    IndexWriter writer = getGlobalState().getIndexOrThrow(name).getShard(0).writer;
+    // each commit creates a segment
+    writer.getConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+
+    int id = 0;
+    for (int segment = 0; segment < NUM_SEGMENTS; ++segment) {
+      List<AddDocumentRequest> requests = new ArrayList<>();
+      for (int i = 0; i < DOCS_PER_SEGMENT; ++i, ++id) {
+        AddDocumentRequest.Builder builder =
+            AddDocumentRequest.newBuilder()
+                .setIndexName(name)
+                .putFields("doc_id", values(String.valueOf(id)))
+                .putFields(RANGE_FIELD, values(String.valueOf(id)))
+                .putFields("int_field", values(String.valueOf(id % 7)));
+        // label_j is present for ids divisible by j, so each label has a distinct count
+        List<String> labels = new ArrayList<>();
+        for (int j = 1; j <= 6; ++j) {
+          if (id % j == 0) {
+            labels.add("label_" + j);
+          }
+        }
+        builder.putFields(SSDV_FIELD, values(labels.toArray(new String[0])));
+        requests.add(builder.build());
+      }
+      addDocuments(requests.stream());
+      writer.commit();
+    }
+  }
+
+  private static MultiValuedField values(String... values) {
+    return MultiValuedField.newBuilder().addAllValue(Arrays.asList(values)).build();
+  }
+
+  private interface SearcherConsumer {
+    void accept(SearcherTaxonomyManager.SearcherAndTaxonomy s, FacetsCollector hits)
+        throws Exception;
+  }
+
+  private void withMatchAllHits(SearcherConsumer consumer) throws Exception {
+    ShardState shardState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX).getShard(0);
+    SearcherTaxonomyManager.SearcherAndTaxonomy s = null;
+    try {
+      s = shardState.acquire();
+      assertEquals(NUM_SEGMENTS, s.searcher().getIndexReader().leaves().size());
+      FacetsCollector hits =
+          s.searcher().search(new MatchAllDocsQuery(), new FacetsCollectorManager());
+      consumer.accept(s, hits);
+    } finally {
+      if (s != null) {
+        shardState.release(s);
+      }
+    }
+  }
+
+  private static void assertSameResult(FacetResult expected, FacetResult actual) {
+    assertEquals(expected.dim, actual.dim);
+    assertArrayEquals(expected.path, actual.path);
+    assertEquals(expected.value.intValue(), actual.value.intValue());
+    assertEquals(expected.childCount, actual.childCount);
+    assertEquals(expected.labelValues.length, actual.labelValues.length);
+    for (int i = 0; i < expected.labelValues.length; ++i) {
+      assertEquals(expected.labelValues[i].label, actual.labelValues[i].label);
+      assertEquals(
+          expected.labelValues[i].value.intValue(), actual.labelValues[i].value.intValue());
+    }
+  }
+
+  private void verifySlicedTopChildren(
+      FacetsCollector hits,
+      ConcurrentFacetCounts.SliceCounter<Facets> counter,
+      boolean rangeChildren,
+      String dim)
+      throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      TaskExecutor taskExecutor = new TaskExecutor(executor);
+      for (int topN : new int[] {1, 3, 10}) {
+        FacetResult expected = counter.count(hits).getTopChildren(topN, dim);
+        // one slice per segment
+        FacetResult actual =
+            ConcurrentFacetCounts.getTopChildren(
+                hits, taskExecutor, counter, 1, topN, rangeChildren, dim);
+        assertSameResult(expected, actual);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testSortedSetDocValuesSlices() throws Exception {
+    withMatchAllHits(
+        (s, hits) -> {
+          IndexState indexState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX);
+          SortedSetDocValuesReaderState state =
+              indexState
+                  .getShard(0)
+                  .getSSDVState(indexState, s, indexState.getFieldOrThrow(SSDV_FIELD));
+          verifySlicedTopChildren(
+              hits,
+              sliceHits -> new SortedSetDocValuesFacetCounts(state, sliceHits),
+              false,
+              SSDV_FIELD);
+        });
+  }
+
+  @Test
+  public void testLongRangeSlices() throws Exception {
+    LongRange[] ranges =
+        new LongRange[] {
+          new LongRange("low", 0, true, 9, true),
+          new LongRange("mid", 10, true, 34, true),
+          new LongRange("high", 40, true, 100, true)
+        };
+    withMatchAllHits(
+        (s, hits) ->
+            verifySlicedTopChildren(
+                hits,
+                sliceHits -> new LongRangeFacetCounts(RANGE_FIELD, sliceHits, ranges),
+                true,
+                RANGE_FIELD));
+  }
+
+  @Test
+  public void testLongRangeSlicesEmptyAndTied() throws Exception {
+    // ties are in range order, not label order, the empty range is dropped, and ranges sharing a
+    // label are not merged
+    LongRange[] ranges =
+        new LongRange[] {
+          new LongRange("low", 0, true, 9, true),
+          new LongRange("mid", 10, true, 34, true),
+          new LongRange("empty", 200, true, 300, true),
+          new LongRange("a_tied", 50, true, 59, true),
+          new LongRange("low", 20, true, 29, true)
+        };
+    withMatchAllHits(
+        (s, hits) -> {
+          FacetResult expected =
+              new LongRangeFacetCounts(RANGE_FIELD, hits, ranges).getTopChildren(10, RANGE_FIELD);
+          assertEquals(4, expected.childCount);
+          assertEquals("mid", expected.labelValues[0].label);
+          assertEquals("low", expected.labelValues[1].label);
+          assertEquals("a_tied", expected.labelValues[2].label);
+          assertEquals("low", expected.labelValues[3].label);
+          verifySlicedTopChildren(
+              hits,
+              sliceHits -> new LongRangeFacetCounts(RANGE_FIELD, sliceHits, ranges),
+              true,
+              RANGE_FIELD);
+        });
+  }
+
+  @Test
+  public void testCountSlices() throws Exception {
+    withMatchAllHits(
+        (s, hits) -> {
+          ExecutorService executor = Executors.newFixedThreadPool(2);
+          try {
+            TaskExecutor taskExecutor = new TaskExecutor(executor);
+            ConcurrentFacetCounts.SliceCounter<Integer> counter =
+                sliceHits -> {
+                  int totalHits = 0;
+                  for (MatchingDocs matchingDocs : sliceHits.getMatchingDocs()) {
+                    totalHits += matchingDocs.totalHits();
+                  }
+                  return totalHits;
+                };
+            assertEquals(
+                List.of(DOCS_PER_SEGMENT, DOCS_PER_SEGMENT, DOCS_PER_SEGMENT),
+                ConcurrentFacetCounts.countSlices(hits, taskExecutor, counter, 1));
+            assertEquals(
+                List.of(2 * DOCS_PER_SEGMENT, DOCS_PER_SEGMENT),
+                ConcurrentFacetCounts.countSlices(hits, taskExecutor, counter, 30));
+            assertEquals(
+                List.of(NUM_SEGMENTS * DOCS_PER_SEGMENT),
+                ConcurrentFacetCounts.countSlices(hits, null, counter, 1));
+          } finally {
+            executor.shutdown();
+          }
+        });
+  }
+
+  @Test
+  public void testGetSlicesSkipsEmpty() throws Exception {
+    withMatchAllHits(
+        (s, hits) -> {
+          List<LeafReaderContext> leaves = s.searcher().getIndexReader().leaves();
+          List<MatchingDocs> matchingDocs =
+              List.of(
+                  new MatchingDocs(leaves.get(0), null, 5, null),
+                  new MatchingDocs(leaves.get(1), null, 0, null),
+                  new MatchingDocs(leaves.get(2), null, 5, null));
+          List<List<MatchingDocs>> slices = ConcurrentFacetCounts.getSlices(matchingDocs, 1);
+          assertEquals(2, slices.size());
+          assertEquals(leaves.get(0), slices.get(0).getFirst().context());
+          assertEquals(leaves.get(2), slices.get(1).getFirst().context());
+          assertTrue(ConcurrentFacetCounts.getSlices(List.of(), 1).isEmpty());
+        });
+  }
+
+  @Test
+  public void testMergeTopChildren() {
+    FacetResult slice1 =
+        new FacetResult(
+            "dim",
+            new String[0],
+            5,
+            new LabelAndValue[] {new LabelAndValue("b", 3), new LabelAndValue("a", 2)},
+            2);
+    FacetResult slice2 =
+        new FacetResult(
+            "dim",
+            new String[0],
+            4,
+            new LabelAndValue[] {
+              new LabelAndValue("a", 1), new LabelAndValue("c", 3), new LabelAndValue("d", 0)
+            },
+            2);
+    FacetResult merged =
+        ConcurrentFacetCounts.mergeTopChildren(Arrays.asList(slice1, null, slice2), 2, "dim");
+    assertEquals(9, merged.value.intValue());
+    assertEquals(3, merged.childCount);
+    assertEquals(2, merged.labelValues.length);
+    // ties are ordered by label
+    assertEquals("a", merged.labelValues[0].label);
+    assertEquals(3, merged.labelValues[0].value.intValue());
+    assertEquals("b", merged.labelValues[1].label);
+    assertEquals(3, merged.labelValues[1].value.intValue());
+
+    FacetResult noDimCount =
+        new FacetResult("dim", new String[0], -1, new LabelAndValue[] {}, 0);
+    merged = ConcurrentFacetCounts.mergeTopChildren(List.of(slice1, noDimCount), 5, "dim");
+    assertEquals(-1, merged.value.intValue());
+
+    assertNull(ConcurrentFacetCounts.mergeTopChildren(List.of(noDimCount), 5, "dim"));
+    assertNull(ConcurrentFacetCounts.mergeTopChildren(Arrays.asList(null, null), 5, "dim"));
+  }
+
+  @Test
+  public void testMergeTopRangeChildren() {
+    FacetResult slice1 =
+        new FacetResult(
+            "dim",
+            new String[0],
+            6,
+            new LabelAndValue[] {
+              new LabelAndValue("r", 2),
+              new LabelAndValue("empty", 0),
+              new LabelAndValue("b", 1),
+              new LabelAndValue("r", 3)
+            },
+            4);
+    FacetResult slice2 =
+        new FacetResult(
+            "dim",
+            new String[0],
+            4,
+            new LabelAndValue[] {
+              new LabelAndValue("r", 1),
+              new LabelAndValue("empty", 0),
+              new LabelAndValue("b", 2),
+              new LabelAndValue("r", 1)
+            },
+            4);
+    FacetResult merged =
+        ConcurrentFacetCounts.mergeTopRangeChildren(
+            Arrays.asList(slice1, null, slice2), 10, "dim");
+    assertEquals(10, merged.value.intValue());
+    // the empty range is dropped
+    assertEquals(3, merged.childCount);
+    assertEquals(3, merged.labelValues.length);
+    // ranges with the same label are not merged
+    assertEquals("r", merged.labelValues[0].label);
+    assertEquals(4, merged.labelValues[0].value.intValue());
+    // ties are in range order
+    assertEquals("r", merged.labelValues[1].label);
+    assertEquals(3, merged.labelValues[1].value.intValue());
+    assertEquals("b", merged.labelValues[2].label);
+    assertEquals(3, merged.labelValues[2].value.intValue());
+
+    merged = ConcurrentFacetCounts.mergeTopRangeChildren(List.of(slice1, slice2), 1, "dim");
+    assertEquals(3, merged.childCount);
+    assertEquals(1, merged.labelValues.length);
+    assertEquals(4, merged.labelValues[0].value.intValue());
+
+    FacetResult allEmpty =
+        new FacetResult(
+            "dim", new String[0], 0, new LabelAndValue[] {new LabelAndValue("empty", 0)}, 1);
+    merged = ConcurrentFacetCounts.mergeTopRangeChildren(List.of(allEmpty, allEmpty), 10, "dim");
+    assertEquals(0, merged.childCount);
+    assertEquals(0, merged.labelValues.length);
+    assertNull(ConcurrentFacetCounts.mergeTopRangeChildren(Arrays.asList(null, null), 10, "dim"));
+  }
+
+  @Test
+  public void testSearchFacets() {
+    SearchResponse response =
+        getGrpcServer()
+            .getBlockingStub()
+            .search(
+                SearchRequest.newBuilder()
+                    .setIndexName(DEFAULT_TEST_INDEX)
+                    .setTopHits(10)
+                    .addFacets(
+                        Facet.newBuilder().setName("ssdv").setDim(SSDV_FIELD).setTopN(2).build())
+                    .addFacets(
+                        Facet.newBuilder()
+                            .setName("range")
+                            .setDim(RANGE_FIELD)
+                            .addNumericRange(
+                                NumericRangeType.newBuilder()
+                                    .setLabel("low")
+                                    .setMin(0)
+                                    .setMinInclusive(true)
+                                    .setMax(9)
+                                    .setMaxInclusive(true)
+                                    .build())
+                            .setTopN(10)
+                            .build())
+                    .addFacets(
+                        Facet.newBuilder()
+                            .setName("doc_values")
+                            .setDim("int_field")
+                            .setTopN(1)
+                            .build())
+                    .build());
+    assertEquals(3, response.getFacetResultCount());
+
+    com.yelp.nrtsearch.server.grpc.FacetResult ssdv = response.getFacetResult(0);
+    assertEquals("ssdv", ssdv.getName());
+    assertEquals(6, ssdv.getChildCount());
+    assertEquals("label_1", ssdv.getLabelValues(0).getLabel());
+    assertEquals(60, ssdv.getLabelValues(0).getValue(), 0);
+    assertEquals("label_2", ssdv.getLabelValues(1).getLabel());
+    assertEquals(30, ssdv.getLabelValues(1).getValue(), 0);
+
+    com.yelp.nrtsearch.server.grpc.FacetResult range = response.getFacetResult(1);
+    assertEquals("range", range.getName());
+    assertEquals("low", range.getLabelValues(0).getLabel());
+    assertEquals(10, range.getLabelValues(0).getValue(), 0);
+
+    com.yelp.nrtsearch.server.grpc.FacetResult docValues = response.getFacetResult(2);
+    assertEquals("doc_values", docValues.getName());
+    assertEquals(60, docValues.getValue(), 0);
+    assertEquals(7, docValues.getChildCount());
+    // ids 0 to 59, values 0 to 3 have one more document than values 4 to 6
+    assertEquals(9, docValues.getLabelValues(0).getValue(), 0);
+  }
+}
@@ -19,6 +19,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import com.yelp.nrtsearch.server.ServerTestCase;
+import com.yelp.nrtsearch.server.facet.FilteredSSDVFacetCounts.SegmentHits;
 import com.yelp.nrtsearch.server.grpc.AddDocumentRequest;
 import com.yelp.nrtsearch.server.grpc.BooleanClause;
 import com.yelp.nrtsearch.server.grpc.BooleanQuery;
@@ -30,14 +31,25 @@ import com.yelp.nrtsearch.server.grpc.MatchAllQuery;
 import com.yelp.nrtsearch.server.grpc.Query;
 import com.yelp.nrtsearch.server.grpc.SearchRequest;
 import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.index.IndexState;
+import com.yelp.nrtsearch.server.index.ShardState;
 import io.grpc.testing.GrpcCleanupRule;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TaskExecutor;
 import org.junit.ClassRule;
 import org.junit.Test;
 
@@ -270,6 +282,73 @@ public class FilteredSSDVFacetCountsTest extends ServerTestCase {
     assertResponse(searchResponse, 0);
   }
 
+  @Test
+  public void testConcurrentSlices() throws Exception {
+    IndexState indexState = getGlobalState().getIndexOrThrow(MULTI_SEGMENT_INDEX);
+    ShardState shardState = indexState.getShard(0);
+    String field = "sorted_doc_values_facet_field";
+    List<String> labels = Arrays.asList("M3", "M1", "M2", "M4", "M1");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    SearcherTaxonomyManager.SearcherAndTaxonomy s = null;
+    try {
+      s = shardState.acquire();
+      assertEquals(3, s.searcher().getIndexReader().leaves().size());
+      SortedSetDocValuesReaderState state =
+          shardState.getSSDVState(indexState, s, indexState.getFieldOrThrow(field));
+      FacetsCollector hits =
+          s.searcher().search(new MatchAllDocsQuery(), new FacetsCollectorManager());
+      TaskExecutor taskExecutor = new TaskExecutor(executor);
+
+      for (FacetsCollector facetsCollector : Arrays.asList(hits, null)) {
+        // one slice per segment
+        FilteredSSDVFacetCounts counts =
+            new FilteredSSDVFacetCounts(labels, field, state, facetsCollector, taskExecutor, 1);
+        org.apache.lucene.facet.FacetResult result = counts.getTopChildren(5, field);
+        assertEquals(3, result.childCount);
+        assertEquals(6, result.value.intValue());
+        assertEquals("M2", result.labelValues[0].label);
+        assertEquals(3, result.labelValues[0].value.intValue());
+        assertEquals("M1", result.labelValues[1].label);
+        assertEquals(2, result.labelValues[1].value.intValue());
+        assertEquals("M3", result.labelValues[2].label);
+        assertEquals(1, result.labelValues[2].value.intValue());
+        // duplicate label is counted at its last index
+        assertEquals(2, counts.getSpecificValue(field, "M1"));
+        assertEquals(-1, counts.getSpecificValue(field, "M4"));
+      }
+    } finally {
+      if (s != null) {
+        shardState.release(s);
+      }
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetSlices() throws Exception {
+    IndexState indexState = getGlobalState().getIndexOrThrow(MULTI_SEGMENT_INDEX);
+    ShardState shardState = indexState.getShard(0);
+    SearcherTaxonomyManager.SearcherAndTaxonomy s = null;
+    try {
+      s = shardState.acquire();
+      List<SegmentHits> segments = new ArrayList<>();
+      for (LeafReaderContext context : s.searcher().getIndexReader().leaves()) {
+        segments.add(new SegmentHits(context, null));
+      }
+      assertEquals(3, FilteredSSDVFacetCounts.getSlices(segments, 1).size());
+      List<List<SegmentHits>> slices = FilteredSSDVFacetCounts.getSlices(segments, 2);
+      assertEquals(2, slices.size());
+      assertEquals(2, slices.get(0).size());
+      assertEquals(1, slices.get(1).size());
+      assertEquals(1, FilteredSSDVFacetCounts.getSlices(segments, 100).size());
+      assertTrue(FilteredSSDVFacetCounts.getSlices(new ArrayList<>(), 1).isEmpty());
+    } finally {
+      if (s != null) {
+        shardState.release(s);
+      }
+    }
+  }
+
   private void queryAndVerify(Facet facet, int childCount, LabelAndValue... expectedValues) {
     SearchResponse response = doQuery(DEFAULT_TEST_INDEX, facet);
     assertResponse(response, childCount, expectedValues);
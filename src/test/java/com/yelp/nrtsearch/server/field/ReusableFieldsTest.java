@@ -0,0 +1,191 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.util.BytesRef;
+import org.junit.After;
+import org.junit.Test;
+
+public class ReusableFieldsTest {
+
+  @After
+  public void cleanUp() {
+    ReusableFields reusableFields = ReusableFields.current();
+    if (reusableFields != null) {
+      reusableFields.close();
+    }
+  }
+
+  @Test
+  public void testStartAndClose() {
+    assertNull(ReusableFields.current());
+    ReusableFields reusableFields = ReusableFields.start();
+    assertSame(reusableFields, ReusableFields.current());
+    try {
+      ReusableFields.start();
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("Reusable fields already active for thread", e.getMessage());
+    }
+    reusableFields.close();
+    assertNull(ReusableFields.current());
+  }
+
+  @Test
+  public void testReuseBetweenDocuments() {
+    ReusableFields reusableFields = ReusableFields.start();
+    Field docValue = reusableFields.numericDocValues("reuse", DocValuesType.NUMERIC, 1);
+    Field point = reusableFields.intPoint("reuse", 1);
+    assertTrue(docValue instanceof NumericDocValuesField);
+    assertTrue(point instanceof IntPoint);
+
+    reusableFields.nextDocument();
+    assertSame(docValue, reusableFields.numericDocValues("reuse", DocValuesType.NUMERIC, 2));
+    assertSame(point, reusableFields.intPoint("reuse", 2));
+    assertEquals(2L, docValue.numericValue());
+    BytesRef pointBytes = point.binaryValue();
+    assertEquals(2, IntPoint.decodeDimension(pointBytes.bytes, pointBytes.offset));
+
+    assertEquals(2, reusableFields.getAllocatedCount());
+    assertEquals(2, reusableFields.getReusedCount());
+  }
+
+  @Test
+  public void testMultipleValues() {
+    ReusableFields reusableFields = ReusableFields.start();
+    DocValuesType type = DocValuesType.SORTED_SET;
+    Field first = reusableFields.bytesDocValues("multi", type, new BytesRef("a"));
+    Field second = reusableFields.bytesDocValues("multi", type, new BytesRef("b"));
+    assertNotSame(first, second);
+    assertEquals(new BytesRef("a"), first.binaryValue());
+    assertEquals(new BytesRef("b"), second.binaryValue());
+
+    // fields are handed out in the same order for the next document
+    reusableFields.nextDocument();
+    assertSame(first, reusableFields.bytesDocValues("multi", type, new BytesRef("c")));
+    assertEquals(new BytesRef("c"), first.binaryValue());
+    assertEquals(new BytesRef("b"), second.binaryValue());
+    assertSame(second, reusableFields.bytesDocValues("multi", type, new BytesRef("d")));
+    Field third = reusableFields.bytesDocValues("multi", type, new BytesRef("e"));
+    assertNotSame(first, third);
+    assertNotSame(second, third);
+  }
+
+  @Test
+  public void testFieldsKeptBetweenStarts() {
+    ReusableFields reusableFields = ReusableFields.start();
+    Field field = reusableFields.longPoint("kept", 1);
+    reusableFields.close();
+
+    reusableFields = ReusableFields.start();
+    assertSame(field, reusableFields.longPoint("kept", 2));
+    assertEquals(0, reusableFields.getAllocatedCount());
+    assertEquals(1, reusableFields.getReusedCount());
+  }
+
+  @Test
+  public void testFieldsKeptBetweenThreads() throws InterruptedException {
+    ReusableFields reusableFields = ReusableFields.start();
+    Field field = reusableFields.longPoint("kept", 1);
+    reusableFields.close();
+
+    AtomicReference<Field> reusedField = new AtomicReference<>();
+    Thread.ofVirtual()
+        .start(
+            () -> {
+              try (ReusableFields threadFields = ReusableFields.start()) {
+                reusedField.set(threadFields.longPoint("kept", 2));
+              }
+            })
+        .join();
+    assertSame(field, reusedField.get());
+    assertNull(ReusableFields.current());
+  }
+
+  @Test
+  public void testStringDocValues() {
+    ReusableFields reusableFields = ReusableFields.start();
+    DocValuesType type = DocValuesType.SORTED_SET;
+    Field first = reusableFields.stringDocValues("string_dv", type, "a");
+    Field second = reusableFields.stringDocValues("string_dv", type, "b");
+    assertNotSame(first.binaryValue(), second.binaryValue());
+    assertEquals(new BytesRef("a"), first.binaryValue());
+    assertEquals(new BytesRef("b"), second.binaryValue());
+
+    // values are encoded into the same buffer for the next document
+    BytesRef firstBytes = first.binaryValue();
+    reusableFields.nextDocument();
+    assertSame(first, reusableFields.stringDocValues("string_dv", type, "longer value"));
+    assertSame(firstBytes, first.binaryValue());
+    assertEquals(new BytesRef("longer value"), first.binaryValue());
+    assertEquals(new BytesRef("b"), second.binaryValue());
+  }
+
+  @Test
+  public void testReplaceDifferentType() {
+    ReusableFields reusableFields = ReusableFields.start();
+    Field field = reusableFields.numericDocValues("replace", DocValuesType.NUMERIC, 1);
+    reusableFields.nextDocument();
+    Field replaced = reusableFields.numericDocValues("replace", DocValuesType.SORTED_NUMERIC, 1);
+    assertTrue(replaced instanceof SortedNumericDocValuesField);
+    assertNotSame(field, replaced);
+    reusableFields.nextDocument();
+    assertSame(
+        replaced, reusableFields.numericDocValues("replace", DocValuesType.SORTED_NUMERIC, 2));
+  }
+
+  @Test
+  public void testStringField() {
+    ReusableFields reusableFields = ReusableFields.start();
+    Field field = reusableFields.stringField("string", StringField.TYPE_STORED, "a");
+    reusableFields.nextDocument();
+    assertSame(field, reusableFields.stringField("string", StringField.TYPE_STORED, "b"));
+    assertEquals("b", field.stringValue());
+
+    // a new field type means the field definition changed
+    FieldType fieldType = new FieldType(StringField.TYPE_STORED);
+    reusableFields.nextDocument();
+    Field replaced = reusableFields.stringField("string", fieldType, "c");
+    assertNotSame(field, replaced);
+    assertSame(fieldType, replaced.fieldType());
+  }
+
+  @Test
+  public void testUnsupportedDocValuesType() {
+    ReusableFields reusableFields = ReusableFields.start();
+    try {
+      reusableFields.numericDocValues("unsupported", DocValuesType.SORTED, 1);
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("Unsupported doc value type SORTED for field unsupported", e.getMessage());
+    }
+  }
+}
@@ -17,6 +17,7 @@ package com.yelp.nrtsearch.server.field;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -33,6 +34,7 @@ import com.yelp.nrtsearch.server.grpc.SearchResponse.Diagnostics.VectorDiagnosti
 import com.yelp.nrtsearch.server.grpc.SearchResponse.Hit;
 import com.yelp.nrtsearch.server.grpc.SearchResponse.Hit.FieldValue.Vector;
 import com.yelp.nrtsearch.server.index.IndexState;
+import com.yelp.nrtsearch.server.query.vector.NrtKnnFloatVectorQuery;
 import io.grpc.StatusRuntimeException;
 import io.grpc.testing.GrpcCleanupRule;
 import java.io.IOException;
@@ -567,6 +569,80 @@ public class VectorFieldDefTest extends ServerTestCase {
         0.001);
   }
 
+  @Test
+  public void testQuantizedVectorSearch_rescore() {
+    // rescored hits have the full precision similarity
+    quantizedQueryAndVerify(true, 0.0001);
+  }
+
+  @Test
+  public void testQuantizedVectorSearch_noRescore() {
+    quantizedQueryAndVerify(false, 0.01);
+  }
+
+  private void quantizedQueryAndVerify(boolean rescore, double delta) {
+    SearchResponse searchResponse =
+        getGrpcServer()
+            .getBlockingStub()
+            .search(
+                SearchRequest.newBuilder()
+                    .setIndexName(VECTOR_SEARCH_INDEX_NAME)
+                    .addRetrieveFields("quantized_vector_4")
+                    .setStartHit(0)
+                    .setTopHits(10)
+                    .addKnn(
+                        KnnQuery.newBuilder()
+                            .setField("quantized_vector_4")
+                            .addAllQueryVector(List.of(0.25f, 0.5f, 0.75f, 0.1f))
+                            .setNumCandidates(10)
+                            .setK(5)
+                            .setRescore(rescore)
+                            .build())
+                    .build());
+    assertEquals(5, searchResponse.getHitsCount());
+    verifyHitsSimilarity(
+        "quantized_vector_4",
+        List.of(0.25f, 0.5f, 0.75f, 0.1f),
+        searchResponse,
+        VectorSimilarityFunction.COSINE,
+        1.0f,
+        delta);
+  }
+
+  @Test
+  public void testKnnQueryRescoreDefault() throws IOException {
+    KnnQuery.Builder knnQueryBuilder =
+        KnnQuery.newBuilder()
+            .addAllQueryVector(List.of(0.25f, 0.5f, 0.75f, 0.1f))
+            .setNumCandidates(10)
+            .setK(5);
+    IndexState indexState = getGlobalState().getIndexOrThrow(VECTOR_SEARCH_INDEX_NAME);
+    VectorFieldDef<?> quantizedField =
+        (VectorFieldDef<?>) indexState.getFieldOrThrow("quantized_vector_4");
+    NrtKnnFloatVectorQuery query =
+        (NrtKnnFloatVectorQuery)
+            quantizedField.getKnnQuery(
+                knnQueryBuilder.setField("quantized_vector_4").build(), null, null);
+    assertFalse(query.isRescore());
+    query =
+        (NrtKnnFloatVectorQuery)
+            quantizedField.getKnnQuery(knnQueryBuilder.setRescore(true).build(), null, null);
+    assertTrue(query.isRescore());
+
+    knnQueryBuilder
+        .setField("vector_cosine")
+        .clearRescore()
+        .clearQueryVector()
+        .addAllQueryVector(List.of(0.25f, 0.5f, 0.75f));
+    query =
+        (NrtKnnFloatVectorQuery) getCosineField().getKnnQuery(knnQueryBuilder.build(), null, null);
+    assertFalse(query.isRescore());
+    query =
+        (NrtKnnFloatVectorQuery)
+            getCosineField().getKnnQuery(knnQueryBuilder.setRescore(true).build(), null, null);
+    assertTrue(query.isRescore());
+  }
+
   @Test
   public void testVectorSearch_boost() {
     singleVectorQueryAndVerify(
@@ -60,7 +60,29 @@ public class AckedCopyTest {
     testReplication(1024, 2, 2);
   }
 
-  private void testReplication(int chunkSize, int ackEvery, int maxInFlight)
+  @Test
+  public void ack2Limit4ZeroCopy() throws IOException, InterruptedException {
+    testReplication(2, 2, 4, "  zeroCopy: true");
+  }
+
+  @Test
+  public void ack2Limit2LargeChunkZeroCopy() throws IOException, InterruptedException {
+    testReplication(1024, 2, 2, "  zeroCopy: true");
+  }
+
+  @Test
+  public void ack2Limit8Adaptive() throws IOException, InterruptedException {
+    testReplication(2, 2, 8, "  adaptiveFlowControl: true", "  maxChunkSize: 16");
+  }
+
+  @Test
+  public void ack1Limit4AdaptiveLargeChunk() throws IOException, InterruptedException {
+    testReplication(
+        1024, 1, 4, "  adaptiveFlowControl: true", "  maxChunkSize: 4096", "  zeroCopy: true");
+  }
+
+  private void testReplication(
+      int chunkSize, int ackEvery, int maxInFlight, String... additionalCopyConfig)
       throws IOException, InterruptedException {
     String extraConfig =
         String.join(
@@ -69,7 +91,8 @@ public class AckedCopyTest {
             "  ackedCopy: true",
             "  chunkSize: " + chunkSize,
             "  ackEvery: " + ackEvery,
-            "  maxInFlight: " + maxInFlight);
+            "  maxInFlight: " + maxInFlight,
+            String.join("\n", additionalCopyConfig));
 
     // index 2 documents to primary
     TestServer testServerPrimary =
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.grpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.yelp.nrtsearch.server.ServerTestCase;
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest.MultiValuedField;
+import com.yelp.nrtsearch.server.grpc.SearchResponse.Hit;
+import io.grpc.testing.GrpcCleanupRule;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class SearchStreamTest extends ServerTestCase {
+  private static final int NUM_DOCS = 100;
+
+  @ClassRule public static final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+  @Override
+  protected List<String> getIndices() {
+    return Collections.singletonList(DEFAULT_TEST_INDEX);
+  }
+
+  @Override
+  protected FieldDefRequest getIndexDef(String name) throws IOException {
+    return getFieldsFromResourceFile("/search/registerFieldsStream.json");
+  }
+
+  @Override
+  protected String getExtraConfig() {
+    return "searchStreamChunkBytes: 200";
+  }
+
+  @Override
+  protected void initIndex(String name) throws Exception {
+    List<AddDocumentRequest> docs = new ArrayList<>();
+    for (int i = 0; i < NUM_DOCS; ++i) {
+      docs.add(
+          AddDocumentRequest.newBuilder()
+              .setIndexName(name)
+              .putFields(
+                  "doc_id", MultiValuedField.newBuilder().addValue(String.valueOf(i)).build())
+              .putFields(
+                  "int_field", MultiValuedField.newBuilder().addValue(String.valueOf(i)).build())
+              .putFields(
+                  "text_field", MultiValuedField.newBuilder().addValue("text value " + i).build())
+              .build());
+      if (i % 30 == 29) {
+        addDocuments(docs.stream());
+        docs.clear();
+        getGrpcServer()
+            .getBlockingStub()
+            .refresh(RefreshRequest.newBuilder().setIndexName(name).build());
+      }
+    }
+    addDocuments(docs.stream());
+  }
+
+  private SearchRequest getRequest(int topHits, Query query) {
+    return SearchRequest.newBuilder()
+        .setIndexName(DEFAULT_TEST_INDEX)
+        .setQuery(query)
+        .setTopHits(topHits)
+        .addRetrieveFields("doc_id")
+        .addRetrieveFields("int_field")
+        .addRetrieveFields("text_field")
+        .setQuerySort(
+            QuerySortField.newBuilder()
+                .setFields(
+                    SortFields.newBuilder()
+                        .addSortedFields(
+                            SortType.newBuilder()
+                                .setFieldName("int_field")
+                                .setReverse(true)
+                                .build())
+                        .build())
+                .build())
+        .build();
+  }
+
+  private List<SearchResponse> streamSearch(SearchRequest request) {
+    List<SearchResponse> responses = new ArrayList<>();
+    getGrpcServer().getBlockingStub().searchStream(request).forEachRemaining(responses::add);
+    return responses;
+  }
+
+  @Test
+  public void testStreamMatchesSearch() {
+    SearchRequest request = getRequest(NUM_DOCS, Query.newBuilder().build());
+    SearchResponse searchResponse = getGrpcServer().getBlockingStub().search(request);
+    List<SearchResponse> responses = streamSearch(request);
+    assertTrue(responses.size() > 2);
+
+    SearchResponse first = responses.get(0);
+    assertEquals(10, first.getHitsCount());
+    assertEquals(searchResponse.getTotalHits(), first.getTotalHits());
+    assertEquals(
+        searchResponse.getSearchState().toBuilder().clearTimestamp().build(),
+        first.getSearchState().toBuilder().clearTimestamp().build());
+    assertFalse(first.hasDiagnostics());
+
+    SearchResponse last = responses.get(responses.size() - 1);
+    assertFalse(last.hasTotalHits());
+    assertFalse(last.hasSearchState());
+    assertTrue(last.hasDiagnostics());
+    assertTrue(last.getDiagnostics().getFirstPassSearchTimeMs() > 0);
+
+    List<Hit> streamedHits = new ArrayList<>();
+    for (int i = 0; i < responses.size(); ++i) {
+      SearchResponse response = responses.get(i);
+      assertTrue(response.getHitsCount() > 0);
+      if (i > 0) {
+        assertFalse(response.hasTotalHits());
+      }
+      if (i < responses.size() - 1) {
+        assertFalse(response.hasDiagnostics());
+      }
+      streamedHits.addAll(response.getHitsList());
+    }
+    assertEquals(searchResponse.getHitsList(), streamedHits);
+    for (int i = 0; i < NUM_DOCS; ++i) {
+      assertEquals(
+          NUM_DOCS - 1 - i,
+          streamedHits.get(i).getFieldsOrThrow("int_field").getFieldValue(0).getIntValue());
+    }
+  }
+
+  @Test
+  public void testSingleChunk() {
+    SearchRequest request = getRequest(5, Query.newBuilder().build());
+    SearchResponse searchResponse = getGrpcServer().getBlockingStub().search(request);
+    List<SearchResponse> responses = streamSearch(request);
+    assertEquals(1, responses.size());
+    assertEquals(
+        searchResponse.toBuilder().clearDiagnostics().clearSearchState().build(),
+        responses.get(0).toBuilder().clearDiagnostics().clearSearchState().build());
+    assertEquals(
+        searchResponse.getSearchState().getSearcherVersion(),
+        responses.get(0).getSearchState().getSearcherVersion());
+    assertTrue(responses.get(0).hasDiagnostics());
+  }
+
+  @Test
+  public void testNoHits() {
+    SearchRequest request =
+        getRequest(
+            NUM_DOCS,
+            Query.newBuilder()
+                .setTermQuery(TermQuery.newBuilder().setField("doc_id").setTextValue("none"))
+                .build());
+    List<SearchResponse> responses = streamSearch(request);
+    assertEquals(1, responses.size());
+    assertEquals(0, responses.get(0).getHitsCount());
+    assertEquals(0, responses.get(0).getTotalHits().getValue());
+    assertTrue(responses.get(0).hasDiagnostics());
+  }
+
+  @Test
+  public void testStartHit() {
+    SearchRequest request =
+        getRequest(NUM_DOCS, Query.newBuilder().build()).toBuilder().setStartHit(95).build();
+    List<SearchResponse> responses = streamSearch(request);
+    assertEquals(1, responses.size());
+    assertEquals(5, responses.get(0).getHitsCount());
+    Hit firstHit = responses.get(0).getHits(0);
+    assertEquals(4, firstHit.getFieldsOrThrow("int_field").getFieldValue(0).getIntValue());
+  }
+}
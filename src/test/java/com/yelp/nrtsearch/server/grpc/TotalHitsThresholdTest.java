@@ -217,11 +217,82 @@ public class TotalHitsThresholdTest extends ServerTestCase {
     assertEquals(3, response.getHitsCount());
     assertEquals(6, response.getTotalHits().getValue());
     assertEquals(Relation.GREATER_THAN_OR_EQUAL_TO, response.getTotalHits().getRelation());
+    assertEquals(1, response.getDiagnostics().getEarlyTerminatedSegments());
     assertHit(9, response.getHits(0));
     assertHit(8, response.getHits(1));
     assertHit(7, response.getHits(2));
   }
 
+  @Test
+  public void testIndexSortDefaultThreshold() {
+    SearchResponse response = getGrpcServer().getBlockingStub().search(getIndexSortRequest(null));
+
+    assertEquals(3, response.getHitsCount());
+    assertEquals(4, response.getTotalHits().getValue());
+    assertEquals(Relation.GREATER_THAN_OR_EQUAL_TO, response.getTotalHits().getRelation());
+    assertEquals(1, response.getDiagnostics().getEarlyTerminatedSegments());
+    assertHit(9, response.getHits(0));
+    assertHit(8, response.getHits(1));
+    assertHit(7, response.getHits(2));
+  }
+
+  @Test
+  public void testIndexSortSearchAfter() {
+    SearchResponse firstPage = getGrpcServer().getBlockingStub().search(getIndexSortRequest(null));
+    SearchResponse response =
+        getGrpcServer()
+            .getBlockingStub()
+            .search(getIndexSortRequest(firstPage.getSearchState().getLastHitInfo()));
+
+    assertEquals(3, response.getHitsCount());
+    assertEquals(Relation.GREATER_THAN_OR_EQUAL_TO, response.getTotalHits().getRelation());
+    assertEquals(1, response.getDiagnostics().getEarlyTerminatedSegments());
+    assertHit(6, response.getHits(0));
+    assertHit(5, response.getHits(1));
+    assertHit(4, response.getHits(2));
+  }
+
+  @Test
+  public void testIndexSortExplicitThreshold() {
+    SearchResponse response =
+        getGrpcServer()
+            .getBlockingStub()
+            .search(getIndexSortRequest(null).toBuilder().setTotalHitsThreshold(1000).build());
+
+    assertEquals(3, response.getHitsCount());
+    assertEquals(10, response.getTotalHits().getValue());
+    assertEquals(Relation.EQUAL_TO, response.getTotalHits().getRelation());
+    assertEquals(0, response.getDiagnostics().getEarlyTerminatedSegments());
+    assertHit(9, response.getHits(0));
+    assertHit(8, response.getHits(1));
+    assertHit(7, response.getHits(2));
+  }
+
+  private SearchRequest getIndexSortRequest(LastHitInfo searchAfter) {
+    SearchRequest.Builder builder =
+        SearchRequest.newBuilder()
+            .setIndexName(DEFAULT_TEST_INDEX)
+            .setQuery(Query.newBuilder().build())
+            .setTopHits(3)
+            .addRetrieveFields("doc_id")
+            .addRetrieveFields("int_field")
+            .setQuerySort(
+                QuerySortField.newBuilder()
+                    .setFields(
+                        SortFields.newBuilder()
+                            .addSortedFields(
+                                SortType.newBuilder()
+                                    .setFieldName("int_field")
+                                    .setReverse(true)
+                                    .build())
+                            .build())
+                    .build());
+    if (searchAfter != null) {
+      builder.setSearchAfter(searchAfter);
+    }
+    return builder.build();
+  }
+
   @Test
   public void testHitsThresholdDifferentSort() {
     SearchResponse response =
@@ -251,6 +322,7 @@ public class TotalHitsThresholdTest extends ServerTestCase {
     assertEquals(3, response.getHitsCount());
     assertEquals(10, response.getTotalHits().getValue());
     assertEquals(Relation.GREATER_THAN_OR_EQUAL_TO, response.getTotalHits().getRelation());
+    assertEquals(0, response.getDiagnostics().getEarlyTerminatedSegments());
     assertHit(0, response.getHits(0));
     assertHit(1, response.getHits(1));
     assertHit(2, response.getHits(2));
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.yelp.nrtsearch.server.ServerTestCase;
+import com.yelp.nrtsearch.server.field.ReusableFields;
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest;
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest.MultiValuedField;
+import com.yelp.nrtsearch.server.grpc.FieldDefRequest;
+import com.yelp.nrtsearch.server.grpc.Query;
+import com.yelp.nrtsearch.server.grpc.RangeQuery;
+import com.yelp.nrtsearch.server.grpc.RefreshRequest;
+import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.grpc.SearchResponse.Hit;
+import com.yelp.nrtsearch.server.grpc.SearchResponse.Hit.FieldValue;
+import com.yelp.nrtsearch.server.monitoring.IndexingMetrics;
+import io.grpc.testing.GrpcCleanupRule;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class DocumentFieldReuseTest extends ServerTestCase {
+  private static final int NUM_DOCS = 50;
+
+  @ClassRule public static final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+  @Override
+  protected FieldDefRequest getIndexDef(String name) throws IOException {
+    return getFieldsFromResourceFile("/registerFieldsBasic.json");
+  }
+
+  @Override
+  protected String getExtraConfig() {
+    return "documentFieldReuse: true";
+  }
+
+  private static MultiValuedField values(String... values) {
+    return MultiValuedField.newBuilder().addAllValue(List.of(values)).build();
+  }
+
+  @Override
+  protected void initIndex(String name) throws Exception {
+    List<AddDocumentRequest> requests = new ArrayList<>();
+    for (int i = 0; i < NUM_DOCS; ++i) {
+      AddDocumentRequest.Builder builder =
+          AddDocumentRequest.newBuilder()
+              .setIndexName(name)
+              .putFields("doc_id", values(String.valueOf(i)))
+              .putFields("count", values(String.valueOf(i * 10)))
+              .putFields("long_field", values(String.valueOf(i * 100L)))
+              .putFields("float_field", values(String.valueOf(i + 0.5F)))
+              .putFields("double_field", values(String.valueOf(i + 0.25)))
+              .putFields("boolean_field", values(String.valueOf(i % 2 == 0)));
+      // vary the number of values, so pooled fields are only partially used by some documents
+      List<String> atoms = new ArrayList<>();
+      List<String> ints = new ArrayList<>();
+      for (int j = 0; j < i % 4; ++j) {
+        atoms.add("atom_" + i + "_" + j);
+        ints.add(String.valueOf(i * 10 + j));
+      }
+      if (!atoms.isEmpty()) {
+        builder.putFields("vendor_name_atom", values(atoms.toArray(new String[0])));
+        builder.putFields("license_no", values(ints.toArray(new String[0])));
+      }
+      requests.add(builder.build());
+    }
+    addDocuments(requests.stream());
+  }
+
+  private SearchResponse search(Query query) {
+    getGrpcServer()
+        .getBlockingStub()
+        .refresh(RefreshRequest.newBuilder().setIndexName(DEFAULT_TEST_INDEX).build());
+    return getGrpcServer()
+        .getBlockingStub()
+        .search(
+            SearchRequest.newBuilder()
+                .setIndexName(DEFAULT_TEST_INDEX)
+                .setTopHits(NUM_DOCS)
+                .addAllRetrieveFields(
+                    List.of(
+                        "doc_id",
+                        "count",
+                        "long_field",
+                        "float_field",
+                        "double_field",
+                        "boolean_field",
+                        "vendor_name_atom",
+                        "license_no"))
+                .setQuery(query)
+                .build());
+  }
+
+  @Test
+  public void testIndexedValues() {
+    SearchResponse response = search(Query.newBuilder().build());
+    assertEquals(NUM_DOCS, response.getHitsCount());
+    for (Hit hit : response.getHitsList()) {
+      int i = Integer.parseInt(hit.getFieldsOrThrow("doc_id").getFieldValue(0).getTextValue());
+      assertEquals(i * 10, hit.getFieldsOrThrow("count").getFieldValue(0).getIntValue());
+      assertEquals(i * 100L, hit.getFieldsOrThrow("long_field").getFieldValue(0).getLongValue());
+      assertEquals(
+          i + 0.5F, hit.getFieldsOrThrow("float_field").getFieldValue(0).getFloatValue(), 0);
+      assertEquals(
+          i + 0.25, hit.getFieldsOrThrow("double_field").getFieldValue(0).getDoubleValue(), 0);
+      assertEquals(
+          i % 2 == 0, hit.getFieldsOrThrow("boolean_field").getFieldValue(0).getBooleanValue());
+
+      List<FieldValue> atoms = hit.getFieldsOrThrow("vendor_name_atom").getFieldValueList();
+      List<FieldValue> ints = hit.getFieldsOrThrow("license_no").getFieldValueList();
+      assertEquals(i % 4, atoms.size());
+      assertEquals(i % 4, ints.size());
+      for (int j = 0; j < i % 4; ++j) {
+        assertEquals("atom_" + i + "_" + j, atoms.get(j).getTextValue());
+        assertEquals(i * 10 + j, ints.get(j).getIntValue());
+      }
+    }
+  }
+
+  @Test
+  public void testPointValues() {
+    SearchResponse response =
+        search(
+            Query.newBuilder()
+                .setRangeQuery(
+                    RangeQuery.newBuilder().setField("count").setLower("100").setUpper("190"))
+                .build());
+    assertEquals(10, response.getHitsCount());
+    for (Hit hit : response.getHitsList()) {
+      int count = hit.getFieldsOrThrow("count").getFieldValue(0).getIntValue();
+      assertTrue(count >= 100 && count <= 190);
+    }
+  }
+
+  @Test
+  public void testMetrics() {
+    double reused = IndexingMetrics.documentFieldsReused.labelValues(DEFAULT_TEST_INDEX).get();
+    double allocated =
+        IndexingMetrics.documentFieldsAllocated.labelValues(DEFAULT_TEST_INDEX).get();
+    assertTrue(allocated > 0);
+    // after the first document, most fields come from the pool
+    assertTrue(reused > allocated * 10);
+  }
+
+  @Test
+  public void testPoolInactiveAfterIndexing() {
+    assertNull(ReusableFields.current());
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.yelp.nrtsearch.server.ServerTestCase;
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest;
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest.MultiValuedField;
+import com.yelp.nrtsearch.server.grpc.FieldDefRequest;
+import com.yelp.nrtsearch.server.grpc.IndexingRequestType;
+import com.yelp.nrtsearch.server.grpc.Query;
+import com.yelp.nrtsearch.server.grpc.RefreshRequest;
+import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.grpc.TermQuery;
+import com.yelp.nrtsearch.server.handler.AddDocumentHandler.DocumentIndexer.DocumentsContextProvider;
+import com.yelp.nrtsearch.server.handler.AddDocumentHandler.DocumentsContext;
+import com.yelp.nrtsearch.server.index.IndexState;
+import io.grpc.StatusRuntimeException;
+import io.grpc.testing.GrpcCleanupRule;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ParallelDocumentBuildTest extends ServerTestCase {
+  private static final int NUM_IDS = 7;
+
+  @ClassRule public static final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+  @Override
+  protected FieldDefRequest getIndexDef(String name) throws IOException {
+    return getFieldsFromResourceFile("/field/registerFieldsObject.json");
+  }
+
+  @Override
+  protected String getExtraConfig() {
+    return "documentBuildBatchSize: 3";
+  }
+
+  private static AddDocumentRequest getRequest(String id, String docId, boolean nested) {
+    AddDocumentRequest.Builder builder =
+        AddDocumentRequest.newBuilder()
+            .setIndexName(DEFAULT_TEST_INDEX)
+            .putFields("real_id", MultiValuedField.newBuilder().addValue(id).build())
+            .putFields("doc_id", MultiValuedField.newBuilder().addValue(docId).build());
+    if (nested) {
+      String partner = "{\"name\": \"" + docId + "\", \"hours\": 1}";
+      builder.putFields("pickup_partners", MultiValuedField.newBuilder().addValue(partner).build());
+    }
+    return builder.build();
+  }
+
+  private String getDocId(String id) {
+    SearchResponse response =
+        getGrpcServer()
+            .getBlockingStub()
+            .search(
+                SearchRequest.newBuilder()
+                    .setIndexName(DEFAULT_TEST_INDEX)
+                    .setTopHits(10)
+                    .addRetrieveFields("doc_id")
+                    .setQuery(
+                        Query.newBuilder()
+                            .setTermQuery(
+                                TermQuery.newBuilder().setField("real_id").setTextValue(id)))
+                    .build());
+    if (response.getHitsCount() == 0) {
+      return null;
+    }
+    assertEquals(1, response.getHitsCount());
+    return response.getHits(0).getFieldsMap().get("doc_id").getFieldValue(0).getTextValue();
+  }
+
+  private void refresh() {
+    getGrpcServer()
+        .getBlockingStub()
+        .refresh(RefreshRequest.newBuilder().setIndexName(DEFAULT_TEST_INDEX).build());
+  }
+
+  @Test
+  public void testPerIdOrder() throws Exception {
+    List<AddDocumentRequest> requests = new ArrayList<>();
+    Map<String, String> expected = new HashMap<>();
+    for (int i = 0; i < 60; ++i) {
+      String id = "order_" + (i % NUM_IDS);
+      String docId = "value_" + i;
+      requests.add(getRequest(id, docId, i % 5 == 0));
+      expected.put(id, docId);
+    }
+    addDocuments(requests.stream());
+    refresh();
+
+    for (Map.Entry<String, String> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), getDocId(entry.getKey()));
+    }
+  }
+
+  @Test
+  public void testBuildError() throws Exception {
+    List<AddDocumentRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 10; ++i) {
+      requests.add(getRequest("error_" + i, "value_" + i, false));
+    }
+    requests.set(
+        7,
+        requests.get(7).toBuilder()
+            .putFields("not_registered", MultiValuedField.newBuilder().addValue("v").build())
+            .build());
+    try {
+      addDocuments(requests.stream());
+      fail();
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof StatusRuntimeException);
+      assertTrue(e.getMessage(), e.getMessage().contains("not_registered"));
+    }
+    refresh();
+    // documents of earlier build tasks are written when moving on to the next task, documents of
+    // the failed task are only written at the end of the batch
+    for (int i = 0; i < 6; ++i) {
+      assertEquals("value_" + i, getDocId("error_" + i));
+    }
+    for (int i = 6; i < 10; ++i) {
+      assertNull(getDocId("error_" + i));
+    }
+  }
+
+  @Test
+  public void testBuildErrorPartwayThroughTask() throws Exception {
+    List<AddDocumentRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 10; ++i) {
+      requests.add(getRequest("partial_" + i, "value_" + i, i == 6));
+    }
+    requests.set(
+        7,
+        requests.get(7).toBuilder()
+            .putFields("not_registered", MultiValuedField.newBuilder().addValue("v").build())
+            .build());
+    try {
+      addDocuments(requests.stream());
+      fail();
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof StatusRuntimeException);
+      assertTrue(e.getMessage(), e.getMessage().contains("not_registered"));
+    }
+    refresh();
+    // the nested document before the error in the failed task is written, the same as when
+    // building each document in order
+    for (int i = 0; i < 7; ++i) {
+      assertEquals("value_" + i, getDocId("partial_" + i));
+    }
+    for (int i = 7; i < 10; ++i) {
+      assertNull(getDocId("partial_" + i));
+    }
+  }
+
+  @Test
+  public void testProviderErrorPartwayThroughTask() throws Exception {
+    IndexState indexState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX);
+    List<AddDocumentRequest> requests = getProviderRequests(9);
+    requests.set(
+        7,
+        requests.get(7).toBuilder()
+            .putFields("not_registered", MultiValuedField.newBuilder().addValue("v").build())
+            .build());
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      DocumentsContextProvider provider =
+          new DocumentsContextProvider(requests, indexState, 3, executor);
+      assertFalse(provider.isTaskStart(0));
+      assertTrue(provider.isTaskStart(3));
+      assertFalse(provider.isTaskStart(7));
+      DocumentsContext expected =
+          AddDocumentHandler.LuceneDocumentBuilder.getDocumentsContext(requests.get(6), indexState);
+      assertEquals(
+          expected.getRootDocument().toString(), provider.get(6).getRootDocument().toString());
+      try {
+        provider.get(7);
+        fail();
+      } catch (Exception e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("not_registered"));
+      }
+      provider.close();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private List<AddDocumentRequest> getProviderRequests(int count) {
+    List<AddDocumentRequest> requests = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      if (i == 4) {
+        requests.add(
+            getRequest("provider_" + i, "value_" + i, false).toBuilder()
+                .setRequestType(IndexingRequestType.UPDATE_DOC_VALUES)
+                .build());
+      } else {
+        requests.add(getRequest("provider_" + i, "value_" + i, i % 3 == 0));
+      }
+    }
+    return requests;
+  }
+
+  private void verifyProvider(
+      List<AddDocumentRequest> requests, DocumentsContextProvider provider, IndexState indexState)
+      throws Exception {
+    for (int i = 0; i < requests.size(); ++i) {
+      if (requests.get(i).getRequestType() == IndexingRequestType.UPDATE_DOC_VALUES) {
+        continue;
+      }
+      DocumentsContext expected =
+          AddDocumentHandler.LuceneDocumentBuilder.getDocumentsContext(requests.get(i), indexState);
+      DocumentsContext actual = provider.get(i);
+      assertEquals(expected.getRootDocument().toString(), actual.getRootDocument().toString());
+      assertEquals(expected.getChildDocuments().keySet(), actual.getChildDocuments().keySet());
+      assertEquals(expected.hasNested(), actual.hasNested());
+    }
+    provider.close();
+  }
+
+  @Test
+  public void testProviderParallel() throws Exception {
+    IndexState indexState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX);
+    List<AddDocumentRequest> requests = getProviderRequests(20);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      verifyProvider(
+          requests, new DocumentsContextProvider(requests, indexState, 3, executor), indexState);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testProviderRejected() throws Exception {
+    IndexState indexState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX);
+    List<AddDocumentRequest> requests = getProviderRequests(20);
+    ExecutorService executor = Mockito.mock(ExecutorService.class);
+    Mockito.doThrow(new RejectedExecutionException()).when(executor).execute(Mockito.any());
+    verifyProvider(
+        requests, new DocumentsContextProvider(requests, indexState, 3, executor), indexState);
+    Mockito.verify(executor, Mockito.times(1)).execute(Mockito.any());
+  }
+
+  @Test
+  public void testProviderSingleTask() throws Exception {
+    IndexState indexState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX);
+    List<AddDocumentRequest> requests = getProviderRequests(3);
+    ExecutorService executor = Mockito.mock(ExecutorService.class);
+    verifyProvider(
+        requests, new DocumentsContextProvider(requests, indexState, 3, executor), indexState);
+    verifyProvider(
+        requests, new DocumentsContextProvider(requests, indexState, 0, executor), indexState);
+    Mockito.verifyNoInteractions(executor);
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.handler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import com.yelp.nrtsearch.server.config.FileCopyConfig;
+import com.yelp.nrtsearch.server.handler.RecvRawFileV2Handler.ChunkSource;
+import com.yelp.nrtsearch.server.nrt.AdaptiveCopyWindow;
+import com.yelp.nrtsearch.server.state.GlobalState;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NRTCachingDirectory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class RecvRawFileV2HandlerTest {
+  private static final String FILE_NAME = "test_file";
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private static byte[] writeFile(Directory directory, int size) throws IOException {
+    byte[] data = new byte[size];
+    new Random(size).nextBytes(data);
+    try (IndexOutput output = directory.createOutput(FILE_NAME, IOContext.DEFAULT)) {
+      output.writeBytes(data, data.length);
+    }
+    return data;
+  }
+
+  private static byte[] readChunks(ChunkSource source, long length, int chunkSize)
+      throws IOException {
+    ByteString content = ByteString.EMPTY;
+    while (content.size() < length) {
+      ByteString chunk = source.next((int) Math.min(chunkSize, length - content.size()));
+      assertTrue(chunk.size() > 0);
+      assertTrue(chunk.size() <= chunkSize);
+      content = content.concat(chunk);
+    }
+    return content.toByteArray();
+  }
+
+  @Test
+  public void testIndexInputChunks() throws IOException {
+    try (Directory directory = new MMapDirectory(folder.getRoot().toPath())) {
+      byte[] data = writeFile(directory, 1000);
+      try (ChunkSource source =
+          RecvRawFileV2Handler.openChunkSource(directory, FILE_NAME, 0, false)) {
+        assertTrue(source instanceof RecvRawFileV2Handler.IndexInputChunkSource);
+        assertArrayEquals(data, readChunks(source, data.length, 64));
+      }
+    }
+  }
+
+  @Test
+  public void testMappedChunks() throws IOException {
+    try (Directory directory = new MMapDirectory(folder.getRoot().toPath())) {
+      byte[] data = writeFile(directory, 1000);
+      try (ChunkSource source =
+          RecvRawFileV2Handler.openChunkSource(directory, FILE_NAME, 0, true)) {
+        assertTrue(source instanceof RecvRawFileV2Handler.MappedChunkSource);
+        assertArrayEquals(data, readChunks(source, data.length, 64));
+      }
+    }
+  }
+
+  @Test
+  public void testChunksFromOffset() throws IOException {
+    try (Directory directory = new MMapDirectory(folder.getRoot().toPath())) {
+      byte[] data = writeFile(directory, 1000);
+      byte[] expected = Arrays.copyOfRange(data, 100, data.length);
+      for (boolean zeroCopy : new boolean[] {false, true}) {
+        try (ChunkSource source =
+            RecvRawFileV2Handler.openChunkSource(directory, FILE_NAME, 100, zeroCopy)) {
+          assertArrayEquals(expected, readChunks(source, expected.length, 64));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testChunksNotModifiedByLaterReads() throws IOException {
+    try (Directory directory = new MMapDirectory(folder.getRoot().toPath())) {
+      byte[] data = writeFile(directory, 100);
+      for (boolean zeroCopy : new boolean[] {false, true}) {
+        try (ChunkSource source =
+            RecvRawFileV2Handler.openChunkSource(directory, FILE_NAME, 0, zeroCopy)) {
+          ByteString first = source.next(50);
+          ByteString second = source.next(50);
+          assertArrayEquals(Arrays.copyOfRange(data, 0, 50), first.toByteArray());
+          assertArrayEquals(Arrays.copyOfRange(data, 50, 100), second.toByteArray());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNrtCachedFileNotMapped() throws IOException {
+    try (Directory directory =
+        new NRTCachingDirectory(new MMapDirectory(folder.getRoot().toPath()), 5, 60)) {
+      byte[] data = writeFile(directory, 1000);
+      assertEquals(1, ((NRTCachingDirectory) directory).listCachedFiles().length);
+      try (ChunkSource source =
+          RecvRawFileV2Handler.openChunkSource(directory, FILE_NAME, 0, true)) {
+        assertTrue(source instanceof RecvRawFileV2Handler.IndexInputChunkSource);
+        assertArrayEquals(data, readChunks(source, data.length, 64));
+      }
+    }
+  }
+
+  @Test
+  public void testCopyWindowPerReplica() {
+    RecvRawFileV2Handler handler = new RecvRawFileV2Handler(Mockito.mock(GlobalState.class), false);
+    FileCopyConfig config = new FileCopyConfig(true, 1024, 10, 100, false, true, 4096);
+    AdaptiveCopyWindow window = handler.getCopyWindow("test_index", "replica_1", config);
+    assertEquals(10, window.getInFlight());
+    assertEquals(1024, window.getChunkSize());
+    assertSame(window, handler.getCopyWindow("test_index", "replica_1", config));
+    assertNotSame(window, handler.getCopyWindow("test_index", "replica_2", config));
+    assertNotSame(window, handler.getCopyWindow("test_index_2", "replica_1", config));
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.handler.SearchStreamHandler.FlowControlledObserver;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class SearchStreamHandlerTest {
+
+  @SuppressWarnings("unchecked")
+  private static ServerCallStreamObserver<SearchResponse> mockObserver() {
+    return mock(ServerCallStreamObserver.class);
+  }
+
+  private static Runnable getOnReadyHandler(ServerCallStreamObserver<SearchResponse> delegate) {
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(delegate).setOnReadyHandler(captor.capture());
+    return captor.getValue();
+  }
+
+  private static Runnable getOnCancelHandler(ServerCallStreamObserver<SearchResponse> delegate) {
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(delegate).setOnCancelHandler(captor.capture());
+    return captor.getValue();
+  }
+
+  @Test
+  public void testReadyPassesThrough() {
+    ServerCallStreamObserver<SearchResponse> delegate = mockObserver();
+    when(delegate.isReady()).thenReturn(true);
+    FlowControlledObserver observer =
+        new FlowControlledObserver(delegate, TimeUnit.MILLISECONDS.toNanos(10));
+    SearchResponse response = SearchResponse.newBuilder().build();
+    observer.onNext(response);
+    verify(delegate).onNext(response);
+  }
+
+  @Test
+  public void testWaitsUntilReady() throws Exception {
+    ServerCallStreamObserver<SearchResponse> delegate = mockObserver();
+    AtomicBoolean ready = new AtomicBoolean(false);
+    when(delegate.isReady()).thenAnswer(invocation -> ready.get());
+    FlowControlledObserver observer =
+        new FlowControlledObserver(delegate, TimeUnit.SECONDS.toNanos(30));
+    Runnable onReady = getOnReadyHandler(delegate);
+    SearchResponse response = SearchResponse.newBuilder().build();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      long startNs = System.nanoTime();
+      Future<?> future = executor.submit(() -> observer.onNext(response));
+      Thread.sleep(50);
+      ready.set(true);
+      onReady.run();
+      future.get(10, TimeUnit.SECONDS);
+      // woken by the ready handler, not the ready timeout
+      assertTrue(System.nanoTime() - startNs < TimeUnit.SECONDS.toNanos(10));
+    } finally {
+      executor.shutdownNow();
+    }
+    verify(delegate).onNext(response);
+  }
+
+  @Test
+  public void testReadyTimeout() {
+    ServerCallStreamObserver<SearchResponse> delegate = mockObserver();
+    when(delegate.isReady()).thenReturn(false);
+    FlowControlledObserver observer =
+        new FlowControlledObserver(delegate, TimeUnit.MILLISECONDS.toNanos(10));
+    try {
+      observer.onNext(SearchResponse.newBuilder().build());
+      fail();
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.Code.DEADLINE_EXCEEDED, e.getStatus().getCode());
+      assertEquals(
+          "Client did not accept search stream message within 10 ms",
+          e.getStatus().getDescription());
+    }
+  }
+
+  @Test
+  public void testCancelledWhileWaiting() throws Exception {
+    ServerCallStreamObserver<SearchResponse> delegate = mockObserver();
+    when(delegate.isReady()).thenReturn(false);
+    FlowControlledObserver observer =
+        new FlowControlledObserver(delegate, TimeUnit.SECONDS.toNanos(30));
+    Runnable onCancel = getOnCancelHandler(delegate);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> future =
+          executor.submit(() -> observer.onNext(SearchResponse.newBuilder().build()));
+      Thread.sleep(50);
+      onCancel.run();
+      try {
+        future.get(10, TimeUnit.SECONDS);
+        fail();
+      } catch (ExecutionException e) {
+        StatusRuntimeException statusException = (StatusRuntimeException) e.getCause();
+        assertEquals(Status.Code.CANCELLED, statusException.getStatus().getCode());
+        assertEquals(
+            "Search stream cancelled by client", statusException.getStatus().getDescription());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testCancelledBeforeSend() {
+    ServerCallStreamObserver<SearchResponse> delegate = mockObserver();
+    when(delegate.isReady()).thenReturn(true);
+    FlowControlledObserver observer =
+        new FlowControlledObserver(delegate, TimeUnit.SECONDS.toNanos(30));
+    getOnCancelHandler(delegate).run();
+    try {
+      observer.onNext(SearchResponse.newBuilder().build());
+      fail();
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.Code.CANCELLED, e.getStatus().getCode());
+    }
+    verify(delegate, never()).onNext(any());
+  }
+
+  @Test
+  public void testGetStatusException() {
+    StatusRuntimeException cancelled = Status.CANCELLED.asRuntimeException();
+    assertSame(cancelled, SearchStreamHandler.getStatusException(cancelled));
+    assertSame(
+        cancelled,
+        SearchStreamHandler.getStatusException(
+            new RuntimeException(new IOException("fetch failed", cancelled))));
+    assertNull(SearchStreamHandler.getStatusException(new IOException("fetch failed")));
+  }
+}
@@ -27,7 +27,11 @@ import com.yelp.nrtsearch.server.config.NrtsearchConfig;
 import com.yelp.nrtsearch.server.config.YamlConfigReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Map;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.MMapDirectory;
 import org.junit.ClassRule;
 import org.junit.Test;
@@ -53,6 +57,41 @@ public class DirectoryFactoryTest {
     }
   }
 
+  @Test
+  public void testMMapResidencyManaged() throws IOException {
+    String configFile =
+        String.join(
+            "\n",
+            "preload:",
+            "  enabled: true",
+            "  budgetBytes: 1000",
+            "  extensions:",
+            "    - vec");
+    IndexPreloadConfig config =
+        IndexPreloadConfig.fromConfig(
+            new YamlConfigReader(new ByteArrayInputStream(configFile.getBytes())));
+    try (Directory directory = mmFactory.open(folder.newFolder().toPath(), config)) {
+      assertTrue(directory instanceof ResidencyTrackingMMapDirectory);
+      MemoryResidencyManager residencyManager =
+          ((ResidencyTrackingMMapDirectory) directory).getResidencyManager();
+      try (IndexOutput output = directory.createOutput("_0.vec", IOContext.DEFAULT)) {
+        output.writeBytes(new byte[100], 100);
+      }
+      try (IndexOutput output = directory.createOutput("_0.tim", IOContext.DEFAULT)) {
+        output.writeBytes(new byte[50], 50);
+      }
+      try (IndexInput vecInput = directory.openInput("_0.vec", IOContext.DEFAULT);
+          IndexInput timInput = directory.openInput("_0.tim", IOContext.DEFAULT)) {
+        assertEquals(Map.of("vec", 100L, "tim", 50L), residencyManager.getMappedBytesByExtension());
+        assertEquals(Map.of("vec", 100L), residencyManager.getPreloadedBytesByExtension());
+      }
+      // deleting through the directory releases the budget
+      directory.deleteFile("_0.vec");
+      assertEquals(Map.of(), residencyManager.getPreloadedBytesByExtension());
+      assertEquals(Map.of("tim", 50L), residencyManager.getMappedBytesByExtension());
+    }
+  }
+
   @Test
   public void testParseMMapGrouping() {
     assertSame(
@@ -421,6 +421,58 @@ public class ImmutableIndexStateTest {
     }
   }
 
+  @Test
+  public void testTimeBucketField_default() throws IOException {
+    IndexWriterConfig writerConfig = getWriterConfigForSettings(IndexSettings.newBuilder().build());
+    assertFalse(writerConfig.getMergePolicy() instanceof TimeBucketedMergePolicy);
+  }
+
+  @Test
+  public void testTimeBucketField_set() throws IOException {
+    Field timeField =
+        Field.newBuilder()
+            .setName("time_field")
+            .setType(FieldType.DATE_TIME)
+            .setDateTimeFormat("epoch_millis")
+            .setStoreDocValues(true)
+            .setSearch(true)
+            .build();
+    UpdatedFieldInfo fieldInfo =
+        FieldUpdateUtils.updateFields(
+            new FieldAndFacetState(),
+            Collections.emptyMap(),
+            Collections.singleton(timeField),
+            mock(FieldDefCreator.FieldDefCreatorContext.class));
+    ImmutableIndexState indexState =
+        getIndexState(
+            getStateWithSettings(
+                IndexSettings.newBuilder()
+                    .setTimeBucketField(wrap("time_field"))
+                    .setTimeBucketSizeSec(wrap(3600L))
+                    .build()),
+            fieldInfo.fieldAndFacetState);
+
+    Directory mockDirectory = mock(Directory.class);
+    when(mockDirectory.listAll()).thenReturn(new String[0]);
+    IndexWriterConfig writerConfig =
+        indexState.getIndexWriterConfig(OpenMode.CREATE_OR_APPEND, mockDirectory, 0);
+    TimeBucketedMergePolicy mergePolicy = (TimeBucketedMergePolicy) writerConfig.getMergePolicy();
+    assertEquals("time_field", mergePolicy.getSegmentTimeRanges().getField());
+    assertEquals(3600000L, mergePolicy.getBucketSizeMillis());
+  }
+
+  @Test
+  public void testTimeBucketField_invalid() throws IOException {
+    String expectedMsg = "timeBucketField must be a searchable DATE_TIME field: invalid";
+    assertSettingException(expectedMsg, b -> b.setTimeBucketField(wrap("invalid")));
+  }
+
+  @Test
+  public void testTimeBucketSizeSec_invalid() throws IOException {
+    String expectedMsg = "timeBucketSizeSec must be > 0";
+    assertSettingException(expectedMsg, b -> b.setTimeBucketSizeSec(wrap(0L)));
+  }
+
   @Test
   public void testIndexMergeSchedulerAutoThrottle_default() throws IOException {
     ConcurrentMergeScheduler mergeScheduler =
@@ -680,6 +732,27 @@ public class ImmutableIndexStateTest {
     assertLiveSettingException(expectedMsg, b -> b.setVirtualShards(wrap(0)));
   }
 
+  @Test
+  public void testSlicePartitionMaxDocs_default() throws IOException {
+    assertEquals(0, getIndexState(getEmptyState()).getSlicePartitionMaxDocs());
+  }
+
+  @Test
+  public void testSlicePartitionMaxDocs_set() throws IOException {
+    verifyIntLiveSetting(
+        100000,
+        ImmutableIndexState::getSlicePartitionMaxDocs,
+        b -> b.setSlicePartitionMaxDocs(wrap(100000)));
+    verifyIntLiveSetting(
+        0, ImmutableIndexState::getSlicePartitionMaxDocs, b -> b.setSlicePartitionMaxDocs(wrap(0)));
+  }
+
+  @Test
+  public void testSlicePartitionMaxDocs_invalid() throws IOException {
+    String expectedMsg = "slicePartitionMaxDocs must be >= 0";
+    assertLiveSettingException(expectedMsg, b -> b.setSlicePartitionMaxDocs(wrap(-1)));
+  }
+
   @Test
   public void testMaxMergedSegmentMB_default() throws IOException {
     assertEquals(
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.yelp.nrtsearch.server.config.IndexPreloadConfig;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.ReadAdvice;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MemoryResidencyManagerTest {
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private Path writeFile(String fileName, int size) throws IOException {
+    Path path = folder.getRoot().toPath().resolve(fileName);
+    Files.write(path, new byte[size]);
+    return path;
+  }
+
+  private MemoryResidencyManager getManager(long budgetBytes, String... extensions) {
+    IndexPreloadConfig config =
+        new IndexPreloadConfig(
+            true, new LinkedHashSet<>(List.of(extensions)), budgetBytes, Set.of("vex"));
+    return new MemoryResidencyManager(folder.getRoot().toPath(), config);
+  }
+
+  @Test
+  public void testUnlimitedBudget() throws IOException {
+    writeFile("_0.vec", 100);
+    writeFile("_0.dvd", 200);
+    MemoryResidencyManager manager = getManager(IndexPreloadConfig.UNLIMITED_BUDGET, "vec", "dvd");
+    assertTrue(manager.shouldPreload("_0.dvd", IOContext.DEFAULT));
+    assertTrue(manager.shouldPreload("_0.vec", IOContext.DEFAULT));
+    assertEquals(Map.of("vec", 100L, "dvd", 200L), manager.getPreloadedBytesByExtension());
+    assertEquals(0, manager.getBudgetSkippedFiles());
+  }
+
+  @Test
+  public void testNotPreloadedExtension() throws IOException {
+    writeFile("_0.tim", 100);
+    MemoryResidencyManager manager = getManager(1000, "vec", "dvd");
+    assertFalse(manager.shouldPreload("_0.tim", IOContext.DEFAULT));
+    assertEquals(Map.of(), manager.getPreloadedBytesByExtension());
+    assertEquals(0, manager.getBudgetSkippedFiles());
+  }
+
+  @Test
+  public void testBudgetPriority() throws IOException {
+    writeFile("_0.vec", 100);
+    writeFile("_0.dvd", 200);
+    writeFile("_0.tim", 250);
+    MemoryResidencyManager manager = getManager(350, "vec", "dvd", "*");
+
+    // space is reserved for the higher priority vec and dvd files
+    assertFalse(manager.shouldPreload("_0.tim", IOContext.DEFAULT));
+    assertEquals(1, manager.getBudgetSkippedFiles());
+    assertTrue(manager.shouldPreload("_0.dvd", IOContext.DEFAULT));
+    assertTrue(manager.shouldPreload("_0.vec", IOContext.DEFAULT));
+    // already preloaded files are not counted twice
+    assertTrue(manager.shouldPreload("_0.vec", IOContext.DEFAULT));
+    assertEquals(Map.of("vec", 100L, "dvd", 200L), manager.getPreloadedBytesByExtension());
+
+    assertFalse(manager.shouldPreload("_0.tim", IOContext.DEFAULT));
+    assertEquals(2, manager.getBudgetSkippedFiles());
+
+    // deleted files release their budget
+    Files.delete(folder.getRoot().toPath().resolve("_0.dvd"));
+    manager.onFileDeleted("_0.dvd");
+    assertTrue(manager.shouldPreload("_0.tim", IOContext.DEFAULT));
+    assertEquals(Map.of("vec", 100L, "tim", 250L), manager.getPreloadedBytesByExtension());
+  }
+
+  @Test
+  public void testRefusedFilesNotReserved() throws IOException {
+    writeFile("_0.vec", 250);
+    writeFile("_1.vec", 250);
+    writeFile("_0.dvd", 50);
+    MemoryResidencyManager manager = getManager(300, "vec", "dvd");
+
+    assertTrue(manager.shouldPreload("_0.vec", IOContext.DEFAULT));
+    assertFalse(manager.shouldPreload("_1.vec", IOContext.DEFAULT));
+    assertEquals(1, manager.getBudgetSkippedFiles());
+    // no space is reserved for the refused _1.vec
+    assertTrue(manager.shouldPreload("_0.dvd", IOContext.DEFAULT));
+    assertEquals(Map.of("vec", 250L, "dvd", 50L), manager.getPreloadedBytesByExtension());
+  }
+
+  @Test
+  public void testTrackedFileSizes() throws IOException {
+    writeFile("_0.dvd", 200);
+    MemoryResidencyManager manager = getManager(350, "vec", "dvd");
+    assertTrue(manager.shouldPreload("_0.dvd", IOContext.DEFAULT));
+
+    // written files are reserved without listing the directory
+    writeFile("_1.tmp", 200);
+    manager.onFileWritten("_1.tmp", 200);
+    Files.move(
+        folder.getRoot().toPath().resolve("_1.tmp"), folder.getRoot().toPath().resolve("_1.vec"));
+    manager.onFileRenamed("_1.tmp", "_1.vec");
+    writeFile("_1.dvd", 100);
+    manager.onFileWritten("_1.dvd", 100);
+    assertFalse(manager.shouldPreload("_1.dvd", IOContext.DEFAULT));
+
+    Files.delete(folder.getRoot().toPath().resolve("_1.vec"));
+    manager.onFileDeleted("_1.vec");
+    assertTrue(manager.shouldPreload("_1.dvd", IOContext.DEFAULT));
+    assertEquals(Map.of("dvd", 300L), manager.getPreloadedBytesByExtension());
+  }
+
+  @Test
+  public void testMappedBytes() throws IOException {
+    writeFile("_0.vec", 100);
+    writeFile("_0.vex", 50);
+    writeFile("_1.vec", 300);
+    MemoryResidencyManager manager = getManager(0, "vec");
+    manager.onFileMapped("_0.vec", 100);
+    manager.onFileMapped("_0.vex", 50);
+    manager.onFileMapped("_1.vec", 300);
+    assertEquals(Map.of("vec", 400L, "vex", 50L), manager.getMappedBytesByExtension());
+
+    Files.delete(folder.getRoot().toPath().resolve("_0.vec"));
+    assertEquals(Map.of("vec", 300L, "vex", 50L), manager.getMappedBytesByExtension());
+  }
+
+  @Test
+  public void testOpenContext() {
+    MemoryResidencyManager manager = getManager(0, "vec");
+    assertEquals(
+        ReadAdvice.RANDOM, manager.getOpenContext("_0.vex", IOContext.DEFAULT).readAdvice());
+    assertSame(IOContext.DEFAULT, manager.getOpenContext("_0.vec", IOContext.DEFAULT));
+  }
+}
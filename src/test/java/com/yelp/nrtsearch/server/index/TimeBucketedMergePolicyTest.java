@@ -0,0 +1,179 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.yelp.nrtsearch.server.index.SegmentTimeRanges.TimeRange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.SerialMergeScheduler;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.junit.Test;
+
+public class TimeBucketedMergePolicyTest {
+  private static final String TIME_FIELD = "time";
+  private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+  private IndexWriterConfig getWriterConfig(TimeBucketedMergePolicy mergePolicy) {
+    mergePolicy.setSegmentsPerTier(2);
+    return new IndexWriterConfig()
+        .setMergePolicy(mergePolicy)
+        .setMergeScheduler(new SerialMergeScheduler());
+  }
+
+  private void addSegment(IndexWriter writer, long... times) throws IOException {
+    for (long time : times) {
+      Document document = new Document();
+      document.add(new LongPoint(TIME_FIELD, time));
+      writer.addDocument(document);
+    }
+    writer.flush();
+  }
+
+  private void addSegmentWithoutTime(IndexWriter writer) throws IOException {
+    Document document = new Document();
+    document.add(new StringField("id", "1", StringField.Store.NO));
+    writer.addDocument(document);
+    writer.flush();
+  }
+
+  private List<TimeRange> getSegmentRanges(IndexWriter writer) throws IOException {
+    List<TimeRange> ranges = new ArrayList<>();
+    try (DirectoryReader reader = DirectoryReader.open(writer)) {
+      for (LeafReaderContext context : reader.leaves()) {
+        ranges.add(SegmentTimeRanges.getTimeRange(context.reader(), TIME_FIELD));
+      }
+    }
+    return ranges;
+  }
+
+  private void updateRanges(SegmentTimeRanges segmentTimeRanges, IndexWriter writer)
+      throws IOException {
+    try (DirectoryReader reader = DirectoryReader.open(writer)) {
+      segmentTimeRanges.update(reader);
+    }
+  }
+
+  @Test
+  public void testForceMergeKeepsBuckets() throws IOException {
+    SegmentTimeRanges segmentTimeRanges = new SegmentTimeRanges(TIME_FIELD);
+    TimeBucketedMergePolicy mergePolicy =
+        new TimeBucketedMergePolicy(segmentTimeRanges, DAY_MILLIS);
+    try (Directory directory = new ByteBuffersDirectory();
+        IndexWriter writer = new IndexWriter(directory, getWriterConfig(mergePolicy))) {
+      addSegment(writer, 10, 20);
+      addSegment(writer, DAY_MILLIS + 10);
+      addSegment(writer, 30);
+      addSegment(writer, DAY_MILLIS + 20, DAY_MILLIS + 30);
+      addSegmentWithoutTime(writer);
+      updateRanges(segmentTimeRanges, writer);
+
+      writer.forceMerge(1);
+      List<TimeRange> ranges = getSegmentRanges(writer);
+      assertEquals(3, ranges.size());
+      assertTrue(ranges.contains(new TimeRange(10, 30)));
+      assertTrue(ranges.contains(new TimeRange(DAY_MILLIS + 10, DAY_MILLIS + 30)));
+      assertTrue(ranges.contains(TimeRange.EMPTY));
+    }
+  }
+
+  @Test
+  public void testForceMergeUnknownRanges() throws IOException {
+    SegmentTimeRanges segmentTimeRanges = new SegmentTimeRanges(TIME_FIELD);
+    TimeBucketedMergePolicy mergePolicy =
+        new TimeBucketedMergePolicy(segmentTimeRanges, DAY_MILLIS);
+    try (Directory directory = new ByteBuffersDirectory();
+        IndexWriter writer = new IndexWriter(directory, getWriterConfig(mergePolicy))) {
+      addSegment(writer, 10);
+      addSegment(writer, DAY_MILLIS + 10);
+
+      writer.forceMerge(1);
+      List<TimeRange> ranges = getSegmentRanges(writer);
+      assertEquals(List.of(new TimeRange(10, DAY_MILLIS + 10)), ranges);
+    }
+  }
+
+  @Test
+  public void testNaturalMerges() throws IOException {
+    SegmentTimeRanges segmentTimeRanges = new SegmentTimeRanges(TIME_FIELD);
+    TimeBucketedMergePolicy mergePolicy =
+        new TimeBucketedMergePolicy(segmentTimeRanges, DAY_MILLIS);
+    try (Directory directory = new ByteBuffersDirectory();
+        IndexWriter writer = new IndexWriter(directory, getWriterConfig(mergePolicy))) {
+      for (int i = 0; i < 4; ++i) {
+        addSegment(writer, i);
+        addSegment(writer, DAY_MILLIS + i);
+      }
+      // segments with unknown time ranges are not merged
+      assertEquals(8, getSegmentRanges(writer).size());
+
+      updateRanges(segmentTimeRanges, writer);
+      writer.maybeMerge();
+      List<TimeRange> ranges = getSegmentRanges(writer);
+      assertTrue(ranges.size() < 8);
+      for (TimeRange range : ranges) {
+        assertEquals(range.min() / DAY_MILLIS, range.max() / DAY_MILLIS);
+      }
+    }
+  }
+
+  @Test
+  public void testUpdateRanges() throws IOException {
+    SegmentTimeRanges segmentTimeRanges = new SegmentTimeRanges(TIME_FIELD);
+    TimeBucketedMergePolicy mergePolicy =
+        new TimeBucketedMergePolicy(segmentTimeRanges, DAY_MILLIS);
+    try (Directory directory = new ByteBuffersDirectory();
+        IndexWriter writer = new IndexWriter(directory, getWriterConfig(mergePolicy))) {
+      addSegment(writer, 5, DAY_MILLIS + 5);
+      addSegmentWithoutTime(writer);
+      updateRanges(segmentTimeRanges, writer);
+      writer.commit();
+
+      List<TimeRange> ranges = new ArrayList<>();
+      List<Long> buckets = new ArrayList<>();
+      for (SegmentCommitInfo info : SegmentInfos.readLatestCommit(directory)) {
+        ranges.add(segmentTimeRanges.getTimeRange(info));
+        buckets.add(mergePolicy.getBucket(info));
+      }
+      assertEquals(List.of(new TimeRange(5, DAY_MILLIS + 5), TimeRange.EMPTY), ranges);
+      assertEquals(List.of(0L, Long.MIN_VALUE), buckets);
+    }
+  }
+
+  @Test
+  public void testInvalidBucketSize() {
+    try {
+      new TimeBucketedMergePolicy(new SegmentTimeRanges(TIME_FIELD), 0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("bucketSizeMillis must be > 0", e.getMessage());
+    }
+  }
+}
@@ -1022,4 +1022,145 @@ public class innerHitTest extends ServerTestCase {
     assertThat(response.getHits(0).getInnerHitsMap().get("staff").getHits(1).getHighlightsCount())
         .isEqualTo(0);
   }
+
+  private void assertBatchFetchMatches(SearchRequest request, String innerHitName) {
+    SearchRequest batchRequest =
+        request.toBuilder()
+            .putInnerHits(
+                innerHitName,
+                request.getInnerHitsOrThrow(innerHitName).toBuilder().setBatchFetch(true).build())
+            .build();
+    SearchResponse response = getGrpcServer().getBlockingStub().search(request);
+    SearchResponse batchResponse = getGrpcServer().getBlockingStub().search(batchRequest);
+    assertThat(batchResponse.getHitsCount()).isEqualTo(response.getHitsCount());
+    assertThat(batchResponse.getHitsList()).isEqualTo(response.getHitsList());
+    assertThat(
+            batchResponse.getDiagnostics().getInnerHitsDiagnosticsMap().containsKey(innerHitName))
+        .isTrue();
+  }
+
+  @Test
+  public void testBatchFetchAllChildren() {
+    SearchRequest request =
+        SearchRequest.newBuilder()
+            .setIndexName(DEFAULT_TEST_INDEX)
+            .setStartHit(0)
+            .setTopHits(10)
+            .addAllRetrieveFields(List.of("branch_id"))
+            .putInnerHits(
+                "menu",
+                InnerHit.newBuilder()
+                    .setQueryNestedPath("food")
+                    .setStartHit(0)
+                    .setTopHits(10)
+                    .addAllRetrieveFields(List.of("food.name"))
+                    .build())
+            .build();
+    assertBatchFetchMatches(request, "menu");
+  }
+
+  @Test
+  public void testBatchFetchInnerQuery() {
+    SearchRequest request =
+        SearchRequest.newBuilder()
+            .setIndexName(DEFAULT_TEST_INDEX)
+            .setStartHit(0)
+            .setTopHits(10)
+            .addAllRetrieveFields(List.of("branch_id"))
+            .putInnerHits(
+                "menu",
+                InnerHit.newBuilder()
+                    .setQueryNestedPath("food")
+                    .setStartHit(0)
+                    .setTopHits(10)
+                    .setInnerQuery(
+                        Query.newBuilder()
+                            .setRangeQuery(
+                                RangeQuery.newBuilder().setField("food.price").setUpper("1.15")))
+                    .addAllRetrieveFields(List.of("food.name"))
+                    .build())
+            .build();
+    assertBatchFetchMatches(request, "menu");
+
+    SearchResponse response =
+        getGrpcServer()
+            .getBlockingStub()
+            .search(
+                request.toBuilder()
+                    .putInnerHits(
+                        "menu",
+                        request.getInnerHitsOrThrow("menu").toBuilder().setBatchFetch(true).build())
+                    .build());
+    assertThat(response.getHitsCount()).isEqualTo(2);
+    assertThat(response.getHits(0).getInnerHitsMap().get("menu").getHitsCount()).isEqualTo(0);
+    assertThat(response.getHits(0).getInnerHitsMap().get("menu").getTotalHits().getValue())
+        .isEqualTo(0);
+    assertThat(response.getHits(1).getInnerHitsMap().get("menu").getHitsCount()).isEqualTo(1);
+    assertThat(
+            response
+                .getHits(1)
+                .getInnerHitsMap()
+                .get("menu")
+                .getHits(0)
+                .getFieldsOrThrow("food.name")
+                .getFieldValue(0)
+                .getTextValue())
+        .isEqualTo("hamburger");
+  }
+
+  @Test
+  public void testBatchFetchSortedFields() {
+    SearchRequest request =
+        SearchRequest.newBuilder()
+            .setIndexName(DEFAULT_TEST_INDEX)
+            .setStartHit(0)
+            .setTopHits(10)
+            .addAllRetrieveFields(List.of("branch_id"))
+            .putInnerHits(
+                "menu",
+                InnerHit.newBuilder()
+                    .setQueryNestedPath("food")
+                    .setStartHit(1)
+                    .setTopHits(10)
+                    .addAllRetrieveFields(List.of("food.name", "food.price"))
+                    .setQuerySort(
+                        QuerySortField.newBuilder()
+                            .setFields(
+                                SortFields.newBuilder()
+                                    .addSortedFields(
+                                        SortType.newBuilder().setFieldName("food.price"))))
+                    .build())
+            .build();
+    assertBatchFetchMatches(request, "menu");
+  }
+
+  @Test
+  public void testBatchFetchWithOtherInnerHit() {
+    SearchRequest request =
+        SearchRequest.newBuilder()
+            .setIndexName(DEFAULT_TEST_INDEX)
+            .setStartHit(0)
+            .setTopHits(10)
+            .addAllRetrieveFields(List.of("branch_id"))
+            .putInnerHits(
+                "menu",
+                InnerHit.newBuilder()
+                    .setQueryNestedPath("food")
+                    .setTopHits(10)
+                    .addAllRetrieveFields(List.of("food.name"))
+                    .build())
+            .putInnerHits(
+                "staff",
+                InnerHit.newBuilder()
+                    .setQueryNestedPath("employees")
+                    .setTopHits(10)
+                    .setInnerQuery(
+                        Query.newBuilder()
+                            .setRangeQuery(
+                                RangeQuery.newBuilder().setField("employees.age").setLower("30")))
+                    .addAllRetrieveFields(List.of("employees.name"))
+                    .build())
+            .build();
+    assertBatchFetchMatches(request, "staff");
+  }
 }
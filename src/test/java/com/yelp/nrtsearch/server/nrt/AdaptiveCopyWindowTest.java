@@ -0,0 +1,180 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.nrt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import org.junit.Test;
+
+public class AdaptiveCopyWindowTest {
+  private static final long RTT = 1_000_000;
+
+  @Test
+  public void testInitialWindow() {
+    AdaptiveCopyWindow window = new AdaptiveCopyWindow(10, 100, 1024, 8192, 100 * 8192);
+    assertEquals(10, window.getInFlight());
+    assertEquals(1024, window.getChunkSize());
+  }
+
+  @Test
+  public void testSlowStart() {
+    AdaptiveCopyWindow window = new AdaptiveCopyWindow(10, 100, 1024, 8192, 100 * 8192);
+    window.onAck(RTT, 0);
+    assertEquals(20, window.getInFlight());
+    window.onAck(RTT, 1);
+    assertEquals(40, window.getInFlight());
+    window.onAck(RTT, 2);
+    assertEquals(80, window.getInFlight());
+    window.onAck(RTT, 3);
+    assertEquals(100, window.getInFlight());
+    assertEquals(1024, window.getChunkSize());
+  }
+
+  @Test
+  public void testChunkSizeGrowsAtMaxInFlight() {
+    AdaptiveCopyWindow window = new AdaptiveCopyWindow(10, 20, 1024, 4096, 20 * 4096);
+    window.onAck(RTT, 0);
+    assertEquals(20, window.getInFlight());
+    assertEquals(1024, window.getChunkSize());
+    window.onAck(RTT, 1);
+    assertEquals(2048, window.getChunkSize());
+    window.onAck(RTT, 2);
+    assertEquals(4096, window.getChunkSize());
+    window.onAck(RTT, 3);
+    assertEquals(4096, window.getChunkSize());
+    assertEquals(20, window.getInFlight());
+  }
+
+  @Test
+  public void testCongestionDecrease() {
+    AdaptiveCopyWindow window = new AdaptiveCopyWindow(10, 40, 1024, 4096, 40 * 4096);
+    window.onAck(RTT, 0);
+    window.onAck(RTT, 1);
+    window.onAck(RTT, 2);
+    assertEquals(40, window.getInFlight());
+    assertEquals(2048, window.getChunkSize());
+
+    window.onAck(RTT * 3, 3);
+    assertEquals(20, window.getInFlight());
+    assertEquals(1024, window.getChunkSize());
+    window.onAck(RTT * 3, 4);
+    assertEquals(10, window.getInFlight());
+    assertEquals(1024, window.getChunkSize());
+    // never below ackEvery chunks
+    window.onAck(RTT * 3, 5);
+    assertEquals(10, window.getInFlight());
+  }
+
+  @Test
+  public void testAdditiveIncreaseAfterCongestion() {
+    AdaptiveCopyWindow window = new AdaptiveCopyWindow(10, 100, 1024, 4096, 100 * 4096);
+    window.onAck(RTT, 0);
+    window.onAck(RTT, 1);
+    assertEquals(40, window.getInFlight());
+    window.onAck(RTT * 3, 2);
+    assertEquals(20, window.getInFlight());
+    window.onAck(RTT, 3);
+    assertEquals(30, window.getInFlight());
+    window.onAck((long) (RTT * 1.5), 4);
+    assertEquals(40, window.getInFlight());
+  }
+
+  @Test
+  public void testMinRttExpires() {
+    AdaptiveCopyWindow window = new AdaptiveCopyWindow(10, 100, 1024, 4096, 100 * 4096);
+    window.onAck(RTT, 0);
+    assertEquals(20, window.getInFlight());
+    // base latency increased, the old minimum is used until it expires
+    window.onAck(RTT * 3, 1);
+    assertEquals(10, window.getInFlight());
+    long expired = AdaptiveCopyWindow.MIN_RTT_EXPIRATION_NS + 1;
+    window.onAck(RTT * 3, expired);
+    assertEquals(20, window.getInFlight());
+    window.onAck(RTT * 3, expired + 1);
+    assertEquals(30, window.getInFlight());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidAckEvery() {
+    new AdaptiveCopyWindow(100, 10, 1024, 4096, 10 * 4096);
+  }
+
+  @Test
+  public void testChunkSizeGrowthLimitedByInFlightBytes() {
+    AdaptiveCopyWindow window = new AdaptiveCopyWindow(10, 40, 1024, 8192, 40 * 1024);
+    window.onAck(RTT, 0);
+    window.onAck(RTT, 1);
+    assertEquals(40, window.getInFlight());
+    assertEquals(1024, window.getChunkSize());
+    // larger chunks are sent with a smaller window
+    window.onAck(RTT, 2);
+    assertEquals(20, window.getInFlight());
+    assertEquals(2048, window.getChunkSize());
+    window.onAck(RTT, 3);
+    assertEquals(10, window.getInFlight());
+    assertEquals(4096, window.getChunkSize());
+    // ackEvery chunks of 8192 do not fit in the limit
+    window.onAck(RTT, 4);
+    assertEquals(10, window.getInFlight());
+    assertEquals(4096, window.getChunkSize());
+  }
+
+  @Test
+  public void testInFlightBytesLimit() {
+    int ackEvery = 10;
+    long maxInFlightBytes = 100 * 1024;
+    AdaptiveCopyWindow window =
+        new AdaptiveCopyWindow(ackEvery, 2000, 1024, 1024 * 1024, maxInFlightBytes);
+    Random random = new Random(42);
+    // sizes of chunks sent and not yet acked
+    Deque<Integer> inFlightChunks = new ArrayDeque<>();
+    long inFlightBytes = 0;
+    for (int ack = 0; ack < 1000; ++ack) {
+      // send until the window is full
+      int chunkSize = window.getNextChunkSize(inFlightChunks.size(), inFlightBytes);
+      while (chunkSize > 0) {
+        inFlightChunks.addLast(chunkSize);
+        inFlightBytes += chunkSize;
+        assertTrue(inFlightBytes <= maxInFlightBytes);
+        chunkSize = window.getNextChunkSize(inFlightChunks.size(), inFlightBytes);
+      }
+      // there must always be room to send the next chunk requesting an ack
+      assertTrue(inFlightChunks.size() >= ackEvery);
+      assertTrue((long) window.getInFlight() * window.getChunkSize() <= maxInFlightBytes);
+
+      // ack the oldest chunks, up to the first chunk requesting an ack
+      for (int i = 0; i < ackEvery; ++i) {
+        inFlightBytes -= inFlightChunks.removeFirst();
+      }
+      long rtt = random.nextInt(4) == 0 ? RTT * 3 : RTT;
+      window.onAck(rtt, ack);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidChunkSize() {
+    new AdaptiveCopyWindow(10, 100, 4096, 1024, 100 * 1024);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidInFlightBytes() {
+    new AdaptiveCopyWindow(10, 100, 1024, 4096, 9 * 1024);
+  }
+}
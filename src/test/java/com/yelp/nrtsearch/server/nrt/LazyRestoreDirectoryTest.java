@@ -0,0 +1,259 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.nrt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.yelp.nrtsearch.server.monitoring.BootstrapMetrics;
+import com.yelp.nrtsearch.server.nrt.state.NrtFileMetaData;
+import com.yelp.nrtsearch.server.remote.RemoteBackend;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LazyRestoreDirectoryTest {
+  private static final String SERVICE = "test_service";
+  private static final String INDEX_ID = "test_index-20250101000000000";
+  private static final int NUM_DOCS = 100;
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private Path sourceDir;
+  private Path restoreDir;
+  private Map<String, NrtFileMetaData> files;
+  private RemoteBackend remoteBackend;
+  private CountDownLatch fetchLatch;
+
+  @Before
+  public void setup() throws Exception {
+    sourceDir = folder.newFolder("source").toPath();
+    restoreDir = folder.newFolder("index").toPath();
+    try (Directory directory = FSDirectory.open(sourceDir);
+        IndexWriter writer =
+            new IndexWriter(directory, new IndexWriterConfig().setUseCompoundFile(false))) {
+      for (int i = 0; i < NUM_DOCS; ++i) {
+        Document document = new Document();
+        document.add(new StringField("id", String.valueOf(i), Field.Store.YES));
+        document.add(new TextField("text", "text value " + (i % 10), Field.Store.YES));
+        writer.addDocument(document);
+      }
+      writer.commit();
+    }
+
+    files = new HashMap<>();
+    try (Directory directory = FSDirectory.open(sourceDir)) {
+      SegmentInfos segmentInfos = SegmentInfos.readLatestCommit(directory);
+      for (String fileName : segmentInfos.files(false)) {
+        files.put(fileName, getFileMetaData(directory, fileName));
+      }
+      // the segments file is written locally on restore
+      Files.copy(
+          sourceDir.resolve(segmentInfos.getSegmentsFileName()),
+          restoreDir.resolve(segmentInfos.getSegmentsFileName()));
+    }
+
+    fetchLatch = new CountDownLatch(1);
+    remoteBackend = mock(RemoteBackend.class);
+    doAnswer(
+            invocation -> {
+              assertTrue(fetchLatch.await(10, TimeUnit.SECONDS));
+              Path destDir = invocation.getArgument(2);
+              Map<String, NrtFileMetaData> fetchFiles = invocation.getArgument(3);
+              for (String fileName : fetchFiles.keySet()) {
+                Files.copy(
+                    sourceDir.resolve(fileName),
+                    destDir.resolve(fileName),
+                    StandardCopyOption.REPLACE_EXISTING);
+              }
+              return null;
+            })
+        .when(remoteBackend)
+        .downloadIndexFiles(eq(SERVICE), eq(INDEX_ID), any(), any());
+  }
+
+  private static NrtFileMetaData getFileMetaData(Directory directory, String fileName)
+      throws IOException {
+    try (IndexInput input = directory.openInput(fileName, IOContext.READONCE)) {
+      byte[] header = CodecUtil.readIndexHeader(input);
+      byte[] footer = CodecUtil.readFooter(input);
+      long checksum = CodecUtil.retrieveChecksum(input);
+      return new NrtFileMetaData(header, footer, input.length(), checksum, "primary", "time");
+    }
+  }
+
+  private LazyRestoreDirectory createDirectory() throws IOException {
+    return new LazyRestoreDirectory(
+        FSDirectory.open(restoreDir), restoreDir, remoteBackend, SERVICE, INDEX_ID, files);
+  }
+
+  private String getLargestFile() {
+    return files.entrySet().stream()
+        .max((a, b) -> Long.compare(a.getValue().length, b.getValue().length))
+        .orElseThrow()
+        .getKey();
+  }
+
+  private long getTotalBytes() {
+    return files.values().stream().mapToLong(fileMetaData -> fileMetaData.length).sum();
+  }
+
+  private void waitFullyLocal(LazyRestoreDirectory directory) throws InterruptedException {
+    long endTime = System.currentTimeMillis() + 10000;
+    while (!directory.isFullyLocal() && System.currentTimeMillis() < endTime) {
+      Thread.sleep(10);
+    }
+    assertTrue(directory.isFullyLocal());
+  }
+
+  @Test
+  public void testHeaderAndFooterNotFetched() throws Exception {
+    try (LazyRestoreDirectory directory = createDirectory()) {
+      assertFalse(directory.isFullyLocal());
+      assertEquals(getTotalBytes(), directory.getPendingBytes());
+      assertEquals(
+          getTotalBytes(),
+          BootstrapMetrics.dataRestorePendingBytes.labelValues("test_index", INDEX_ID).get(),
+          0);
+      List<String> allFiles = Arrays.asList(directory.listAll());
+      assertTrue(allFiles.containsAll(files.keySet()));
+
+      // fetches are blocked, metadata reads must not need the file
+      for (Map.Entry<String, NrtFileMetaData> entry : files.entrySet()) {
+        assertEquals(entry.getValue().length, directory.fileLength(entry.getKey()));
+        NrtFileMetaData fileMetaData = getFileMetaData(directory, entry.getKey());
+        assertArrayEquals(entry.getValue().header, fileMetaData.header);
+        assertArrayEquals(entry.getValue().footer, fileMetaData.footer);
+        assertEquals(entry.getValue().checksum, fileMetaData.checksum);
+        assertFalse(Files.exists(restoreDir.resolve(entry.getKey())));
+      }
+
+      fetchLatch.countDown();
+      try (DirectoryReader reader = DirectoryReader.open(directory)) {
+        IndexSearcher searcher = new IndexSearcher(reader);
+        assertEquals(NUM_DOCS, searcher.count(new TermQuery(new Term("text", "text"))));
+        assertEquals(1, searcher.count(new TermQuery(new Term("id", "7"))));
+      }
+      waitFullyLocal(directory);
+      assertEquals(0, directory.getPendingBytes());
+      for (String fileName : files.keySet()) {
+        assertArrayEquals(
+            Files.readAllBytes(sourceDir.resolve(fileName)),
+            Files.readAllBytes(restoreDir.resolve(fileName)));
+      }
+      verify(remoteBackend, times(files.size()))
+          .downloadIndexFiles(eq(SERVICE), eq(INDEX_ID), any(), any());
+    }
+    assertFalse(Files.exists(restoreDir.resolveSibling("index_restore_tmp")));
+  }
+
+  @Test
+  public void testReadFetchesFile() throws Exception {
+    fetchLatch.countDown();
+    String fileName = getLargestFile();
+    byte[] expected = Files.readAllBytes(sourceDir.resolve(fileName));
+    try (LazyRestoreDirectory directory = createDirectory();
+        IndexInput input = directory.openInput(fileName, IOContext.DEFAULT)) {
+      int headerLength = files.get(fileName).header.length;
+      input.seek(headerLength);
+      byte[] bytes = new byte[expected.length - headerLength];
+      input.readBytes(bytes, 0, bytes.length);
+      assertArrayEquals(Arrays.copyOfRange(expected, headerLength, expected.length), bytes);
+      assertTrue(Files.exists(restoreDir.resolve(fileName)));
+
+      IndexInput clone = input.clone();
+      clone.seek(0);
+      assertEquals(expected[0], clone.readByte());
+      waitFullyLocal(directory);
+    }
+  }
+
+  @Test
+  public void testDeletePendingFile() throws Exception {
+    String fileName = getLargestFile();
+    try (LazyRestoreDirectory directory = createDirectory()) {
+      directory.deleteFile(fileName);
+      assertFalse(Arrays.asList(directory.listAll()).contains(fileName));
+      assertEquals(getTotalBytes() - files.get(fileName).length, directory.getPendingBytes());
+
+      fetchLatch.countDown();
+      waitFullyLocal(directory);
+      assertFalse(Files.exists(restoreDir.resolve(fileName)));
+    }
+    verify(remoteBackend, never())
+        .downloadIndexFiles(any(), any(), any(), eq(Map.of(fileName, files.get(fileName))));
+  }
+
+  @Test
+  public void testFetchError() throws Exception {
+    String fileName = getLargestFile();
+    doAnswer(
+            invocation -> {
+              throw new IOException("fetch error");
+            })
+        .when(remoteBackend)
+        .downloadIndexFiles(any(), any(), any(), any());
+    try (LazyRestoreDirectory directory = createDirectory();
+        IndexInput input = directory.openInput(fileName, IOContext.DEFAULT)) {
+      input.seek(files.get(fileName).header.length);
+      try {
+        input.readByte();
+        fail();
+      } catch (IOException e) {
+        assertEquals("fetch error", e.getMessage());
+      }
+      assertFalse(directory.isFullyLocal());
+      assertTrue(Arrays.asList(directory.listAll()).contains(fileName));
+    }
+  }
+}
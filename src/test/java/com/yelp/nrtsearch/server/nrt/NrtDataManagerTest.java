@@ -25,8 +25,11 @@ import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -42,13 +45,20 @@ import com.yelp.nrtsearch.server.utils.TimeStringUtils;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.lucene.replicator.nrt.CopyState;
 import org.apache.lucene.replicator.nrt.FileMetaData;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -273,6 +283,67 @@ public class NrtDataManagerTest {
             SERVICE_NAME, INDEX_NAME, folder.getRoot().toPath(), nrtFileMetaDataMap);
   }
 
+  @Test
+  public void testRestoreLazilyIfNeeded_noRestoreIndex() throws IOException {
+    RemoteBackend mockRemoteBackend = mock(RemoteBackend.class);
+    NrtDataManager nrtDataManager =
+        new NrtDataManager(SERVICE_NAME, INDEX_NAME, PRIMARY_ID, mockRemoteBackend, null, true);
+    try (Directory directory = FSDirectory.open(folder.getRoot().toPath())) {
+      assertSame(
+          directory, nrtDataManager.restoreLazilyIfNeeded(folder.getRoot().toPath(), directory));
+    }
+    assertNull(nrtDataManager.getLastPointState());
+  }
+
+  @Test
+  public void testRestoreLazilyIfNeeded_exist() throws IOException {
+    RemoteBackend mockRemoteBackend = mock(RemoteBackend.class);
+    when(mockRemoteBackend.exists(
+            SERVICE_NAME, INDEX_NAME, RemoteBackend.IndexResourceType.POINT_STATE))
+        .thenReturn(true);
+
+    FileMetaData fileMetaData =
+        new FileMetaData(new byte[] {1, 2, 3}, new byte[] {4, 5, 6}, 15, 16);
+    CopyState copyState =
+        new CopyState(
+            Map.of("file1", fileMetaData),
+            5,
+            6,
+            new byte[] {1, 2, 3},
+            Set.of("merged_file"),
+            7,
+            null);
+    NrtFileMetaData nrtFileMetaData = new NrtFileMetaData(fileMetaData, PRIMARY_ID, "timestamp");
+    Map<String, NrtFileMetaData> nrtFileMetaDataMap = Map.of("file1", nrtFileMetaData);
+    NrtPointState nrtPointState = new NrtPointState(copyState, nrtFileMetaDataMap, PRIMARY_ID);
+    byte[] pointStateBytes = RemoteUtils.pointStateToUtf8(nrtPointState);
+    when(mockRemoteBackend.downloadPointState(SERVICE_NAME, INDEX_NAME))
+        .thenReturn(new ByteArrayInputStream(pointStateBytes));
+
+    RestoreIndex restoreIndex =
+        RestoreIndex.newBuilder()
+            .setServiceName(SERVICE_NAME)
+            .setResourceName(INDEX_NAME)
+            .setDeleteExistingData(false)
+            .build();
+    NrtDataManager nrtDataManager =
+        new NrtDataManager(
+            SERVICE_NAME, INDEX_NAME, PRIMARY_ID, mockRemoteBackend, restoreIndex, true);
+    Path indexDir = folder.newFolder("index").toPath();
+    // existing file with the same name as a restored file is replaced
+    Files.writeString(indexDir.resolve("file1"), "old_data");
+    Files.writeString(indexDir.resolve("test_file"), "data");
+    try (Directory directory =
+        nrtDataManager.restoreLazilyIfNeeded(indexDir, FSDirectory.open(indexDir))) {
+      assertTrue(directory instanceof LazyRestoreDirectory);
+      assertArrayEquals(new String[] {"file1", "segments_6", "test_file"}, directory.listAll());
+      assertEquals(15, directory.fileLength("file1"));
+      assertEquals(Set.of("segments_6", "test_file"), Set.of(indexDir.toFile().list()));
+    }
+    assertEquals(nrtPointState, nrtDataManager.getLastPointState());
+    verify(mockRemoteBackend, times(1)).downloadPointState(SERVICE_NAME, INDEX_NAME);
+  }
+
   @Test
   public void testWriteSegmentsFile() throws IOException {
     NrtDataManager.writeSegmentsFile(new byte[] {1, 2, 3, 4, 5}, 14, folder.getRoot().toPath());
@@ -816,6 +887,203 @@ public class NrtDataManagerTest {
     verifyNoMoreInteractions(mockPrimaryNode, mockRemoteBackend);
   }
 
+  @Test
+  public void testPipelinedUploads_dedupeInFlight() throws IOException, InterruptedException {
+    CountDownLatch uploadLatch = new CountDownLatch(1);
+    RemoteBackend mockRemoteBackend = mock(RemoteBackend.class);
+    doAnswer(
+            invocation -> {
+              uploadLatch.await();
+              return null;
+            })
+        .when(mockRemoteBackend)
+        .uploadIndexFiles(any(), any(), any(), any());
+    NrtDataManager nrtDataManager =
+        new NrtDataManager(SERVICE_NAME, INDEX_NAME, PRIMARY_ID, mockRemoteBackend, null, true, 4);
+    NRTPrimaryNode mockPrimaryNode = mock(NRTPrimaryNode.class);
+    nrtDataManager.startWithoutThread(mockPrimaryNode, folder.getRoot().toPath());
+
+    FileMetaData fileMetaData1 =
+        new FileMetaData(new byte[] {1, 2, 3}, new byte[] {4, 5, 6}, 15, 16);
+    FileMetaData fileMetaData2 =
+        new FileMetaData(new byte[] {7, 8, 9}, new byte[] {10, 11, 12}, 25, 26);
+    FileMetaData fileMetaData3 =
+        new FileMetaData(new byte[] {13, 14, 15}, new byte[] {16, 17, 18}, 35, 36);
+    CopyState copyState1 =
+        new CopyState(
+            Map.of("file1", fileMetaData1, "file2", fileMetaData2),
+            5,
+            6,
+            new byte[] {1, 2, 3},
+            Set.of(),
+            7,
+            null);
+    CopyState copyState2 =
+        new CopyState(
+            Map.of("file2", fileMetaData2, "file3", fileMetaData3),
+            6,
+            6,
+            new byte[] {4, 5, 6},
+            Set.of(),
+            7,
+            null);
+    CopyState copyState3 =
+        new CopyState(
+            Map.of("file3", fileMetaData3), 7, 6, new byte[] {7, 8, 9}, Set.of(), 7, null);
+    nrtDataManager.enqueueUpload(copyState1, List.of());
+    nrtDataManager.enqueueUpload(copyState2, List.of());
+    nrtDataManager.enqueueUpload(copyState3, List.of());
+
+    // uploads start on enqueue, and each file is only uploaded once
+    Map<String, NrtDataManager.PendingUpload> pendingUploads = nrtDataManager.getPendingUploads();
+    assertEquals(Set.of("file1", "file2", "file3"), pendingUploads.keySet());
+    assertEquals(5, pendingUploads.get("file1").version());
+    assertEquals(6, pendingUploads.get("file2").version());
+    assertEquals(7, pendingUploads.get("file3").version());
+    for (String fileName : List.of("file1", "file2", "file3")) {
+      verify(mockRemoteBackend, timeout(10000))
+          .uploadIndexFiles(
+              eq(SERVICE_NAME),
+              eq(INDEX_NAME),
+              eq(folder.getRoot().toPath()),
+              argThat(arg -> arg.keySet().equals(Set.of(fileName))));
+    }
+
+    // merged task copy state is not released until its files are uploaded
+    verify(mockPrimaryNode, never()).releaseCopyState(copyState2);
+    uploadLatch.countDown();
+    verify(mockPrimaryNode, timeout(10000)).releaseCopyState(copyState2);
+    assertSame(copyState3, nrtDataManager.getNextUploadTask().copyState());
+    verifyNoMoreInteractions(mockPrimaryNode, mockRemoteBackend);
+    nrtDataManager.close();
+  }
+
+  @Test
+  public void testPipelinedUploads_processTasks()
+      throws ExecutionException, InterruptedException, TimeoutException, IOException {
+    RemoteBackend mockRemoteBackend = mock(RemoteBackend.class);
+    NrtDataManager nrtDataManager =
+        new NrtDataManager(SERVICE_NAME, INDEX_NAME, PRIMARY_ID, mockRemoteBackend, null, true, 4);
+    NRTPrimaryNode mockPrimaryNode = mock(NRTPrimaryNode.class);
+    nrtDataManager.startUploadManager(mockPrimaryNode, folder.getRoot().toPath());
+
+    FileMetaData fileMetaData1 =
+        new FileMetaData(new byte[] {1, 2, 3}, new byte[] {4, 5, 6}, 15, 16);
+    FileMetaData fileMetaData2 =
+        new FileMetaData(new byte[] {7, 8, 9}, new byte[] {10, 11, 12}, 25, 26);
+    FileMetaData fileMetaData3 =
+        new FileMetaData(new byte[] {13, 14, 15}, new byte[] {16, 17, 18}, 35, 36);
+    CopyState copyState1 =
+        new CopyState(
+            Map.of("file1", fileMetaData1, "file2", fileMetaData2),
+            5,
+            6,
+            new byte[] {1, 2, 3},
+            Set.of("merged_file1"),
+            7,
+            null);
+    CopyState copyState2 =
+        new CopyState(
+            Map.of("file2", fileMetaData2, "file3", fileMetaData3),
+            6,
+            6,
+            new byte[] {4, 5, 6},
+            Set.of("merged_file2"),
+            7,
+            null);
+    RefreshUploadFuture refreshUploadFuture = new RefreshUploadFuture();
+    RefreshUploadFuture refreshUploadFuture2 = new RefreshUploadFuture();
+    nrtDataManager.enqueueUpload(copyState1, List.of(refreshUploadFuture));
+    nrtDataManager.enqueueUpload(copyState2, List.of(refreshUploadFuture2));
+
+    refreshUploadFuture.get(30, TimeUnit.SECONDS);
+    refreshUploadFuture2.get(30, TimeUnit.SECONDS);
+    waitUntilDone(nrtDataManager);
+
+    NrtFileMetaData nrtFileMetaData2 = new NrtFileMetaData(fileMetaData2, PRIMARY_ID, "timestamp");
+    NrtFileMetaData nrtFileMetaData3 = new NrtFileMetaData(fileMetaData3, PRIMARY_ID, "timestamp");
+    NrtPointState nrtPointState2 =
+        new NrtPointState(
+            copyState2, Map.of("file2", nrtFileMetaData2, "file3", nrtFileMetaData3), PRIMARY_ID);
+    verifyPointStates(nrtPointState2, nrtDataManager.getLastPointState());
+    assertTrue(nrtDataManager.getPendingUploads().isEmpty());
+
+    verify(mockPrimaryNode, timeout(10000)).releaseCopyState(copyState1);
+    verify(mockPrimaryNode, timeout(10000)).releaseCopyState(copyState2);
+    verify(mockRemoteBackend, times(2))
+        .uploadPointState(eq(SERVICE_NAME), eq(INDEX_NAME), any(), any());
+    ArgumentCaptor<Map<String, NrtFileMetaData>> filesCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(mockRemoteBackend, times(3))
+        .uploadIndexFiles(
+            eq(SERVICE_NAME), eq(INDEX_NAME), eq(folder.getRoot().toPath()), filesCaptor.capture());
+    Set<String> uploadedFiles = new HashSet<>();
+    for (Map<String, NrtFileMetaData> files : filesCaptor.getAllValues()) {
+      assertEquals(1, files.size());
+      uploadedFiles.addAll(files.keySet());
+    }
+    assertEquals(Set.of("file1", "file2", "file3"), uploadedFiles);
+    verifyNoMoreInteractions(mockPrimaryNode, mockRemoteBackend);
+    nrtDataManager.close();
+  }
+
+  @Test
+  public void testPipelinedUploads_retryAfterError()
+      throws ExecutionException, InterruptedException, TimeoutException, IOException {
+    AtomicBoolean failUpload = new AtomicBoolean(true);
+    RemoteBackend mockRemoteBackend = mock(RemoteBackend.class);
+    doAnswer(
+            invocation -> {
+              if (failUpload.getAndSet(false)) {
+                throw new IOException("upload error");
+              }
+              return null;
+            })
+        .when(mockRemoteBackend)
+        .uploadIndexFiles(any(), any(), any(), any());
+    NrtDataManager nrtDataManager =
+        new NrtDataManager(SERVICE_NAME, INDEX_NAME, PRIMARY_ID, mockRemoteBackend, null, true, 1);
+    NRTPrimaryNode mockPrimaryNode = mock(NRTPrimaryNode.class);
+    nrtDataManager.startUploadManager(mockPrimaryNode, folder.getRoot().toPath());
+
+    FileMetaData fileMetaData =
+        new FileMetaData(new byte[] {1, 2, 3}, new byte[] {4, 5, 6}, 15, 16);
+    CopyState copyState =
+        new CopyState(Map.of("file1", fileMetaData), 5, 6, new byte[] {1, 2, 3}, Set.of(), 7, null);
+    RefreshUploadFuture refreshUploadFuture = new RefreshUploadFuture();
+    nrtDataManager.enqueueUpload(copyState, List.of(refreshUploadFuture));
+    try {
+      refreshUploadFuture.get(30, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertEquals("Error uploading index files", e.getCause().getMessage());
+    }
+    waitUntilDone(nrtDataManager);
+    assertNull(nrtDataManager.getLastPointState());
+
+    RefreshUploadFuture refreshUploadFuture2 = new RefreshUploadFuture();
+    nrtDataManager.enqueueUpload(copyState, List.of(refreshUploadFuture2));
+    refreshUploadFuture2.get(30, TimeUnit.SECONDS);
+    waitUntilDone(nrtDataManager);
+    assertEquals(5, nrtDataManager.getLastPointState().version);
+
+    verify(mockRemoteBackend, times(2)).uploadIndexFiles(any(), any(), any(), any());
+    verify(mockRemoteBackend, times(1)).uploadPointState(any(), any(), any(), any());
+    verify(mockPrimaryNode, times(2)).releaseCopyState(copyState);
+    verifyNoMoreInteractions(mockPrimaryNode, mockRemoteBackend);
+    nrtDataManager.close();
+  }
+
+  @Test
+  public void testPipelinedUploads_invalidThreads() {
+    try {
+      new NrtDataManager(
+          SERVICE_NAME, INDEX_NAME, PRIMARY_ID, mock(RemoteBackend.class), null, true, -1);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("uploadThreads must be >= 0", e.getMessage());
+    }
+  }
+
   private void waitUntilDone(NrtDataManager nrtDataManager) {
     int count = 0;
     while (nrtDataManager.getCurrentUploadTask() != null) {
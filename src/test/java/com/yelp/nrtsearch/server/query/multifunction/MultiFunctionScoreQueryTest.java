@@ -17,6 +17,7 @@ package com.yelp.nrtsearch.server.query.multifunction;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 import com.google.type.LatLng;
 import com.yelp.nrtsearch.server.ServerTestCase;
@@ -32,6 +33,8 @@ import com.yelp.nrtsearch.server.grpc.Script;
 import com.yelp.nrtsearch.server.grpc.SearchRequest;
 import com.yelp.nrtsearch.server.grpc.SearchResponse;
 import com.yelp.nrtsearch.server.grpc.SearchResponse.Hit;
+import com.yelp.nrtsearch.server.index.IndexState;
+import com.yelp.nrtsearch.server.index.ShardState;
 import com.yelp.nrtsearch.server.script.js.JsScriptEngine;
 import io.grpc.testing.GrpcCleanupRule;
 import java.io.IOException;
@@ -40,6 +43,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
 import org.junit.ClassRule;
 import org.junit.Test;
 
@@ -1065,6 +1078,186 @@ public class MultiFunctionScoreQueryTest extends ServerTestCase {
     verifyResponseHits(response, expectedIds, expectedScores);
   }
 
+  @Test
+  public void testMaxFunctionScore() {
+    FilterFunction noFilter = new WeightFilterFunction(null, 2.0f);
+    FilterFunction filter =
+        new WeightFilterFunction(new TermQuery(new Term("text_field", "a")), 3.0f);
+    FilterFunction smallFilter =
+        new WeightFilterFunction(new TermQuery(new Term("text_field", "b")), 0.5f);
+    FilterFunction negative = new WeightFilterFunction(null, -1.0f);
+    FilterFunction script =
+        FilterFunction.build(
+            MultiFunctionScoreQuery.FilterFunction.newBuilder().setScript(DOUBLE_SCRIPT).build(),
+            getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX));
+
+    assertEquals(
+        6.0, getMaxFunctionScore(FunctionScoreMode.SCORE_MODE_MULTIPLY, noFilter, filter), 0);
+    // a filtered function may not apply, which leaves the score unchanged
+    assertEquals(1.0, getMaxFunctionScore(FunctionScoreMode.SCORE_MODE_MULTIPLY, smallFilter), 0);
+    assertEquals(5.0, getMaxFunctionScore(FunctionScoreMode.SCORE_MODE_SUM, noFilter, filter), 0);
+    // sum score is 1 when no function applies
+    assertEquals(1.0, getMaxFunctionScore(FunctionScoreMode.SCORE_MODE_SUM, smallFilter), 0);
+    assertEquals(
+        Double.POSITIVE_INFINITY,
+        getMaxFunctionScore(FunctionScoreMode.SCORE_MODE_MULTIPLY, noFilter, script),
+        0);
+    assertEquals(
+        Double.POSITIVE_INFINITY,
+        getMaxFunctionScore(FunctionScoreMode.SCORE_MODE_SUM, noFilter, negative),
+        0);
+    assertEquals(
+        Double.POSITIVE_INFINITY, getMaxFunctionScore(FunctionScoreMode.SCORE_MODE_SUM), 0);
+  }
+
+  private double getMaxFunctionScore(FunctionScoreMode scoreMode, FilterFunction... functions) {
+    return new com.yelp.nrtsearch.server.query.multifunction.MultiFunctionScoreQuery(
+            new MatchAllDocsQuery(),
+            functions,
+            scoreMode,
+            BoostMode.BOOST_MODE_MULTIPLY,
+            0,
+            false)
+        .getMaxFunctionScore();
+  }
+
+  @Test
+  public void testScorerMaxScore_multiply() throws IOException {
+    verifyScorerMaxScore(BoostMode.BOOST_MODE_MULTIPLY, false);
+  }
+
+  @Test
+  public void testScorerMaxScore_sum() throws IOException {
+    verifyScorerMaxScore(BoostMode.BOOST_MODE_SUM, false);
+  }
+
+  @Test
+  public void testScorerMaxScore_replace() throws IOException {
+    verifyScorerMaxScore(BoostMode.BOOST_MODE_REPLACE, false);
+  }
+
+  @Test
+  public void testScorerMaxScore_script() throws IOException {
+    verifyScorerMaxScore(BoostMode.BOOST_MODE_MULTIPLY, true);
+  }
+
+  private void verifyScorerMaxScore(BoostMode boostMode, boolean withScript) throws IOException {
+    List<MultiFunctionScoreQuery.FilterFunction> functions = new ArrayList<>();
+    functions.add(MultiFunctionScoreQuery.FilterFunction.newBuilder().setWeight(2.0f).build());
+    functions.add(
+        MultiFunctionScoreQuery.FilterFunction.newBuilder()
+            .setFilter(
+                Query.newBuilder()
+                    .setMatchQuery(
+                        MatchQuery.newBuilder().setField("text_field").setQuery("term1").build())
+                    .build())
+            .setWeight(3.0f)
+            .build());
+    if (withScript) {
+      functions.add(
+          MultiFunctionScoreQuery.FilterFunction.newBuilder().setScript(DOUBLE_SCRIPT).build());
+    }
+    IndexState indexState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX);
+    org.apache.lucene.search.Query query =
+        com.yelp.nrtsearch.server.query.multifunction.MultiFunctionScoreQuery.build(
+            MultiFunctionScoreQuery.newBuilder()
+                .setQuery(
+                    Query.newBuilder()
+                        .setMatchQuery(
+                            MatchQuery.newBuilder()
+                                .setField("text_field")
+                                .setQuery("Document2 term2")
+                                .build()))
+                .addAllFunctions(functions)
+                .setScoreMode(FunctionScoreMode.SCORE_MODE_MULTIPLY)
+                .setBoostMode(boostMode)
+                .build(),
+            indexState);
+
+    ShardState shardState = indexState.getShard(0);
+    SearcherTaxonomyManager.SearcherAndTaxonomy s = null;
+    try {
+      s = shardState.acquire();
+      IndexSearcher searcher = s.searcher();
+      Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.TOP_SCORES, 1.0f);
+      int scoredDocs = 0;
+      for (LeafReaderContext context : searcher.getIndexReader().leaves()) {
+        Scorer scorer = weight.scorer(context);
+        if (scorer == null) {
+          continue;
+        }
+        scorer.advanceShallow(0);
+        float maxScore = scorer.getMaxScore(DocIdSetIterator.NO_MORE_DOCS);
+        if (withScript) {
+          assertEquals(Float.MAX_VALUE, maxScore, 0);
+        } else {
+          assertTrue(maxScore < Float.MAX_VALUE);
+        }
+        DocIdSetIterator iterator = scorer.iterator();
+        while (iterator.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+          assertTrue(scorer.score() <= maxScore);
+          scoredDocs++;
+        }
+      }
+      assertEquals(3, scoredDocs);
+    } finally {
+      if (s != null) {
+        shardState.release(s);
+      }
+    }
+  }
+
+  @Test
+  public void testTopScoresSearch() {
+    List<MultiFunctionScoreQuery.FilterFunction> functions =
+        List.of(
+            MultiFunctionScoreQuery.FilterFunction.newBuilder()
+                .setFilter(
+                    Query.newBuilder()
+                        .setMatchQuery(
+                            MatchQuery.newBuilder()
+                                .setField("text_field")
+                                .setQuery("term1")
+                                .build())
+                        .build())
+                .setWeight(3.0f)
+                .build());
+    Query innerQuery =
+        Query.newBuilder()
+            .setMatchQuery(
+                MatchQuery.newBuilder().setField("text_field").setQuery("Document2 term2").build())
+            .build();
+    SearchResponse response =
+        getGrpcServer()
+            .getBlockingStub()
+            .search(
+                SearchRequest.newBuilder()
+                    .setIndexName(DEFAULT_TEST_INDEX)
+                    .setTopHits(1)
+                    .setTotalHitsThreshold(1)
+                    .addRetrieveFields("doc_id")
+                    .setQuery(
+                        Query.newBuilder()
+                            .setMultiFunctionScoreQuery(
+                                MultiFunctionScoreQuery.newBuilder()
+                                    .setQuery(innerQuery)
+                                    .addAllFunctions(functions)
+                                    .setScoreMode(FunctionScoreMode.SCORE_MODE_MULTIPLY)
+                                    .setBoostMode(BoostMode.BOOST_MODE_MULTIPLY)))
+                    .build());
+    SearchResponse allResponse =
+        doQuery(
+            innerQuery,
+            functions,
+            FunctionScoreMode.SCORE_MODE_MULTIPLY,
+            BoostMode.BOOST_MODE_MULTIPLY);
+    assertEquals(1, response.getHitsCount());
+    assertEquals(allResponse.getHits(0).getScore(), response.getHits(0).getScore(), 0);
+    assertEquals(
+        allResponse.getHits(0).getFieldsOrThrow("doc_id").getFieldValue(0).getTextValue(),
+        response.getHits(0).getFieldsOrThrow("doc_id").getFieldValue(0).getTextValue());
+  }
+
   private void verifyResponseHits(
       SearchResponse searchResponse, List<Integer> ids, List<Double> scores) {
     verifyResponseHitsWithDelta(searchResponse, ids, scores, 0.00001);
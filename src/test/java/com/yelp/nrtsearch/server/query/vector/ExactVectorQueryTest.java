@@ -0,0 +1,361 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.query.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.yelp.nrtsearch.server.query.vector.ExactVectorQuery.ExactByteVectorQuery;
+import com.yelp.nrtsearch.server.query.vector.ExactVectorQuery.ExactFloatVectorQuery;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.lucene101.Lucene101Codec;
+import org.apache.lucene.codecs.lucene99.Lucene99HnswScalarQuantizedVectorsFormat;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.KnnByteVectorField;
+import org.apache.lucene.document.KnnFloatVectorField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.VectorScorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ExactVectorQueryTest {
+  private static final int NUM_DOCS = 202;
+  private static final int PARTITIONED_NUM_DOCS = 3000;
+  // float similarities are summed in a different order than lucene
+  private static final float FLOAT_DELTA = 1e-5f;
+  private static final int DIMENSIONS = 16;
+  private static final float[] FLOAT_QUERY = new float[DIMENSIONS];
+  private static final byte[] BYTE_QUERY = new byte[DIMENSIONS];
+  private static final float[][] floatVectors = new float[NUM_DOCS][];
+  private static final byte[][] byteVectors = new byte[NUM_DOCS][];
+
+  private static Directory directory;
+  private static DirectoryReader reader;
+  private static Directory partitionedDirectory;
+  private static DirectoryReader partitionedReader;
+  private static ExecutorService executor;
+  private static final AtomicInteger executedTasks = new AtomicInteger();
+
+  @BeforeClass
+  public static void setUpIndex() throws IOException {
+    Random random = new Random(1234);
+    for (int i = 0; i < DIMENSIONS; ++i) {
+      FLOAT_QUERY[i] = random.nextFloat();
+      BYTE_QUERY[i] = (byte) random.nextInt(256);
+    }
+    directory = new ByteBuffersDirectory();
+    IndexWriterConfig config =
+        new IndexWriterConfig()
+            .setCodec(
+                new Lucene101Codec() {
+                  @Override
+                  public KnnVectorsFormat getKnnVectorsFormatForField(String field) {
+                    if (field.equals("quantized_vector")) {
+                      return new Lucene99HnswScalarQuantizedVectorsFormat();
+                    }
+                    return super.getKnnVectorsFormatForField(field);
+                  }
+                });
+    try (IndexWriter writer = new IndexWriter(directory, config)) {
+      for (int i = 0; i < NUM_DOCS; ++i) {
+        Document document = new Document();
+        // leave gaps in the docs with vectors
+        if (i % 3 != 0) {
+          floatVectors[i] = new float[DIMENSIONS];
+          byteVectors[i] = new byte[DIMENSIONS];
+          for (int j = 0; j < DIMENSIONS; ++j) {
+            floatVectors[i][j] = random.nextFloat();
+            byteVectors[i][j] = (byte) random.nextInt(256);
+          }
+          document.add(
+              new KnnFloatVectorField(
+                  "float_vector", floatVectors[i], VectorSimilarityFunction.DOT_PRODUCT));
+          document.add(
+              new KnnByteVectorField(
+                  "byte_vector", byteVectors[i], VectorSimilarityFunction.EUCLIDEAN));
+          document.add(
+              new KnnFloatVectorField(
+                  "quantized_vector", floatVectors[i], VectorSimilarityFunction.EUCLIDEAN));
+        }
+        writer.addDocument(document);
+      }
+      writer.forceMerge(1);
+    }
+    reader = DirectoryReader.open(directory);
+
+    partitionedDirectory = new ByteBuffersDirectory();
+    try (IndexWriter writer = new IndexWriter(partitionedDirectory, new IndexWriterConfig())) {
+      for (int i = 0; i < PARTITIONED_NUM_DOCS; ++i) {
+        Document document = new Document();
+        document.add(new StringField("id", String.valueOf(i), Field.Store.NO));
+        if (i % 10 != 0) {
+          document.add(
+              new KnnFloatVectorField(
+                  "float_vector", partitionedVector(i), VectorSimilarityFunction.DOT_PRODUCT));
+        }
+        writer.addDocument(document);
+      }
+      writer.forceMerge(1);
+    }
+    partitionedReader = DirectoryReader.open(partitionedDirectory);
+    executor =
+        new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+          @Override
+          public void execute(Runnable command) {
+            executedTasks.incrementAndGet();
+            super.execute(command);
+          }
+        };
+  }
+
+  @AfterClass
+  public static void cleanUp() throws IOException {
+    executor.shutdown();
+    reader.close();
+    directory.close();
+    partitionedReader.close();
+    partitionedDirectory.close();
+  }
+
+  private static float[] partitionedVector(int doc) {
+    float[] vector = new float[DIMENSIONS];
+    for (int i = 0; i < DIMENSIONS; ++i) {
+      vector[i] = ((doc + i) % 17) / 17.0f;
+    }
+    return vector;
+  }
+
+  private float expectedFloatScore(int doc) {
+    return VectorSimilarityFunction.DOT_PRODUCT.compare(FLOAT_QUERY, floatVectors[doc]);
+  }
+
+  private float expectedByteScore(int doc) {
+    return VectorSimilarityFunction.EUCLIDEAN.compare(BYTE_QUERY, byteVectors[doc]);
+  }
+
+  private Scorer getScorer(Query query, float boost) throws IOException {
+    IndexSearcher searcher = new IndexSearcher(reader);
+    Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE, boost);
+    assertEquals(1, reader.leaves().size());
+    return weight.scorer(reader.leaves().getFirst());
+  }
+
+  @Test
+  public void testFloatVectorNextDoc() throws IOException {
+    Scorer scorer = getScorer(new ExactFloatVectorQuery("float_vector", FLOAT_QUERY), 2.0f);
+    DocIdSetIterator iterator = scorer.iterator();
+    int count = 0;
+    for (int doc = iterator.nextDoc();
+        doc != DocIdSetIterator.NO_MORE_DOCS;
+        doc = iterator.nextDoc()) {
+      assertNotNull(floatVectors[doc]);
+      assertEquals(doc, scorer.docID());
+      assertEquals(expectedFloatScore(doc) * 2.0f, scorer.score(), FLOAT_DELTA);
+      count++;
+    }
+    assertEquals(NUM_DOCS - (NUM_DOCS + 2) / 3, count);
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, iterator.nextDoc());
+  }
+
+  @Test
+  public void testByteVectorNextDoc() throws IOException {
+    Scorer scorer = getScorer(new ExactByteVectorQuery("byte_vector", BYTE_QUERY), 1.0f);
+    DocIdSetIterator iterator = scorer.iterator();
+    int count = 0;
+    for (int doc = iterator.nextDoc();
+        doc != DocIdSetIterator.NO_MORE_DOCS;
+        doc = iterator.nextDoc()) {
+      assertNotNull(byteVectors[doc]);
+      assertEquals(expectedByteScore(doc), scorer.score(), 0);
+      count++;
+    }
+    assertEquals(NUM_DOCS - (NUM_DOCS + 2) / 3, count);
+  }
+
+  @Test
+  public void testQuantizedVectorScore() throws IOException {
+    Scorer scorer = getScorer(new ExactFloatVectorQuery("quantized_vector", FLOAT_QUERY), 1.0f);
+    DocIdSetIterator iterator = scorer.iterator();
+    // scores must match the quantized scorer of the vector format
+    LeafReader leafReader = reader.leaves().getFirst().reader();
+    VectorScorer formatScorer =
+        leafReader.getFloatVectorValues("quantized_vector").scorer(FLOAT_QUERY);
+    DocIdSetIterator formatIterator = formatScorer.iterator();
+    int differentFromRaw = 0;
+    for (int doc = iterator.nextDoc();
+        doc != DocIdSetIterator.NO_MORE_DOCS;
+        doc = iterator.nextDoc()) {
+      assertEquals(doc, formatIterator.nextDoc());
+      float score = scorer.score();
+      assertEquals(formatScorer.score(), score, 0);
+      if (score != VectorSimilarityFunction.EUCLIDEAN.compare(FLOAT_QUERY, floatVectors[doc])) {
+        differentFromRaw++;
+      }
+    }
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, formatIterator.nextDoc());
+    assertTrue(differentFromRaw > 0);
+  }
+
+  @Test
+  public void testMixedAdvanceAndNextDoc() throws IOException {
+    Scorer scorer = getScorer(new ExactFloatVectorQuery("float_vector", FLOAT_QUERY), 1.0f);
+    DocIdSetIterator iterator = scorer.iterator();
+    Random random = new Random(5678);
+    int doc = iterator.nextDoc();
+    while (doc != DocIdSetIterator.NO_MORE_DOCS) {
+      assertNotNull(floatVectors[doc]);
+      // only score some of the docs
+      if (random.nextBoolean()) {
+        assertEquals(expectedFloatScore(doc), scorer.score(), FLOAT_DELTA);
+      }
+      int expected;
+      if (random.nextBoolean()) {
+        int target = doc + 1 + random.nextInt(128);
+        expected = nextVectorDoc(target);
+        doc = iterator.advance(target);
+      } else {
+        expected = nextVectorDoc(doc + 1);
+        doc = iterator.nextDoc();
+      }
+      assertEquals(expected, doc);
+      assertEquals(expected, scorer.docID());
+    }
+  }
+
+  @Test
+  public void testAdvancePastEnd() throws IOException {
+    Scorer scorer = getScorer(new ExactFloatVectorQuery("float_vector", FLOAT_QUERY), 1.0f);
+    DocIdSetIterator iterator = scorer.iterator();
+    assertEquals(1, iterator.nextDoc());
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, iterator.advance(NUM_DOCS));
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, iterator.nextDoc());
+  }
+
+  @Test
+  public void testRawVectorsFormat() {
+    LeafReader leafReader = reader.leaves().getFirst().reader();
+    assertTrue(
+        ExactVectorQuery.isRawVectorsFormat(leafReader.getFieldInfos().fieldInfo("float_vector")));
+    assertTrue(
+        ExactVectorQuery.isRawVectorsFormat(leafReader.getFieldInfos().fieldInfo("byte_vector")));
+    assertFalse(
+        ExactVectorQuery.isRawVectorsFormat(
+            leafReader.getFieldInfos().fieldInfo("quantized_vector")));
+  }
+
+  @Test
+  public void testPartitionedScoring() throws IOException {
+    IndexSearcher searcher = new IndexSearcher(partitionedReader, executor);
+    int startTasks = executedTasks.get();
+    TopDocs topDocs =
+        searcher.search(
+            new ExactFloatVectorQuery("float_vector", FLOAT_QUERY), PARTITIONED_NUM_DOCS);
+    // the segment vectors are split into 2 partitions, one is run on the executor
+    assertEquals(1, executedTasks.get() - startTasks);
+    assertPartitionedHits(topDocs, PARTITIONED_NUM_DOCS - PARTITIONED_NUM_DOCS / 10);
+  }
+
+  @Test
+  public void testFilteredScoringNotPartitioned() throws IOException {
+    IndexSearcher searcher = new IndexSearcher(partitionedReader, executor);
+    Query query =
+        new BooleanQuery.Builder()
+            .add(new ExactFloatVectorQuery("float_vector", FLOAT_QUERY), BooleanClause.Occur.MUST)
+            .add(
+                new TermInSetQuery(
+                    "id",
+                    Stream.of("1", "2", "3", "500", "1501", "2999").map(BytesRef::new).toList()),
+                BooleanClause.Occur.FILTER)
+            .build();
+    int startTasks = executedTasks.get();
+    TopDocs topDocs = searcher.search(query, PARTITIONED_NUM_DOCS);
+    assertEquals(0, executedTasks.get() - startTasks);
+    assertPartitionedHits(topDocs, 5);
+  }
+
+  private void assertPartitionedHits(TopDocs topDocs, int expectedHits) {
+    assertEquals(expectedHits, topDocs.totalHits.value());
+    assertEquals(expectedHits, topDocs.scoreDocs.length);
+    for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+      assertTrue(scoreDoc.doc % 10 != 0);
+      float expected =
+          VectorSimilarityFunction.DOT_PRODUCT.compare(
+              FLOAT_QUERY, partitionedVector(scoreDoc.doc));
+      assertEquals(expected, scoreDoc.score, FLOAT_DELTA);
+    }
+  }
+
+  @Test
+  public void testMissingField() throws IOException {
+    assertNull(getScorer(new ExactFloatVectorQuery("missing", FLOAT_QUERY), 1.0f));
+  }
+
+  @Test
+  public void testExplain() throws IOException {
+    IndexSearcher searcher = new IndexSearcher(reader);
+    Query query = new ExactByteVectorQuery("byte_vector", BYTE_QUERY);
+    LeafReaderContext context = reader.leaves().getFirst();
+    Weight weight = searcher.createWeight(query, ScoreMode.COMPLETE, 3.0f);
+
+    Explanation explanation = weight.explain(context, 2);
+    assertTrue(explanation.isMatch());
+    assertEquals(expectedByteScore(2) * 3.0f, explanation.getValue().floatValue(), 0);
+    assertFalse(weight.explain(context, 3).isMatch());
+  }
+
+  private int nextVectorDoc(int target) {
+    for (int i = target; i < NUM_DOCS; ++i) {
+      if (floatVectors[i] != null) {
+        return i;
+      }
+    }
+    return DocIdSetIterator.NO_MORE_DOCS;
+  }
+}
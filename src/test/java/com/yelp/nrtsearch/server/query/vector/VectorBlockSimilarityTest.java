@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.query.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Random;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.junit.Test;
+
+public class VectorBlockSimilarityTest {
+  private static final int[] DIMENSIONS = {1, 3, 8, 16, 35, 100};
+  private static final int COUNT = 9;
+
+  private static boolean vectorModuleEnabled() {
+    return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+  }
+
+  @Test
+  public void testGetInstance() {
+    VectorBlockSimilarity instance = VectorBlockSimilarity.getInstance();
+    if (vectorModuleEnabled() && PanamaVectorBlockSimilarity.isSupported()) {
+      assertTrue(instance instanceof PanamaVectorBlockSimilarity);
+    } else {
+      assertEquals(ScalarVectorBlockSimilarity.class, instance.getClass());
+    }
+  }
+
+  @Test
+  public void testScalarFloat() {
+    assertFloatScores(new ScalarVectorBlockSimilarity());
+  }
+
+  @Test
+  public void testScalarByte() {
+    assertByteScores(new ScalarVectorBlockSimilarity());
+  }
+
+  @Test
+  public void testPanamaFloat() {
+    assumeTrue(vectorModuleEnabled());
+    assertFloatScores(new PanamaVectorBlockSimilarity());
+  }
+
+  @Test
+  public void testPanamaByte() {
+    assumeTrue(vectorModuleEnabled());
+    assertByteScores(new PanamaVectorBlockSimilarity());
+  }
+
+  private void assertFloatScores(VectorBlockSimilarity similarity) {
+    Random random = new Random(1234);
+    for (int dims : DIMENSIONS) {
+      float[] query = new float[dims];
+      for (int i = 0; i < dims; ++i) {
+        query[i] = random.nextFloat() * 2 - 1;
+      }
+      float[][] vectors = new float[COUNT][dims];
+      float[] block = new float[COUNT * dims];
+      for (int v = 0; v < COUNT; ++v) {
+        for (int i = 0; i < dims; ++i) {
+          vectors[v][i] = random.nextFloat() * 2 - 1;
+        }
+        System.arraycopy(vectors[v], 0, block, v * dims, dims);
+      }
+      for (VectorSimilarityFunction similarityFunction : VectorSimilarityFunction.values()) {
+        float[] scores = new float[COUNT];
+        similarity.compare(similarityFunction, query, block, COUNT, scores);
+        for (int v = 0; v < COUNT; ++v) {
+          float expected = similarityFunction.compare(query, vectors[v]);
+          // float products are summed in a different order than lucene
+          assertEquals(expected, scores[v], 1e-5f * Math.max(1, Math.abs(expected)));
+        }
+      }
+    }
+  }
+
+  private void assertByteScores(VectorBlockSimilarity similarity) {
+    Random random = new Random(5678);
+    for (int dims : DIMENSIONS) {
+      byte[] query = new byte[dims];
+      random.nextBytes(query);
+      byte[][] vectors = new byte[COUNT][dims];
+      byte[] block = new byte[COUNT * dims];
+      for (int v = 0; v < COUNT; ++v) {
+        random.nextBytes(vectors[v]);
+        System.arraycopy(vectors[v], 0, block, v * dims, dims);
+      }
+      for (VectorSimilarityFunction similarityFunction : VectorSimilarityFunction.values()) {
+        float[] scores = new float[COUNT];
+        similarity.compare(similarityFunction, query, block, COUNT, scores);
+        for (int v = 0; v < COUNT; ++v) {
+          // integer arithmetic, so scores are identical to lucene
+          assertEquals(similarityFunction.compare(query, vectors[v]), scores[v], 0);
+        }
+      }
+    }
+  }
+}
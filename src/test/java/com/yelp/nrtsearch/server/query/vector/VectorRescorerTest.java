@@ -0,0 +1,136 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.query.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.KnnFloatVectorField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class VectorRescorerTest {
+  private static final int DOCS_PER_SEGMENT = 10;
+  private static final float[] QUERY_VECTOR = new float[] {1.0f, 0.5f};
+
+  private static Directory directory;
+  private static DirectoryReader reader;
+
+  @BeforeClass
+  public static void setUpIndex() throws IOException {
+    directory = new ByteBuffersDirectory();
+    try (IndexWriter writer =
+        new IndexWriter(
+            directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+      for (int segment = 0; segment < 2; ++segment) {
+        for (int i = 0; i < DOCS_PER_SEGMENT; ++i) {
+          Document document = new Document();
+          // docs without vectors shift doc ids relative to vector ordinals
+          if (i % 4 != 0) {
+            document.add(
+                new KnnFloatVectorField(
+                    "vector",
+                    getVector(segment * DOCS_PER_SEGMENT + i),
+                    VectorSimilarityFunction.EUCLIDEAN));
+          }
+          writer.addDocument(document);
+        }
+        writer.flush();
+      }
+    }
+    reader = DirectoryReader.open(directory);
+  }
+
+  @AfterClass
+  public static void cleanUp() throws IOException {
+    reader.close();
+    directory.close();
+  }
+
+  private static float[] getVector(int doc) {
+    return new float[] {doc * 0.1f, 1.0f - doc * 0.05f};
+  }
+
+  private static float getSimilarity(int doc) {
+    return VectorSimilarityFunction.EUCLIDEAN.compare(QUERY_VECTOR, getVector(doc));
+  }
+
+  @Test
+  public void testRescore() throws IOException {
+    assertEquals(2, reader.leaves().size());
+    // candidates from both segments, with approximate scores in the wrong order
+    int[] candidateDocs = new int[] {17, 2, 13, 5, 9, 6, 3};
+    ScoreDoc[] scoreDocs = new ScoreDoc[candidateDocs.length];
+    for (int i = 0; i < candidateDocs.length; ++i) {
+      scoreDocs[i] = new ScoreDoc(candidateDocs[i], 1.0f / (i + 1));
+    }
+    TotalHits totalHits = new TotalHits(100, TotalHits.Relation.EQUAL_TO);
+    TopDocs rescored =
+        VectorRescorer.rescore(
+            reader, "vector", QUERY_VECTOR, new TopDocs(totalHits, scoreDocs), 4);
+
+    assertSame(totalHits, rescored.totalHits);
+    assertEquals(4, rescored.scoreDocs.length);
+    // the closest vectors have ids nearest to 10
+    int[] expectedDocs = new int[] {9, 13, 6, 5};
+    for (int i = 0; i < expectedDocs.length; ++i) {
+      assertEquals(expectedDocs[i], rescored.scoreDocs[i].doc);
+      assertEquals(getSimilarity(expectedDocs[i]), rescored.scoreDocs[i].score, 0);
+    }
+  }
+
+  @Test
+  public void testRescoreFewerThanK() throws IOException {
+    ScoreDoc[] scoreDocs = new ScoreDoc[] {new ScoreDoc(1, 0.5f), new ScoreDoc(15, 0.2f)};
+    TopDocs rescored =
+        VectorRescorer.rescore(
+            reader,
+            "vector",
+            QUERY_VECTOR,
+            new TopDocs(new TotalHits(2, TotalHits.Relation.EQUAL_TO), scoreDocs),
+            5);
+    assertEquals(2, rescored.scoreDocs.length);
+    assertEquals(15, rescored.scoreDocs[0].doc);
+    assertEquals(1, rescored.scoreDocs[1].doc);
+    assertTrue(rescored.scoreDocs[0].score > rescored.scoreDocs[1].score);
+  }
+
+  @Test
+  public void testRescoreNoCandidates() throws IOException {
+    TopDocs rescored =
+        VectorRescorer.rescore(
+            reader,
+            "vector",
+            QUERY_VECTOR,
+            new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]),
+            5);
+    assertEquals(0, rescored.scoreDocs.length);
+  }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.remote;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.yelp.nrtsearch.server.monitoring.BootstrapMetrics;
+import com.yelp.nrtsearch.server.remote.RangedFileDownloader.FileDownload;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RangedFileDownloaderTest {
+  private static final String INDEX_ID = "test_index-20250101000000000";
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void cleanUp() {
+    executor.shutdownNow();
+  }
+
+  /** Range source backed by in memory data, which records all requested ranges. */
+  private static class MemoryRangeSource implements RangedFileDownloader.RangeSource {
+    final Map<String, byte[]> data = new HashMap<>();
+    final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public InputStream open(String backendFileName, long start, long end) throws IOException {
+      requests.add(backendFileName + ":" + start + ":" + end);
+      byte[] bytes = data.get(backendFileName);
+      if (bytes == null) {
+        throw new FileNotFoundException("Not found: " + backendFileName);
+      }
+      if (end == -1) {
+        return new ByteArrayInputStream(bytes);
+      }
+      int length = (int) (Math.min(end, bytes.length) - start);
+      return new ByteArrayInputStream(bytes, (int) start, length);
+    }
+  }
+
+  private static byte[] randomBytes(int size) {
+    byte[] bytes = new byte[size];
+    new Random(size).nextBytes(bytes);
+    return bytes;
+  }
+
+  @Test
+  public void testDownloadFiles() throws IOException {
+    MemoryRangeSource source = new MemoryRangeSource();
+    source.data.put("b_small", randomBytes(10));
+    source.data.put("b_large", randomBytes(1000));
+    source.data.put("b_empty", new byte[0]);
+
+    Path indexDir = folder.newFolder("index").toPath();
+    new RangedFileDownloader(executor, 64)
+        .download(
+            INDEX_ID,
+            indexDir,
+            List.of(
+                new FileDownload("small", "b_small", 10),
+                new FileDownload("large", "b_large", 1000),
+                new FileDownload("empty", "b_empty", 0)),
+            source);
+
+    assertArrayEquals(source.data.get("b_small"), Files.readAllBytes(indexDir.resolve("small")));
+    assertArrayEquals(source.data.get("b_large"), Files.readAllBytes(indexDir.resolve("large")));
+    assertEquals(0, Files.size(indexDir.resolve("empty")));
+
+    // 1000 bytes in 64 byte ranges, plus 2 whole file requests
+    assertEquals(18, source.requests.size());
+    assertTrue(source.requests.contains("b_small:0:-1"));
+    assertTrue(source.requests.contains("b_empty:0:-1"));
+    assertTrue(source.requests.contains("b_large:0:64"));
+    assertTrue(source.requests.contains("b_large:960:1000"));
+    double progressBytes =
+        BootstrapMetrics.dataRestoreProgressBytes.labelValues("test_index", INDEX_ID).get();
+    assertEquals(1010, progressBytes, 0);
+  }
+
+  @Test
+  public void testOverwritesExistingFile() throws IOException {
+    MemoryRangeSource source = new MemoryRangeSource();
+    source.data.put("b_file", randomBytes(100));
+
+    Path indexDir = folder.newFolder("index").toPath();
+    Files.write(indexDir.resolve("file"), randomBytes(500));
+    new RangedFileDownloader(executor, 30)
+        .download(INDEX_ID, indexDir, List.of(new FileDownload("file", "b_file", 100)), source);
+    assertArrayEquals(source.data.get("b_file"), Files.readAllBytes(indexDir.resolve("file")));
+  }
+
+  @Test
+  public void testDownloadOrder() {
+    List<FileDownload> files =
+        Arrays.asList(
+            new FileDownload("_0.cfs", "b1", 5000),
+            new FileDownload("_0.fdt", "b2", 100),
+            new FileDownload("_0.si", "b3", 300),
+            new FileDownload("segments_5", "b4", 400),
+            new FileDownload("_1.fnm", "b5", 200),
+            new FileDownload("_1.doc", "b6", 50));
+    List<String> ordered =
+        RangedFileDownloader.getDownloadOrder(files).stream().map(FileDownload::fileName).toList();
+    assertEquals(List.of("_1.fnm", "_0.si", "segments_5", "_1.doc", "_0.fdt", "_0.cfs"), ordered);
+  }
+
+  @Test
+  public void testIsMetadataFile() {
+    assertTrue(RangedFileDownloader.isMetadataFile("segments_1"));
+    assertTrue(RangedFileDownloader.isMetadataFile("_3.si"));
+    assertTrue(RangedFileDownloader.isMetadataFile("_3.fnm"));
+    assertFalse(RangedFileDownloader.isMetadataFile("_3.cfs"));
+    assertFalse(RangedFileDownloader.isMetadataFile("_3_Lucene90_0.dvd"));
+  }
+
+  @Test
+  public void testMissingFile() throws IOException {
+    MemoryRangeSource source = new MemoryRangeSource();
+    source.data.put("b_file", randomBytes(100));
+
+    Path indexDir = folder.newFolder("index").toPath();
+    try {
+      new RangedFileDownloader(executor, 30)
+          .download(
+              INDEX_ID,
+              indexDir,
+              List.of(
+                  new FileDownload("file", "b_file", 100),
+                  new FileDownload("missing", "b_missing", 100)),
+              source);
+      fail();
+    } catch (IOException e) {
+      assertEquals("Error while downloading index files. ", e.getMessage());
+      assertTrue(e.getCause() instanceof FileNotFoundException);
+      assertEquals("Not found: b_missing", e.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testShortRange() throws IOException {
+    MemoryRangeSource source = new MemoryRangeSource();
+    source.data.put("b_file", randomBytes(90));
+
+    Path indexDir = folder.newFolder("index").toPath();
+    try {
+      new RangedFileDownloader(executor, 30)
+          .download(INDEX_ID, indexDir, List.of(new FileDownload("file", "b_file", 100)), source);
+      fail();
+    } catch (IOException e) {
+      assertEquals(
+          "Unexpected end of data for file: b_file, range: [90, 100), read to: 90",
+          e.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testWholeFileLengthMismatch() throws IOException {
+    MemoryRangeSource source = new MemoryRangeSource();
+    source.data.put("b_short", randomBytes(20));
+    source.data.put("b_long", randomBytes(40));
+
+    Path indexDir = folder.newFolder("index").toPath();
+    RangedFileDownloader downloader = new RangedFileDownloader(executor, 100);
+    try {
+      downloader.download(
+          INDEX_ID, indexDir, List.of(new FileDownload("short", "b_short", 30)), source);
+      fail();
+    } catch (IOException e) {
+      assertEquals(
+          "Unexpected end of data for file: b_short, range: [0, 30), read to: 20",
+          e.getCause().getMessage());
+    }
+    try {
+      downloader.download(
+          INDEX_ID, indexDir, List.of(new FileDownload("long", "b_long", 30)), source);
+      fail();
+    } catch (IOException e) {
+      assertEquals(
+          "Unexpected end of data for file: b_long, range: [0, 30), read to: 40",
+          e.getCause().getMessage());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRangeSize() {
+    new RangedFileDownloader(executor, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaxRangeAttempts() {
+    new RangedFileDownloader(executor, 10, 0, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRetryBackoff() {
+    new RangedFileDownloader(executor, 10, 1, -1);
+  }
+
+  /** Range source that fails reading the given range for a number of requests. */
+  private static class FailingRangeSource extends MemoryRangeSource {
+    final String failingRange;
+    int remainingFailures;
+
+    FailingRangeSource(String failingRange, int failures) {
+      this.failingRange = failingRange;
+      this.remainingFailures = failures;
+    }
+
+    @Override
+    public InputStream open(String backendFileName, long start, long end) throws IOException {
+      InputStream inputStream = super.open(backendFileName, start, end);
+      synchronized (this) {
+        if (!failingRange.equals(backendFileName + ":" + start + ":" + end)
+            || remainingFailures == 0) {
+          return inputStream;
+        }
+        remainingFailures--;
+      }
+      // fail after part of the range is written
+      return new SequenceInputStream(
+          new ByteArrayInputStream(inputStream.readNBytes(10)),
+          new InputStream() {
+            @Override
+            public int read() throws IOException {
+              throw new IOException("Connection reset");
+            }
+          });
+    }
+  }
+
+  @Test
+  public void testRangeFailsOnce() throws IOException {
+    FailingRangeSource source = new FailingRangeSource("b_large:64:128", 1);
+    source.data.put("b_large", randomBytes(1000));
+    source.data.put("b_small", randomBytes(20));
+
+    Path indexDir = folder.newFolder("index").toPath();
+    new RangedFileDownloader(executor, 64, 3, 1)
+        .download(
+            INDEX_ID,
+            indexDir,
+            List.of(
+                new FileDownload("large", "b_large", 1000),
+                new FileDownload("small", "b_small", 20)),
+            source);
+
+    assertArrayEquals(source.data.get("b_large"), Files.readAllBytes(indexDir.resolve("large")));
+    assertArrayEquals(source.data.get("b_small"), Files.readAllBytes(indexDir.resolve("small")));
+    // 16 ranges and 1 whole file request, plus the retried range
+    assertEquals(18, source.requests.size());
+    assertEquals(2, Collections.frequency(source.requests, "b_large:64:128"));
+    // bytes of the failed attempt are not counted
+    double progressBytes =
+        BootstrapMetrics.dataRestoreProgressBytes.labelValues("test_index", INDEX_ID).get();
+    assertEquals(1020, progressBytes, 0);
+  }
+
+  @Test
+  public void testWholeFileFailsOnce() throws IOException {
+    FailingRangeSource source = new FailingRangeSource("b_file:0:-1", 1);
+    source.data.put("b_file", randomBytes(50));
+
+    Path indexDir = folder.newFolder("index").toPath();
+    new RangedFileDownloader(executor, 64, 2, 0)
+        .download(INDEX_ID, indexDir, List.of(new FileDownload("file", "b_file", 50)), source);
+    assertArrayEquals(source.data.get("b_file"), Files.readAllBytes(indexDir.resolve("file")));
+    assertEquals(2, source.requests.size());
+  }
+
+  @Test
+  public void testRangeAttemptsExhausted() throws IOException {
+    FailingRangeSource source = new FailingRangeSource("b_large:64:128", 2);
+    source.data.put("b_large", randomBytes(200));
+
+    Path indexDir = folder.newFolder("index").toPath();
+    try {
+      new RangedFileDownloader(executor, 64, 2, 0)
+          .download(
+              INDEX_ID, indexDir, List.of(new FileDownload("large", "b_large", 200)), source);
+      fail();
+    } catch (IOException e) {
+      assertEquals("Error while downloading index files. ", e.getMessage());
+      assertEquals("Connection reset", e.getCause().getMessage());
+    }
+    assertEquals(2, Collections.frequency(source.requests, "b_large:64:128"));
+  }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.remote.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.yelp.nrtsearch.server.config.LocalBackendConfig;
+import com.yelp.nrtsearch.server.config.NrtsearchConfig;
+import com.yelp.nrtsearch.server.config.RemoteDownloadConfig;
+import com.yelp.nrtsearch.server.nrt.state.NrtFileMetaData;
+import com.yelp.nrtsearch.server.nrt.state.NrtPointState;
+import com.yelp.nrtsearch.server.remote.RemoteBackend.GlobalResourceType;
+import com.yelp.nrtsearch.server.remote.RemoteBackend.IndexResourceType;
+import com.yelp.nrtsearch.server.remote.RemoteUtils;
+import com.yelp.nrtsearch.server.remote.s3.S3Backend;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.lucene.replicator.nrt.CopyState;
+import org.apache.lucene.replicator.nrt.FileMetaData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocalBackendTest {
+  private static final String SERVICE = "test_service";
+  private static final String INDEX = "test_index";
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private Path rootDir;
+  private LocalBackend backend;
+
+  @Before
+  public void setup() throws IOException {
+    rootDir = folder.newFolder("backend").toPath();
+    backend = createBackend(false, RemoteDownloadConfig.DEFAULT_CONFIG);
+  }
+
+  @After
+  public void cleanup() {
+    backend.close();
+  }
+
+  private LocalBackend createBackend(boolean linkDownloads, RemoteDownloadConfig downloadConfig) {
+    return new LocalBackend(
+        new LocalBackendConfig(rootDir.toString(), linkDownloads), false, downloadConfig);
+  }
+
+  private NrtFileMetaData getFileMetaData(String data, String primaryId, String timeString) {
+    return new NrtFileMetaData(
+        data.getBytes(), new byte[] {1, 2}, data.length(), data.hashCode(), primaryId, timeString);
+  }
+
+  private Path getDataFile(String fileName, NrtFileMetaData fileMetaData) {
+    return rootDir
+        .resolve(S3Backend.getIndexDataPrefix(SERVICE, INDEX))
+        .resolve(S3Backend.getIndexBackendFileName(fileName, fileMetaData));
+  }
+
+  @Test
+  public void testFromConfig() throws IOException {
+    String configStr = "localBackend:\n  path: " + rootDir;
+    NrtsearchConfig config = new NrtsearchConfig(new ByteArrayInputStream(configStr.getBytes()));
+    LocalBackend configBackend = new LocalBackend(config);
+    try {
+      assertEquals(rootDir, configBackend.getRootDir());
+    } finally {
+      configBackend.close();
+    }
+  }
+
+  @Test
+  public void testPathNotSet() {
+    try {
+      new LocalBackend(
+          LocalBackendConfig.DEFAULT_CONFIG, false, RemoteDownloadConfig.DEFAULT_CONFIG);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("localBackend.path must be set", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testGlobalState() throws IOException {
+    assertFalse(backend.exists(SERVICE, GlobalResourceType.GLOBAL_STATE));
+    backend.uploadGlobalState(SERVICE, "state_1".getBytes());
+    assertTrue(backend.exists(SERVICE, GlobalResourceType.GLOBAL_STATE));
+    assertEquals("state_1", new String(backend.downloadGlobalState(SERVICE).readAllBytes()));
+
+    backend.uploadGlobalState(SERVICE, "state_2".getBytes());
+    assertEquals("state_2", new String(backend.downloadGlobalState(SERVICE).readAllBytes()));
+
+    String prefix = S3Backend.getGlobalStateResourcePrefix(SERVICE);
+    String currentName = backend.getCurrentResourceName(prefix);
+    assertEquals("state_2", Files.readString(rootDir.resolve(prefix).resolve(currentName)));
+  }
+
+  @Test
+  public void testGlobalStateNotFound() throws IOException {
+    try {
+      backend.downloadGlobalState(SERVICE);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().endsWith("not found"));
+    }
+  }
+
+  @Test
+  public void testIndexResources() throws IOException {
+    for (IndexResourceType type : IndexResourceType.values()) {
+      assertFalse(backend.exists(SERVICE, INDEX, type));
+    }
+    backend.uploadIndexState(SERVICE, INDEX, "index_state".getBytes());
+    backend.uploadWarmingQueries(SERVICE, INDEX, "warming".getBytes());
+    for (IndexResourceType type : IndexResourceType.values()) {
+      assertEquals(type != IndexResourceType.POINT_STATE, backend.exists(SERVICE, INDEX, type));
+    }
+    assertEquals(
+        "index_state", new String(backend.downloadIndexState(SERVICE, INDEX).readAllBytes()));
+    assertEquals(
+        "warming", new String(backend.downloadWarmingQueries(SERVICE, INDEX).readAllBytes()));
+  }
+
+  @Test
+  public void testPointState() throws IOException {
+    NrtPointState pointState = getPointState();
+    backend.uploadPointState(SERVICE, INDEX, pointState, RemoteUtils.pointStateToUtf8(pointState));
+    assertTrue(backend.exists(SERVICE, INDEX, IndexResourceType.POINT_STATE));
+
+    String prefix = S3Backend.getIndexResourcePrefix(SERVICE, INDEX, IndexResourceType.POINT_STATE);
+    assertEquals(
+        S3Backend.getPointStateFileName(pointState), backend.getCurrentResourceName(prefix));
+    NrtPointState downloaded =
+        RemoteUtils.pointStateFromUtf8(backend.downloadPointState(SERVICE, INDEX).readAllBytes());
+    assertEquals(pointState, downloaded);
+  }
+
+  @Test
+  public void testUploadIndexFiles() throws IOException {
+    Path indexDir = folder.newFolder("index_dir").toPath();
+    Files.writeString(indexDir.resolve("file1"), "file1_data");
+    Files.writeString(indexDir.resolve("file2"), "file2_data");
+    NrtFileMetaData fileMetaData1 = getFileMetaData("file1_data", "pid1", "time_string_1");
+    NrtFileMetaData fileMetaData2 = getFileMetaData("file2_data", "pid2", "time_string_2");
+
+    backend.uploadIndexFiles(
+        SERVICE, INDEX, indexDir, Map.of("file1", fileMetaData1, "file2", fileMetaData2));
+
+    Path dataFile1 = getDataFile("file1", fileMetaData1);
+    Path dataFile2 = getDataFile("file2", fileMetaData2);
+    assertEquals("file1_data", Files.readString(dataFile1));
+    assertEquals("file2_data", Files.readString(dataFile2));
+    Path blobDir = backend.getBlobDir(SERVICE);
+    assertTrue(
+        Files.isSameFile(dataFile1, blobDir.resolve(LocalBackend.getBlobName(fileMetaData1))));
+    assertTrue(
+        Files.isSameFile(dataFile2, blobDir.resolve(LocalBackend.getBlobName(fileMetaData2))));
+    try (Stream<Path> files = Files.list(blobDir)) {
+      assertEquals(2, files.count());
+    }
+  }
+
+  @Test
+  public void testUploadIndexFilesDedupe() throws IOException {
+    Path indexDir = folder.newFolder("index_dir").toPath();
+    Files.writeString(indexDir.resolve("file1"), "file1_data");
+    NrtFileMetaData fileMetaData1 = getFileMetaData("file1_data", "pid1", "time_string_1");
+    backend.uploadIndexFiles(SERVICE, INDEX, indexDir, Map.of("file1", fileMetaData1));
+
+    // same file uploaded by a different primary
+    NrtFileMetaData fileMetaData2 = getFileMetaData("file1_data", "pid2", "time_string_2");
+    backend.uploadIndexFiles(SERVICE, INDEX, indexDir, Map.of("file1", fileMetaData2));
+
+    Path dataFile1 = getDataFile("file1", fileMetaData1);
+    Path dataFile2 = getDataFile("file1", fileMetaData2);
+    assertNotEquals(dataFile1, dataFile2);
+    assertTrue(Files.isSameFile(dataFile1, dataFile2));
+    try (Stream<Path> files = Files.list(backend.getBlobDir(SERVICE))) {
+      assertEquals(1, files.count());
+    }
+
+    // re-upload of an existing backend file is skipped
+    Files.writeString(indexDir.resolve("file1"), "changed");
+    backend.uploadIndexFiles(SERVICE, INDEX, indexDir, Map.of("file1", fileMetaData1));
+    assertEquals("file1_data", Files.readString(dataFile1));
+  }
+
+  @Test
+  public void testUploadIndexFilesNotFound() throws IOException {
+    Path indexDir = folder.newFolder("index_dir").toPath();
+    Files.writeString(indexDir.resolve("file1"), "file1_data");
+    NrtFileMetaData fileMetaData1 = getFileMetaData("file1_data", "pid1", "time_string_1");
+    NrtFileMetaData fileMetaData2 = getFileMetaData("not_exist", "pid2", "time_string_2");
+    try {
+      backend.uploadIndexFiles(
+          SERVICE, INDEX, indexDir, Map.of("file1", fileMetaData1, "not_exist", fileMetaData2));
+      fail();
+    } catch (IOException e) {
+      assertEquals("Error while uploading index files. ", e.getMessage());
+      assertTrue(e.getCause().getMessage().contains("not_exist"));
+    }
+    try (Stream<Path> files = Files.list(backend.getBlobDir(SERVICE))) {
+      assertTrue(files.noneMatch(p -> p.toString().endsWith(LocalBackend.TEMP_SUFFIX)));
+    }
+  }
+
+  @Test
+  public void testDownloadIndexFiles() throws IOException {
+    LocalBackend rangedBackend = createBackend(false, new RemoteDownloadConfig(4, 3));
+    try {
+      Map<String, NrtFileMetaData> files = uploadFiles();
+      Path restoreDir = folder.newFolder("restore_dir").toPath();
+      rangedBackend.downloadIndexFiles(SERVICE, INDEX, restoreDir, files);
+
+      assertEquals("file1_ranged_data", Files.readString(restoreDir.resolve("file1")));
+      assertEquals("f2", Files.readString(restoreDir.resolve("file2")));
+      assertFalse(
+          Files.isSameFile(restoreDir.resolve("file1"), getDataFile("file1", files.get("file1"))));
+    } finally {
+      rangedBackend.close();
+    }
+  }
+
+  @Test
+  public void testDownloadIndexFilesLinked() throws IOException {
+    LocalBackend linkBackend = createBackend(true, RemoteDownloadConfig.DEFAULT_CONFIG);
+    try {
+      Map<String, NrtFileMetaData> files = uploadFiles();
+      Path restoreDir = folder.newFolder("restore_dir").toPath();
+      linkBackend.downloadIndexFiles(SERVICE, INDEX, restoreDir, files);
+
+      assertEquals("file1_ranged_data", Files.readString(restoreDir.resolve("file1")));
+      assertEquals("f2", Files.readString(restoreDir.resolve("file2")));
+      assertTrue(
+          Files.isSameFile(restoreDir.resolve("file1"), getDataFile("file1", files.get("file1"))));
+    } finally {
+      linkBackend.close();
+    }
+  }
+
+  @Test
+  public void testDownloadIndexFilesNotFound() throws IOException {
+    Map<String, NrtFileMetaData> files = uploadFiles();
+    Path restoreDir = folder.newFolder("restore_dir").toPath();
+    try {
+      backend.downloadIndexFiles(
+          SERVICE,
+          INDEX,
+          restoreDir,
+          Map.of(
+              "file1",
+              files.get("file1"),
+              "not_exist",
+              getFileMetaData("not_exist", "pid3", "time_string_3")));
+      fail();
+    } catch (IOException e) {
+      assertTrue(e.getCause().getMessage().contains("not found"));
+    }
+  }
+
+  private Map<String, NrtFileMetaData> uploadFiles() throws IOException {
+    Path indexDir = folder.newFolder("upload_dir").toPath();
+    Files.writeString(indexDir.resolve("file1"), "file1_ranged_data");
+    Files.writeString(indexDir.resolve("file2"), "f2");
+    Map<String, NrtFileMetaData> files =
+        Map.of(
+            "file1",
+            getFileMetaData("file1_ranged_data", "pid1", "time_string_1"),
+            "file2",
+            getFileMetaData("f2", "pid2", "time_string_2"));
+    backend.uploadIndexFiles(SERVICE, INDEX, indexDir, files);
+    return files;
+  }
+
+  @Test
+  public void testGetBlobName() {
+    NrtFileMetaData fileMetaData = getFileMetaData("data", "pid1", "time_string_1");
+    String blobName = LocalBackend.getBlobName(fileMetaData);
+    assertEquals(64, blobName.length());
+    assertEquals(blobName, LocalBackend.getBlobName(getFileMetaData("data", "pid2", "time_2")));
+    assertNotEquals(blobName, LocalBackend.getBlobName(getFileMetaData("atad", "pid1", "time_1")));
+  }
+
+  @Test
+  public void testDownloadPlugin() throws IOException {
+    try (OutputStream outputStream = Files.newOutputStream(rootDir.resolve("test_plugin.zip"));
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+      zipOutputStream.putNextEntry(new ZipEntry("test_plugin/plugin.txt"));
+      zipOutputStream.write("plugin_data".getBytes());
+      zipOutputStream.closeEntry();
+    }
+    Path destDir = folder.newFolder("plugins").toPath();
+    assertEquals("test_plugin", backend.downloadPluginIfNeeded("test_plugin.zip", destDir));
+    assertEquals(
+        "plugin_data", Files.readString(destDir.resolve("test_plugin").resolve("plugin.txt")));
+
+    assertEquals("other_plugin", backend.downloadPluginIfNeeded("other_plugin", destDir));
+    assertEquals("missing.zip", backend.downloadPluginIfNeeded("missing.zip", destDir));
+  }
+
+  private NrtPointState getPointState() {
+    FileMetaData fileMetaData =
+        new FileMetaData(new byte[] {6, 7, 8}, new byte[] {0, 10, 11}, 10, 25);
+    NrtFileMetaData nrtFileMetaData =
+        new NrtFileMetaData(
+            new byte[] {6, 7, 8}, new byte[] {0, 10, 11}, 10, 25, "primaryId2", "timeString");
+    CopyState copyState =
+        new CopyState(Map.of("file3", fileMetaData), 1, 3, new byte[] {1, 2, 3}, Set.of(), 5, null);
+    return new NrtPointState(copyState, Map.of("file3", nrtFileMetaData), "primaryId");
+  }
+}
@@ -28,6 +28,7 @@ import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.UploadPartRequest;
 import com.amazonaws.services.s3.model.UploadPartResult;
 import com.yelp.nrtsearch.server.config.NrtsearchConfig;
+import com.yelp.nrtsearch.server.config.RemoteDownloadConfig;
 import com.yelp.nrtsearch.server.nrt.state.NrtFileMetaData;
 import com.yelp.nrtsearch.server.nrt.state.NrtPointState;
 import com.yelp.nrtsearch.server.remote.RemoteBackend;
@@ -703,10 +704,39 @@ public class S3BackendTest {
               "file1", fileMetaData1, "not_exist", fileMetaDataNotExist, "file2", fileMetaData2));
       fail();
     } catch (IOException e) {
-      assertTrue(e.getCause().getMessage().contains("Not Found"));
+      assertTrue(e.getCause().getMessage().contains("not found"));
     }
   }
 
+  @Test
+  public void testDownloadIndexFiles_ranged() throws IOException {
+    File indexDir = folder.newFolder("index_dir");
+    S3Backend rangedBackend =
+        new S3Backend(BUCKET_NAME, false, new RemoteDownloadConfig(4, 3), s3);
+
+    String data1 = "file1_ranged_data";
+    String data2 = "f2";
+    NrtFileMetaData fileMetaData1 =
+        new NrtFileMetaData(new byte[0], new byte[0], data1.length(), 0, "pid1", "time_string_1");
+    NrtFileMetaData fileMetaData2 =
+        new NrtFileMetaData(new byte[0], new byte[0], data2.length(), 0, "pid2", "time_string_2");
+
+    String keyPrefix = S3Backend.getIndexDataPrefix("download_ranged_service", "download_index");
+    s3.putObject(
+        BUCKET_NAME, keyPrefix + S3Backend.getIndexBackendFileName("file1", fileMetaData1), data1);
+    s3.putObject(
+        BUCKET_NAME, keyPrefix + S3Backend.getIndexBackendFileName("file2", fileMetaData2), data2);
+
+    rangedBackend.downloadIndexFiles(
+        "download_ranged_service",
+        "download_index",
+        indexDir.toPath(),
+        Map.of("file1", fileMetaData1, "file2", fileMetaData2));
+
+    assertEquals(data1, Files.readString(indexDir.toPath().resolve("file1")));
+    assertEquals(data2, Files.readString(indexDir.toPath().resolve("file2")));
+  }
+
   @Test
   public void testGetIndexBackendFileName() {
     NrtFileMetaData fileMetaData =
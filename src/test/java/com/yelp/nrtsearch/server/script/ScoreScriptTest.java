@@ -172,6 +172,8 @@ public class ScoreScriptTest {
           return new TestParamsScript(params, docLookup, ctx, scores);
         case "verify_vector_type_doc_values":
           return new VerifyVectorTypeScript(params, docLookup, ctx, scores);
+        case "verify_slot_doc_values":
+          return new VerifySlotDocValuesScript(params, docLookup, ctx, scores);
       }
       throw new IllegalArgumentException("Unknown script id: " + scriptId);
     }
@@ -605,6 +607,90 @@ public class ScoreScriptTest {
     }
   }
 
+  static class VerifySlotDocValuesScript extends ScoreScript {
+    private final int idSlot;
+    private final int licenseNoSlot;
+    private final int countSlot;
+    private final int longFieldSlot;
+    private final int floatFieldMultiSlot;
+    private final int doubleFieldSlot;
+
+    public VerifySlotDocValuesScript(
+        Map<String, Object> params,
+        DocLookup docLookup,
+        LeafReaderContext context,
+        DoubleValues scores) {
+      super(params, docLookup, context, scores);
+      idSlot = getFieldSlot("doc_id");
+      licenseNoSlot = getFieldSlot("license_no");
+      countSlot = getFieldSlot("count");
+      longFieldSlot = getFieldSlot("long_field");
+      floatFieldMultiSlot = getFieldSlot("float_field_multi");
+      doubleFieldSlot = getFieldSlot("double_field");
+    }
+
+    @Override
+    public double execute() {
+      try {
+        assertEquals("slot reused", idSlot, getFieldSlot("doc_id"));
+        String id = ((LoadedDocValues.SingleString) getDocValues(idSlot)).get(0);
+        assertEquals("same doc values", getDoc().get("doc_id"), getDocValues(idSlot));
+
+        LoadedDocValues.IntValues licenseNo = getIntValues(licenseNoSlot);
+        LoadedDocValues.IntValues count = getIntValues(countSlot);
+        LoadedDocValues.LongValues longField = getLongValues(longFieldSlot);
+        LoadedDocValues.FloatValues floatFieldMulti = getFloatValues(floatFieldMultiSlot);
+        LoadedDocValues.DoubleValues doubleField = getDoubleValues(doubleFieldSlot);
+        assertEquals("license_no size", 2, licenseNo.size());
+        assertEquals("float_field_multi size", 2, floatFieldMulti.size());
+        if (id.equals("1")) {
+          assertEquals(300, licenseNo.getInt(0));
+          assertEquals(3100, licenseNo.getInt(1));
+          assertEquals(3, count.getInt(0));
+          assertEquals(12L, longField.getLong(0));
+          assertEquals(100.1F, floatFieldMulti.getFloat(0), 0);
+          assertEquals(100.11F, floatFieldMulti.getFloat(1), 0);
+          assertEquals(1.01, doubleField.getDouble(0), 0);
+        } else if (id.equals("2")) {
+          assertEquals(411, licenseNo.getInt(0));
+          assertEquals(4222, licenseNo.getInt(1));
+          assertEquals(7, count.getInt(0));
+          assertEquals(16L, longField.getLong(0));
+          assertEquals(200.2F, floatFieldMulti.getFloat(0), 0);
+          assertEquals(200.22F, floatFieldMulti.getFloat(1), 0);
+          assertEquals(2.01, doubleField.getDouble(0), 0);
+        } else {
+          fail(String.format("docId %s not indexed", id));
+        }
+
+        // integer values can be widened
+        assertEquals(count.getInt(0), getLongValues(countSlot).getLong(0));
+        assertEquals(count.getInt(0), getDoubleValues(countSlot).getDouble(0), 0);
+        try {
+          getIntValues(longFieldSlot);
+          fail("long field as int values");
+        } catch (IllegalArgumentException e) {
+          assertEquals("Field does not have int doc values: long_field", e.getMessage());
+        }
+        try {
+          getLongValues(idSlot);
+          fail("string field as long values");
+        } catch (IllegalArgumentException e) {
+          assertEquals("Field does not have long doc values: doc_id", e.getMessage());
+        }
+        try {
+          getFieldSlot("not_field");
+          fail("Invalid field");
+        } catch (IllegalArgumentException e) {
+          assertEquals("Field does not exist: not_field", e.getMessage());
+        }
+      } catch (Error e) {
+        throw new RuntimeException(e.getMessage(), e.getCause());
+      }
+      return 4.5;
+    }
+  }
+
   static class TestNoParamsScript extends ScoreScript {
     public TestNoParamsScript(
         Map<String, Object> params,
@@ -788,6 +874,11 @@ public class ScoreScriptTest {
         "verify_empty_lat_lon_values", "registerFieldsLatLon.json", "addDocsEmpty.csv", 2.5);
   }
 
+  @Test
+  public void testSlotDocValues() throws Exception {
+    testQueryFieldScript("verify_slot_doc_values", "registerFieldsBasic.json", "addDocs.csv", 4.5);
+  }
+
   @Test
   public void testDocValuesExceptions() throws Exception {
     testQueryFieldScript("doc_values_errors", "registerFieldsBasic.json", "addDocs.csv", 3.5);
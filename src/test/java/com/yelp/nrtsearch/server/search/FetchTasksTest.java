@@ -16,6 +16,13 @@
 package com.yelp.nrtsearch.server.search;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.yelp.nrtsearch.server.ServerTestCase;
 import com.yelp.nrtsearch.server.config.NrtsearchConfig;
@@ -31,15 +38,24 @@ import com.yelp.nrtsearch.server.grpc.RangeQuery;
 import com.yelp.nrtsearch.server.grpc.Script;
 import com.yelp.nrtsearch.server.grpc.SearchRequest;
 import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.highlights.HighlightFetchTask;
+import com.yelp.nrtsearch.server.innerhit.InnerHitContext;
+import com.yelp.nrtsearch.server.innerhit.InnerHitFetchTask;
 import com.yelp.nrtsearch.server.plugins.FetchTaskPlugin;
 import com.yelp.nrtsearch.server.plugins.Plugin;
 import io.grpc.testing.GrpcCleanupRule;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import org.apache.lucene.index.LeafReaderContext;
 import org.junit.ClassRule;
@@ -93,6 +109,7 @@ public class FetchTasksTest extends ServerTestCase {
       Map<String, FetchTaskProvider<? extends FetchTasks.FetchTask>> taskMap = new HashMap<>();
       taskMap.put("all_hits_task", new TestAllHitsProvider());
       taskMap.put("hits_task", new TestHitsProvider());
+      taskMap.put("serial_task", new TestSerialProvider());
       return taskMap;
     }
 
@@ -144,6 +161,32 @@ public class FetchTasksTest extends ServerTestCase {
                 .build());
       }
     }
+
+    public static class TestSerialProvider implements FetchTaskProvider<TestSerialTask> {
+      @Override
+      public TestSerialTask get(Map<String, Object> params) {
+        return new TestSerialTask();
+      }
+    }
+
+    public static class TestSerialTask implements FetchTasks.FetchTask {
+      static final AtomicInteger active = new AtomicInteger();
+      static final AtomicInteger maxActive = new AtomicInteger();
+
+      @Override
+      public void processHit(
+          SearchContext searchContext, LeafReaderContext hitLeaf, SearchResponse.Hit.Builder hit)
+          throws IOException {
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        } finally {
+          active.decrementAndGet();
+        }
+      }
+    }
   }
 
   @Test
@@ -199,6 +242,129 @@ public class FetchTasksTest extends ServerTestCase {
     }
   }
 
+  @Test
+  public void testFetchTasksTimeMs() {
+    FetchTask grpcFetchTask1 = FetchTask.newBuilder().setName("all_hits_task").build();
+    FetchTask grpcFetchTask2 = FetchTask.newBuilder().setName("hits_task").build();
+    SearchResponse response = doQuery(Arrays.asList(grpcFetchTask1, grpcFetchTask2));
+    Map<String, Double> timeMs = response.getDiagnostics().getFetchTasksTimeMsMap();
+    assertEquals(2, timeMs.size());
+    assertTrue(timeMs.get("all_hits_task") > 0);
+    assertTrue(timeMs.get("hits_task") > 0);
+  }
+
+  @Test
+  public void testNotThreadSafeTaskSerialized() throws Exception {
+    FetchTasks fetchTasks =
+        new FetchTasks(List.of(FetchTask.newBuilder().setName("serial_task").build()));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; ++i) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int j = 0; j < 10; ++j) {
+                    fetchTasks.processHit(null, null, SearchResponse.Hit.newBuilder());
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    assertEquals(1, TestFetchTaskPlugin.TestSerialTask.maxActive.get());
+    assertTrue(fetchTasks.getFetchTasksTimeMs().get("serial_task") >= 40);
+  }
+
+  @Test
+  public void testHighlightAndInnerHitTasksTimed() throws Exception {
+    HighlightFetchTask highlightFetchTask = mock(HighlightFetchTask.class);
+    when(highlightFetchTask.isThreadSafe()).thenReturn(true);
+    InnerHitFetchTask hitInnerHitTask = mockInnerHitTask("per_hit", false);
+    InnerHitFetchTask batchInnerHitTask = mockInnerHitTask("batch", true);
+    FetchTasks fetchTasks =
+        new FetchTasks(
+            List.of(), highlightFetchTask, List.of(hitInnerHitTask, batchInnerHitTask), null);
+    assertTrue(fetchTasks.hasHitTasks());
+
+    List<SearchResponse.Hit.Builder> hits =
+        List.of(SearchResponse.Hit.newBuilder(), SearchResponse.Hit.newBuilder());
+    for (SearchResponse.Hit.Builder hit : hits) {
+      fetchTasks.processHit(null, null, hit);
+    }
+    fetchTasks.processAllHits(null, hits);
+
+    verify(highlightFetchTask, times(2)).processHit(any(), any(), any());
+    verify(hitInnerHitTask, times(2)).processHit(any(), any(), any());
+    verify(hitInnerHitTask, times(0)).processAllHits(any(), any());
+    verify(batchInnerHitTask, times(0)).processHit(any(), any(), any());
+    verify(batchInnerHitTask, times(1)).processAllHits(any(), any());
+
+    Map<String, Double> timeMs = fetchTasks.getFetchTasksTimeMs();
+    assertEquals(
+        List.of(
+            FetchTasks.HIGHLIGHT_TASK_NAME,
+            FetchTasks.INNER_HIT_TASK_PREFIX + "batch",
+            FetchTasks.INNER_HIT_TASK_PREFIX + "per_hit"),
+        new ArrayList<>(timeMs.keySet()));
+  }
+
+  @Test
+  public void testNotThreadSafeHighlightSerialized() throws Exception {
+    HighlightFetchTask highlightFetchTask = mock(HighlightFetchTask.class);
+    when(highlightFetchTask.isThreadSafe()).thenReturn(false);
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger maxActive = new AtomicInteger();
+    doAnswer(
+            invocation -> {
+              maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+              Thread.sleep(1);
+              active.decrementAndGet();
+              return null;
+            })
+        .when(highlightFetchTask)
+        .processHit(any(), any(), any());
+    FetchTasks fetchTasks = new FetchTasks(List.of(), highlightFetchTask, null, null);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; ++i) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int j = 0; j < 10; ++j) {
+                    fetchTasks.processHit(null, null, SearchResponse.Hit.newBuilder());
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    assertEquals(1, maxActive.get());
+    verify(highlightFetchTask, times(40)).processHit(any(), any(), any());
+    assertTrue(fetchTasks.getFetchTasksTimeMs().get(FetchTasks.HIGHLIGHT_TASK_NAME) >= 40);
+  }
+
+  private static InnerHitFetchTask mockInnerHitTask(String name, boolean batchFetch) {
+    InnerHitContext innerHitContext = mock(InnerHitContext.class);
+    when(innerHitContext.getInnerHitName()).thenReturn(name);
+    when(innerHitContext.isBatchFetch()).thenReturn(batchFetch);
+    InnerHitFetchTask innerHitFetchTask = mock(InnerHitFetchTask.class);
+    when(innerHitFetchTask.getInnerHitContext()).thenReturn(innerHitContext);
+    when(innerHitFetchTask.isThreadSafe()).thenReturn(true);
+    return innerHitFetchTask;
+  }
+
   private void assertBaseHit(SearchResponse response) {
     assertEquals(NUM_DOCS, response.getHitsCount());
     for (int i = 0; i < response.getHitsCount(); ++i) {
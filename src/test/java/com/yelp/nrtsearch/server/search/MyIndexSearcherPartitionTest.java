@@ -0,0 +1,291 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.protobuf.Int32Value;
+import com.yelp.nrtsearch.server.ServerTestCase;
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest;
+import com.yelp.nrtsearch.server.grpc.BucketResult;
+import com.yelp.nrtsearch.server.grpc.Collector;
+import com.yelp.nrtsearch.server.grpc.FieldDefRequest;
+import com.yelp.nrtsearch.server.grpc.HitsResult;
+import com.yelp.nrtsearch.server.grpc.IndexLiveSettings;
+import com.yelp.nrtsearch.server.grpc.Query;
+import com.yelp.nrtsearch.server.grpc.QuerySortField;
+import com.yelp.nrtsearch.server.grpc.RangeQuery;
+import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.grpc.SortFields;
+import com.yelp.nrtsearch.server.grpc.SortType;
+import com.yelp.nrtsearch.server.grpc.TermsCollector;
+import com.yelp.nrtsearch.server.grpc.TopHitsCollector;
+import com.yelp.nrtsearch.server.index.ShardState;
+import io.grpc.testing.GrpcCleanupRule;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager.SearcherAndTaxonomy;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher.LeafSlice;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class MyIndexSearcherPartitionTest extends ServerTestCase {
+
+  @ClassRule public static final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+  @Override
+  public FieldDefRequest getIndexDef(String name) throws IOException {
+    return getFieldsFromResourceFile("/search/VirtualShardsRegisterFields.json");
+  }
+
+  @Override
+  public void initIndex(String name) throws Exception {
+    IndexWriter writer = getGlobalState().getIndexOrThrow(name).getShard(0).writer;
+    // don't want any merges for these tests
+    writer.getConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+  }
+
+  @Before
+  public void clearIndex() throws Exception {
+    IndexWriter writer = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX).getShard(0).writer;
+    writer.deleteAll();
+  }
+
+  @Test
+  public void testNoPartitioning() throws Exception {
+    setLiveSettings(0, 10000, 100);
+    addSegments(List.of(100));
+    assertSlices(List.of(100), List.of(1));
+  }
+
+  @Test
+  public void testPartitionSegment() throws Exception {
+    setLiveSettings(30, 10000, 100);
+    addSegments(List.of(100));
+    assertSlices(List.of(25, 25, 25, 25), List.of(1, 1, 1, 1));
+  }
+
+  @Test
+  public void testUnevenPartitions() throws Exception {
+    setLiveSettings(40, 10000, 100);
+    addSegments(List.of(100));
+    assertSlices(List.of(33, 33, 34), List.of(1, 1, 1));
+  }
+
+  @Test
+  public void testPartitionLargeSegmentsOnly() throws Exception {
+    setLiveSettings(30, 10000, 100);
+    addSegments(Arrays.asList(10, 100, 10, 30));
+    assertSlices(List.of(25, 25, 25, 25, 50), List.of(1, 1, 1, 1, 3));
+  }
+
+  @Test
+  public void testPartitionsCoverSegment() throws Exception {
+    setLiveSettings(7, 10000, 100);
+    addSegments(List.of(100));
+    SearcherAndTaxonomy s = null;
+    ShardState shardState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX).getShard(0);
+    try {
+      s = shardState.acquire();
+      LeafSlice[] slices = s.searcher().getSlices();
+      assertEquals(15, slices.length);
+      int nextMinDoc = 0;
+      for (LeafSlice slice : slices) {
+        assertEquals(1, slice.partitions.length);
+        assertEquals(nextMinDoc, slice.partitions[0].minDocId);
+        assertTrue(slice.partitions[0].maxDocId - slice.partitions[0].minDocId <= 7);
+        nextMinDoc = slice.partitions[0].maxDocId;
+      }
+      assertEquals(100, nextMinDoc);
+    } finally {
+      if (s != null) {
+        shardState.release(s);
+      }
+    }
+  }
+
+  @Test
+  public void testHasPartitionParams() throws Exception {
+    setLiveSettings(1234, 10000, 100);
+    addSegments(List.of(10));
+    SearcherAndTaxonomy s = null;
+    ShardState shardState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX).getShard(0);
+    try {
+      s = shardState.acquire();
+      MyIndexSearcher searcher = (MyIndexSearcher) s.searcher();
+      assertEquals(1234, searcher.getSlicingParams().slicePartitionMaxDocs());
+    } finally {
+      if (s != null) {
+        shardState.release(s);
+      }
+    }
+  }
+
+  @Test
+  public void testHitCount() throws Exception {
+    setLiveSettings(7, 10000, 100);
+    addSegments(List.of(100));
+    SearchResponse response =
+        getGrpcServer()
+            .getBlockingStub()
+            .search(
+                SearchRequest.newBuilder()
+                    .setIndexName(DEFAULT_TEST_INDEX)
+                    .setTopHits(0)
+                    .setQuery(rangeQuery(10, 79))
+                    .build());
+    assertEquals(70, response.getTotalHits().getValue());
+  }
+
+  @Test
+  public void testCollectors() throws Exception {
+    setLiveSettings(7, 10000, 100);
+    addSegments(List.of(100));
+    SearchResponse response =
+        getGrpcServer()
+            .getBlockingStub()
+            .search(
+                SearchRequest.newBuilder()
+                    .setIndexName(DEFAULT_TEST_INDEX)
+                    .setTopHits(0)
+                    .setQuery(rangeQuery(10, 79))
+                    .putCollectors(
+                        "terms",
+                        Collector.newBuilder()
+                            .setTerms(TermsCollector.newBuilder().setField("int_field").setSize(100))
+                            .build())
+                    .putCollectors(
+                        "top_hits",
+                        Collector.newBuilder()
+                            .setTopHitsCollector(
+                                TopHitsCollector.newBuilder()
+                                    .setTopHits(3)
+                                    .setQuerySort(
+                                        QuerySortField.newBuilder()
+                                            .setFields(
+                                                SortFields.newBuilder()
+                                                    .addSortedFields(
+                                                        SortType.newBuilder()
+                                                            .setFieldName("int_field")
+                                                            .setReverse(true))))
+                                    .addRetrieveFields("doc_id"))
+                            .build())
+                    .build());
+    assertEquals(70, response.getTotalHits().getValue());
+
+    BucketResult bucketResult = response.getCollectorResultsOrThrow("terms").getBucketResult();
+    assertEquals(70, bucketResult.getTotalBuckets());
+    assertEquals(70, bucketResult.getBucketsCount());
+    for (BucketResult.Bucket bucket : bucketResult.getBucketsList()) {
+      assertEquals(1, bucket.getCount());
+    }
+
+    HitsResult hitsResult = response.getCollectorResultsOrThrow("top_hits").getHitsResult();
+    assertEquals(70, hitsResult.getTotalHits().getValue());
+    assertEquals(3, hitsResult.getHitsCount());
+    List<String> ids = new ArrayList<>();
+    for (SearchResponse.Hit hit : hitsResult.getHitsList()) {
+      ids.add(hit.getFieldsOrThrow("doc_id").getFieldValue(0).getTextValue());
+    }
+    assertEquals(List.of("79", "78", "77"), ids);
+  }
+
+  private Query rangeQuery(int lower, int upper) {
+    return Query.newBuilder()
+        .setRangeQuery(
+            RangeQuery.newBuilder()
+                .setField("int_field")
+                .setLower(String.valueOf(lower))
+                .setUpper(String.valueOf(upper)))
+        .build();
+  }
+
+  private void setLiveSettings(int partitionMaxDocs, int maxDocs, int maxSegments)
+      throws IOException {
+    getGlobalState()
+        .getIndexStateManagerOrThrow(DEFAULT_TEST_INDEX)
+        .updateLiveSettings(
+            IndexLiveSettings.newBuilder()
+                .setSlicePartitionMaxDocs(
+                    Int32Value.newBuilder().setValue(partitionMaxDocs).build())
+                .setSliceMaxDocs(Int32Value.newBuilder().setValue(maxDocs).build())
+                .setSliceMaxSegments(Int32Value.newBuilder().setValue(maxSegments).build())
+                .build(),
+            false);
+  }
+
+  private void addSegments(Iterable<Integer> sizes) throws Exception {
+    IndexWriter writer = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX).getShard(0).writer;
+
+    int currentVal = 0;
+    for (Integer size : sizes) {
+      List<AddDocumentRequest> requestChunk = new ArrayList<>();
+      for (int i = 0; i < size; ++i) {
+        requestChunk.add(
+            AddDocumentRequest.newBuilder()
+                .setIndexName(DEFAULT_TEST_INDEX)
+                .putFields(
+                    "doc_id",
+                    AddDocumentRequest.MultiValuedField.newBuilder()
+                        .addValue(String.valueOf(currentVal))
+                        .build())
+                .putFields(
+                    "int_score",
+                    AddDocumentRequest.MultiValuedField.newBuilder()
+                        .addValue(String.valueOf(currentVal))
+                        .build())
+                .putFields(
+                    "int_field",
+                    AddDocumentRequest.MultiValuedField.newBuilder()
+                        .addValue(String.valueOf(currentVal))
+                        .build())
+                .build());
+        currentVal++;
+      }
+      addDocuments(requestChunk.stream());
+      writer.commit();
+    }
+    getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX).getShard(0).maybeRefreshBlocking();
+  }
+
+  private void assertSlices(List<Integer> docCounts, List<Integer> segmentCounts)
+      throws IOException {
+    assertEquals(docCounts.size(), segmentCounts.size());
+
+    SearcherAndTaxonomy s = null;
+    ShardState shardState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX).getShard(0);
+    try {
+      s = shardState.acquire();
+      LeafSlice[] slices = s.searcher().getSlices();
+      assertEquals(docCounts.size(), slices.length);
+      for (int i = 0; i < docCounts.size(); ++i) {
+        assertEquals(segmentCounts.get(i), Integer.valueOf(slices[i].partitions.length));
+        assertEquals(docCounts.get(i), Integer.valueOf(slices[i].getMaxDocs()));
+      }
+    } finally {
+      if (s != null) {
+        shardState.release(s);
+      }
+    }
+  }
+}
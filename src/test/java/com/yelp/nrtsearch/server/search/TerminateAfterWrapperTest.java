@@ -24,8 +24,11 @@ import com.yelp.nrtsearch.server.ServerTestCase;
 import com.yelp.nrtsearch.server.grpc.AddDocumentRequest;
 import com.yelp.nrtsearch.server.grpc.FieldDefRequest;
 import com.yelp.nrtsearch.server.grpc.IndexLiveSettings;
+import com.yelp.nrtsearch.server.grpc.QuerySortField;
 import com.yelp.nrtsearch.server.grpc.SearchRequest;
 import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.grpc.SortFields;
+import com.yelp.nrtsearch.server.grpc.SortType;
 import com.yelp.nrtsearch.server.index.IndexState;
 import io.grpc.testing.GrpcCleanupRule;
 import java.io.IOException;
@@ -182,6 +185,32 @@ public class TerminateAfterWrapperTest extends ServerTestCase {
     assertTrue(response.getTerminatedEarly());
   }
 
+  @Test
+  public void testSortedCountsAllDocs() {
+    // non-competitive documents must still be counted toward the recall count
+    SearchResponse response =
+        getGrpcServer()
+            .getBlockingStub()
+            .search(
+                SearchRequest.newBuilder()
+                    .setIndexName(DEFAULT_TEST_INDEX)
+                    .addRetrieveFields("doc_id")
+                    .setTerminateAfter(5)
+                    .setTerminateAfterMaxRecallCount(50)
+                    .setQuerySort(
+                        QuerySortField.newBuilder()
+                            .setFields(
+                                SortFields.newBuilder()
+                                    .addSortedFields(
+                                        SortType.newBuilder().setFieldName("int_field"))))
+                    .setStartHit(0)
+                    .setTopHits(5)
+                    .build());
+    assertEquals(5, response.getHitsCount());
+    assertEquals(50, response.getTotalHits().getValue());
+    assertTrue(response.getTerminatedEarly());
+  }
+
   private void setDefaultTerminateAfter(int defaultTerminateAfter) throws IOException {
     getGlobalState()
         .getIndexStateManagerOrThrow(DEFAULT_TEST_INDEX)
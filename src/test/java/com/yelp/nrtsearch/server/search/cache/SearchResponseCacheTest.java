@@ -0,0 +1,396 @@
+/*
+ * Copyright 2025 Yelp Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yelp.nrtsearch.server.search.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.google.protobuf.Int32Value;
+import com.yelp.nrtsearch.server.ServerTestCase;
+import com.yelp.nrtsearch.server.grpc.AddDocumentRequest;
+import com.yelp.nrtsearch.server.grpc.Facet;
+import com.yelp.nrtsearch.server.grpc.FieldDefRequest;
+import com.yelp.nrtsearch.server.grpc.IndexLiveSettings;
+import com.yelp.nrtsearch.server.grpc.LiveSettingsV2Request;
+import com.yelp.nrtsearch.server.grpc.LoggingHits;
+import com.yelp.nrtsearch.server.grpc.Query;
+import com.yelp.nrtsearch.server.grpc.RangeQuery;
+import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import com.yelp.nrtsearch.server.grpc.SearchResponse;
+import com.yelp.nrtsearch.server.index.IndexState;
+import com.yelp.nrtsearch.server.monitoring.QueryCacheCollector;
+import com.yelp.nrtsearch.server.warming.Warmer;
+import io.grpc.testing.GrpcCleanupRule;
+import io.prometheus.metrics.model.snapshots.GaugeSnapshot;
+import io.prometheus.metrics.model.snapshots.MetricSnapshot;
+import io.prometheus.metrics.model.snapshots.MetricSnapshots;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.facet.taxonomy.TaxonomyReader;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class SearchResponseCacheTest extends ServerTestCase {
+  @ClassRule public static final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+  private int nextDocId = 0;
+
+  @Override
+  public FieldDefRequest getIndexDef(String name) throws IOException {
+    return getFieldsFromResourceFile("/search/VirtualShardsRegisterFields.json");
+  }
+
+  @Override
+  protected String getExtraConfig() {
+    return String.join(
+        "\n", "searchResponseCache:", "  enabled: true", "warmer:", "  maxWarmingQueries: 1000");
+  }
+
+  @Override
+  public void initIndex(String name) throws Exception {
+    addDocs(100);
+  }
+
+  @Before
+  public void clearCache() {
+    getResponseCache().invalidateAll();
+  }
+
+  private SearchResponseCache getResponseCache() {
+    try {
+      return getGlobalState()
+          .getIndexOrThrow(DEFAULT_TEST_INDEX)
+          .getShard(0)
+          .getSearchResponseCache();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void addDocs(int count) throws Exception {
+    List<AddDocumentRequest> requests = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      AddDocumentRequest.MultiValuedField value =
+          AddDocumentRequest.MultiValuedField.newBuilder()
+              .addValue(String.valueOf(nextDocId++))
+              .build();
+      requests.add(
+          AddDocumentRequest.newBuilder()
+              .setIndexName(DEFAULT_TEST_INDEX)
+              .putFields("doc_id", value)
+              .putFields("int_score", value)
+              .putFields("int_field", value)
+              .build());
+    }
+    addDocuments(requests.stream());
+  }
+
+  private SearchRequest.Builder getRequestBuilder() {
+    return SearchRequest.newBuilder()
+        .setIndexName(DEFAULT_TEST_INDEX)
+        .setTopHits(5)
+        .addRetrieveFields("doc_id")
+        .setQuery(
+            Query.newBuilder()
+                .setRangeQuery(
+                    RangeQuery.newBuilder().setField("int_field").setLower("0").setUpper("1000")));
+  }
+
+  private SearchResponse search(SearchRequest request) {
+    return getGrpcServer().getBlockingStub().search(request);
+  }
+
+  @Test
+  public void testCacheHit() {
+    SearchResponseCache cache = getResponseCache();
+    long hits = cache.getHitCount();
+    long misses = cache.getMissCount();
+
+    SearchResponse first = search(getRequestBuilder().build());
+    assertEquals(hits, cache.getHitCount());
+    assertEquals(misses + 1, cache.getMissCount());
+    assertEquals(1, cache.getCacheSize());
+
+    SearchResponse second = search(getRequestBuilder().build());
+    assertEquals(hits + 1, cache.getHitCount());
+    assertEquals(misses + 1, cache.getMissCount());
+    assertEquals(1, cache.getCacheSize());
+
+    assertEquals(first.getTotalHits(), second.getTotalHits());
+    assertEquals(first.getHitsList(), second.getHitsList());
+    assertEquals(
+        first.getSearchState().getSearcherVersion(), second.getSearchState().getSearcherVersion());
+    assertEquals(first.getSearchState().getLastDocId(), second.getSearchState().getLastDocId());
+    assertTrue(second.getSearchState().getTimestamp() >= first.getSearchState().getTimestamp());
+    // cached response has diagnostics for the current request
+    assertEquals(0, second.getDiagnostics().getFirstPassSearchTimeMs(), 0);
+  }
+
+  @Test
+  public void testNormalizedRequest() {
+    SearchResponseCache cache = getResponseCache();
+    long hits = cache.getHitCount();
+
+    search(getRequestBuilder().build());
+    search(getRequestBuilder().setTimeoutSec(10).setTimeoutCheckEvery(100).build());
+    search(getRequestBuilder().setResponseCompression("gzip").build());
+    assertEquals(hits + 2, cache.getHitCount());
+    assertEquals(1, cache.getCacheSize());
+
+    // different request content is a different entry
+    search(getRequestBuilder().setTopHits(6).build());
+    assertEquals(hits + 2, cache.getHitCount());
+    assertEquals(2, cache.getCacheSize());
+  }
+
+  @Test
+  public void testProfileNotCached() {
+    SearchResponseCache cache = getResponseCache();
+    long hits = cache.getHitCount();
+    long misses = cache.getMissCount();
+
+    SearchResponse response = search(getRequestBuilder().setProfile(true).build());
+    assertTrue(response.hasProfileResult());
+    response = search(getRequestBuilder().setProfile(true).build());
+    assertTrue(response.hasProfileResult());
+    assertEquals(hits, cache.getHitCount());
+    assertEquals(misses, cache.getMissCount());
+    assertEquals(0, cache.getCacheSize());
+  }
+
+  @Test
+  public void testInvalidatedOnRefresh() throws Exception {
+    SearchResponseCache cache = getResponseCache();
+    SearchResponse first = search(getRequestBuilder().build());
+    assertEquals(1, cache.getCacheSize());
+
+    addDocs(10);
+    getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX).getShard(0).maybeRefreshBlocking();
+    assertEquals(0, cache.getCacheSize());
+
+    long hits = cache.getHitCount();
+    SearchResponse second = search(getRequestBuilder().build());
+    assertEquals(hits, cache.getHitCount());
+    assertEquals(first.getTotalHits().getValue() + 10, second.getTotalHits().getValue());
+    assertNotEquals(
+        first.getSearchState().getSearcherVersion(), second.getSearchState().getSearcherVersion());
+    assertEquals(1, cache.getCacheSize());
+  }
+
+  @Test
+  public void testNotServedAfterStateUpdate() throws Exception {
+    SearchResponseCache cache = getResponseCache();
+    SearchResponse first = search(getRequestBuilder().build());
+    assertEquals(100, first.getTotalHits().getValue());
+    assertEquals(1, cache.getCacheSize());
+
+    try {
+      getGrpcServer()
+          .getBlockingStub()
+          .liveSettingsV2(
+              LiveSettingsV2Request.newBuilder()
+                  .setIndexName(DEFAULT_TEST_INDEX)
+                  .setLiveSettings(
+                      IndexLiveSettings.newBuilder()
+                          .setDefaultTerminateAfter(Int32Value.newBuilder().setValue(10).build())
+                          .build())
+                  .build());
+
+      // the update does not refresh the index, so the reader version is unchanged
+      long hits = cache.getHitCount();
+      long misses = cache.getMissCount();
+      SearchResponse second = search(getRequestBuilder().build());
+      assertEquals(hits, cache.getHitCount());
+      assertEquals(misses + 1, cache.getMissCount());
+      assertEquals(
+          first.getSearchState().getSearcherVersion(),
+          second.getSearchState().getSearcherVersion());
+      assertTrue(second.getTerminatedEarly());
+      assertTrue(second.getTotalHits().getValue() < 100);
+    } finally {
+      getGrpcServer()
+          .getBlockingStub()
+          .liveSettingsV2(
+              LiveSettingsV2Request.newBuilder()
+                  .setIndexName(DEFAULT_TEST_INDEX)
+                  .setLiveSettings(
+                      IndexLiveSettings.newBuilder()
+                          .setDefaultTerminateAfter(Int32Value.newBuilder().setValue(0).build())
+                          .build())
+                  .build());
+    }
+  }
+
+  @Test
+  public void testCollectorMetrics() {
+    SearchResponseCache cache = getResponseCache();
+    search(getRequestBuilder().build());
+    search(getRequestBuilder().build());
+
+    MetricSnapshots metrics = new QueryCacheCollector(getGlobalState()).collect();
+    Map<String, GaugeSnapshot.GaugeDataPointSnapshot> sampleMap = new HashMap<>();
+    for (MetricSnapshot metric : metrics) {
+      if (metric.getMetadata().getName().startsWith("nrt_search_response_cache")) {
+        assertEquals(1, metric.getDataPoints().size());
+        sampleMap.put(
+            metric.getMetadata().getName(),
+            (GaugeSnapshot.GaugeDataPointSnapshot) metric.getDataPoints().getFirst());
+      }
+    }
+    assertEquals(5, sampleMap.size());
+
+    GaugeSnapshot.GaugeDataPointSnapshot sample = sampleMap.get("nrt_search_response_cache_hits");
+    assertNotNull(sample);
+    assertEquals("index", sample.getLabels().getName(0));
+    assertEquals(DEFAULT_TEST_INDEX, sample.getLabels().getValue(0));
+    assertEquals(cache.getHitCount(), sample.getValue(), 0);
+    assertEquals(
+        cache.getMissCount(), sampleMap.get("nrt_search_response_cache_misses").getValue(), 0);
+    assertEquals(1, sampleMap.get("nrt_search_response_cache_size").getValue(), 0);
+    assertEquals(
+        cache.getSizeBytes(), sampleMap.get("nrt_search_response_cache_size_bytes").getValue(), 0);
+    assertTrue(cache.getSizeBytes() > 0);
+  }
+
+  @Test
+  public void testIsCacheable() {
+    assertTrue(SearchResponseCache.isCacheable(getRequestBuilder().build()));
+    assertFalse(SearchResponseCache.isCacheable(getRequestBuilder().setProfile(true).build()));
+    assertFalse(
+        SearchResponseCache.isCacheable(
+            getRequestBuilder()
+                .setLoggingHits(LoggingHits.newBuilder().setName("logger"))
+                .build()));
+    assertTrue(SearchResponseCache.isCacheable(SearchResponse.newBuilder().build()));
+    assertFalse(
+        SearchResponseCache.isCacheable(SearchResponse.newBuilder().setHitTimeout(true).build()));
+  }
+
+  @Test
+  public void testCachedSearchState() throws Exception {
+    SearchResponse first = search(getRequestBuilder().build());
+    long beforeSec = System.currentTimeMillis() / 1000;
+    Thread.sleep(1100);
+    SearchResponse second = search(getRequestBuilder().build());
+    assertEquals(1, getResponseCache().getCacheSize());
+    assertTrue(first.getSearchState().getTimestamp() <= beforeSec);
+    assertTrue(second.getSearchState().getTimestamp() > beforeSec);
+    assertEquals(
+        first.getSearchState().getSearcherVersion(), second.getSearchState().getSearcherVersion());
+  }
+
+  @Test
+  public void testCachedRequestWarming() throws Exception {
+    IndexState indexState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX);
+    // the warmer is only initialized for replicas on start
+    indexState.initWarmer(getGlobalState().getRemoteBackend());
+    Warmer warmer = indexState.getWarmer();
+    assertNotNull(warmer);
+    long hits = getResponseCache().getHitCount();
+    SearchRequest request = getRequestBuilder().setTopHits(7).build();
+    search(request);
+    int warmingRequests = warmer.getNumWarmingRequests();
+    search(request);
+    assertEquals(hits + 1, getResponseCache().getHitCount());
+    assertEquals(warmingRequests + 1, warmer.getNumWarmingRequests());
+  }
+
+  @Test
+  public void testIsCacheableFacets() {
+    SearchRequest request =
+        getRequestBuilder()
+            .addFacets(Facet.newBuilder().setName("facet").setDim("int_field").setTopN(5))
+            .build();
+    assertTrue(SearchResponseCache.isCacheable(request, null));
+    assertTrue(
+        SearchResponseCache.isCacheable(getRequestBuilder().build(), mock(TaxonomyReader.class)));
+    assertFalse(SearchResponseCache.isCacheable(request, mock(TaxonomyReader.class)));
+  }
+
+  @Test
+  public void testKey() throws IOException {
+    IndexState indexState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX);
+    SearchResponseCache.Key key =
+        SearchResponseCache.getKey(getRequestBuilder().build(), 5, indexState);
+    assertEquals(
+        key,
+        SearchResponseCache.getKey(
+            getRequestBuilder()
+                .setTimeoutSec(1)
+                .setVersion(5)
+                .setResponseCompression("gzip")
+                .build(),
+            5,
+            indexState));
+    assertNotEquals(key, SearchResponseCache.getKey(getRequestBuilder().build(), 6, indexState));
+    assertNotEquals(
+        key, SearchResponseCache.getKey(getRequestBuilder().setStartHit(1).build(), 5, indexState));
+    assertNotEquals(
+        key, SearchResponseCache.getKey(getRequestBuilder().build(), 5, mock(IndexState.class)));
+  }
+
+  @Test
+  public void testInvalidateStale() throws IOException {
+    IndexState indexState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX);
+    IndexState otherIndexState = mock(IndexState.class);
+    SearchResponseCache cache = new SearchResponseCache(1024 * 1024);
+    SearchResponse response = SearchResponse.newBuilder().setHitTimeout(false).build();
+    SearchResponseCache.Key key1 =
+        SearchResponseCache.getKey(getRequestBuilder().build(), 1, indexState);
+    SearchResponseCache.Key key2 =
+        SearchResponseCache.getKey(getRequestBuilder().build(), 2, indexState);
+    SearchResponseCache.Key key3 =
+        SearchResponseCache.getKey(getRequestBuilder().build(), 2, otherIndexState);
+    cache.put(key1, response);
+    cache.put(key2, response);
+    cache.put(key3, response);
+    assertEquals(3, cache.getCacheSize());
+
+    cache.invalidateStale(2, indexState);
+    assertEquals(1, cache.getCacheSize());
+    assertNull(cache.get(key1));
+    assertNotNull(cache.get(key2));
+    assertNull(cache.get(key3));
+    assertEquals(key2.request().getSerializedSize(), cache.getSizeBytes());
+    assertEquals(0, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testSizeEviction() throws IOException {
+    IndexState indexState = getGlobalState().getIndexOrThrow(DEFAULT_TEST_INDEX);
+    SearchRequest request = getRequestBuilder().build();
+    int entrySize = request.getSerializedSize();
+    long maxBytes = entrySize * 40L;
+    SearchResponseCache cache = new SearchResponseCache(maxBytes);
+    for (int i = 0; i < 100; ++i) {
+      cache.put(
+          SearchResponseCache.getKey(request, i, indexState), SearchResponse.getDefaultInstance());
+    }
+    assertTrue(cache.getCacheSize() <= 40);
+    assertTrue(cache.getSizeBytes() <= maxBytes);
+    assertEquals(cache.getCacheSize() * entrySize, cache.getSizeBytes());
+    assertEquals(100 - cache.getCacheSize(), cache.getEvictionCount());
+  }
+}
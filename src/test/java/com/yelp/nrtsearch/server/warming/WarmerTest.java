@@ -15,13 +15,20 @@
  */
 package com.yelp.nrtsearch.server.warming;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.yelp.nrtsearch.server.config.NrtsearchConfig;
+import com.yelp.nrtsearch.server.field.FieldDef;
 import com.yelp.nrtsearch.server.grpc.FunctionScoreQuery;
 import com.yelp.nrtsearch.server.grpc.Query;
 import com.yelp.nrtsearch.server.grpc.Script;
@@ -42,6 +49,7 @@ import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.Rule;
@@ -172,6 +180,89 @@ public class WarmerTest {
     verifyNoMoreInteractions(mockSearchHandler);
   }
 
+  @Test
+  public void testWarmUntilConverged()
+      throws IOException, SearchHandler.SearchHandlerException, InterruptedException {
+    byte[] warmingBytes = getWarmingBytes(getTestSearchRequestsAsJsonStrings());
+    remoteBackend.uploadWarmingQueries(service, "test_index", warmingBytes);
+
+    IndexState mockIndexState = mock(IndexState.class);
+    when(mockIndexState.getField("field0")).thenReturn(mock(FieldDef.class));
+    when(mockIndexState.getField("field2")).thenReturn(mock(FieldDef.class));
+    SearchHandler mockSearchHandler = mock(SearchHandler.class);
+
+    // a pass must not take any time to count as a 100% improvement, so the second pass converges
+    WarmerConfig warmerConfig = new WarmerConfig(4, 1, 0, true, true, 5, 100);
+    WarmingReport report =
+        warmer.warmUntilConverged(mockIndexState, warmerConfig, mockSearchHandler, Set.of("ord"));
+
+    for (SearchRequest testRequest : getTestSearchRequests()) {
+      verify(mockSearchHandler, times(2)).handle(mockIndexState, testRequest);
+    }
+    verifyNoMoreInteractions(mockSearchHandler);
+    assertEquals(4, report.numQueries());
+    assertEquals(2, report.getNumPasses());
+    assertTrue(report.converged());
+    assertEquals(Set.of("field0", "field2"), report.touchedFields());
+    assertEquals(Set.of("ord"), report.primedOrdinalFields());
+    assertSame(report, warmer.getLastWarmingReport());
+  }
+
+  @Test
+  public void testWarmUntilConverged_maxPasses()
+      throws IOException, SearchHandler.SearchHandlerException, InterruptedException {
+    byte[] warmingBytes = getWarmingBytes(getTestSearchRequestsAsJsonStrings());
+    remoteBackend.uploadWarmingQueries(service, "test_index", warmingBytes);
+
+    IndexState mockIndexState = mock(IndexState.class);
+    SearchHandler mockSearchHandler = mock(SearchHandler.class);
+
+    WarmerConfig warmerConfig = new WarmerConfig(4, 3, 0, true, true, 1, 0);
+    WarmingReport report =
+        warmer.warmUntilConverged(mockIndexState, warmerConfig, mockSearchHandler, Set.of());
+
+    for (SearchRequest testRequest : getTestSearchRequests()) {
+      verify(mockSearchHandler).handle(mockIndexState, testRequest);
+    }
+    verifyNoMoreInteractions(mockSearchHandler);
+    assertEquals(1, report.getNumPasses());
+    assertFalse(report.converged());
+    assertEquals(Set.of(), report.touchedFields());
+  }
+
+  @Test
+  public void testWarmUntilConverged_noQueries()
+      throws IOException, SearchHandler.SearchHandlerException, InterruptedException {
+    SearchHandler mockSearchHandler = mock(SearchHandler.class);
+    WarmerConfig warmerConfig = new WarmerConfig(4, 1, 0, true, true, 5, 5);
+    assertNull(
+        warmer.warmUntilConverged(
+            mock(IndexState.class), warmerConfig, mockSearchHandler, Set.of()));
+    verifyNoMoreInteractions(mockSearchHandler);
+    assertNull(warmer.getLastWarmingReport());
+  }
+
+  @Test
+  public void testIsImproved() {
+    assertTrue(Warmer.isImproved(10.0, 9.5, 5));
+    assertFalse(Warmer.isImproved(10.0, 9.6, 5));
+    assertFalse(Warmer.isImproved(10.0, 11.0, 0));
+    assertTrue(Warmer.isImproved(10.0, 10.0, 0));
+    assertFalse(Warmer.isImproved(0, 0, 0));
+  }
+
+  @Test
+  public void testGetPercentile() {
+    long[] values = new long[100];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = values.length - i;
+    }
+    assertEquals(95, Warmer.getPercentile(values, 95));
+    assertEquals(100, Warmer.getPercentile(values, 100));
+    assertEquals(1, Warmer.getPercentile(values, 0));
+    assertEquals(7, Warmer.getPercentile(new long[] {7}, 95));
+  }
+
   private byte[] getWarmingBytes(List<String> queryStrings) throws IOException {
     ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
     try (OutputStreamWriter writer =
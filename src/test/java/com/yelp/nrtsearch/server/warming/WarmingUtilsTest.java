@@ -36,8 +36,11 @@ import com.yelp.nrtsearch.server.grpc.QuerySortField;
 import com.yelp.nrtsearch.server.grpc.Rescorer;
 import com.yelp.nrtsearch.server.grpc.Script;
 import com.yelp.nrtsearch.server.grpc.SearchRequest;
+import com.yelp.nrtsearch.server.grpc.SortFields;
+import com.yelp.nrtsearch.server.grpc.SortType;
 import com.yelp.nrtsearch.server.grpc.TermQuery;
 import java.util.List;
+import java.util.Set;
 import org.junit.Test;
 
 public class WarmingUtilsTest {
@@ -270,4 +273,34 @@ public class WarmingUtilsTest {
             .build(),
         simplifiedRequest.getQuery());
   }
+
+  @Test
+  public void testGetReferencedFields() {
+    SearchRequest searchRequest =
+        SearchRequest.newBuilder()
+            .addAllRetrieveFields(List.of("retrieve_1", "retrieve_2"))
+            .setQuery(
+                Query.newBuilder()
+                    .setBooleanQuery(
+                        BooleanQuery.newBuilder()
+                            .addClauses(
+                                BooleanClause.newBuilder()
+                                    .setQuery(
+                                        Query.newBuilder()
+                                            .setTermQuery(
+                                                TermQuery.newBuilder()
+                                                    .setField("term_field")
+                                                    .setTextValue("value"))))))
+            .setQuerySort(
+                QuerySortField.newBuilder()
+                    .setFields(
+                        SortFields.newBuilder()
+                            .addSortedFields(SortType.newBuilder().setFieldName("sort_field"))))
+            .addFacets(Facet.newBuilder().setDim("facet_dim"))
+            .build();
+    assertEquals(
+        Set.of("retrieve_1", "retrieve_2", "term_field", "sort_field", "facet_dim"),
+        WarmingUtils.getReferencedFields(searchRequest));
+    assertEquals(Set.of(), WarmingUtils.getReferencedFields(SearchRequest.newBuilder().build()));
+  }
 }